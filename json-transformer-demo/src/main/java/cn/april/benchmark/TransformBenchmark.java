@@ -0,0 +1,647 @@
+package cn.april.benchmark;
+
+import cn.april.model.ExpressionSandbox;
+import cn.april.model.FieldMapping;
+import cn.april.model.MappingProfile;
+import cn.april.model.TransformConfig;
+import cn.april.service.JsonTransformService;
+import cn.april.service.path.SimplePath;
+import cn.april.service.scan.StructuralScanner;
+import cn.april.service.tape.JsonTape;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 转换性能基准
+ * 运行方式：java cn.april.benchmark.TransformBenchmark [项目...]，不指定项目时运行全部
+ * 结果仅用于同一台机器上的前后对比，不做绝对性能承诺
+ *
+ * @author April
+ */
+public class TransformBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final int STARTUP_EXPRESSION_COUNT = 200;
+    private static final int SANDBOX_EXPRESSION_COUNT = 20;
+    private static final long SANDBOX_RUNAWAY_TIMEOUT_MILLIS = 50;
+    private static final int THROUGHPUT_RECORD_COUNT = 1000;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURE_ITERATIONS = 500;
+    private static final int CONCURRENCY_RECORD_COUNT = 20000;
+    private static final int CONCURRENCY_PLATFORM_THREADS = 64;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, BenchmarkItem> items = new LinkedHashMap<>();
+        items.put("startup", TransformBenchmark::startup);
+        items.put("throughput", TransformBenchmark::throughput);
+        items.put("binary", TransformBenchmark::binary);
+        items.put("output", TransformBenchmark::output);
+        items.put("sandbox", TransformBenchmark::sandbox);
+        items.put("tape", TransformBenchmark::tape);
+        items.put("scan", TransformBenchmark::scan);
+        items.put("adaptive", TransformBenchmark::adaptive);
+        items.put("concurrency", TransformBenchmark::concurrency);
+
+        List<String> selected = args.length == 0 ? new ArrayList<>(items.keySet()) : Arrays.asList(args);
+        for (String name : selected) {
+            BenchmarkItem item = items.get(name);
+            if (item == null) {
+                System.err.println("未知的基准项目: " + name + "，可选: " + items.keySet());
+                continue;
+            }
+            System.out.println("== " + name + " ==");
+            item.run();
+        }
+    }
+
+    /**
+     * 启动耗时：无缓存、冷缓存（首次写入）、热缓存（直接加载字节码）三种情况下创建服务的时间
+     */
+    private static void startup() throws Exception {
+        TransformConfig config = expressionHeavyConfig(STARTUP_EXPRESSION_COUNT);
+        System.out.printf("Groovy表达式数量: %d%n", STARTUP_EXPRESSION_COUNT);
+        System.out.printf("无缓存: %.1f ms%n", measureStartup(config));
+
+        Path cacheDir = Files.createTempDirectory("json-transformer-script-cache");
+        try {
+            config.setScriptCacheDir(cacheDir.toString());
+            System.out.printf("冷缓存: %.1f ms%n", measureStartup(config));
+            System.out.printf("热缓存: %.1f ms%n", measureStartup(config));
+        } finally {
+            deleteRecursively(cacheDir);
+        }
+    }
+
+    /**
+     * 吞吐量：用演示配置转换由演示数据复制出的大数组
+     */
+    private static void throughput() throws Exception {
+        TransformConfig config = loadConfig("tieba_test_template.json");
+        byte[] source = repeatedRecords("tieba_test_data_array.json", THROUGHPUT_RECORD_COUNT);
+        JsonTransformService service = new JsonTransformService(config);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            service.transform(source);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            service.transform(source);
+        }
+        report(System.nanoTime() - start, MEASURE_ITERATIONS, THROUGHPUT_RECORD_COUNT, source.length);
+    }
+
+    /**
+     * 数据格式对比：同一批记录分别以JSON、Smile、CBOR编码，比较 transformToBytes 的吞吐量与每条记录的字节数
+     */
+    private static void binary() throws Exception {
+        TransformConfig config = loadConfig("tieba_test_template.json");
+        JsonNode records = MAPPER.readTree(repeatedRecords("tieba_test_data_array.json", THROUGHPUT_RECORD_COUNT));
+
+        Map<String, JsonFactory> formats = new LinkedHashMap<>();
+        formats.put("json", new JsonFactory());
+        formats.put("smile", new SmileFactory());
+        formats.put("cbor", new CBORFactory());
+        for (Map.Entry<String, JsonFactory> format : formats.entrySet()) {
+            byte[] source = new ObjectMapper(format.getValue()).writeValueAsBytes(records);
+            JsonTransformService service = new JsonTransformService(config, ForkJoinPool.commonPool(), format.getValue());
+
+            byte[] output = null;
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                output = service.transformToBytes(source);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+                service.transformToBytes(source);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("[%s] 输入字节/记录: %.1f, 输出字节/记录: %.1f%n", format.getKey(),
+                    (double) source.length / THROUGHPUT_RECORD_COUNT, (double) output.length / THROUGHPUT_RECORD_COUNT);
+            report(elapsed, MEASURE_ITERATIONS, THROUGHPUT_RECORD_COUNT, source.length);
+        }
+    }
+
+    /**
+     * 输出方式对比：先构建结果树再序列化，与 transformToBytes 按模板骨架直接写出
+     */
+    private static void output() throws Exception {
+        TransformConfig config = loadConfig("tieba_test_template.json");
+        byte[] source = repeatedRecords("tieba_test_data_array.json", THROUGHPUT_RECORD_COUNT);
+        JsonTransformService service = new JsonTransformService(config);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            MAPPER.writeValueAsBytes(service.transform(source));
+            service.transformToBytes(source);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            MAPPER.writeValueAsBytes(service.transform(source));
+        }
+        System.out.print("[结果树] ");
+        report(System.nanoTime() - start, MEASURE_ITERATIONS, THROUGHPUT_RECORD_COUNT, source.length);
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            service.transformToBytes(source);
+        }
+        System.out.print("[模板骨架] ");
+        report(System.nanoTime() - start, MEASURE_ITERATIONS, THROUGHPUT_RECORD_COUNT, source.length);
+    }
+
+    /**
+     * 沙箱开销：同一组Groovy表达式（一半含闭包）在不开沙箱、开沙箱、开沙箱并设置记录预算时的吞吐量
+     * 三种方式轮流测量多轮后汇总，减少JIT与GC时机带来的顺序偏差；之后检查失控表达式（见 sandboxRunaway）
+     */
+    private static void sandbox() throws Exception {
+        byte[] source = repeatedRecords("tieba_test_data_array.json", THROUGHPUT_RECORD_COUNT);
+        ExpressionSandbox budgeted = new ExpressionSandbox();
+        budgeted.setRecordBudgetMillis(50L);
+
+        Map<String, ExpressionSandbox> modes = new LinkedHashMap<>();
+        modes.put("无沙箱", null);
+        modes.put("沙箱", new ExpressionSandbox());
+        modes.put("沙箱+记录预算", budgeted);
+        List<JsonTransformService> services = new ArrayList<>();
+        for (ExpressionSandbox sandbox : modes.values()) {
+            TransformConfig config = sandboxConfig(SANDBOX_EXPRESSION_COUNT);
+            config.setExpressionSandbox(sandbox);
+            services.add(new JsonTransformService(config));
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            for (JsonTransformService service : services) {
+                service.transform(source);
+            }
+        }
+        int rounds = 10;
+        long[] elapsed = new long[services.size()];
+        for (int round = 0; round < rounds; round++) {
+            for (int m = 0; m < services.size(); m++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < MEASURE_ITERATIONS / rounds; i++) {
+                    services.get(m).transform(source);
+                }
+                elapsed[m] += System.nanoTime() - start;
+            }
+        }
+        int m = 0;
+        for (String mode : modes.keySet()) {
+            System.out.printf("[%s] 相对无沙箱: %+.1f%%, ", mode, ((double) elapsed[m] / elapsed[0] - 1) * 100);
+            report(elapsed[m], MEASURE_ITERATIONS / rounds * rounds, THROUGHPUT_RECORD_COUNT, source.length);
+            m++;
+        }
+        sandboxRunaway();
+    }
+
+    /**
+     * 失控表达式：循环或分配发生在Groovy库方法内部的表达式，在超时上限为 SANDBOX_RUNAWAY_TIMEOUT_MILLIS 时
+     * 必须在构造服务时被拒绝，或在执行时很快失败（返回原值）；执行超过上限10倍时退出码为1
+     */
+    private static void sandboxRunaway() throws Exception {
+        String record = MAPPER.writeValueAsString(MAPPER.readTree(readResource("tieba_test_data_array.json")).get(0));
+        ExpressionSandbox sandbox = new ExpressionSandbox();
+        sandbox.setTimeoutMillis(SANDBOX_RUNAWAY_TIMEOUT_MILLIS);
+        boolean failed = false;
+        for (String expression : List.of("(1..2000000000L).sum()", "'x' * 300000000", "value.toString() * 300000000",
+                "def s = value.toString(); s *= 300000000; s", "value.toString().padLeft(400000000)",
+                "def s = value.toString(); 40.times { s = s + s }; s", "while (true) { }; 0")) {
+            TransformConfig config = new TransformConfig();
+            config.setTargetJson("{}");
+            config.setMappings(List.of(new FieldMapping("$.title", "$.result", expression, null)));
+            config.setExpressionSandbox(sandbox);
+            JsonTransformService service;
+            try {
+                service = new JsonTransformService(config);
+            } catch (RuntimeException e) {
+                System.out.printf("[失控表达式] 构造时拒绝: %s%n", expression);
+                continue;
+            }
+            long start = System.nanoTime();
+            service.transform(record);
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            boolean slow = millis > SANDBOX_RUNAWAY_TIMEOUT_MILLIS * 10;
+            failed |= slow;
+            System.out.printf("[失控表达式] 执行 %.1f ms%s: %s%n", millis, slow ? "（超过上限10倍）" : "", expression);
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 磁带式解析：只读取每条记录的少量字段时与完整解析为JsonNode对比，以及开启 tapeParsing 前后的转换吞吐量
+     * 两种方式轮流测量多轮后汇总
+     */
+    private static void tape() throws Exception {
+        byte[] source = repeatedRecords("tieba_test_data_array.json", THROUGHPUT_RECORD_COUNT);
+        List<SimplePath> paths = Arrays.asList(SimplePath.parse("$.title"), SimplePath.parse("$.tieba_name"),
+                SimplePath.parse("$.last_modify_ts"));
+        TransformConfig tapeConfig = loadConfig("tieba_test_template.json");
+        tapeConfig.setTapeParsing(true);
+        JsonTransformService treeService = new JsonTransformService(loadConfig("tieba_test_template.json"));
+        JsonTransformService tapeService = new JsonTransformService(tapeConfig);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            readFields(MAPPER.readTree(source), paths);
+            readFields(JsonTape.parse(source), paths);
+            treeService.transform(source);
+            tapeService.transform(source);
+        }
+        int rounds = 10;
+        long[] elapsed = new long[4];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURE_ITERATIONS / rounds; i++) {
+                readFields(MAPPER.readTree(source), paths);
+            }
+            elapsed[0] += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < MEASURE_ITERATIONS / rounds; i++) {
+                readFields(JsonTape.parse(source), paths);
+            }
+            elapsed[1] += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < MEASURE_ITERATIONS / rounds; i++) {
+                treeService.transform(source);
+            }
+            elapsed[2] += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < MEASURE_ITERATIONS / rounds; i++) {
+                tapeService.transform(source);
+            }
+            elapsed[3] += System.nanoTime() - start;
+        }
+        String[] modes = {"JsonNode 读3个字段", "磁带 读3个字段", "JsonNode 转换", "磁带 转换"};
+        for (int m = 0; m < modes.length; m++) {
+            System.out.printf("[%s] ", modes[m]);
+            report(elapsed[m], MEASURE_ITERATIONS / rounds * rounds, THROUGHPUT_RECORD_COUNT, source.length);
+        }
+    }
+
+    /**
+     * 结构扫描：Jackson词法分析与标量、向量结构扫描建立索引的速度，以及选择性解析开启结构扫描前后的转换吞吐量
+     * 每条记录附加一个未被映射引用的长字符串（模拟原始HTML），向量扫描需要以 --add-modules jdk.incubator.vector 启动
+     * （exec:java 时通过 MAVEN_OPTS 传入），未启用时跳过
+     */
+    private static void scan() throws Exception {
+        byte[] source = wideRecords(repeatedRecords("tieba_test_data_array.json", THROUGHPUT_RECORD_COUNT));
+        TransformConfig selectiveConfig = loadConfig("tieba_test_template.json");
+        selectiveConfig.setSelectiveParsing(true);
+        TransformConfig scanningConfig = loadConfig("tieba_test_template.json");
+        scanningConfig.setSelectiveParsing(true);
+        scanningConfig.setStructuralScanning(true);
+
+        Map<String, Runnable> modes = new LinkedHashMap<>();
+        modes.put("Jackson 词法分析", () -> tokenize(source));
+        modes.put("标量 结构索引", () -> StructuralScanner.scalar().index(source, 0, source.length));
+        StructuralScanner vector = StructuralScanner.vector();
+        if (vector != null) {
+            modes.put(vector.getName() + " 结构索引", () -> vector.index(source, 0, source.length));
+        } else {
+            System.out.println("未启用 jdk.incubator.vector 模块，跳过向量扫描");
+        }
+        JsonTransformService selectiveService = new JsonTransformService(selectiveConfig);
+        JsonTransformService scanningService = new JsonTransformService(scanningConfig);
+        modes.put("选择性解析 转换", () -> transformQuietly(selectiveService, source));
+        modes.put("选择性解析+结构扫描 转换", () -> transformQuietly(scanningService, source));
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            modes.values().forEach(Runnable::run);
+        }
+        int rounds = 10;
+        long[] elapsed = new long[modes.size()];
+        for (int round = 0; round < rounds; round++) {
+            int m = 0;
+            for (Runnable mode : modes.values()) {
+                long start = System.nanoTime();
+                for (int i = 0; i < MEASURE_ITERATIONS / rounds; i++) {
+                    mode.run();
+                }
+                elapsed[m++] += System.nanoTime() - start;
+            }
+        }
+        int m = 0;
+        for (String mode : modes.keySet()) {
+            System.out.printf("[%s] ", mode);
+            report(elapsed[m++], MEASURE_ITERATIONS / rounds * rounds, THROUGHPUT_RECORD_COUNT, source.length);
+        }
+    }
+
+    /**
+     * 为每条记录附加一个约4KB、含转义字符的 raw_html 字段
+     */
+    private static byte[] wideRecords(byte[] records) throws IOException {
+        StringBuilder html = new StringBuilder();
+        while (html.length() < 4096) {
+            html.append("<div class=\"post\"><p>兄弟们，这个角色值得抽吗？</p>\n<a href=\"https://tieba.baidu.com/\">贴吧</a></div>");
+        }
+        ArrayNode array = (ArrayNode) MAPPER.readTree(records);
+        for (JsonNode record : array) {
+            ((ObjectNode) record).put("raw_html", html.toString());
+        }
+        return MAPPER.writeValueAsBytes(array);
+    }
+
+    private static int tokenize(byte[] source) {
+        int tokens = 0;
+        try (JsonParser parser = MAPPER.getFactory().createParser(source)) {
+            while (parser.nextToken() != null) {
+                tokens++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return tokens;
+    }
+
+    private static void transformQuietly(JsonTransformService service, byte[] source) {
+        try {
+            service.transform(source);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int readFields(JsonNode records, List<SimplePath> paths) {
+        int found = 0;
+        for (JsonNode record : records) {
+            for (SimplePath path : paths) {
+                if (path.read(record) != null) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    // ---------------------------------------------------------------- 工具方法
+
+    static double measureStartup(TransformConfig config) {
+        long start = System.nanoTime();
+        new JsonTransformService(config);
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    /**
+     * 输出每秒处理的记录数和源数据字节数
+     */
+    static void report(long elapsedNanos, int iterations, int recordsPerIteration, int bytesPerIteration) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("记录/秒: %.0f, MB/秒: %.1f, 每次转换: %.3f ms%n",
+                (double) iterations * recordsPerIteration / seconds,
+                (double) iterations * bytesPerIteration / seconds / (1024 * 1024),
+                elapsedNanos / 1_000_000.0 / iterations);
+    }
+
+    static TransformConfig loadConfig(String resource) throws IOException {
+        return MAPPER.readValue(readResource(resource), TransformConfig.class);
+    }
+
+    /**
+     * 把资源中的记录数组循环复制到指定数量
+     */
+    static byte[] repeatedRecords(String resource, int count) throws IOException {
+        JsonNode records = MAPPER.readTree(readResource(resource));
+        ArrayNode result = MAPPER.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            result.add(records.get(i % records.size()).deepCopy());
+        }
+        return MAPPER.writeValueAsBytes(result);
+    }
+
+    static byte[] readResource(String resource) throws IOException {
+        try (InputStream input = TransformBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IOException("资源不存在: " + resource);
+            }
+            return input.readAllBytes();
+        }
+    }
+
+    /**
+     * 自适应执行：演示模板配置与表达式密集配置分别在开启 adaptive 前后的吞吐量，两种方式轮流测量多轮后汇总
+     */
+    private static void adaptive() throws Exception {
+        byte[] source = repeatedRecords("tieba_test_data_array.json", THROUGHPUT_RECORD_COUNT);
+        Map<String, TransformConfig> configs = new LinkedHashMap<>();
+        configs.put("演示模板", loadConfig("tieba_test_template.json"));
+        configs.put("表达式密集", expressionHeavyConfig(SANDBOX_EXPRESSION_COUNT));
+        for (Map.Entry<String, TransformConfig> entry : configs.entrySet()) {
+            TransformConfig adaptiveConfig = entry.getValue();
+            JsonTransformService genericService = new JsonTransformService(adaptiveConfig);
+            adaptiveConfig.setAdaptive(true);
+            JsonTransformService adaptiveService = new JsonTransformService(adaptiveConfig);
+            JsonTransformService[] services = {genericService, adaptiveService};
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                for (JsonTransformService service : services) {
+                    service.transform(source);
+                }
+            }
+            int rounds = 10;
+            long[] elapsed = new long[services.length];
+            for (int round = 0; round < rounds; round++) {
+                for (int m = 0; m < services.length; m++) {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < MEASURE_ITERATIONS / rounds; i++) {
+                        services[m].transform(source);
+                    }
+                    elapsed[m] += System.nanoTime() - start;
+                }
+            }
+            long optimized = adaptiveService.getMappingProfiles().stream()
+                    .filter(profile -> MappingProfile.OPTIMIZED.equals(profile.getState())).count();
+            System.out.printf("[%s 通用] ", entry.getKey());
+            report(elapsed[0], MEASURE_ITERATIONS / rounds * rounds, THROUGHPUT_RECORD_COUNT, source.length);
+            System.out.printf("[%s 自适应] 已提升映射: %d/%d, 相对通用: %+.1f%%, ", entry.getKey(), optimized,
+                    adaptiveService.getMappingProfiles().size(), ((double) elapsed[1] / elapsed[0] - 1) * 100);
+            report(elapsed[1], MEASURE_ITERATIONS / rounds * rounds, THROUGHPUT_RECORD_COUNT, source.length);
+        }
+    }
+
+    /**
+     * 并发正确性检查：沙箱Groovy表达式（含闭包与JSONPath）的记录先逐条同步转换得到期望结果，
+     * 再同时通过 transformAsync 与多个调用线程的同步 transform 转换，结果不一致时退出码为1
+     * JDK提供虚拟线程时 transformAsync 使用每任务一个虚拟线程的执行器，并用 -Djdk.tracePinnedThreads=short 运行时
+     * 统计检查期间 JDK 输出的载体线程钉住（pinned）报告；否则使用平台线程池，只检查结果
+     */
+    private static void concurrency() throws Exception {
+        TransformConfig config = sandboxConfig(SANDBOX_EXPRESSION_COUNT);
+        config.getMappings().add(new FieldMapping("$.note_id", "$.note", "$.title == null ? value : value + '/' + $.title", null));
+        // 调用线程远多于CPU核数时单个表达式的墙钟时间可能超过默认上限，放宽上限避免超时被算作不一致
+        ExpressionSandbox sandbox = new ExpressionSandbox();
+        sandbox.setTimeoutMillis(10_000L);
+        config.setExpressionSandbox(sandbox);
+        JsonNode templates = MAPPER.readTree(readResource("tieba_test_data_array.json"));
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY_RECORD_COUNT; i++) {
+            ObjectNode record = (ObjectNode) templates.get(i % templates.size()).deepCopy();
+            record.put("note_id", String.valueOf(i));
+            record.put("title", record.path("title").asText() + " #" + i);
+            sources.add(MAPPER.writeValueAsString(record));
+        }
+
+        ExecutorService executor = virtualThreadExecutor();
+        boolean virtual = executor != null;
+        if (!virtual) {
+            executor = Executors.newFixedThreadPool(CONCURRENCY_PLATFORM_THREADS);
+        }
+        JsonTransformService service = new JsonTransformService(config, executor);
+        List<JsonNode> expected = new ArrayList<>();
+        for (String source : sources) {
+            expected.add(service.transform(source));
+        }
+
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        boolean tracing = virtual && System.getProperty("jdk.tracePinnedThreads") != null;
+        AtomicInteger mismatches = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            if (tracing) {
+                // 钉住报告由JDK写到System.out
+                System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            }
+            List<CompletableFuture<JsonNode>> futures = new ArrayList<>();
+            for (String source : sources) {
+                futures.add(service.transformAsync(source));
+            }
+            int callers = Math.max(2, Runtime.getRuntime().availableProcessors());
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < callers; t++) {
+                int offset = t;
+                Thread thread = new Thread(() -> {
+                    for (int i = offset; i < sources.size(); i += callers) {
+                        try {
+                            if (!expected.get(i).equals(service.transform(sources.get(i)))) {
+                                mismatches.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                if (!expected.get(i).equals(futures.get(i).join())) {
+                    mismatches.incrementAndGet();
+                }
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            System.setOut(stdout);
+            executor.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int bytes = 0;
+        for (String source : sources) {
+            bytes += source.length();
+        }
+        System.out.printf("[%s] 异步 %d 条 + 同步 %d 条，结果不一致: %d, ", virtual ? "虚拟线程" : "平台线程池",
+                sources.size(), sources.size(), mismatches.get());
+        report(elapsed, 2, sources.size(), bytes);
+        long pinned = 0;
+        if (tracing) {
+            String trace = captured.toString(StandardCharsets.UTF_8);
+            pinned = trace.lines().filter(line -> line.contains("<== monitors")).count();
+            System.out.printf("载体线程钉住报告: %d%n", pinned);
+            if (pinned > 0) {
+                System.out.print(trace);
+            }
+        } else if (virtual) {
+            System.out.println("未设置 -Djdk.tracePinnedThreads，跳过钉住检查");
+        } else {
+            System.out.println("当前JDK不提供虚拟线程，跳过钉住检查");
+        }
+        if (mismatches.get() > 0 || pinned > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * JDK提供虚拟线程时（21+，或19/20启用预览）返回每任务一个虚拟线程的执行器，否则返回null
+     * 通过反射创建，模块按Java 17编译
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 每个映射使用不同的Groovy表达式，放大编译开销
+     */
+    private static TransformConfig expressionHeavyConfig(int expressionCount) {
+        List<FieldMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < expressionCount; i++) {
+            mappings.add(new FieldMapping("$.title", "$.field_" + i,
+                    "value == null ? null : value.toString().length() + " + i, null));
+        }
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(mappings);
+        return config;
+    }
+
+    /**
+     * 沙箱基准的配置：一半为简单表达式，一半为对标题逐字符执行的闭包（每次调用闭包都会经过超时检查）
+     */
+    private static TransformConfig sandboxConfig(int expressionCount) {
+        List<FieldMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < expressionCount; i++) {
+            String expression = i % 2 == 0
+                    ? "value == null ? null : value.toString().length() + " + i
+                    : "value == null ? null : value.toString().toList().count { it != ' ' } + " + i;
+            mappings.add(new FieldMapping("$.title", "$.field_" + i, expression, null));
+        }
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(mappings);
+        return config;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @FunctionalInterface
+    interface BenchmarkItem {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,195 @@
+package cn.april.benchmark;
+
+import cn.april.model.FieldMapping;
+import cn.april.model.TransformConfig;
+import cn.april.service.JsonTransformService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 虚拟线程执行器上的异步接口：transformAsync 的结果与 transformPublisher 的背压
+ * 当前JDK不提供虚拟线程时跳过
+ *
+ * @author April
+ */
+class VirtualThreadTransformTest {
+
+    private static final int RECORDS = 2000;
+
+    private ExecutorService executor;
+    private JsonTransformService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = virtualThreadExecutor();
+        assumeTrue(executor != null, "当前JDK不提供虚拟线程");
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(List.of(
+                new FieldMapping("$.id", "$.id", null, null),
+                new FieldMapping("$.name", "$.name", "value.toUpperCase()", null)));
+        service = new JsonTransformService(config, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void transformsAsynchronously() throws Exception {
+        List<CompletableFuture<JsonNode>> futures = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            futures.add(service.transformAsync(record(i)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        for (int i = 0; i < RECORDS; i++) {
+            JsonNode result = futures.get(i).join();
+            assertEquals(i, result.get("id").asInt());
+            assertEquals("NAME-" + i, result.get("name").asText());
+        }
+    }
+
+    @Test
+    void publisherPropagatesBackpressureToTheSource() throws Exception {
+        CountingSource source = new CountingSource(RECORDS);
+        List<JsonNode> results = new CopyOnWriteArrayList<>();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        service.transformPublisher(source).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+                s.request(2);
+            }
+
+            @Override
+            public void onNext(JsonNode item) {
+                results.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        // 下游只请求了2条：上游的请求量停在下游请求量加缓冲区容量附近，不会把整个源拉完
+        long requested = awaitStable(source.requested);
+        assertTrue(requested < RECORDS, "上游被请求了 " + requested + " 条");
+        assertTrue(requested <= 2 + Flow.defaultBufferSize() + 2, "上游被请求了 " + requested + " 条");
+        assertEquals(2, results.size());
+
+        subscription.get().request(Long.MAX_VALUE);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertEquals(RECORDS, results.size());
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(i, results.get(i).get("id").asInt());
+        }
+    }
+
+    private static String record(int i) {
+        return "{\"id\":" + i + ",\"name\":\"name-" + i + "\"}";
+    }
+
+    /**
+     * 等待计数在一段时间内不再变化
+     */
+    private static long awaitStable(AtomicLong counter) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        long last = -1;
+        while (System.nanoTime() - deadline < 0) {
+            Thread.sleep(300);
+            long current = counter.get();
+            if (current == last) {
+                return current;
+            }
+            last = current;
+        }
+        return last;
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按请求量同步发出记录的源，记录上游被请求的总量
+     */
+    private static final class CountingSource implements Flow.Publisher<String> {
+
+        private final int total;
+        final AtomicLong requested = new AtomicLong();
+
+        CountingSource(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private long demand;
+                private int emitted;
+                private boolean emitting;
+
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    demand += n;
+                    // 处理器可能在 onNext 中再次请求，由外层循环继续发出
+                    if (emitting) {
+                        return;
+                    }
+                    emitting = true;
+                    while (demand > 0 && emitted < total) {
+                        demand--;
+                        subscriber.onNext(record(emitted++));
+                    }
+                    if (emitted == total) {
+                        emitted++;
+                        subscriber.onComplete();
+                    }
+                    emitting = false;
+                }
+
+                @Override
+                public synchronized void cancel() {
+                    emitted = total + 1;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package cn.april.harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 合成源文档生成器：按配置的读取集合（SourceShape）生成字段，值的类型按映射的目标类型、表达式与过滤条件选择，
+ * 再追加映射用不到的填充字段与填充文本，使记录的宽度、嵌套深度与大小接近真实数据
+ * 相同的结构、参数与种子总是生成相同的记录
+ *
+ * @author April
+ */
+public class DataGenerator {
+
+    // 满足过滤条件的记录比例
+    private static final double FILTER_PASS_RATE = 0.9;
+    private static final String[] ASCII_WORDS = {
+            "game", "update", "event", "guide", "review", "patch", "server", "player", "team", "match",
+            "season", "ranking", "build", "skill", "drop", "raid", "login", "reward", "bug", "news"};
+    private static final String[] CJK_WORDS = {
+            "角色", "版本", "活动", "攻略", "抽卡", "联动", "副本", "排行", "公会", "奖励",
+            "更新", "剧情", "兄弟们", "请问", "厉害", "推荐", "新手", "平衡", "体验", "讨论"};
+    private static final String PAD_TEXT = "lorem ipsum dolor sit amet consectetur adipiscing elit ";
+    private static final long BASE_EPOCH_SECONDS = 1_700_000_000L;
+
+    private final SourceShape shape;
+    private final GeneratorOptions options;
+    private final ObjectMapper objectMapper;
+    private final SplittableRandom random;
+    private final String idPrefix;
+    private long sequence;
+
+    public DataGenerator(SourceShape shape, GeneratorOptions options, ObjectMapper objectMapper) {
+        this.shape = shape;
+        this.options = options;
+        this.objectMapper = objectMapper;
+        this.random = new SplittableRandom(options.getSeed());
+        this.idPrefix = Long.toHexString(options.getSeed()) + "-";
+    }
+
+    /**
+     * 生成下一条记录
+     */
+    public ObjectNode next() {
+        ObjectNode record = JsonNodeFactory.instance.objectNode();
+        fillObject(record, shape);
+        addFillers(record);
+        sequence++;
+        return record;
+    }
+
+    /**
+     * 生成下一条记录并编码为UTF-8字节，指定了 size 时填充到目标大小
+     */
+    public byte[] nextBytes() throws IOException {
+        ObjectNode record = next();
+        byte[] bytes = objectMapper.writeValueAsBytes(record);
+        int missing = options.getSize() - bytes.length;
+        // ,"_pad":"" 本身占10个字节
+        if (missing > 10) {
+            record.put("_pad", padding(missing - 10));
+            bytes = objectMapper.writeValueAsBytes(record);
+        }
+        return bytes;
+    }
+
+    /**
+     * 生成 count 条记录
+     */
+    public List<byte[]> generate() throws IOException {
+        List<byte[]> records = new ArrayList<>(options.getCount());
+        for (int i = 0; i < options.getCount(); i++) {
+            records.add(nextBytes());
+        }
+        return records;
+    }
+
+    /**
+     * 生成 count 条记录，按NDJSON写出
+     */
+    public void writeNdjson(OutputStream output) throws IOException {
+        for (int i = 0; i < options.getCount(); i++) {
+            output.write(nextBytes());
+            output.write('\n');
+        }
+        output.flush();
+    }
+
+    private void fillObject(ObjectNode target, SourceShape node) {
+        node.getFields().forEach((name, child) -> {
+            if (child.getHint() == SourceShape.Hint.ABSENT && random.nextDouble() < FILTER_PASS_RATE) {
+                return;
+            }
+            target.set(name, value(child));
+        });
+    }
+
+    private JsonNode value(SourceShape node) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        if (!node.isLeaf()) {
+            if (node.getElement() != null) {
+                ArrayNode array = factory.arrayNode();
+                for (int i = 0; i < options.getArrayLength(); i++) {
+                    array.add(value(node.getElement()));
+                }
+                return array;
+            }
+            ObjectNode object = factory.objectNode();
+            fillObject(object, node);
+            return object;
+        }
+        // 判别字段、去重字段与过滤字段不生成null，否则大部分记录会被跳过
+        boolean nullable = node.getHint() != SourceShape.Hint.UNIQUE_ID && !node.isPreferChoices()
+                && node.getHint() != SourceShape.Hint.CHOICE;
+        if (nullable && random.nextDouble() < options.getNullRate()) {
+            return factory.nullNode();
+        }
+        switch (node.getHint()) {
+            case INTEGER:
+                return factory.numberNode(random.nextInt(100_000));
+            case DECIMAL:
+                return factory.numberNode(Math.round(random.nextDouble() * 1_000_000) / 100.0);
+            case BOOLEAN:
+                return factory.booleanNode(random.nextBoolean());
+            case EPOCH_SECONDS:
+                return factory.textNode(Long.toString(BASE_EPOCH_SECONDS + random.nextInt(100_000_000)));
+            case UNIQUE_ID:
+                return factory.textNode(idPrefix + sequence);
+            case CHOICE:
+                if (!node.getChoices().isEmpty()
+                        && (!node.isPreferChoices() || random.nextDouble() < FILTER_PASS_RATE)) {
+                    return objectMapper.valueToTree(node.getChoices().get(random.nextInt(node.getChoices().size())));
+                }
+                return factory.textNode(words(1, 2));
+            default:
+                return factory.textNode(words(1, 12));
+        }
+    }
+
+    private void addFillers(ObjectNode record) {
+        for (int i = 0; i < options.getFields(); i++) {
+            ObjectNode parent = record;
+            int level = options.getDepth() <= 1 ? 0 : random.nextInt(options.getDepth());
+            for (int j = 1; j <= level; j++) {
+                JsonNode nested = parent.get("_nested" + j);
+                parent = nested instanceof ObjectNode ? (ObjectNode) nested : parent.putObject("_nested" + j);
+            }
+            String name = "_f" + i;
+            switch (i % 4) {
+                case 0:
+                    parent.put(name, random.nextLong(1_000_000_000L));
+                    break;
+                case 1:
+                    parent.put(name, random.nextDouble() < 0.5);
+                    break;
+                default:
+                    parent.put(name, words(1, 8));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 随机文本：大约一半的词为中文
+     */
+    private String words(int min, int max) {
+        int count = min + random.nextInt(max - min + 1);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (random.nextBoolean()) {
+                builder.append(CJK_WORDS[random.nextInt(CJK_WORDS.length)]);
+            } else {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(ASCII_WORDS[random.nextInt(ASCII_WORDS.length)]);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String padding(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(PAD_TEXT);
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+}
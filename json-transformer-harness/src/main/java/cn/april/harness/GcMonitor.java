@@ -0,0 +1,105 @@
+package cn.april.harness;
+
+import cn.april.harness.model.GcSummary;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 通过GC通知统计停顿：每次收集结束时JVM发送一条通知，包含收集器名称、动作与耗时
+ * ZGC、Shenandoah 的并发周期（名称或动作包含 cycle）只计数，不计入停顿
+ *
+ * @author April
+ */
+public class GcMonitor implements NotificationListener, AutoCloseable {
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final List<String> collectors = new ArrayList<>();
+    private long pauseCount;
+    private long totalPauseMillis;
+    private long maxPauseMillis;
+    private long concurrentCycles;
+
+    /**
+     * 在所有收集器上注册监听
+     */
+    public GcMonitor() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.add(bean.getName());
+            if (bean instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) bean;
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        String name = info.getGcName() + " " + info.getGcAction();
+        long duration = info.getGcInfo().getDuration();
+        synchronized (this) {
+            if (name.toLowerCase(Locale.ROOT).contains("cycle")) {
+                concurrentCycles++;
+                return;
+            }
+            pauseCount++;
+            totalPauseMillis += duration;
+            maxPauseMillis = Math.max(maxPauseMillis, duration);
+        }
+    }
+
+    /**
+     * 清空统计（预热结束时调用）
+     */
+    public synchronized void reset() {
+        pauseCount = 0;
+        totalPauseMillis = 0;
+        maxPauseMillis = 0;
+        concurrentCycles = 0;
+    }
+
+    /**
+     * 至今的停顿总时长（毫秒），用于计算区间内的停顿
+     */
+    public synchronized long getTotalPauseMillis() {
+        return totalPauseMillis;
+    }
+
+    /**
+     * 统计摘要
+     *
+     * @param elapsedSeconds 测量时长，用于计算停顿时间占比
+     */
+    public synchronized GcSummary summary(double elapsedSeconds) {
+        double ratio = elapsedSeconds <= 0 ? 0 : totalPauseMillis / (elapsedSeconds * 1000);
+        return new GcSummary(new ArrayList<>(collectors), pauseCount, totalPauseMillis, maxPauseMillis,
+                ratio, concurrentCycles);
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException ignored) {
+                // 已经移除
+            }
+        }
+        emitters.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package cn.april.harness;
+
+import lombok.Data;
+
+/**
+ * 合成数据生成参数，generate 与 soak 子命令共用
+ *
+ * @author April
+ */
+@Data
+public class GeneratorOptions {
+
+    // 生成的记录数
+    private int count = 1000;
+    // 单条记录的目标字节数（0表示不填充），不足时追加填充文本
+    private int size;
+    // 读取集合之外的填充字段数（模拟映射用不到的宽字段）
+    private int fields;
+    // 填充字段的最大嵌套深度（1表示都在顶层）
+    private int depth = 1;
+    // 读取集合中字段为null的概率（0~1）
+    private double nullRate = 0.05;
+    // 数组字段的元素个数
+    private int arrayLength = 3;
+    // 随机种子，相同参数与种子生成相同的数据
+    private long seed = 42;
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "  --count <n>                   生成的记录数（默认1000）",
+            "  --size <bytes>                单条记录的目标字节数，不足时填充（默认不填充）",
+            "  --fields <n>                  读取集合之外的填充字段数（默认0）",
+            "  --depth <n>                   填充字段的最大嵌套深度（默认1）",
+            "  --null-rate <0~1>             读取集合中字段为null的概率（默认0.05）",
+            "  --array-length <n>            数组字段的元素个数（默认3）",
+            "  --seed <n>                    随机种子（默认42）");
+
+    /**
+     * 解析一个生成参数
+     *
+     * @param index 参数名所在的下标
+     * @return 消费的最后一个参数的下标；不是生成参数时返回-1
+     * @throws IllegalArgumentException 参数值缺失或无效
+     */
+    public int parse(String[] args, int index) {
+        String arg = args[index];
+        switch (arg) {
+            case "--count":
+                count = HarnessCli.positiveInt(args, index + 1, arg);
+                break;
+            case "--size":
+                size = HarnessCli.nonNegativeInt(args, index + 1, arg);
+                break;
+            case "--fields":
+                fields = HarnessCli.nonNegativeInt(args, index + 1, arg);
+                break;
+            case "--depth":
+                depth = HarnessCli.positiveInt(args, index + 1, arg);
+                break;
+            case "--null-rate":
+                nullRate = HarnessCli.decimal(args, index + 1, arg);
+                if (nullRate < 0 || nullRate > 1) {
+                    throw new IllegalArgumentException("--null-rate 必须在0~1之间");
+                }
+                break;
+            case "--array-length":
+                arrayLength = HarnessCli.nonNegativeInt(args, index + 1, arg);
+                break;
+            case "--seed":
+                try {
+                    seed = Long.parseLong(HarnessCli.value(args, index + 1, arg));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("--seed 必须是整数");
+                }
+                break;
+            default:
+                return -1;
+        }
+        return index + 1;
+    }
+}
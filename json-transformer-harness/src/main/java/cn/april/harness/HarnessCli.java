@@ -0,0 +1,284 @@
+package cn.april.harness;
+
+import cn.april.harness.model.LatencySummary;
+import cn.april.harness.model.SoakReport;
+import cn.april.model.TransformConfig;
+import cn.april.service.scan.NdjsonReader;
+import cn.april.service.scan.StructuralScanner;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 压测工具命令行入口
+ * generate：按配置的读取集合生成合成NDJSON数据
+ * soak：按目标速率长时间调用转换服务，输出延迟百分位、吞吐、GC停顿与分配速率，并写出JSON报告
+ * compare：对比两份报告
+ *
+ * @author April
+ */
+public class HarnessCli {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "用法: java cn.april.harness.HarnessCli generate --config <配置文件> [--output <file.ndjson>] [生成参数]",
+            "      java cn.april.harness.HarnessCli soak --config <配置文件> [压测参数] [生成参数]",
+            "      java cn.april.harness.HarnessCli compare <基准报告> <当前报告> [--threshold <百分比>]",
+            "",
+            "生成参数:",
+            GeneratorOptions.USAGE,
+            "  --output <file>               generate的输出文件（默认标准输出）",
+            "",
+            "压测参数:",
+            SoakOptions.USAGE,
+            "",
+            "compare参数:",
+            "  --threshold <百分比>          吞吐下降或p99上升超过该比例时退出码为1");
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public static void main(String[] args) {
+        if (args.length == 0 || "--help".equals(args[0])) {
+            System.out.println(USAGE);
+            return;
+        }
+        String[] rest = new String[args.length - 1];
+        System.arraycopy(args, 1, rest, 0, rest.length);
+        HarnessCli cli = new HarnessCli();
+        try {
+            switch (args[0]) {
+                case "generate":
+                    cli.generate(rest);
+                    break;
+                case "soak":
+                    cli.soak(SoakOptions.parse(rest));
+                    break;
+                case "compare":
+                    System.exit(cli.compare(rest) ? 0 : 1);
+                    return;
+                default:
+                    throw new IllegalArgumentException("未知子命令: " + args[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("执行失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 生成合成数据
+     */
+    void generate(String[] args) throws IOException {
+        Path config = null;
+        Path output = null;
+        GeneratorOptions options = new GeneratorOptions();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--config":
+                    config = Paths.get(value(args, ++i, args[i - 1]));
+                    break;
+                case "--output":
+                    output = Paths.get(value(args, ++i, args[i - 1]));
+                    break;
+                default:
+                    int last = options.parse(args, i);
+                    if (last == -1) {
+                        throw new IllegalArgumentException("未知参数: " + args[i]);
+                    }
+                    i = last;
+                    break;
+            }
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("必须指定 --config");
+        }
+        DataGenerator generator = new DataGenerator(SourceShape.fromConfig(readConfig(config)), options, objectMapper);
+        if (output == null) {
+            generator.writeNdjson(new BufferedOutputStream(System.out, BUFFER_SIZE));
+            return;
+        }
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output), BUFFER_SIZE)) {
+            generator.writeNdjson(stream);
+        }
+        System.err.printf("已生成 %d 条记录: %s%n", options.getCount(), output);
+    }
+
+    /**
+     * 运行压测并写出报告
+     */
+    void soak(SoakOptions options) throws IOException, InterruptedException {
+        TransformConfig config = readConfig(options.getConfig());
+        List<byte[]> records;
+        String input;
+        if (options.getInput() != null) {
+            records = readNdjson(options.getInput());
+            input = options.getInput().toString();
+        } else {
+            GeneratorOptions generator = options.getGenerator();
+            records = new DataGenerator(SourceShape.fromConfig(config), generator, objectMapper).generate();
+            input = String.format("synthetic(count=%d, size=%d, fields=%d, depth=%d, nullRate=%s, arrayLength=%d, seed=%d)",
+                    generator.getCount(), generator.getSize(), generator.getFields(), generator.getDepth(),
+                    generator.getNullRate(), generator.getArrayLength(), generator.getSeed());
+        }
+        System.out.printf("输入 %d 条记录，%d 个线程，目标速率 %s，预热 %d 秒，测量 %d 秒%n", records.size(),
+                options.getThreads(), options.getRate() > 0 ? String.format("%.0f 条/秒", options.getRate()) : "闭环",
+                options.getWarmup(), options.getDuration());
+
+        SoakReport report = new SoakRunner(options, config, records, input).run();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(options.getReport().toFile(), report);
+
+        LatencySummary latency = report.getLatency();
+        System.out.printf("吞吐: %,.0f 条/秒（%d 条，失败 %d）%n", report.getThroughput(),
+                report.getOperations(), report.getErrors());
+        System.out.printf("延迟(µs): p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  p99.99 %.1f  max %.1f%n",
+                latency.getP50(), latency.getP90(), latency.getP99(), latency.getP999(), latency.getP9999(),
+                latency.getMax());
+        System.out.printf("服务时间(µs): p50 %.1f  p99 %.1f  max %.1f%n", report.getServiceTime().getP50(),
+                report.getServiceTime().getP99(), report.getServiceTime().getMax());
+        System.out.printf("GC: 停顿 %d 次，合计 %.0f ms，最长 %.0f ms，并发周期 %d%n", report.getGc().getPauseCount(),
+                report.getGc().getTotalPauseMillis(), report.getGc().getMaxPauseMillis(),
+                report.getGc().getConcurrentCycles());
+        if (report.getAllocationBytesPerSecond() != null) {
+            System.out.printf("分配: %.1f MB/秒，%.0f 字节/条%n", report.getAllocationBytesPerSecond() / (1024 * 1024),
+                    report.getAllocationBytesPerOperation());
+        }
+        System.out.println("报告已写出: " + options.getReport());
+    }
+
+    /**
+     * 对比两份报告
+     *
+     * @return 未指定阈值，或吞吐下降与p99上升都不超过阈值时返回true
+     */
+    boolean compare(String[] args) throws IOException {
+        List<Path> reports = new ArrayList<>();
+        Double threshold = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--threshold".equals(args[i])) {
+                threshold = decimal(args, ++i, "--threshold");
+            } else {
+                reports.add(Paths.get(args[i]));
+            }
+        }
+        if (reports.size() != 2) {
+            throw new IllegalArgumentException("compare 需要两份报告");
+        }
+        SoakReport base = objectMapper.readValue(reports.get(0).toFile(), SoakReport.class);
+        SoakReport current = objectMapper.readValue(reports.get(1).toFile(), SoakReport.class);
+
+        System.out.printf("%-24s %16s %16s %10s%n", "指标", "基准", "当前", "变化");
+        row("吞吐(条/秒)", base, current, SoakReport::getThroughput);
+        row("p50(µs)", base, current, report -> report.getLatency().getP50());
+        row("p99(µs)", base, current, report -> report.getLatency().getP99());
+        row("p99.9(µs)", base, current, report -> report.getLatency().getP999());
+        row("max(µs)", base, current, report -> report.getLatency().getMax());
+        row("服务时间p99(µs)", base, current, report -> report.getServiceTime().getP99());
+        row("GC停顿合计(ms)", base, current, report -> report.getGc().getTotalPauseMillis());
+        row("GC最长停顿(ms)", base, current, report -> report.getGc().getMaxPauseMillis());
+        row("分配(字节/秒)", base, current, report -> nullToZero(report.getAllocationBytesPerSecond()));
+        row("分配(字节/条)", base, current, report -> nullToZero(report.getAllocationBytesPerOperation()));
+        if (threshold == null) {
+            return true;
+        }
+        double throughputDrop = -change(base.getThroughput(), current.getThroughput());
+        double p99Rise = change(base.getLatency().getP99(), current.getLatency().getP99());
+        if (throughputDrop > threshold || p99Rise > threshold) {
+            System.out.printf("超过阈值 %.1f%%：吞吐变化 %+.1f%%，p99变化 %+.1f%%%n", threshold, -throughputDrop, p99Rise);
+            return false;
+        }
+        return true;
+    }
+
+    private static void row(String name, SoakReport base, SoakReport current, ToDoubleFunction<SoakReport> metric) {
+        double before = metric.applyAsDouble(base);
+        double after = metric.applyAsDouble(current);
+        System.out.printf("%-24s %16.1f %16.1f %9.1f%%%n", name, before, after, change(before, after));
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+
+    private static double nullToZero(Double value) {
+        return value == null ? 0 : value;
+    }
+
+    private TransformConfig readConfig(Path path) throws IOException {
+        return objectMapper.readValue(path.toFile(), TransformConfig.class);
+    }
+
+    private static List<byte[]> readNdjson(Path path) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (InputStream input = Files.newInputStream(path);
+             NdjsonReader reader = new NdjsonReader(input, StructuralScanner.getDefault(), BUFFER_SIZE)) {
+            byte[] record;
+            while ((record = reader.next()) != null) {
+                if (!isBlank(record)) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    private static boolean isBlank(byte[] record) {
+        for (byte b : record) {
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String value(String[] args, int index, String name) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(name + " 缺少参数值");
+        }
+        return args[index];
+    }
+
+    static int positiveInt(String[] args, int index, String name) {
+        int value = nonNegativeInt(args, index, name);
+        if (value == 0) {
+            throw new IllegalArgumentException(name + " 必须大于0");
+        }
+        return value;
+    }
+
+    static int nonNegativeInt(String[] args, int index, String name) {
+        int value;
+        try {
+            value = Integer.parseInt(value(args, index, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 必须是整数");
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " 不能小于0");
+        }
+        return value;
+    }
+
+    static double decimal(String[] args, int index, String name) {
+        try {
+            return Double.parseDouble(value(args, index, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 必须是数字");
+        }
+    }
+}
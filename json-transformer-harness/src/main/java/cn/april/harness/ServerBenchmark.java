@@ -0,0 +1,245 @@
+package cn.april.harness;
+
+import cn.april.model.TransformConfig;
+import cn.april.server.LatencyHistogram;
+import cn.april.server.ServerOptions;
+import cn.april.server.TransformServer;
+import cn.april.server.model.EndpointStats;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 转换服务的本地基准：N 个连接闭环发送请求（每个连接完成一个请求后立即发送下一个），输出请求/秒、记录/秒与延迟百分位
+ * 请求体按配置的读取集合生成合成数据；未指定 --url 时在进程内启动服务（随机端口）
+ * 每个请求一条记录时为单条JSON请求，多条时为NDJSON流式请求
+ *
+ * @author April
+ */
+public class ServerBenchmark {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "用法: java cn.april.harness.ServerBenchmark --config-dir <配置目录> [选项] [生成参数]",
+            "",
+            "选项:",
+            "  --config <id>                 压测的配置ID（默认配置目录中的第一个）",
+            "  --url <http://host:port>      压测已启动的服务（默认在进程内启动）",
+            "  --connections <n>             并发连接数（默认16）",
+            "  --records <n>                 每个请求的记录数，大于1时发送NDJSON（默认1）",
+            "  --duration <秒>               测量时长（默认10）",
+            "  --warmup <秒>                 预热时长（默认3）",
+            "  --batch-window <微秒>         进程内服务的微批窗口，0表示不合并（默认0）",
+            "",
+            "生成参数:",
+            "  --count <n> --size <bytes> --fields <n> --depth <n> --null-rate <0~1> --array-length <n> --seed <n>");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "--help".equals(args[0])) {
+            System.out.println(USAGE);
+            return;
+        }
+        Path configDir = null;
+        String configId = null;
+        String url = null;
+        int connections = 16;
+        int recordsPerRequest = 1;
+        int duration = 10;
+        int warmup = 3;
+        int batchWindow = 0;
+        GeneratorOptions generator = new GeneratorOptions();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--config-dir":
+                        configDir = Paths.get(HarnessCli.value(args, ++i, arg));
+                        break;
+                    case "--config":
+                        configId = HarnessCli.value(args, ++i, arg);
+                        break;
+                    case "--url":
+                        url = HarnessCli.value(args, ++i, arg);
+                        break;
+                    case "--connections":
+                        connections = HarnessCli.positiveInt(args, ++i, arg);
+                        break;
+                    case "--records":
+                        recordsPerRequest = HarnessCli.positiveInt(args, ++i, arg);
+                        break;
+                    case "--duration":
+                        duration = HarnessCli.positiveInt(args, ++i, arg);
+                        break;
+                    case "--warmup":
+                        warmup = HarnessCli.nonNegativeInt(args, ++i, arg);
+                        break;
+                    case "--batch-window":
+                        batchWindow = HarnessCli.nonNegativeInt(args, ++i, arg);
+                        break;
+                    default:
+                        int last = generator.parse(args, i);
+                        if (last == -1) {
+                            throw new IllegalArgumentException("未知参数: " + arg);
+                        }
+                        i = last;
+                        break;
+                }
+            }
+            if (configDir == null) {
+                throw new IllegalArgumentException("必须指定 --config-dir");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        if (configId == null) {
+            configId = firstConfigId(configDir);
+        }
+        TransformConfig config = objectMapper.readValue(configDir.resolve(configId + ".json").toFile(), TransformConfig.class);
+        List<byte[]> bodies = requestBodies(new DataGenerator(SourceShape.fromConfig(config), generator, objectMapper)
+                .generate(), recordsPerRequest);
+
+        TransformServer server = null;
+        if (url == null) {
+            ServerOptions serverOptions = new ServerOptions();
+            serverOptions.setConfigDir(configDir);
+            serverOptions.setPort(0);
+            serverOptions.setBatchWindowMicros(batchWindow);
+            server = new TransformServer(serverOptions);
+            server.start();
+            url = "http://127.0.0.1:" + server.getPort();
+        }
+        try {
+            System.out.printf("%s/transform/%s，%d 个连接，每个请求 %d 条记录，预热 %d 秒，测量 %d 秒%n",
+                    url, configId, connections, recordsPerRequest, warmup, duration);
+            run(URI.create(url + "/transform/" + configId), bodies, recordsPerRequest, connections, warmup, duration);
+            if (server != null) {
+                for (EndpointStats stats : server.stats().getEndpoints()) {
+                    if (stats.getId().equals(configId) && stats.getBatches() > 0) {
+                        System.out.printf("微批: %d 批，平均每批 %.1f 个请求%n", stats.getBatches(), stats.getAvgBatchSize());
+                    }
+                }
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void run(URI uri, List<byte[]> bodies, int recordsPerRequest, int connections,
+                            int warmup, int duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String contentType = recordsPerRequest > 1 ? "application/x-ndjson" : "application/json";
+        LatencyHistogram[] histograms = new LatencyHistogram[connections];
+        AtomicLong errors = new AtomicLong();
+        long begin = System.nanoTime();
+        long measureStart = begin + warmup * 1_000_000_000L;
+        long measureEnd = measureStart + duration * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms[c] = histogram;
+            int offset = bodies.size() * c / connections;
+            Thread thread = new Thread(() -> {
+                int index = offset;
+                long now;
+                while ((now = System.nanoTime()) < measureEnd) {
+                    HttpRequest request = HttpRequest.newBuilder(uri).header("Content-Type", contentType)
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(bodies.get(index))).build();
+                    boolean ok;
+                    try {
+                        ok = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode() == 200;
+                    } catch (IOException e) {
+                        ok = false;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long end = System.nanoTime();
+                    if (now >= measureStart && end <= measureEnd) {
+                        histogram.record(end - now);
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    index = (index + 1) % bodies.size();
+                }
+            }, "benchmark-client-" + c);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            merged.add(histogram);
+        }
+        double requestsPerSecond = merged.getTotalCount() / (double) duration;
+        System.out.printf("请求: %,.0f 个/秒，记录: %,.0f 条/秒（%d 个请求，失败 %d）%n", requestsPerSecond,
+                requestsPerSecond * recordsPerRequest, merged.getTotalCount(), errors.get());
+        System.out.printf("延迟(ms): p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                millis(merged.getValueAtPercentile(50)), millis(merged.getValueAtPercentile(90)),
+                millis(merged.getValueAtPercentile(99)), millis(merged.getValueAtPercentile(99.9)),
+                millis(merged.getMax()));
+    }
+
+    /**
+     * 按每个请求的记录数把记录组合为请求体，多条记录按NDJSON拼接
+     */
+    private static List<byte[]> requestBodies(List<byte[]> records, int recordsPerRequest) {
+        if (recordsPerRequest == 1) {
+            return records;
+        }
+        List<byte[]> bodies = new ArrayList<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int count = 0;
+        for (int i = 0; i < Math.max(records.size(), recordsPerRequest); i++) {
+            byte[] record = records.get(i % records.size());
+            body.write(record, 0, record.length);
+            body.write('\n');
+            if (++count == recordsPerRequest) {
+                bodies.add(body.toByteArray());
+                body.reset();
+                count = 0;
+            }
+        }
+        return bodies;
+    }
+
+    private static String firstConfigId(Path configDir) throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(configDir, "*.json")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                ids.add(name.substring(0, name.length() - ".json".length()));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("配置目录中没有配置文件: " + configDir);
+        }
+        ids.sort(null);
+        return ids.get(0);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
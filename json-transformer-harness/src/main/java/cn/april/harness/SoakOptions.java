@@ -0,0 +1,95 @@
+package cn.april.harness;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * soak 子命令参数
+ *
+ * @author April
+ */
+@Data
+public class SoakOptions {
+
+    // 转换配置文件（TransformConfig的JSON）
+    private Path config;
+    // 输入NDJSON文件（可选），未指定时按配置生成合成数据
+    private Path input;
+    // 调用转换服务的线程数
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // 所有线程合计的目标速率（记录/秒），0表示闭环：每个线程完成一条立即开始下一条
+    private double rate;
+    // 测量时长（秒，不含预热）
+    private int duration = 60;
+    // 预热时长（秒），期间的结果不计入报告
+    private int warmup = 10;
+    // 统计区间（秒）
+    private int interval = 5;
+    // 报告输出路径
+    private Path report = Paths.get("soak-report.json");
+    // 合成数据参数（未指定--input时使用）
+    private GeneratorOptions generator = new GeneratorOptions();
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "  --input <file.ndjson>         输入数据（默认按配置生成合成数据，见生成参数）",
+            "  --threads <n>                 调用转换服务的线程数（默认CPU核数）",
+            "  --rate <n>                    所有线程合计的目标速率（记录/秒），默认0为闭环",
+            "  --duration <秒>               测量时长（默认60）",
+            "  --warmup <秒>                 预热时长，不计入报告（默认10）",
+            "  --interval <秒>               统计区间（默认5）",
+            "  --report <file>               报告输出路径（默认soak-report.json）");
+
+    /**
+     * 解析命令行参数（不含子命令）
+     *
+     * @throws IllegalArgumentException 参数缺失或无效
+     */
+    public static SoakOptions parse(String[] args) {
+        SoakOptions options = new SoakOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--config":
+                    options.setConfig(Paths.get(HarnessCli.value(args, ++i, arg)));
+                    break;
+                case "--input":
+                    options.setInput(Paths.get(HarnessCli.value(args, ++i, arg)));
+                    break;
+                case "--threads":
+                    options.setThreads(HarnessCli.positiveInt(args, ++i, arg));
+                    break;
+                case "--rate":
+                    options.setRate(HarnessCli.decimal(args, ++i, arg));
+                    if (options.getRate() < 0) {
+                        throw new IllegalArgumentException("--rate 不能小于0");
+                    }
+                    break;
+                case "--duration":
+                    options.setDuration(HarnessCli.positiveInt(args, ++i, arg));
+                    break;
+                case "--warmup":
+                    options.setWarmup(HarnessCli.nonNegativeInt(args, ++i, arg));
+                    break;
+                case "--interval":
+                    options.setInterval(HarnessCli.positiveInt(args, ++i, arg));
+                    break;
+                case "--report":
+                    options.setReport(Paths.get(HarnessCli.value(args, ++i, arg)));
+                    break;
+                default:
+                    int last = options.getGenerator().parse(args, i);
+                    if (last == -1) {
+                        throw new IllegalArgumentException("未知参数: " + arg);
+                    }
+                    i = last;
+                    break;
+            }
+        }
+        if (options.getConfig() == null) {
+            throw new IllegalArgumentException("必须指定 --config");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,296 @@
+package cn.april.harness;
+
+import cn.april.harness.model.IntervalSample;
+import cn.april.harness.model.LatencySummary;
+import cn.april.harness.model.SoakReport;
+import cn.april.model.TransformConfig;
+import cn.april.server.LatencyHistogram;
+import cn.april.service.JsonTransformService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 长时间压测：N 个线程循环读取输入记录调用 JsonTransformService.transformToBytes
+ * 指定目标速率时为开环调度：每条记录有计划开始时间，延迟从计划时间算起，服务变慢导致的排队等待计入延迟（修正协调遗漏），
+ * 实际开始时间算起的服务时间单独统计；速率为0时为闭环，两者相同
+ * 每个线程写自己的直方图，主线程按区间读取快照相减得到区间统计，预热期间的结果同样按快照扣除
+ *
+ * @author April
+ */
+public class SoakRunner {
+
+    // 距计划时间超过该值时park，否则自旋等待，避免park的唤醒误差影响调度精度
+    private static final long SPIN_THRESHOLD_NANOS = 100_000;
+
+    private final SoakOptions options;
+    private final JsonTransformService transformService;
+    private final List<byte[]> records;
+    private final String inputDescription;
+    private final boolean deduplicating;
+    private volatile boolean running = true;
+
+    /**
+     * @param records          输入记录，线程按各自的起点循环读取
+     * @param inputDescription 报告中的输入描述
+     */
+    public SoakRunner(SoakOptions options, TransformConfig config, List<byte[]> records, String inputDescription) {
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("输入没有记录");
+        }
+        this.options = options;
+        this.transformService = new JsonTransformService(config);
+        this.records = records;
+        this.inputDescription = inputDescription;
+        this.deduplicating = config.getDedupKeyPath() != null;
+    }
+
+    /**
+     * 运行预热与测量，期间每个统计区间输出一行进度
+     */
+    public SoakReport run() throws InterruptedException {
+        int threads = options.getThreads();
+        // 每个线程的调度间隔，线程之间错开启动使请求均匀分布
+        long periodNanos = options.getRate() > 0 ? (long) (1e9 * threads / options.getRate()) : 0;
+        String startedAt = Instant.now().toString();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean allocationSupported = threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled();
+
+        long begin = System.nanoTime();
+        List<Worker> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(records.size() * i / threads, periodNanos, begin + periodNanos * i / threads);
+            worker.thread = new Thread(worker, "soak-worker-" + i);
+            worker.thread.setDaemon(true);
+            workers.add(worker);
+        }
+        try (GcMonitor gcMonitor = new GcMonitor()) {
+            workers.forEach(worker -> worker.thread.start());
+            sleepUntil(begin + options.getWarmup() * 1_000_000_000L);
+
+            // 预热结束：记录基线
+            LatencyHistogram latencyBaseline = merge(workers, true);
+            LatencyHistogram serviceBaseline = merge(workers, false);
+            long errorBaseline = errors(workers);
+            long allocationBaseline = allocationSupported ? allocatedBytes(threadBean, workers) : 0;
+            gcMonitor.reset();
+            long measureStart = System.nanoTime();
+            long measureEnd = measureStart + options.getDuration() * 1_000_000_000L;
+
+            List<IntervalSample> intervals = new ArrayList<>();
+            LatencyHistogram previous = latencyBaseline;
+            long previousErrors = errorBaseline;
+            long previousPause = 0;
+            long previousTime = measureStart;
+            long next = measureStart;
+            while (next < measureEnd) {
+                next = Math.min(next + options.getInterval() * 1_000_000_000L, measureEnd);
+                sleepUntil(next);
+                long now = System.nanoTime();
+                LatencyHistogram current = merge(workers, true);
+                long currentErrors = errors(workers);
+                long currentPause = gcMonitor.getTotalPauseMillis();
+                IntervalSample sample = intervalSample(current.since(previous), currentErrors - previousErrors,
+                        currentPause - previousPause, (now - measureStart) / 1e9, (now - previousTime) / 1e9);
+                intervals.add(sample);
+                System.out.printf("[%6.1fs] %,10.0f 条/秒  p50 %8.1f µs  p99 %8.1f µs  max %9.1f µs  失败 %d  GC停顿 %.0f ms%n",
+                        sample.getElapsedSeconds(), sample.getThroughput(), sample.getP50Micros(),
+                        sample.getP99Micros(), sample.getMaxMicros(), sample.getErrors(), sample.getGcPauseMillis());
+                previous = current;
+                previousErrors = currentErrors;
+                previousPause = currentPause;
+                previousTime = now;
+            }
+
+            // 测量结束：线程仍在运行时读取最终快照与分配量
+            long allocationEnd = allocationSupported ? allocatedBytes(threadBean, workers) : 0;
+            double elapsed = (System.nanoTime() - measureStart) / 1e9;
+            LatencyHistogram latency = merge(workers, true).since(latencyBaseline);
+            LatencyHistogram serviceTime = merge(workers, false).since(serviceBaseline);
+            long errors = errors(workers) - errorBaseline;
+            running = false;
+            for (Worker worker : workers) {
+                LockSupport.unpark(worker.thread);
+                worker.thread.join();
+            }
+
+            SoakReport report = new SoakReport();
+            report.setStartedAt(startedAt);
+            report.setConfig(String.valueOf(options.getConfig()));
+            report.setInput(inputDescription);
+            report.setRecords(records.size());
+            report.setAvgRecordBytes(records.stream().mapToInt(record -> record.length).average().orElse(0));
+            report.setJvm(jvmInfo());
+            report.setThreads(threads);
+            report.setTargetRate(options.getRate());
+            report.setWarmupSeconds(options.getWarmup());
+            report.setDurationSeconds(elapsed);
+            report.setOperations(latency.getTotalCount());
+            report.setErrors(errors);
+            report.setThroughput(latency.getTotalCount() / elapsed);
+            report.setLatency(summary(latency));
+            report.setServiceTime(summary(serviceTime));
+            report.setGc(gcMonitor.summary(elapsed));
+            if (allocationSupported) {
+                double allocated = allocationEnd - allocationBaseline;
+                report.setAllocationBytesPerSecond(allocated / elapsed);
+                report.setAllocationBytesPerOperation(latency.getTotalCount() == 0 ? 0 : allocated / latency.getTotalCount());
+            }
+            report.setIntervals(intervals);
+            return report;
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * 延迟分布摘要（纳秒转换为微秒）
+     */
+    public static LatencySummary summary(LatencyHistogram histogram) {
+        return new LatencySummary(histogram.getTotalCount(), micros(histogram.getMin()), histogram.getMean() / 1000,
+                micros(histogram.getValueAtPercentile(50)), micros(histogram.getValueAtPercentile(90)),
+                micros(histogram.getValueAtPercentile(99)), micros(histogram.getValueAtPercentile(99.9)),
+                micros(histogram.getValueAtPercentile(99.99)), micros(histogram.getMax()));
+    }
+
+    private static IntervalSample intervalSample(LatencyHistogram delta, long errors, long pauseMillis,
+                                                 double elapsedSeconds, double intervalSeconds) {
+        return new IntervalSample(elapsedSeconds, delta.getTotalCount(), delta.getTotalCount() / intervalSeconds,
+                micros(delta.getValueAtPercentile(50)), micros(delta.getValueAtPercentile(99)),
+                micros(delta.getMax()), errors, pauseMillis);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private static LatencyHistogram merge(List<Worker> workers, boolean latency) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Worker worker : workers) {
+            merged.add(latency ? worker.latency : worker.serviceTime);
+        }
+        return merged;
+    }
+
+    private static long errors(List<Worker> workers) {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.errors.get();
+        }
+        return total;
+    }
+
+    private static long allocatedBytes(ThreadMXBean threadBean, List<Worker> workers) {
+        long total = 0;
+        for (Worker worker : workers) {
+            long bytes = ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(worker.thread.getId());
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    private static Map<String, String> jvmInfo() {
+        Map<String, String> info = new LinkedHashMap<>();
+        info.put("javaVersion", System.getProperty("java.version"));
+        info.put("vmName", System.getProperty("java.vm.name"));
+        info.put("vmVersion", System.getProperty("java.vm.version"));
+        info.put("availableProcessors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        info.put("maxHeapBytes", String.valueOf(Runtime.getRuntime().maxMemory()));
+        info.put("inputArguments", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        return info;
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            Thread.sleep(Math.max(1, remaining / 1_000_000));
+        }
+    }
+
+    /**
+     * 工作线程：只有自己写入直方图与失败计数
+     */
+    private final class Worker implements Runnable {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final long periodNanos;
+        private final long firstStart;
+        private int index;
+        private Thread thread;
+        // 累计输出字节数，运行结束时写入volatile字段，避免调用结果被优化掉
+        private long sink;
+        private volatile long outputBytes;
+
+        private Worker(int index, long periodNanos, long firstStart) {
+            this.index = index;
+            this.periodNanos = periodNanos;
+            this.firstStart = firstStart;
+        }
+
+        @Override
+        public void run() {
+            long intended = firstStart;
+            int size = records.size();
+            while (running) {
+                long start;
+                if (periodNanos > 0) {
+                    if (!waitUntil(intended)) {
+                        break;
+                    }
+                    start = System.nanoTime();
+                } else {
+                    start = System.nanoTime();
+                    intended = start;
+                }
+                try {
+                    sink += transformService.transformToBytes(records.get(index)).length;
+                } catch (Exception e) {
+                    errors.lazySet(errors.get() + 1);
+                }
+                long end = System.nanoTime();
+                latency.record(end - intended);
+                serviceTime.record(end - start);
+                intended += periodNanos;
+                if (++index == size) {
+                    index = 0;
+                    // 输入循环使用：每轮清空去重状态，否则第二轮起的记录全部被去重跳过
+                    if (deduplicating) {
+                        transformService.resetDeduplication();
+                    }
+                }
+            }
+            outputBytes = sink;
+        }
+
+        /**
+         * 等待到计划开始时间：较远时park，接近时自旋
+         *
+         * @return 等待期间压测结束时返回false
+         */
+        private boolean waitUntil(long deadline) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                if (!running) {
+                    return false;
+                }
+                if (remaining > SPIN_THRESHOLD_NANOS) {
+                    LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS / 2);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            return running;
+        }
+    }
+}
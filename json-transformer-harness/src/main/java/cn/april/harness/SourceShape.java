@@ -0,0 +1,249 @@
+package cn.april.harness;
+
+import cn.april.model.Aggregation;
+import cn.april.model.FieldMapping;
+import cn.april.model.MappingSet;
+import cn.april.model.RecordFilter;
+import cn.april.model.TransformConfig;
+import cn.april.service.ExpressionEvaluator;
+import cn.april.service.path.SimplePath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 源文档结构：由配置读取的全部源路径（读取集合）合并成的字段树，叶子节点带有生成值的提示
+ * 读取集合包括字段映射（含判别映射与模板映射）、表达式中的 $. 路径、数组元素映射、过滤条件、去重字段、判别字段与聚合字段
+ * 通配符 [*] 按数组处理，过滤器、深度扫描等无法确定结构的路径忽略
+ *
+ * @author April
+ */
+public final class SourceShape {
+
+    /**
+     * 叶子值的类型提示
+     */
+    public enum Hint {
+        // 随机文本（中英文混合）
+        TEXT,
+        // 整数
+        INTEGER,
+        // 小数
+        DECIMAL,
+        // 布尔值
+        BOOLEAN,
+        // 秒级时间戳字符串（@time:格式化表达式的输入）
+        EPOCH_SECONDS,
+        // 从候选值中选择（判别值、过滤值、分组值）
+        CHOICE,
+        // 每条记录唯一的ID（去重字段）
+        UNIQUE_ID,
+        // 多数记录不存在的字段（notExists 过滤条件）
+        ABSENT
+    }
+
+    private final Map<String, SourceShape> fields = new LinkedHashMap<>();
+    private SourceShape element;
+    private Hint hint = Hint.TEXT;
+    private final List<Object> choices = new ArrayList<>();
+    // 过滤条件要求的值：大多数记录取这些值以便通过过滤
+    private boolean preferChoices;
+
+    /**
+     * 按配置的读取集合构建源文档结构
+     */
+    public static SourceShape fromConfig(TransformConfig config) {
+        SourceShape root = new SourceShape();
+        root.addMappings(config.getMappings());
+        root.addMappings(config.getTemplateMappings());
+        if (config.getDiscriminatorMappings() != null) {
+            for (MappingSet set : config.getDiscriminatorMappings().values()) {
+                if (set != null) {
+                    root.addMappings(set.getMappings());
+                }
+            }
+            SourceShape discriminator = root.resolve(config.getDiscriminatorPath());
+            if (discriminator != null) {
+                discriminator.hint = Hint.CHOICE;
+                discriminator.choices.addAll(config.getDiscriminatorMappings().keySet());
+            }
+        }
+        if (config.getAggregations() != null) {
+            for (Aggregation aggregation : config.getAggregations()) {
+                root.hintPath(aggregation.getSourcePath(), Hint.DECIMAL);
+                SourceShape group = root.resolve(aggregation.getGroupBy());
+                if (group != null && group.hint != Hint.CHOICE) {
+                    group.hint = Hint.CHOICE;
+                    group.choices.addAll(List.of("alpha", "beta", "gamma", "delta"));
+                }
+            }
+        }
+        if (config.getFilters() != null) {
+            for (RecordFilter filter : config.getFilters()) {
+                root.addFilter(filter);
+            }
+        }
+        root.hintPath(config.getDedupKeyPath(), Hint.UNIQUE_ID);
+        return root;
+    }
+
+    public Map<String, SourceShape> getFields() {
+        return fields;
+    }
+
+    /**
+     * 数组元素的结构，不是数组时返回null
+     */
+    public SourceShape getElement() {
+        return element;
+    }
+
+    public Hint getHint() {
+        return hint;
+    }
+
+    public List<Object> getChoices() {
+        return choices;
+    }
+
+    public boolean isPreferChoices() {
+        return preferChoices;
+    }
+
+    public boolean isLeaf() {
+        return fields.isEmpty() && element == null;
+    }
+
+    /**
+     * 读取集合中的路径数量（叶子节点数）
+     */
+    public int leafCount() {
+        if (isLeaf()) {
+            return 1;
+        }
+        int count = element == null ? 0 : element.leafCount();
+        for (SourceShape child : fields.values()) {
+            count += child.leafCount();
+        }
+        return count;
+    }
+
+    private void addMappings(Collection<FieldMapping> mappings) {
+        if (mappings == null) {
+            return;
+        }
+        for (FieldMapping mapping : mappings) {
+            String expression = mapping.getTransformExpression();
+            if (mapping.getElementMappings() != null) {
+                SourceShape array = resolve(mapping.getSourcePath());
+                if (array != null) {
+                    if (array.element == null) {
+                        array.element = new SourceShape();
+                    }
+                    array.element.addMappings(mapping.getElementMappings().getMappings());
+                }
+            } else if (mapping.getSourcePath() != null) {
+                hintPath(mapping.getSourcePath(), valueHint(mapping.getTargetType(), expression));
+            }
+            if (expression != null) {
+                for (String path : ExpressionEvaluator.extractJsonPaths(expression)) {
+                    resolve(path);
+                }
+            }
+        }
+    }
+
+    private void addFilter(RecordFilter filter) {
+        SourceShape node = resolve(filter.getPath());
+        if (node == null || filter.getOperator() == null) {
+            return;
+        }
+        Object value = filter.getValue();
+        switch (filter.getOperator()) {
+            case "eq":
+                node.hint = Hint.CHOICE;
+                node.choices.add(value);
+                node.preferChoices = true;
+                break;
+            case "in":
+                if (value instanceof Collection) {
+                    node.hint = Hint.CHOICE;
+                    node.choices.addAll((Collection<?>) value);
+                    node.preferChoices = true;
+                }
+                break;
+            case "gt":
+            case "gte":
+            case "lt":
+            case "lte":
+                node.hint = Hint.DECIMAL;
+                break;
+            case "notExists":
+                node.hint = Hint.ABSENT;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void hintPath(String path, Hint hint) {
+        SourceShape node = resolve(path);
+        if (node != null && node.isLeaf() && hint != Hint.TEXT) {
+            node.hint = hint;
+        }
+    }
+
+    /**
+     * 按路径定位（必要时创建）节点
+     *
+     * @return 路径无法确定结构时返回null
+     */
+    private SourceShape resolve(String path) {
+        if (path == null) {
+            return null;
+        }
+        SimplePath simplePath = SimplePath.parse(path.replace("[*]", "[0]"));
+        if (simplePath == null || simplePath.getSegments().isEmpty()) {
+            return null;
+        }
+        SourceShape node = this;
+        for (Object segment : simplePath.getSegments()) {
+            if (segment instanceof Integer) {
+                if (node.element == null) {
+                    node.element = new SourceShape();
+                }
+                node = node.element;
+            } else {
+                node = node.fields.computeIfAbsent((String) segment, name -> new SourceShape());
+            }
+        }
+        return node;
+    }
+
+    private static Hint valueHint(String targetType, String expression) {
+        if (expression != null && expression.startsWith("@time:") && !expression.startsWith("@time:current")) {
+            return Hint.EPOCH_SECONDS;
+        }
+        if (targetType == null) {
+            return Hint.TEXT;
+        }
+        switch (targetType.toLowerCase(Locale.ROOT)) {
+            case "int":
+            case "integer":
+            case "long":
+                return Hint.INTEGER;
+            case "double":
+            case "float":
+                return Hint.DECIMAL;
+            case "boolean":
+            case "bool":
+                return Hint.BOOLEAN;
+            default:
+                return Hint.TEXT;
+        }
+    }
+}
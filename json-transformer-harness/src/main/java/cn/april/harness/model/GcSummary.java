@@ -0,0 +1,31 @@
+package cn.april.harness.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 测量期间的GC统计（来自GC通知）
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GcSummary {
+
+    // 收集器名称
+    private List<String> collectors;
+    // 停顿次数
+    private long pauseCount;
+    // 停顿总时长（毫秒）
+    private double totalPauseMillis;
+    // 最长停顿（毫秒）
+    private double maxPauseMillis;
+    // 停顿时间占测量时长的比例（0~1）
+    private double pauseTimeRatio;
+    // 并发收集周期数（ZGC、Shenandoah等不停顿应用线程的周期，不计入停顿）
+    private long concurrentCycles;
+}
@@ -0,0 +1,31 @@
+package cn.april.harness.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一个统计区间内的吞吐与延迟，用于观察长时间运行中的变化（预热、GC、内存增长）
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IntervalSample {
+
+    // 区间结束时距测量开始的秒数
+    private double elapsedSeconds;
+    // 区间内完成的记录数
+    private long operations;
+    // 区间吞吐（记录/秒）
+    private double throughput;
+    // 区间延迟（微秒）
+    private double p50Micros;
+    private double p99Micros;
+    private double maxMicros;
+    // 区间内失败的记录数
+    private long errors;
+    // 区间内的GC停顿总时长（毫秒）
+    private double gcPauseMillis;
+}
@@ -0,0 +1,27 @@
+package cn.april.harness.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 延迟分布摘要，单位为微秒
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencySummary {
+
+    // 样本数
+    private long count;
+    private double min;
+    private double mean;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double p999;
+    private double p9999;
+    private double max;
+}
@@ -0,0 +1,52 @@
+package cn.april.harness.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测报告，以JSON写出，可以用 compare 子命令对比两次运行
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SoakReport {
+
+    // 开始时间（ISO-8601）
+    private String startedAt;
+    // 配置文件
+    private String config;
+    // 输入：NDJSON文件路径或合成数据的描述
+    private String input;
+    // 输入记录数与平均字节数
+    private int records;
+    private double avgRecordBytes;
+    // JVM信息（版本、收集器、最大堆、CPU核数）
+    private Map<String, String> jvm;
+    private int threads;
+    // 目标速率（记录/秒），0表示闭环（尽可能快）
+    private double targetRate;
+    private double warmupSeconds;
+    // 实际测量时长（秒）
+    private double durationSeconds;
+    // 完成的记录数与失败数
+    private long operations;
+    private long errors;
+    // 吞吐（记录/秒）
+    private double throughput;
+    // 从计划开始时间算起的延迟（包含排队等待，修正协调遗漏）
+    private LatencySummary latency;
+    // 从实际开始时间算起的服务时间
+    private LatencySummary serviceTime;
+    private GcSummary gc;
+    // 工作线程的分配速率（字节/秒）与每条记录分配的字节数，JVM不支持线程分配统计时为null
+    private Double allocationBytesPerSecond;
+    private Double allocationBytesPerOperation;
+    // 各统计区间
+    private List<IntervalSample> intervals;
+}
@@ -0,0 +1,43 @@
+package cn.april.server;
+
+import cn.april.server.model.EndpointStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 转换端点的计数与延迟直方图，多个处理线程同时写入
+ *
+ * @author April
+ */
+final class EndpointMetrics {
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder streamRequests = new LongAdder();
+    final LongAdder records = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+    final LongAdder batches = new LongAdder();
+    final LongAdder batchedRequests = new LongAdder();
+    // 直方图只允许单线程写入，记录与读取都在锁内
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void recordLatency(long nanos) {
+        synchronized (latency) {
+            latency.record(nanos);
+        }
+    }
+
+    EndpointStats snapshot(String id) {
+        LatencyHistogram copy;
+        synchronized (latency) {
+            copy = latency.snapshot();
+        }
+        long batchCount = batches.sum();
+        return new EndpointStats(id, requests.sum(), streamRequests.sum(), records.sum(), errors.sum(),
+                bytesIn.sum(), bytesOut.sum(), batchCount,
+                batchCount == 0 ? 0 : (double) batchedRequests.sum() / batchCount,
+                copy.getValueAtPercentile(50) / 1000.0, copy.getValueAtPercentile(99) / 1000.0,
+                copy.getValueAtPercentile(99.9) / 1000.0, copy.getMax() / 1000.0);
+    }
+}
@@ -0,0 +1,165 @@
+package cn.april.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数-线性分桶的延迟直方图（纳秒），思路与 HdrHistogram 相同：
+ * 2048以内每个值一个桶，之后每个2的幂区间再分为1024个等宽子桶，相对误差不超过 1/1024（约3位有效数字），
+ * 可记录到约18分钟，更大的值计入最后一个桶；固定占用约256KB，记录时只做一次移位和一次数组写入
+ * 每个实例只允许一个线程写入，其他线程可以随时读取快照（snapshot）用于区间统计
+ * 服务的端点指标使用，压测工具（json-transformer-harness）也通过服务模块复用
+ *
+ * @author April
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 10;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_HALF << 1;
+    // 可区分的最大值约 2^40 纳秒
+    private static final int MAX_SHIFT = 30;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + MAX_SHIFT * SUB_BUCKET_HALF;
+    private static final long MAX_VALUE = ((long) LINEAR_LIMIT << MAX_SHIFT) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    // [0]总数 [1]总和 [2]最小值 [3]最大值
+    private final AtomicLongArray totals = new AtomicLongArray(new long[]{0, 0, Long.MAX_VALUE, 0});
+
+    /**
+     * 记录一个值（单个写入线程）
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        int index = indexOf(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        totals.lazySet(0, totals.get(0) + 1);
+        totals.lazySet(1, totals.get(1) + value);
+        if (value < totals.get(2)) {
+            totals.lazySet(2, value);
+        }
+        if (value > totals.get(3)) {
+            totals.lazySet(3, value);
+        }
+    }
+
+    /**
+     * 复制当前计数，可以在写入线程之外调用
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * 累加另一个直方图（目标实例不能同时被写入）
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.lazySet(i, counts.get(i) + count);
+            }
+        }
+        totals.lazySet(0, totals.get(0) + other.totals.get(0));
+        totals.lazySet(1, totals.get(1) + other.totals.get(1));
+        totals.lazySet(2, Math.min(totals.get(2), other.totals.get(2)));
+        totals.lazySet(3, Math.max(totals.get(3), other.totals.get(3)));
+    }
+
+    /**
+     * 两个快照之间新增的记录，最小值与最大值按桶的边界估算
+     *
+     * @param previous 较早的快照
+     */
+    public LatencyHistogram since(LatencyHistogram previous) {
+        LatencyHistogram delta = new LatencyHistogram();
+        int lowest = -1;
+        int highest = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i) - previous.counts.get(i);
+            if (count > 0) {
+                delta.counts.set(i, count);
+                if (lowest == -1) {
+                    lowest = i;
+                }
+                highest = i;
+            }
+        }
+        delta.totals.set(0, totals.get(0) - previous.totals.get(0));
+        delta.totals.set(1, totals.get(1) - previous.totals.get(1));
+        if (highest != -1) {
+            delta.totals.set(2, lowestEquivalent(lowest));
+            delta.totals.set(3, Math.min(highestEquivalent(highest), totals.get(3)));
+        }
+        return delta;
+    }
+
+    public long getTotalCount() {
+        return totals.get(0);
+    }
+
+    public long getMin() {
+        return getTotalCount() == 0 ? 0 : totals.get(2);
+    }
+
+    public long getMax() {
+        return totals.get(3);
+    }
+
+    public double getMean() {
+        long count = getTotalCount();
+        return count == 0 ? 0 : (double) totals.get(1) / count;
+    }
+
+    /**
+     * 百分位对应的值（所在桶的上界，不超过记录到的最大值）
+     *
+     * @param percentile 0~100
+     */
+    public long getValueAtPercentile(double percentile) {
+        // 按桶计数求总数：写入线程同时在记录时，快照中的总数与桶计数可能相差几条
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalent(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        // value >> shift 落在 [1024, 2048)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_HALF + (int) ((value >> shift) - SUB_BUCKET_HALF);
+    }
+
+    private static long lowestEquivalent(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return subBucket << shift;
+    }
+
+    private static long highestEquivalent(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_HALF + 1;
+        return lowestEquivalent(index) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,148 @@
+package cn.april.server;
+
+import cn.april.model.TransformResult;
+import cn.april.service.JsonTransformService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 微批：单条转换请求先进入队列，批处理线程从第一条请求到达起等待一个窗口（或凑满 maxBatch），
+ * 然后用 transformBatch 一次转换整批，请求线程等待各自的结果
+ * 批次较大时按CPU核数并行转换；转换一批期间新到达的请求继续排队，负载越高批次越大
+ *
+ * @author April
+ */
+@Slf4j
+final class MicroBatcher implements AutoCloseable {
+
+    // 批次达到该大小时并行转换，更小的批次拆分的开销超过收益
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private final JsonTransformService transformService;
+    private final EndpointMetrics metrics;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    MicroBatcher(String id, JsonTransformService transformService, EndpointMetrics metrics,
+                 int windowMicros, int maxBatch) {
+        this.transformService = transformService;
+        this.metrics = metrics;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+        this.thread = new Thread(this::run, "micro-batch-" + id);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 提交一条记录
+     *
+     * @return 转换结果，失败时 TransformResult.success 为false
+     */
+    CompletableFuture<TransformResult> submit(byte[] source) {
+        Pending pending = new Pending(source, System.nanoTime());
+        if (!running) {
+            pending.future.completeExceptionally(new IllegalStateException("服务已关闭"));
+            return pending.future;
+        }
+        queue.add(pending);
+        // 与 close 并发时批处理线程可能已经退出，由提交方自己取回请求
+        if (!running && queue.remove(pending)) {
+            pending.future.completeExceptionally(new IllegalStateException("服务已关闭"));
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        List<byte[]> sources = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.arrivedAt + windowNanos;
+                while (batch.size() < maxBatch) {
+                    // 已排队的请求直接取走，不再等待
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 已取出的请求不再转换，与队列中的请求一样以关闭失败结束
+                batch.forEach(pending -> pending.future.completeExceptionally(new IllegalStateException("服务已关闭")));
+                batch.clear();
+                break;
+            }
+
+            for (Pending pending : batch) {
+                sources.add(pending.source);
+            }
+            try {
+                List<TransformResult> results = transformService.transformBatch(sources, sources.size() >= PARALLEL_THRESHOLD);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).future.complete(results.get(i));
+                }
+            } catch (RuntimeException e) {
+                log.warn("批量转换失败: {}", e.getMessage());
+                batch.forEach(pending -> pending.future.completeExceptionally(e));
+            }
+            metrics.batches.increment();
+            metrics.batchedRequests.add(batch.size());
+            batch.clear();
+            sources.clear();
+        }
+        failQueued();
+    }
+
+    /**
+     * 以关闭失败结束队列中的请求
+     */
+    private void failQueued() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException("服务已关闭"));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 批处理线程退出前的最后一次取空与并发的提交之间可能还有请求入队
+        failQueued();
+    }
+
+    private static final class Pending {
+        private final byte[] source;
+        private final long arrivedAt;
+        private final CompletableFuture<TransformResult> future = new CompletableFuture<>();
+
+        private Pending(byte[] source, long arrivedAt) {
+            this.source = source;
+            this.arrivedAt = arrivedAt;
+        }
+    }
+}
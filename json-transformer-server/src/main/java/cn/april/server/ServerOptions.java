@@ -0,0 +1,115 @@
+package cn.april.server;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 转换服务参数
+ *
+ * @author April
+ */
+@Data
+public class ServerOptions {
+
+    // 配置目录：每个 *.json 文件是一个TransformConfig，文件名（不含扩展名）为配置ID
+    private Path configDir;
+    // 监听地址，默认只监听本机
+    private String host = "127.0.0.1";
+    // 监听端口，0表示随机端口
+    private int port = 8080;
+    // 不支持虚拟线程时处理请求的平台线程数
+    private int threads = 64;
+    // 微批窗口（微秒）：单条请求在窗口内合并为一批转换，0表示不合并
+    private int batchWindowMicros;
+    // 单批最多合并的请求数
+    private int maxBatch = 64;
+    // NDJSON请求每转换多少条记录刷新一次响应（一个chunk）
+    private int chunkRecords = 256;
+    // 单条请求体的最大字节数（NDJSON请求流式处理，不受限制）
+    private int maxBodyBytes = 16 * 1024 * 1024;
+    // 微批时单条请求等待转换结果的最长时间（毫秒），超时返回504
+    private int requestTimeoutMillis = 30_000;
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "用法: java cn.april.server.TransformServer --config-dir <配置目录> [选项]",
+            "",
+            "选项:",
+            "  --host <地址>                 监听地址（默认127.0.0.1）",
+            "  --port <n>                    监听端口（默认8080，0为随机端口）",
+            "  --threads <n>                 不支持虚拟线程时的处理线程数（默认64）",
+            "  --batch-window <微秒>         单条请求的微批窗口，0表示不合并（默认0）",
+            "  --max-batch <n>               单批最多合并的请求数（默认64）",
+            "  --chunk-records <n>           NDJSON响应每多少条记录刷新一次（默认256）",
+            "  --max-body-bytes <n>          单条请求体的最大字节数（默认16MB）",
+            "  --request-timeout <毫秒>      微批时单条请求等待结果的最长时间（默认30000）",
+            "  --help                        显示帮助");
+
+    /**
+     * 解析命令行参数
+     *
+     * @throws IllegalArgumentException 参数缺失或无效
+     */
+    public static ServerOptions parse(String[] args) {
+        ServerOptions options = new ServerOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--config-dir":
+                    options.setConfigDir(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "--host":
+                    options.setHost(value(args, ++i, arg));
+                    break;
+                case "--port":
+                    options.setPort(integer(args, ++i, arg, 0));
+                    break;
+                case "--threads":
+                    options.setThreads(integer(args, ++i, arg, 1));
+                    break;
+                case "--batch-window":
+                    options.setBatchWindowMicros(integer(args, ++i, arg, 0));
+                    break;
+                case "--max-batch":
+                    options.setMaxBatch(integer(args, ++i, arg, 1));
+                    break;
+                case "--chunk-records":
+                    options.setChunkRecords(integer(args, ++i, arg, 1));
+                    break;
+                case "--max-body-bytes":
+                    options.setMaxBodyBytes(integer(args, ++i, arg, 1));
+                    break;
+                case "--request-timeout":
+                    options.setRequestTimeoutMillis(integer(args, ++i, arg, 1));
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + arg);
+            }
+        }
+        if (options.getConfigDir() == null) {
+            throw new IllegalArgumentException("必须指定 --config-dir");
+        }
+        return options;
+    }
+
+    static String value(String[] args, int index, String name) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(name + " 缺少参数值");
+        }
+        return args[index];
+    }
+
+    static int integer(String[] args, int index, String name, int min) {
+        int value;
+        try {
+            value = Integer.parseInt(value(args, index, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " 必须是整数");
+        }
+        if (value < min) {
+            throw new IllegalArgumentException(name + " 不能小于" + min);
+        }
+        return value;
+    }
+}
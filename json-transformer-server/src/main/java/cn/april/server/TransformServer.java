@@ -0,0 +1,404 @@
+package cn.april.server;
+
+import cn.april.model.TransformConfig;
+import cn.april.model.TransformResult;
+import cn.april.server.model.EndpointStats;
+import cn.april.server.model.ServerStats;
+import cn.april.service.JsonTransformService;
+import cn.april.service.scan.NdjsonReader;
+import cn.april.service.scan.StructuralScanner;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于JDK HttpServer的转换服务，配置目录中的每个配置对应一个转换端点：
+ * POST /transform/{配置ID}：请求体为一个JSON文档，返回转换结果；配置了微批窗口（--batch-window）时窗口内的单条请求合并为一批转换
+ * POST /transform/{配置ID}（Content-Type: application/x-ndjson）：逐行转换并分块流式返回NDJSON，
+ * 空行跳过，单行失败时该行输出 {"error":..., "line":行号}
+ * GET /metrics：各端点的请求数、记录数、失败数、微批大小与延迟百分位（JSON）
+ * 运行在支持虚拟线程的JDK上时每个请求一个虚拟线程，否则使用固定大小的平台线程池
+ *
+ * @author April
+ */
+@Slf4j
+public class TransformServer implements AutoCloseable {
+
+    private static final String TRANSFORM_PREFIX = "/transform/";
+    private static final String CONFIG_SUFFIX = ".json";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final ServerOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final long startedAt = System.nanoTime();
+    private ExecutorService executor;
+    private String executorName;
+    private HttpServer server;
+
+    /**
+     * 加载配置目录中的全部配置
+     *
+     * @throws IllegalArgumentException 配置目录不存在或没有配置
+     */
+    public TransformServer(ServerOptions options) throws IOException {
+        this.options = options;
+        Path configDir = options.getConfigDir();
+        if (!Files.isDirectory(configDir)) {
+            throw new IllegalArgumentException("配置目录不存在: " + configDir);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(configDir, "*" + CONFIG_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String id = name.substring(0, name.length() - CONFIG_SUFFIX.length());
+                TransformConfig config;
+                try {
+                    config = objectMapper.readValue(file.toFile(), TransformConfig.class);
+                } catch (IOException e) {
+                    throw new RuntimeException("配置加载失败: " + file, e);
+                }
+                endpoints.put(id, new Endpoint(id, new JsonTransformService(config)));
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("配置目录中没有配置文件: " + configDir);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || "--help".equals(args[0])) {
+            System.out.println(ServerOptions.USAGE);
+            return;
+        }
+        ServerOptions options;
+        try {
+            options = ServerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(ServerOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            TransformServer server = new TransformServer(options);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "transform-server-shutdown"));
+        } catch (Exception e) {
+            System.err.println("启动失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 启动监听
+     */
+    public void start() throws IOException {
+        // 响应头与响应体分两次写出，不关闭Nagle算法时小响应要等待客户端的延迟确认（约40ms）
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        executor = newHandlerExecutor();
+        server = HttpServer.create(new InetSocketAddress(options.getHost(), options.getPort()), 0);
+        server.setExecutor(executor);
+        server.createContext(TRANSFORM_PREFIX, this::handleTransform);
+        server.createContext("/metrics", this::handleMetrics);
+        if (options.getBatchWindowMicros() > 0) {
+            endpoints.values().forEach(endpoint -> endpoint.batcher = new MicroBatcher(endpoint.id,
+                    endpoint.transformService, endpoint.metrics, options.getBatchWindowMicros(), options.getMaxBatch()));
+        }
+        server.start();
+        log.info("转换服务已启动: http://{}:{}，配置: {}，处理线程: {}", options.getHost(), getPort(),
+                endpoints.keySet(), executorName);
+    }
+
+    /**
+     * 实际监听的端口（指定端口0时由系统分配）
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 当前统计
+     */
+    public ServerStats stats() {
+        List<EndpointStats> stats = new ArrayList<>();
+        endpoints.values().forEach(endpoint -> stats.add(endpoint.metrics.snapshot(endpoint.id)));
+        return new ServerStats((System.nanoTime() - startedAt) / 1e9, executorName,
+                options.getBatchWindowMicros(), stats);
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(1);
+            server = null;
+        }
+        endpoints.values().forEach(endpoint -> {
+            if (endpoint.batcher != null) {
+                endpoint.batcher.close();
+            }
+        });
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 处理请求的执行器：JDK提供虚拟线程时（21+，或19/20启用预览）每个请求一个虚拟线程，否则为固定大小的平台线程池
+     * 通过反射创建，模块按Java 17编译
+     */
+    private ExecutorService newHandlerExecutor() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            executorName = "virtual";
+            return virtual;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            executorName = "platform(" + options.getThreads() + ")";
+            return Executors.newFixedThreadPool(options.getThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "transform-handler-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handleTransform(HttpExchange exchange) throws IOException {
+        try {
+            String id = exchange.getRequestURI().getPath().substring(TRANSFORM_PREFIX.length());
+            Endpoint endpoint = endpoints.get(id);
+            if (endpoint == null) {
+                sendError(exchange, 404, "未知的配置ID: " + id);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendError(exchange, 405, "只支持POST");
+                return;
+            }
+            long start = System.nanoTime();
+            endpoint.metrics.requests.increment();
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(NDJSON_CONTENT_TYPE)) {
+                endpoint.metrics.streamRequests.increment();
+                transformStream(exchange, endpoint);
+            } else {
+                transformSingle(exchange, endpoint);
+            }
+            endpoint.metrics.recordLatency(System.nanoTime() - start);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 单条请求：经过微批（启用时）转换
+     */
+    private void transformSingle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        byte[] body = readBody(exchange.getRequestBody(), options.getMaxBodyBytes());
+        if (body == null) {
+            sendError(exchange, 413, "请求体超过 " + options.getMaxBodyBytes() + " 字节");
+            return;
+        }
+        EndpointMetrics metrics = endpoint.metrics;
+        metrics.bytesIn.add(body.length);
+        metrics.records.increment();
+        byte[] output;
+        try {
+            if (endpoint.batcher != null) {
+                TransformResult result = endpoint.batcher.submit(body).get(options.getRequestTimeoutMillis(), TimeUnit.MILLISECONDS);
+                if (!result.isSuccess()) {
+                    metrics.errors.increment();
+                    sendError(exchange, 400, result.getError());
+                    return;
+                }
+                output = objectMapper.writeValueAsBytes(result.getResult());
+            } else {
+                output = endpoint.transformService.transformToBytes(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "请求被中断");
+            return;
+        } catch (ExecutionException e) {
+            metrics.errors.increment();
+            sendError(exchange, 500, String.valueOf(e.getCause().getMessage()));
+            return;
+        } catch (TimeoutException e) {
+            metrics.errors.increment();
+            sendError(exchange, 504, "等待转换结果超过 " + options.getRequestTimeoutMillis() + " ms");
+            return;
+        } catch (IOException | RuntimeException e) {
+            metrics.errors.increment();
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        metrics.bytesOut.add(output.length);
+        send(exchange, 200, JSON_CONTENT_TYPE, output);
+    }
+
+    /**
+     * NDJSON请求：边读边转换，每 chunkRecords 条刷新一次，响应使用分块传输
+     */
+    private void transformStream(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        EndpointMetrics metrics = endpoint.metrics;
+        exchange.getResponseHeaders().set("Content-Type", NDJSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, 0);
+        CountingInputStream input = new CountingInputStream(exchange.getRequestBody());
+        long written = 0;
+        int pending = 0;
+        try (NdjsonReader reader = new NdjsonReader(input, StructuralScanner.getDefault(), BUFFER_SIZE);
+             OutputStream output = new BufferedOutputStream(exchange.getResponseBody(), BUFFER_SIZE)) {
+            byte[] record;
+            while ((record = reader.next()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                byte[] result;
+                try {
+                    result = endpoint.transformService.transformToBytes(record);
+                } catch (Exception e) {
+                    metrics.errors.increment();
+                    Map<String, Object> error = new LinkedHashMap<>();
+                    error.put("error", e.getMessage());
+                    error.put("line", reader.getLineNumber());
+                    result = objectMapper.writeValueAsBytes(error);
+                }
+                output.write(result);
+                output.write('\n');
+                written += result.length + 1;
+                metrics.records.increment();
+                if (++pending == options.getChunkRecords()) {
+                    output.flush();
+                    pending = 0;
+                }
+            }
+        } finally {
+            metrics.bytesIn.add(input.count);
+            metrics.bytesOut.add(written);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "只支持GET");
+                return;
+            }
+            send(exchange, 200, JSON_CONTENT_TYPE, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(stats()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, JSON_CONTENT_TYPE, objectMapper.writeValueAsBytes(Map.of("error", String.valueOf(message))));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * 读取请求体
+     *
+     * @return 超过最大字节数时返回null
+     */
+    private static byte[] readBody(InputStream input, int maxBytes) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (body.size() + read > maxBytes) {
+                return null;
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static boolean isBlank(byte[] record) {
+        for (byte b : record) {
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一个转换端点：配置ID、转换服务、微批与统计
+     */
+    private static final class Endpoint {
+        private final String id;
+        private final JsonTransformService transformService;
+        private final EndpointMetrics metrics = new EndpointMetrics();
+        private MicroBatcher batcher;
+
+        private Endpoint(String id, JsonTransformService transformService) {
+            this.id = id;
+            this.transformService = transformService;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
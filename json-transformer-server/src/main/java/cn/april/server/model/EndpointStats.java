@@ -0,0 +1,37 @@
+package cn.april.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个转换端点（配置ID）的统计，从服务启动开始累计
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EndpointStats {
+
+    // 配置ID
+    private String id;
+    // 请求数（含NDJSON请求）
+    private long requests;
+    // NDJSON流式请求数
+    private long streamRequests;
+    // 转换的记录数与失败数
+    private long records;
+    private long errors;
+    // 请求体与响应体字节数
+    private long bytesIn;
+    private long bytesOut;
+    // 微批的批次数与平均每批请求数
+    private long batches;
+    private double avgBatchSize;
+    // 请求处理延迟（微秒，从读取请求体到写完响应）
+    private double p50Micros;
+    private double p99Micros;
+    private double p999Micros;
+    private double maxMicros;
+}
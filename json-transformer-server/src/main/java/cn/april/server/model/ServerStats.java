@@ -0,0 +1,27 @@
+package cn.april.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * /metrics 返回的服务统计
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServerStats {
+
+    // 运行时长（秒）
+    private double uptimeSeconds;
+    // 处理请求的线程：virtual 或 platform(n)
+    private String executor;
+    // 微批窗口（微秒），0表示不合并
+    private int batchWindowMicros;
+    // 各转换端点的统计
+    private List<EndpointStats> endpoints;
+}
@@ -0,0 +1,59 @@
+package cn.april.server;
+
+import cn.april.model.FieldMapping;
+import cn.april.model.TransformConfig;
+import cn.april.model.TransformResult;
+import cn.april.service.JsonTransformService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 微批：正常转换，以及关闭时已取出和仍在排队的请求都以失败结束
+ *
+ * @author April
+ */
+class MicroBatcherTest {
+
+    private static final byte[] RECORD = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void transformsSubmittedRecords() throws Exception {
+        try (MicroBatcher batcher = batcher(0)) {
+            TransformResult result = batcher.submit(RECORD).get(10, TimeUnit.SECONDS);
+            assertTrue(result.isSuccess());
+            assertEquals(1, result.getResult().get("id").asInt());
+        }
+    }
+
+    @Test
+    void failsRequestsHeldInTheWindowOnClose() {
+        // 窗口远长于测试时间：请求已被批处理线程取出，正在等待凑批
+        MicroBatcher batcher = batcher(60_000_000);
+        CompletableFuture<TransformResult> held = batcher.submit(RECORD);
+        batcher.close();
+        assertClosed(held);
+        assertClosed(batcher.submit(RECORD));
+    }
+
+    private static void assertClosed(CompletableFuture<TransformResult> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private static MicroBatcher batcher(int windowMicros) {
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(List.of(new FieldMapping("$.id", "$.id", null, null)));
+        return new MicroBatcher("test", new JsonTransformService(config), new EndpointMetrics(), windowMicros, 64);
+    }
+}
@@ -0,0 +1,119 @@
+package cn.april.cli;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 命令行参数
+ *
+ * @author April
+ */
+@Data
+public class CliOptions {
+
+    public static final String FORMAT_AUTO = "auto";
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    // 转换配置文件（TransformConfig的JSON）
+    private Path config;
+    // 输入：文件、目录或glob（如 exports/**/*.ndjson.gz）
+    private String input;
+    // 输出目录
+    private Path output;
+    // 并行处理文件的线程数
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // 输入格式（auto按扩展名判断，.ndjson/.jsonl为NDJSON，其余为JSON）
+    private String inputFormat = FORMAT_AUTO;
+    // 输出格式（auto与输入格式相同）
+    private String outputFormat = FORMAT_AUTO;
+    // 输出是否gzip压缩
+    private boolean gzip;
+    // 只分析配置（执行层级、配置问题与估算成本），不转换；指定--input时用第一条记录校准成本
+    private boolean analyze;
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "用法: java cn.april.cli.JsonTransformCli --config <配置文件> --input <文件|目录|glob> --output <输出目录> [选项]",
+            "      java cn.april.cli.JsonTransformCli --config <配置文件> --analyze [--input <样本文件>]",
+            "",
+            "选项:",
+            "  --threads <n>                 并行处理文件的线程数（默认CPU核数）",
+            "  --input-format <auto|json|ndjson>   输入格式，auto按扩展名判断（默认auto）",
+            "  --output-format <auto|json|ndjson>  输出格式，auto与输入相同（默认auto）",
+            "  --gzip                        输出gzip压缩（.gz输入总是自动解压）",
+            "  --analyze                     输出配置分析报告（JSON），存在ERROR级别问题时退出码为1",
+            "  --help                        显示帮助");
+
+    /**
+     * 解析命令行参数
+     *
+     * @throws IllegalArgumentException 参数缺失或无效
+     */
+    public static CliOptions parse(String[] args) {
+        CliOptions options = new CliOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--config":
+                    options.setConfig(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "--input":
+                    options.setInput(value(args, ++i, arg));
+                    break;
+                case "--output":
+                    options.setOutput(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "--threads":
+                    try {
+                        options.setThreads(Integer.parseInt(value(args, ++i, arg)));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--threads 必须是整数");
+                    }
+                    if (options.getThreads() <= 0) {
+                        throw new IllegalArgumentException("--threads 必须大于0");
+                    }
+                    break;
+                case "--input-format":
+                    options.setInputFormat(format(value(args, ++i, arg), arg));
+                    break;
+                case "--output-format":
+                    options.setOutputFormat(format(value(args, ++i, arg), arg));
+                    break;
+                case "--gzip":
+                    options.setGzip(true);
+                    break;
+                case "--analyze":
+                    options.setAnalyze(true);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + arg);
+            }
+        }
+        if (options.isAnalyze()) {
+            if (options.getConfig() == null) {
+                throw new IllegalArgumentException("必须指定 --config");
+            }
+            return options;
+        }
+        if (options.getConfig() == null || options.getInput() == null || options.getOutput() == null) {
+            throw new IllegalArgumentException("必须指定 --config、--input 和 --output");
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int index, String name) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(name + " 缺少参数值");
+        }
+        return args[index];
+    }
+
+    private static String format(String value, String name) {
+        if (!FORMAT_AUTO.equals(value) && !FORMAT_JSON.equals(value) && !FORMAT_NDJSON.equals(value)) {
+            throw new IllegalArgumentException(name + " 只能是 auto、json 或 ndjson: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,407 @@
+package cn.april.cli;
+
+import cn.april.model.ConfigAnalysis;
+import cn.april.model.TransformConfig;
+import cn.april.service.JsonTransformService;
+import cn.april.service.scan.NdjsonReader;
+import cn.april.service.scan.StructuralScanner;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 命令行批量转换工具
+ * 按配置转换文件、目录或glob匹配到的所有输入文件，多个文件在线程池中并行处理，
+ * 支持JSON、NDJSON（每行一条记录）和gzip压缩的输入输出，结束时输出记录/秒与MB/秒
+ *
+ * @author April
+ */
+public class JsonTransformCli {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonTransformCli.class);
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CliOptions options;
+    private final ObjectMapper objectMapper;
+    private final JsonTransformService transformService;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder failedRecords = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+
+    public JsonTransformCli(CliOptions options) throws IOException {
+        this.options = options;
+        this.objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        TransformConfig config = objectMapper.readValue(options.getConfig().toFile(), TransformConfig.class);
+        this.transformService = new JsonTransformService(config);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || "--help".equals(args[0])) {
+            System.out.println(CliOptions.USAGE);
+            return;
+        }
+        CliOptions options;
+        try {
+            options = CliOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CliOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            if (options.isAnalyze()) {
+                System.exit(new JsonTransformCli(options).analyze() ? 0 : 1);
+                return;
+            }
+            int failedFiles = new JsonTransformCli(options).run();
+            System.exit(failedFiles == 0 ? 0 : 1);
+        } catch (Exception e) {
+            System.err.println("转换失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 分析配置并把报告（JSON）输出到标准输出
+     * 指定了--input时用第一个输入文件的第一条记录校准路径读取的成本，否则使用内置的合成记录
+     *
+     * @return 没有ERROR级别的问题时返回true
+     */
+    public boolean analyze() throws IOException {
+        JsonNode sample = options.getInput() == null ? null : readSampleRecord(options.getInput());
+        ConfigAnalysis analysis = sample == null ? transformService.analyze() : transformService.analyze(sample);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(analysis));
+        return !analysis.hasErrors();
+    }
+
+    /**
+     * 读取输入中的第一条对象记录：NDJSON为第一个非空行，JSON为文档本身或数组的第一个元素
+     *
+     * @return 没有对象记录时返回null
+     */
+    private JsonNode readSampleRecord(String input) throws IOException {
+        InputFiles inputFiles = resolveInputs(input);
+        if (inputFiles.files.isEmpty()) {
+            return null;
+        }
+        Path file = inputFiles.files.get(0);
+        JsonNode record;
+        try (InputStream stream = openInput(file)) {
+            if (isNdjson(file, options.getInputFormat())) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.trim().isEmpty());
+                record = line == null ? null : objectMapper.readTree(line);
+            } else {
+                record = objectMapper.readTree(stream);
+            }
+        }
+        if (record != null && record.isArray()) {
+            record = record.size() == 0 ? null : record.get(0);
+        }
+        return record != null && record.isObject() && !record.isEmpty() ? record : null;
+    }
+
+    /**
+     * 并行转换所有输入文件
+     *
+     * @return 失败的文件数
+     */
+    public int run() throws IOException, InterruptedException {
+        InputFiles inputFiles = resolveInputs(options.getInput());
+        if (inputFiles.files.isEmpty()) {
+            System.err.println("没有匹配的输入文件: " + options.getInput());
+            return 0;
+        }
+        Files.createDirectories(options.getOutput());
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(options.getThreads(), inputFiles.files.size()));
+        List<Future<?>> futures = new ArrayList<>();
+        for (Path file : inputFiles.files) {
+            futures.add(pool.submit(() -> {
+                transformFile(file, inputFiles.base);
+                return null;
+            }));
+        }
+        pool.shutdown();
+
+        int failedFiles = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                failedFiles++;
+                log.warn("文件转换失败: {}, 错误: {}", inputFiles.files.get(i), e.getCause().getMessage());
+            }
+        }
+        report(inputFiles.files.size(), failedFiles, System.nanoTime() - start);
+        return failedFiles;
+    }
+
+    /**
+     * 转换单个文件：JSON文件整体作为一个文档转换，NDJSON文件逐行流式转换
+     */
+    private void transformFile(Path file, Path base) throws IOException {
+        boolean ndjsonInput = isNdjson(file, options.getInputFormat());
+        String outputFormat = CliOptions.FORMAT_AUTO.equals(options.getOutputFormat())
+                ? (ndjsonInput ? CliOptions.FORMAT_NDJSON : CliOptions.FORMAT_JSON) : options.getOutputFormat();
+        boolean ndjsonOutput = CliOptions.FORMAT_NDJSON.equals(outputFormat);
+        Path outputFile = outputPath(file, base, ndjsonOutput);
+        Files.createDirectories(outputFile.toAbsolutePath().getParent());
+
+        try (InputStream input = openInput(file);
+             OutputStream output = openOutput(outputFile);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            // 记录之间只用换行分隔
+            generator.setRootValueSeparator(null);
+            if (ndjsonInput) {
+                transformLines(file, input, generator, ndjsonOutput);
+            } else {
+                transformDocument(input, generator, ndjsonOutput);
+            }
+        }
+        log.info("已转换: {} -> {}", file, outputFile);
+    }
+
+    /**
+     * NDJSON输入：按换行切分出每条记录的字节逐条转换，单行失败只跳过该行；输出为JSON时写成一个数组
+     */
+    private void transformLines(Path file, InputStream input, JsonGenerator generator, boolean ndjsonOutput) throws IOException {
+        NdjsonReader reader = new NdjsonReader(input, StructuralScanner.getDefault(), BUFFER_SIZE);
+        if (!ndjsonOutput) {
+            generator.writeStartArray();
+        }
+        byte[] record;
+        while ((record = reader.next()) != null) {
+            try {
+                if (ndjsonOutput) {
+                    // 逐行输出：按模板骨架直接写出，不构建结果树
+                    transformService.transformTo(record, generator);
+                    generator.writeRaw('\n');
+                } else {
+                    generator.writeTree(transformService.transform(record));
+                }
+            } catch (Exception e) {
+                failedRecords.increment();
+                log.warn("记录转换失败: {}:{}, 错误: {}", file, reader.getLineNumber(), e.getMessage());
+                continue;
+            }
+            records.increment();
+        }
+        if (!ndjsonOutput) {
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * JSON输入：整个文件作为一个文档转换；输出为NDJSON时数组结果每个元素一行
+     */
+    private void transformDocument(InputStream input, JsonGenerator generator, boolean ndjsonOutput) throws IOException {
+        byte[] source = input.readAllBytes();
+        if (ndjsonOutput) {
+            JsonNode result = transformService.transform(source);
+            for (JsonNode element : result.isArray() ? result : List.of(result)) {
+                generator.writeTree(element);
+                generator.writeRaw('\n');
+            }
+        } else {
+            transformService.transformTo(source, generator);
+        }
+        records.add(countSourceRecords(source));
+    }
+
+    /**
+     * 源文档的记录数：数组为元素个数，对象为1；按结构索引计数，不再对文档做一次词法分析
+     */
+    private long countSourceRecords(byte[] source) throws IOException {
+        int length = StructuralScanner.getDefault().index(source, 0, source.length).rootArrayLength();
+        return length < 0 ? 1 : length;
+    }
+
+    /**
+     * 打开输入文件，.gz文件自动解压；统计的是解压后的字节数
+     */
+    private InputStream openInput(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(GZIP_SUFFIX)) {
+            input = new GZIPInputStream(input, BUFFER_SIZE);
+        }
+        return new CountingInputStream(input, bytesRead);
+    }
+
+    private OutputStream openOutput(Path file) throws IOException {
+        OutputStream output = Files.newOutputStream(file);
+        if (options.isGzip()) {
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(output, BUFFER_SIZE);
+    }
+
+    /**
+     * 输出文件：保留相对输入根目录的子目录，扩展名替换为输出格式
+     */
+    private Path outputPath(Path file, Path base, boolean ndjsonOutput) {
+        Path relative = base == null ? file.getFileName() : base.relativize(file);
+        String name = stripExtension(relative.getFileName().toString())
+                + (ndjsonOutput ? ".ndjson" : ".json") + (options.isGzip() ? GZIP_SUFFIX : "");
+        Path parent = relative.getParent();
+        return parent == null ? options.getOutput().resolve(name) : options.getOutput().resolve(parent).resolve(name);
+    }
+
+    private static String stripExtension(String name) {
+        if (name.endsWith(GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static boolean isNdjson(Path file, String inputFormat) {
+        if (!CliOptions.FORMAT_AUTO.equals(inputFormat)) {
+            return CliOptions.FORMAT_NDJSON.equals(inputFormat);
+        }
+        String name = file.getFileName().toString();
+        if (name.endsWith(GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    /**
+     * 解析输入：单个文件、目录（递归包含所有 .json/.ndjson/.jsonl 及其 .gz 文件）或glob
+     */
+    static InputFiles resolveInputs(String input) throws IOException {
+        int globStart = indexOfGlob(input);
+        Path base;
+        PathMatcher matcher;
+        if (globStart >= 0) {
+            // glob之前最后一个目录作为遍历的根目录
+            String prefix = input.substring(0, globStart);
+            int separator = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf('\\'));
+            base = Paths.get(separator < 0 ? "." : prefix.substring(0, separator + 1));
+            String pattern = separator < 0 ? "./" + input : input;
+            matcher = base.getFileSystem().getPathMatcher("glob:" + pattern);
+        } else {
+            Path path = Paths.get(input);
+            if (Files.isRegularFile(path)) {
+                List<Path> files = new ArrayList<>();
+                files.add(path);
+                return new InputFiles(null, files);
+            }
+            if (!Files.isDirectory(path)) {
+                throw new IOException("输入不存在: " + input);
+            }
+            base = path;
+            matcher = file -> isSupportedFile(file.getFileName().toString());
+        }
+
+        try (Stream<Path> paths = Files.walk(base)) {
+            List<Path> files = paths.filter(Files::isRegularFile).filter(matcher::matches).sorted().collect(Collectors.toList());
+            return new InputFiles(base, files);
+        }
+    }
+
+    private static int indexOfGlob(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSupportedFile(String name) {
+        if (name.endsWith(GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        return name.endsWith(".json") || name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    private void report(int files, int failedFiles, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        System.out.printf("文件: %d（失败 %d），记录: %d（失败 %d），耗时: %.2f s%n",
+                files, failedFiles, records.sum(), failedRecords.sum(), seconds);
+        System.out.printf("吞吐: %.0f 记录/秒，%.1f MB/秒%n",
+                records.sum() / seconds, bytesRead.sum() / seconds / (1024 * 1024));
+    }
+
+    /**
+     * 输入文件列表及其根目录（单个文件时根目录为null）
+     */
+    static final class InputFiles {
+
+        private final Path base;
+        private final List<Path> files;
+
+        InputFiles(Path base, List<Path> files) {
+            this.base = base;
+            this.files = files;
+        }
+    }
+
+    /**
+     * 统计读取字节数的输入流
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final LongAdder counter;
+
+        CountingInputStream(InputStream input, LongAdder counter) {
+            super(input);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                counter.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                counter.add(n);
+            }
+            return n;
+        }
+    }
+}
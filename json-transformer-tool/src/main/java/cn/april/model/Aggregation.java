@@ -0,0 +1,24 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 聚合规则：在转换源数组的同一次遍历中计算分组统计，结果写入最终模板
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Aggregation {
+    // 结果写入最终模板的路径（如 $.custom_data.post_count）
+    private String targetPath;
+    // 聚合函数（count, sum, min, max, avg）
+    private String function;
+    // 参与计算的源字段路径（count 不需要）
+    private String sourcePath;
+    // 分组字段路径（可选），配置后结果为 分组值 -> 统计值 的对象，否则为单个值
+    private String groupBy;
+}
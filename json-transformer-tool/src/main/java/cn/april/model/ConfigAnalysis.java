@@ -0,0 +1,43 @@
+package cn.april.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 转换配置的分析报告：各映射的执行层级、迫使走慢路径的配置问题和估算的每条记录成本
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+public class ConfigAnalysis {
+    // 逐个映射的分析结果
+    private List<MappingAnalysis> mappings = new ArrayList<>();
+    // 各执行层级的映射数量
+    private Map<ExecutionTier, Integer> tierCounts = new LinkedHashMap<>();
+    // 发现的问题
+    private List<ConfigIssue> issues = new ArrayList<>();
+    // 每组映射规则估算的每条记录映射成本（纳秒，default 为顶层 mappings，其余为判别值），不含解析与输出；未校准时为空
+    private Map<String, Double> estimatedNanosPerRecord = new LinkedHashMap<>();
+    // 模板映射估算的每个文档成本（纳秒），未校准或没有模板映射时为null
+    private Double estimatedTemplateNanos;
+    // 校准微基准测得的各项操作成本（纳秒/次），未校准时为空
+    private Map<String, Double> calibration = new LinkedHashMap<>();
+
+    /**
+     * 是否存在ERROR级别的问题
+     */
+    public boolean hasErrors() {
+        for (ConfigIssue issue : issues) {
+            if (ConfigIssue.ERROR.equals(issue.getSeverity())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,29 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 配置分析发现的问题
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfigIssue {
+
+    public static final String ERROR = "ERROR";
+    public static final String WARN = "WARN";
+    public static final String INFO = "INFO";
+
+    // 严重程度（ERROR：映射不会生效；WARN：迫使走慢路径；INFO：可以优化）
+    private String severity;
+    // 问题代码（如 DEEP_SCAN、JSONPATH_IN_EXPRESSION）
+    private String code;
+    // 问题所在位置（映射标签或配置项名称）
+    private String location;
+    // 说明与建议
+    private String message;
+}
@@ -0,0 +1,19 @@
+package cn.april.model;
+
+/**
+ * 映射的执行层级，按单次执行的成本从低到高排列
+ *
+ * @author April
+ */
+public enum ExecutionTier {
+    // 简单sourcePath，从源路径前缀树的槽位直接取值，没有表达式和类型转换
+    FAST_PATH,
+    // 只执行内置的Java代码：类型转换（targetType）、数组映射，或开启自适应执行后由 NativeExpression 执行的表达式，不经过脚本
+    NATIVE,
+    // 非简单路径（通配符、深度扫描、过滤器等），每条记录通过json-path读取
+    JSON_PATH,
+    // 特殊表达式（@time:、@lookup:）
+    SPECIAL,
+    // Groovy表达式，每次执行创建脚本实例并通过Binding传值
+    GROOVY
+}
@@ -0,0 +1,25 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 表达式沙箱：限制Groovy表达式可以使用的类和方法，并为执行时间设置上限
+ * 限制在编译期检查，超时检查在编译时插入循环和方法入口，执行时没有额外的线程或调度
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpressionSandbox {
+    // 单个表达式的执行时间上限（毫秒，可选，默认100），超时的表达式按执行失败处理
+    private Long timeoutMillis;
+    // 一条记录的执行时间预算（毫秒，可选，默认不限制），从开始转换该记录起计算，用完后该记录其余的表达式不再执行
+    private Long recordBudgetMillis;
+    // 允许 import 的类名（可选，默认不允许任何 import）
+    private List<String> allowedImports;
+}
@@ -16,4 +16,19 @@ public class FieldMapping {
     private String transformExpression;
     // 目标字段类型（string, int, long, double, boolean等）
     private String targetType;
+    // 是否按输入值缓存转换结果（仅适用于纯函数表达式，即结果只依赖value）
+    private Boolean memoize;
+    // 缓存最大条目数（可选，默认1024）
+    private Integer memoizeCacheSize;
+    // 数组映射模式（nest：输出为数组；explode：每个元素输出一行），配置后sourcePath指向源数组
+    private String arrayMode;
+    // 数组元素的映射规则，其中的sourcePath和表达式中的$.相对于数组元素
+    private MappingSet elementMappings;
+
+    public FieldMapping(String sourcePath, String targetPath, String transformExpression, String targetType) {
+        this.sourcePath = sourcePath;
+        this.targetPath = targetPath;
+        this.transformExpression = transformExpression;
+        this.targetType = targetType;
+    }
 }
@@ -0,0 +1,24 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个字段映射的分析结果
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MappingAnalysis {
+    // 映射标签：判别值下的映射以 [判别值] 为前缀，数组元素映射接在 数组targetPath[*] 之后，模板映射以 template: 为前缀
+    private String label;
+    private String sourcePath;
+    private String transformExpression;
+    // 执行层级（映射中成本最高的环节）
+    private ExecutionTier tier;
+    // 估算的单次执行成本（纳秒），未校准时为null
+    private Double estimatedNanos;
+}
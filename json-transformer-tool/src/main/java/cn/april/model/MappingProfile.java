@@ -0,0 +1,45 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 自适应执行时单个字段映射的运行时统计
+ *
+ * @author April
+ */
+@Data
+@AllArgsConstructor
+public class MappingProfile {
+
+    public static final String PROFILING = "PROFILING";
+    public static final String OPTIMIZED = "OPTIMIZED";
+    public static final String GENERIC = "GENERIC";
+
+    // 映射标签：判别值下的映射以 [判别值] 为前缀，数组元素映射接在 数组targetPath[*] 之后
+    private String label;
+    // 执行次数
+    private long invocations;
+    // 源值缺失的比例（0~1）
+    private double missingRate;
+    // 源值为null的比例（0~1）
+    private double nullRate;
+    // 执行失败的比例（0~1）：抛出异常、Groovy表达式执行失败或类型转换失败
+    private double failureRate;
+    // 出现过的源值类型：missing、null、string、integer、float、boolean、object、array、other
+    private List<String> observedTypes;
+    // 抽样的平均单次执行耗时（纳秒），尚无样本时为null
+    private Double avgNanos;
+    // 按配置的执行层级
+    private ExecutionTier configuredTier;
+    // 当前的执行层级，快速实现生效时低于 configuredTier
+    private ExecutionTier tier;
+    // 状态：PROFILING（采样中）、OPTIMIZED（已提升）、GENERIC（使用通用实现）
+    private String state;
+    // 缺失短路是否生效
+    private boolean shortCircuited;
+    // 去优化次数
+    private int deoptimizations;
+}
@@ -0,0 +1,22 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 一组字段映射及其目标对象模板，用于按判别字段路由到不同的映射规则
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MappingSet {
+    // 目标对象模板（可选，为空时使用TransformConfig.targetJson）
+    private String targetJson;
+    // 字段映射规则
+    private List<FieldMapping> mappings;
+}
@@ -0,0 +1,32 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 单个字段映射的缓存命中统计
+ *
+ * @author April
+ */
+@Data
+@AllArgsConstructor
+public class MemoizationStats {
+    // 目标字段路径
+    private String targetPath;
+    // 命中次数
+    private long hits;
+    // 未命中次数
+    private long misses;
+    // 当前缓存条目数
+    private int size;
+    // 最大缓存条目数
+    private int maxSize;
+
+    /**
+     * 命中率（0~1），尚无访问时为0
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
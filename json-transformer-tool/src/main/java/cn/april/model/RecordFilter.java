@@ -0,0 +1,22 @@
+package cn.april.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 记录过滤条件：在映射之前判断，不满足的记录直接跳过
+ *
+ * @author April
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordFilter {
+    // 源字段路径（如 $.is_deleted）
+    private String path;
+    // 比较方式（eq, ne, in, notIn, exists, notExists, gt, gte, lt, lte）
+    private String operator;
+    // 比较值：eq/ne按文本比较，in/notIn为数组，gt/gte/lt/lte按数值比较，exists/notExists不需要
+    private Object value;
+}
@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -19,4 +20,39 @@ public class TransformConfig {
     private String targetNodePath;
     // 字段映射规则
     private List<FieldMapping> mappings;
+    // 查找表定义（表名 -> 本地CSV/JSON文件路径），供 @lookup:表名 表达式使用
+    private Map<String, String> lookupTables;
+    // 选择性解析：只物化映射引用到的源字段，跳过未使用的子树（源文档很宽时开启）
+    private Boolean selectiveParsing;
+    // 磁带式解析：文本JSON源只建立结构索引，字段在读取时才解码（只读取少量字段时开启，仅文本JSON）
+    private Boolean tapeParsing;
+    // 结构扫描：选择性解析的文本JSON字节输入先用结构扫描器建立索引，只解析引用到的值（启用 jdk.incubator.vector 时按向量扫描）
+    private Boolean structuralScanning;
+    // Groovy脚本编译缓存目录（可选），多次启动之间复用编译结果
+    private String scriptCacheDir;
+    // 判别字段路径（如 $.data_type），配置后每条记录按该字段的值选择 discriminatorMappings 中的映射规则
+    private String discriminatorPath;
+    // 判别值 -> 映射规则，未匹配的记录使用顶层 mappings，顶层 mappings 为空时跳过该记录
+    private Map<String, MappingSet> discriminatorMappings;
+    // 聚合规则（仅有模板模式），源数组转换时同一次遍历计算，结果写入最终模板
+    private List<Aggregation> aggregations;
+    // 映射前的过滤条件（全部满足才转换），直接读取源字段，不经过Groovy
+    private List<RecordFilter> filters;
+    // 去重字段路径（如 $.note_id），该字段值已出现过的记录跳过
+    private String dedupKeyPath;
+    // 去重时记住的最近键数量（可选，默认100000），超过后最早的键被淘汰
+    private Integer dedupCapacity;
+    // 表达式沙箱（可选），表达式来自不可信来源时配置
+    private ExpressionSandbox expressionSandbox;
+    // 自适应执行：按运行时统计把热点映射提升到内置实现（类型守卫失败时回退），几乎总是缺失的源路径直接使用缓存结果
+    private Boolean adaptive;
+
+    public TransformConfig(String finalJsonTemplate, List<FieldMapping> templateMappings, String targetJson,
+                           String targetNodePath, List<FieldMapping> mappings) {
+        this.finalJsonTemplate = finalJsonTemplate;
+        this.templateMappings = templateMappings;
+        this.targetJson = targetJson;
+        this.targetNodePath = targetNodePath;
+        this.mappings = mappings;
+    }
 }
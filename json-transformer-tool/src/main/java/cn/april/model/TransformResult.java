@@ -0,0 +1,31 @@
+package cn.april.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 批量转换中单条记录的结果
+ *
+ * @author April
+ */
+@Data
+@AllArgsConstructor
+public class TransformResult {
+    // 记录在批次中的下标
+    private int index;
+    // 是否转换成功
+    private boolean success;
+    // 转换结果（失败时为null）
+    private JsonNode result;
+    // 失败原因（成功时为null）
+    private String error;
+
+    public static TransformResult success(int index, JsonNode result) {
+        return new TransformResult(index, true, result, null);
+    }
+
+    public static TransformResult failure(int index, String error) {
+        return new TransformResult(index, false, null, error);
+    }
+}
@@ -0,0 +1,183 @@
+package cn.april.service;
+
+import org.codehaus.groovy.ast.ClassCodeExpressionTransformer;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.VariableScope;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.ArrayExpression;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.TupleExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.DoWhileStatement;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.ast.stmt.WhileStatement;
+import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.CompilePhase;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+import org.codehaus.groovy.syntax.Token;
+import org.codehaus.groovy.syntax.Types;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译期在每个循环体和闭包入口插入 ExpressionDeadline.check() 调用
+ * 作用与 TimedInterrupt/ThreadInterrupt 相同，但截止时间在执行前按线程设置，
+ * 脚本实例不需要额外的字段初始化；插入了检查的脚本类实现 ExpressionDeadline.Checked，
+ * 不含循环和闭包的表达式不需要设置截止时间
+ * 字符串与列表的重复（'x' * n）、拼接、乘方与填充在Groovy库方法内部一次完成，循环检查拦截不到，
+ * 因此 *、+、<<、** 运算（及对应的复合赋值）改为调用 ExpressionDeadline 的同名方法，
+ * SandboxExpressionChecker.SIZED_METHODS 中的方法调用改为调用 ExpressionDeadline.invoke，执行前估算结果的大小
+ *
+ * @author April
+ */
+class DeadlineCheckCustomizer extends CompilationCustomizer {
+
+    private static final ClassNode DEADLINE_TYPE = ClassHelper.make(ExpressionDeadline.class);
+    private static final ClassNode CHECKED_TYPE = ClassHelper.make(ExpressionDeadline.Checked.class);
+
+    DeadlineCheckCustomizer() {
+        super(CompilePhase.CANONICALIZATION);
+    }
+
+    @Override
+    public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) {
+        boolean[] inserted = new boolean[1];
+        new ClassCodeVisitorSupport() {
+            @Override
+            protected SourceUnit getSourceUnit() {
+                return source;
+            }
+
+            @Override
+            public void visitForLoop(ForStatement loop) {
+                loop.setLoopBlock(withCheck(loop.getLoopBlock()));
+                inserted[0] = true;
+                super.visitForLoop(loop);
+            }
+
+            @Override
+            public void visitWhileLoop(WhileStatement loop) {
+                loop.setLoopBlock(withCheck(loop.getLoopBlock()));
+                inserted[0] = true;
+                super.visitWhileLoop(loop);
+            }
+
+            @Override
+            public void visitDoWhileLoop(DoWhileStatement loop) {
+                loop.setLoopBlock(withCheck(loop.getLoopBlock()));
+                inserted[0] = true;
+                super.visitDoWhileLoop(loop);
+            }
+
+            @Override
+            public void visitClosureExpression(ClosureExpression closure) {
+                closure.setCode(withCheck(closure.getCode()));
+                inserted[0] = true;
+                super.visitClosureExpression(closure);
+            }
+        }.visitClass(classNode);
+        new SizeCheckTransformer(source).visitClass(classNode);
+        if (inserted[0]) {
+            classNode.addInterface(CHECKED_TYPE);
+        }
+    }
+
+    /**
+     * 在语句块开头插入检查；原语句块保留自身的变量作用域，闭包的最后一条语句仍是返回值
+     */
+    private static Statement withCheck(Statement code) {
+        Statement check = new ExpressionStatement(
+                new StaticMethodCallExpression(DEADLINE_TYPE, "check", ArgumentListExpression.EMPTY_ARGUMENTS));
+        if (code instanceof BlockStatement) {
+            ((BlockStatement) code).getStatements().add(0, check);
+            return code;
+        }
+        List<Statement> statements = new ArrayList<>();
+        statements.add(check);
+        statements.add(code);
+        return new BlockStatement(statements, new VariableScope());
+    }
+
+    /**
+     * 把 a * b 改写为 ExpressionDeadline.multiply(a, b)，把 v *= b 改写为 v = ExpressionDeadline.multiply(v, b)，+、<<、** 同理
+     * （沙箱检查只允许变量作为复合赋值的左侧，改写后左侧不会被求值两次）；
+     * 把 x.padLeft(n) 等调用改写为 ExpressionDeadline.invoke(x, false, 'padLeft', [n] as Object[])
+     */
+    private static final class SizeCheckTransformer extends ClassCodeExpressionTransformer {
+
+        private static final Map<Integer, String> OPERATORS = Map.of(
+                Types.MULTIPLY, "multiply", Types.PLUS, "plus", Types.LEFT_SHIFT, "leftShift", Types.POWER, "power");
+        private static final Map<Integer, Integer> COMPOUND_OPERATORS = Map.of(
+                Types.MULTIPLY_EQUAL, Types.MULTIPLY, Types.PLUS_EQUAL, Types.PLUS,
+                Types.LEFT_SHIFT_EQUAL, Types.LEFT_SHIFT, Types.POWER_EQUAL, Types.POWER);
+
+        private final SourceUnit source;
+
+        private SizeCheckTransformer(SourceUnit source) {
+            this.source = source;
+        }
+
+        @Override
+        protected SourceUnit getSourceUnit() {
+            return source;
+        }
+
+        @Override
+        public Expression transform(Expression expression) {
+            if (expression instanceof ClosureExpression) {
+                ((ClosureExpression) expression).getCode().visit(this);
+                return expression;
+            }
+            if (expression instanceof BinaryExpression && !(expression instanceof DeclarationExpression)) {
+                BinaryExpression binary = (BinaryExpression) expression;
+                int operation = binary.getOperation().getType();
+                Integer compound = COMPOUND_OPERATORS.get(operation);
+                String helper = OPERATORS.get(compound != null ? compound : operation);
+                if (helper != null) {
+                    Expression left = transform(binary.getLeftExpression());
+                    Expression call = new StaticMethodCallExpression(DEADLINE_TYPE, helper,
+                            new ArgumentListExpression(left, transform(binary.getRightExpression())));
+                    call.setSourcePosition(binary);
+                    if (compound == null) {
+                        return call;
+                    }
+                    BinaryExpression assign = new BinaryExpression(left,
+                            Token.newSymbol(Types.ASSIGN, binary.getOperation().getStartLine(), binary.getOperation().getStartColumn()),
+                            call);
+                    assign.setSourcePosition(binary);
+                    return assign;
+                }
+            }
+            if (expression instanceof MethodCallExpression) {
+                MethodCallExpression call = (MethodCallExpression) expression;
+                String method = call.getMethodAsString();
+                if (SandboxExpressionChecker.SIZED_METHODS.contains(method) && !call.isSpreadSafe()
+                        && call.getArguments() instanceof TupleExpression) {
+                    List<Expression> arguments = new ArrayList<>();
+                    for (Expression argument : ((TupleExpression) call.getArguments()).getExpressions()) {
+                        arguments.add(transform(argument));
+                    }
+                    Expression invoke = new StaticMethodCallExpression(DEADLINE_TYPE, "invoke", new ArgumentListExpression(new Expression[]{
+                            transform(call.getObjectExpression()), new ConstantExpression(call.isSafe()),
+                            new ConstantExpression(method), new ArrayExpression(ClassHelper.OBJECT_TYPE, arguments)}));
+                    invoke.setSourcePosition(call);
+                    return invoke;
+                }
+            }
+            return super.transform(expression);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package cn.april.service;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.runtime.typehandling.NumberMath;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 沙箱表达式的执行截止时间
+ * 截止时间按线程保存，由 ExpressionEvaluator 在每次执行脚本前设置；
+ * 沙箱编译的脚本在每个循环体和闭包入口调用 check，超时或线程被中断时抛出异常终止执行；
+ * 时钟按检查次数采样读取（每次执行的第一次检查总是读取），超时的判定最多延后 SAMPLE_INTERVAL 次循环迭代；
+ * 一次库方法调用就能分配大量内存的运算（'x' * n、s + s、sb << sb、n ** m、padLeft(n)、String.format('%999999999s')）
+ * 在沙箱脚本中改为调用这里的同名方法，先按参数估算结果的大小，超过上限时直接失败，不进入分配内存的库方法
+ *
+ * @author April
+ */
+public final class ExpressionDeadline {
+
+    // 每多少次检查读取一次时钟与中断标记（2的幂），循环每次迭代只做一次计数
+    private static final int SAMPLE_INTERVAL = 64;
+    // 字符串、列表、Map、数组运算结果的最大长度（字符数或元素数）
+    private static final long MAX_LENGTH = 1 << 20;
+    // 大整数与大数运算（乘方、左移）结果的最大位数
+    private static final long MAX_BIT_LENGTH = 1 << 23;
+    // 格式字符串中的宽度与精度（%% 为字面的百分号）
+    private static final Pattern FORMAT_SIZE = Pattern.compile("%(?:%|(?:\\d+\\$)?[-#+ 0,(<]*(\\d+)?(?:\\.(\\d+))?)");
+
+    // 当前线程：[0]为正在执行的表达式的截止时间（System.nanoTime，0表示不限制），[1]为检查次数
+    private static final ThreadLocal<long[]> DEADLINE = ThreadLocal.withInitial(() -> new long[2]);
+
+    private ExpressionDeadline() {
+    }
+
+    /**
+     * 由沙箱编译的脚本调用，不应在其他地方使用
+     */
+    public static void check() {
+        long[] state = DEADLINE.get();
+        if ((++state[1] & (SAMPLE_INTERVAL - 1)) != 0) {
+            return;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("表达式执行被中断");
+        }
+        if (state[0] != 0 && System.nanoTime() - state[0] > 0) {
+            throw new RuntimeException("表达式执行超时");
+        }
+    }
+
+    /**
+     * 由沙箱编译的脚本代替 * 运算调用：数值直接相乘，字符串、列表、数组的重复先检查结果长度，其余按Groovy的 multiply 方法分派
+     */
+    public static Object multiply(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return NumberMath.multiply((Number) left, (Number) right);
+        }
+        if (right instanceof Number) {
+            long length = length(left);
+            if (length > 0 && ((Number) right).longValue() > MAX_LENGTH / length) {
+                throw new RuntimeException("运算结果的长度超过上限 " + MAX_LENGTH);
+            }
+        }
+        return InvokerHelper.invokeMethod(left, "multiply", new Object[]{right});
+    }
+
+    /**
+     * 由沙箱编译的脚本代替 + 运算调用：数值直接相加，字符串、列表、Map、数组的拼接先检查结果长度
+     */
+    public static Object plus(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return NumberMath.add((Number) left, (Number) right);
+        }
+        checkLength(length(left) + length(right));
+        if (left instanceof String && right instanceof String) {
+            return (String) left + right;
+        }
+        return InvokerHelper.invokeMethod(left, "plus", new Object[]{right});
+    }
+
+    /**
+     * 由沙箱编译的脚本代替 << 运算调用：整数左移检查位数，StringBuilder 与集合的追加先检查结果长度
+     */
+    public static Object leftShift(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            checkShift((Number) left, (Number) right);
+            return NumberMath.leftShift((Number) left, (Number) right);
+        }
+        checkLength(length(left) + length(right));
+        return InvokerHelper.invokeMethod(left, "leftShift", new Object[]{right});
+    }
+
+    /**
+     * 由沙箱编译的脚本代替 ** 运算调用：大整数与大数的乘方先估算结果的位数
+     */
+    public static Object power(Object left, Object right) {
+        checkPower(left, right);
+        return InvokerHelper.invokeMethod(left, "power", new Object[]{right});
+    }
+
+    /**
+     * 由沙箱编译的脚本代替可能一次分配大量内存的方法调用（方法名见 SandboxExpressionChecker.SIZED_METHODS），
+     * 按参数估算结果的大小后按Groovy的方法分派调用
+     *
+     * @param safe 调用写作 ?.，调用对象为null时返回null
+     */
+    public static Object invoke(Object receiver, boolean safe, String method, Object[] arguments) {
+        if (receiver == null && safe) {
+            return null;
+        }
+        Object first = arguments.length > 0 ? arguments[0] : null;
+        switch (method) {
+            case "padLeft":
+            case "padRight":
+            case "center":
+                if (first instanceof Number) {
+                    checkLength(((Number) first).longValue());
+                }
+                break;
+            case "plus":
+            case "leftShift":
+            case "append":
+            case "concat":
+            case "addAll":
+                long length = length(receiver);
+                for (Object argument : arguments) {
+                    length += length(argument);
+                }
+                checkLength(length);
+                break;
+            case "power":
+            case "pow":
+                checkPower(receiver, first);
+                break;
+            case "shiftLeft":
+                if (receiver instanceof Number && first instanceof Number) {
+                    checkShift((Number) receiver, (Number) first);
+                }
+                break;
+            case "format":
+            case "sprintf":
+            case "printf":
+                for (Object argument : arguments) {
+                    if (argument instanceof CharSequence) {
+                        checkFormat((CharSequence) argument);
+                        break;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return InvokerHelper.invokeMethod(receiver, method, arguments);
+    }
+
+    /**
+     * 字符串的字符数、集合与Map的元素数、数组的长度，其他对象为0
+     */
+    private static long length(Object value) {
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        return value != null && value.getClass().isArray() ? Array.getLength(value) : 0;
+    }
+
+    private static void checkLength(long length) {
+        if (length > MAX_LENGTH) {
+            throw new RuntimeException("运算结果的长度超过上限 " + MAX_LENGTH);
+        }
+    }
+
+    /**
+     * 乘方结果的位数约为底数位数乘以指数；int、long 溢出时Groovy改用BigInteger计算，同样检查
+     */
+    private static void checkPower(Object base, Object exponent) {
+        if (!(exponent instanceof Number) || exponent instanceof Double || exponent instanceof Float) {
+            return;
+        }
+        long bits;
+        if (base instanceof BigDecimal) {
+            bits = ((BigDecimal) base).unscaledValue().abs().bitLength();
+        } else if (base instanceof BigInteger) {
+            bits = ((BigInteger) base).abs().bitLength();
+        } else if (base instanceof Integer || base instanceof Long || base instanceof Short || base instanceof Byte) {
+            bits = 64 - Long.numberOfLeadingZeros(Math.abs(((Number) base).longValue()));
+        } else {
+            return;
+        }
+        long times = ((Number) exponent).longValue();
+        if (bits > 1 && times > MAX_BIT_LENGTH / bits) {
+            throw new RuntimeException("乘方结果的位数超过上限 " + MAX_BIT_LENGTH);
+        }
+    }
+
+    /**
+     * int、long 的左移按位宽取模，只有 BigInteger 的结果会随位移增长
+     */
+    private static void checkShift(Number value, Number distance) {
+        if (value instanceof BigInteger && distance.longValue() > MAX_BIT_LENGTH) {
+            throw new RuntimeException("左移结果的位数超过上限 " + MAX_BIT_LENGTH);
+        }
+    }
+
+    /**
+     * 格式字符串中的宽度与精度决定填充后的长度
+     */
+    private static void checkFormat(CharSequence format) {
+        Matcher matcher = FORMAT_SIZE.matcher(format);
+        while (matcher.find()) {
+            for (int group = 1; group <= 2; group++) {
+                String size = matcher.group(group);
+                if (size != null && (size.length() > 9 || Long.parseLong(size) > MAX_LENGTH)) {
+                    throw new RuntimeException("格式化结果的长度超过上限 " + MAX_LENGTH);
+                }
+            }
+        }
+    }
+
+    /**
+     * 标记接口：脚本类中插入了 check 调用，执行前需要设置截止时间；没有循环和闭包的脚本不实现该接口
+     */
+    public interface Checked {
+    }
+
+    /**
+     * 设置当前线程下一次执行的截止时间
+     */
+    static void set(long deadline) {
+        long[] state = DEADLINE.get();
+        state[0] = deadline;
+        // 下一次 check 计数后为0，读取时钟与中断标记
+        state[1] = -1;
+    }
+}
@@ -0,0 +1,357 @@
+package cn.april.service;
+
+import cn.april.model.ExpressionSandbox;
+import cn.april.service.path.SimplePath;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 表达式执行器
+ * Groovy表达式在初始化时编译为脚本类，执行时为每次调用创建新的脚本实例，
+ * 通过Binding传入 value 和表达式中引用的JSONPath值（jsonpath0、jsonpath1...），
+ * 执行路径上没有动态编译和共享的可变状态，可以在多线程（包括虚拟线程）中并发调用
+ * 配置沙箱时，编译期限制可以使用的类和方法，并在循环体和闭包入口插入超时与线程中断检查；
+ * 一条记录的执行时间预算按线程记录，由 startRecord 开始计算
+ *
+ * @author April
+ */
+public class ExpressionEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpressionEvaluator.class);
+
+    private static final String VALUE_VARIABLE = "value";
+    private static final String JSON_PATH_VARIABLE_PREFIX = "jsonpath";
+    public static final Pattern JSON_PATH_PATTERN = Pattern.compile("\\$\\.[^\\s\"']+");
+
+    private static final long DEFAULT_SANDBOX_TIMEOUT_MILLIS = 100;
+    // 不含循环和闭包的表达式每执行多少个检查一次记录预算（2的幂）
+    private static final int RECORD_BUDGET_SAMPLE = 8;
+    private final ObjectMapper objectMapper;
+    private final JsonPathNavigator pathNavigator;
+    private final SpecialExpressionManager specialExpressionManager;
+    private final GroovyShell groovyShell;
+    // 脚本编译缓存，未配置缓存目录时为null
+    private final ScriptCompilationCache scriptCache;
+    private final Map<String, CompiledExpression> compiledExpressions = new ConcurrentHashMap<>();
+    // 沙箱中单个表达式的执行时间上限（纳秒），未配置沙箱时为0
+    private final long timeoutNanos;
+    // 一条记录的执行时间预算（纳秒），未配置时为0
+    private final long recordBudgetNanos;
+    // 当前线程正在转换的记录：[0]为预算截止时间（0表示未开始），[1]为预算是否已用完，[2]为已执行的表达式数
+    private final ThreadLocal<long[]> recordDeadline = ThreadLocal.withInitial(() -> new long[3]);
+
+    /**
+     * @param scriptCacheDir Groovy脚本编译缓存目录，为null时每次启动都重新编译
+     */
+    public ExpressionEvaluator(ObjectMapper objectMapper, JsonPathNavigator pathNavigator,
+                               SpecialExpressionManager specialExpressionManager, String scriptCacheDir) {
+        this(objectMapper, pathNavigator, specialExpressionManager, scriptCacheDir, null);
+    }
+
+    /**
+     * @param scriptCacheDir Groovy脚本编译缓存目录，为null时每次启动都重新编译
+     * @param sandbox        表达式沙箱，为null时不限制
+     */
+    public ExpressionEvaluator(ObjectMapper objectMapper, JsonPathNavigator pathNavigator,
+                               SpecialExpressionManager specialExpressionManager, String scriptCacheDir,
+                               ExpressionSandbox sandbox) {
+        this.objectMapper = objectMapper;
+        this.pathNavigator = pathNavigator;
+        this.specialExpressionManager = specialExpressionManager;
+        CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
+        String fingerprint = "default";
+        long timeoutMillis = 0;
+        if (sandbox != null) {
+            timeoutMillis = sandbox.getTimeoutMillis() != null ? sandbox.getTimeoutMillis() : DEFAULT_SANDBOX_TIMEOUT_MILLIS;
+            if (timeoutMillis <= 0) {
+                throw new IllegalArgumentException("expressionSandbox.timeoutMillis 必须大于0");
+            }
+            List<String> allowedImports = sandbox.getAllowedImports() != null ? sandbox.getAllowedImports() : Collections.emptyList();
+            SandboxExpressionChecker.configure(compilerConfiguration, allowedImports);
+            fingerprint = "sandbox:" + allowedImports;
+        }
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.recordBudgetNanos = sandbox != null && sandbox.getRecordBudgetMillis() != null
+                ? TimeUnit.MILLISECONDS.toNanos(Math.max(0, sandbox.getRecordBudgetMillis())) : 0;
+        this.groovyShell = new GroovyShell(compilerConfiguration);
+        this.scriptCache = scriptCacheDir == null || scriptCacheDir.trim().isEmpty() ? null
+                : new ScriptCompilationCache(Paths.get(scriptCacheDir), groovyShell.getClassLoader(), compilerConfiguration, fingerprint);
+    }
+
+    /**
+     * 开始转换一条记录：重新计算当前线程的执行时间预算（未配置预算时什么都不做）
+     */
+    public void startRecord() {
+        if (recordBudgetNanos > 0) {
+            long[] record = recordDeadline.get();
+            record[0] = System.nanoTime() + recordBudgetNanos;
+            record[1] = 0;
+            record[2] = 0;
+        }
+    }
+
+    /**
+     * 执行沙箱表达式前检查记录预算，并为插入了检查的脚本设置截止时间（单个表达式的上限与记录剩余预算中较早的一个）
+     * 不含循环和闭包的表达式执行时间很短，记录预算每 RECORD_BUDGET_SAMPLE 个表达式才读取一次时钟
+     *
+     * @return 当前记录的预算已用完时返回false（不应执行），首次用完时输出日志
+     */
+    private boolean startSandboxedRun(String expression, boolean checked) {
+        long now = 0;
+        long recordDeadlineNanos = 0;
+        if (recordBudgetNanos > 0) {
+            long[] record = recordDeadline.get();
+            if (record[1] != 0) {
+                return false;
+            }
+            recordDeadlineNanos = record[0];
+            if (recordDeadlineNanos != 0 && (checked || (++record[2] & (RECORD_BUDGET_SAMPLE - 1)) == 0)) {
+                now = System.nanoTime();
+                if (now - recordDeadlineNanos >= 0) {
+                    record[1] = 1;
+                    log.warn("记录的执行时间超出预算 {} ms，跳过其余表达式，首个跳过: {}",
+                            TimeUnit.NANOSECONDS.toMillis(recordBudgetNanos), expression);
+                    return false;
+                }
+            }
+        }
+        if (checked) {
+            long deadline = (now != 0 ? now : System.nanoTime()) + timeoutNanos;
+            ExpressionDeadline.set(recordDeadlineNanos != 0 && recordDeadlineNanos - deadline < 0 ? recordDeadlineNanos : deadline);
+        }
+        return true;
+    }
+
+    /**
+     * 检查表达式是否包含JSONPath
+     */
+    public static boolean containsJsonPath(String expression) {
+        // 检查是否包含 $. 模式
+        return expression != null && expression.contains("$.");
+    }
+
+    /**
+     * 提取表达式中引用的JSONPath（按出现顺序，可能重复）
+     */
+    public static List<String> extractJsonPaths(String expression) {
+        List<String> jsonPaths = new ArrayList<>();
+        if (containsJsonPath(expression)) {
+            Matcher matcher = JSON_PATH_PATTERN.matcher(expression);
+            while (matcher.find()) {
+                jsonPaths.add(matcher.group());
+            }
+        }
+        return jsonPaths;
+    }
+
+    /**
+     * 预编译单个Groovy表达式
+     */
+    public void precompile(String expression) {
+        if (compiledExpressions.containsKey(expression)) {
+            return;
+        }
+
+        try {
+            compiledExpressions.put(expression, compile(expression));
+        } catch (Exception e) {
+            throw new RuntimeException("表达式预编译失败: " + expression, e);
+        }
+    }
+
+    /**
+     * 已编译的Groovy表达式数量
+     */
+    public int getCompiledCount() {
+        return compiledExpressions.size();
+    }
+
+    /**
+     * 是否配置了记录执行时间预算（预算用完的记录中Groovy表达式按执行失败处理）
+     */
+    public boolean hasRecordBudget() {
+        return recordBudgetNanos > 0;
+    }
+
+    /**
+     * 脚本编译缓存，未配置时为null
+     */
+    public ScriptCompilationCache getScriptCache() {
+        return scriptCache;
+    }
+
+    private CompiledExpression compile(String expression) throws Exception {
+        String scriptText = expression;
+        List<String> jsonPaths = extractJsonPaths(expression);
+        if (!jsonPaths.isEmpty()) {
+            // 对于包含JSONPath的表达式，将JSONPath替换为变量名后编译，执行时通过Binding传值
+            scriptText = replaceJsonPathWithVariables(expression);
+            log.info("预编译包含JSONPath的表达式: {} -> {}", expression, scriptText);
+        }
+        Class<? extends Script> scriptClass = scriptCache != null
+                ? scriptCache.load(scriptText) : groovyShell.parse(scriptText).getClass();
+        return new CompiledExpression(scriptClass, jsonPaths);
+    }
+
+    /**
+     * 将JSONPath替换为变量名 jsonpath0、jsonpath1...
+     */
+    private String replaceJsonPathWithVariables(String expression) {
+        Matcher matcher = JSON_PATH_PATTERN.matcher(expression);
+
+        StringBuffer result = new StringBuffer();
+        int index = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(result, JSON_PATH_VARIABLE_PREFIX + index);
+            index++;
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+
+    /**
+     * 执行表达式（支持特殊表达式、value 与JSONPath引用）
+     *
+     * @param expression 表达式
+     * @param value      sourcePath对应的值
+     * @param sourceData 源对象，用于解析表达式中的JSONPath，可以为null
+     * @return 执行结果，执行失败时返回原值
+     */
+    public Object evaluate(String expression, Object value, JsonNode sourceData) {
+        try {
+            // 如果没有表达式，返回原值
+            if (expression == null || expression.trim().isEmpty()) {
+                return value;
+            }
+
+            // 检查是否是特殊表达式（特殊表达式的结果可以是null，如查找表未命中）
+            if (specialExpressionManager.isSpecialExpression(expression)) {
+                return specialExpressionManager.process(expression, value);
+            }
+
+            CompiledExpression compiled = compiledExpressions.get(expression);
+            if (compiled == null) {
+                log.warn("表达式未预编译，动态编译: {}", expression);
+                compiled = compiledExpressions.computeIfAbsent(expression, key -> {
+                    try {
+                        return compile(key);
+                    } catch (Exception e) {
+                        throw new RuntimeException("表达式编译失败: " + key, e);
+                    }
+                });
+            }
+
+            // 当前记录的预算用完时按执行失败处理（返回原值）
+            if (timeoutNanos > 0 && !startSandboxedRun(expression, compiled.checked)) {
+                return value;
+            }
+
+            Binding binding = new Binding();
+            binding.setVariable(VALUE_VARIABLE, toGroovyValue(value));
+            for (int i = 0; i < compiled.jsonPaths.size(); i++) {
+                Object pathValue = sourceData == null ? null : readJsonPath(sourceData, compiled.jsonPaths.get(i), compiled.simplePaths.get(i));
+                binding.setVariable(JSON_PATH_VARIABLE_PREFIX + i, toGroovyValue(pathValue));
+            }
+            return compiled.newScript(binding).run();
+
+        } catch (Exception e) {
+            log.warn("表达式执行失败: {}, 错误: {}", expression, e.getMessage());
+            return value;
+        } catch (StackOverflowError e) {
+            // 沙箱中闭包的无限递归只影响这一个表达式；未配置沙箱时按原样抛出
+            if (timeoutNanos == 0) {
+                throw e;
+            }
+            log.warn("表达式执行失败: {}, 错误: 调用层次过深", expression);
+            return value;
+        }
+    }
+
+    /**
+     * 读取表达式中引用的JSONPath值，简单路径直接在源节点上导航
+     */
+    private Object readJsonPath(JsonNode sourceData, String jsonPath, SimplePath simplePath) {
+        if (simplePath == null) {
+            return pathNavigator.readValue(sourceData, jsonPath);
+        }
+        return simplePath.read(sourceData);
+    }
+
+    /**
+     * 将值转换为Groovy中可直接使用的形式
+     */
+    private Object toGroovyValue(Object value) {
+        if (!(value instanceof JsonNode)) {
+            return value;
+        }
+        JsonNode node = (JsonNode) value;
+        if (node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+        if (node.isTextual()) {
+            return node.asText();
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.asBoolean();
+        }
+        // 对象和数组转换为 Map / List，表达式中可以用 value.field 访问
+        return objectMapper.convertValue(node, Object.class);
+    }
+
+    /**
+     * 编译后的表达式：脚本类的构造方法句柄与引用的JSONPath
+     */
+    private static class CompiledExpression {
+
+        private final MethodHandle constructor;
+        private final List<String> jsonPaths;
+        private final List<SimplePath> simplePaths = new ArrayList<>();
+        // 沙箱编译时插入了超时检查，执行前需要设置截止时间
+        private final boolean checked;
+
+        CompiledExpression(Class<? extends Script> scriptClass, List<String> jsonPaths) throws Exception {
+            this.constructor = MethodHandles.publicLookup()
+                    .findConstructor(scriptClass, MethodType.methodType(void.class, Binding.class))
+                    .asType(MethodType.methodType(Script.class, Binding.class));
+            this.jsonPaths = jsonPaths;
+            this.checked = ExpressionDeadline.Checked.class.isAssignableFrom(scriptClass);
+            for (String jsonPath : jsonPaths) {
+                simplePaths.add(SimplePath.parse(jsonPath));
+            }
+        }
+
+        Script newScript(Binding binding) {
+            try {
+                return (Script) constructor.invokeExact(binding);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // 脚本类的构造方法不声明受检异常
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
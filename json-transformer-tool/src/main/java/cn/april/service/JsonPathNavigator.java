@@ -6,6 +6,7 @@ import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cn.april.service.tape.TapeNode;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -158,13 +159,13 @@ public class JsonPathNavigator {
     }
 
     /**
-     * 使用json-path读取值
+     * 使用json-path读取值，磁带视图直接使用原始字节中的JSON文本，不重新序列化
      */
     public Object readValue(JsonNode root, String path) {
         try {
             String cleanPath = cleanPath(path);
             JsonPath jsonPath = JSON_PATH.computeIfAbsent(cleanPath, JsonPath::compile);
-            return jsonPath.read(root.toString());
+            return jsonPath.read(root instanceof TapeNode ? ((TapeNode) root).rawJson() : root.toString());
         } catch (Exception e) {
             log.warn("读取路径失败: {}, 错误: {}", path, e.getMessage());
             return null;
@@ -1,21 +1,62 @@
 package cn.april.service;
 
+import cn.april.model.Aggregation;
+import cn.april.model.ConfigAnalysis;
+import cn.april.model.ConfigIssue;
 import cn.april.model.FieldMapping;
+import cn.april.model.MappingProfile;
+import cn.april.model.MappingSet;
+import cn.april.model.MemoizationStats;
+import cn.april.model.RecordFilter;
 import cn.april.model.TransformConfig;
+import cn.april.model.TransformResult;
+import cn.april.service.adaptive.AdaptiveMapping;
+import cn.april.service.aggregate.AggregationAccumulator;
+import cn.april.service.aggregate.AggregationPlan;
+import cn.april.service.analysis.ConfigAnalyzer;
+import cn.april.service.analysis.CostCalibration;
+import cn.april.service.filter.BoundedDedupSet;
+import cn.april.service.filter.RecordPredicate;
+import cn.april.service.lookup.LookupTableRegistry;
+import cn.april.service.output.TemplateSkeleton;
+import cn.april.service.patch.JsonPatch;
+import cn.april.service.path.ObjectTreeReader;
+import cn.april.service.path.SelectiveJsonReader;
+import cn.april.service.path.SimplePath;
+import cn.april.service.path.TargetPathWriter;
+import cn.april.service.scan.ScanningSelectiveReader;
+import cn.april.service.scan.StructuralScanner;
+import cn.april.service.tape.JsonTape;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import groovy.lang.GroovyShell;
-import groovy.lang.Script;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * 简洁的JSON转换服务
@@ -26,18 +67,50 @@ import java.util.concurrent.ConcurrentHashMap;
 public class JsonTransformService {
 
     private static final Logger log = LoggerFactory.getLogger(JsonTransformService.class);
-    
-    // 常量定义
-    private static final String VALUE_PLACEHOLDER = "value";
-    private static final String NULL_STRING = "null";
+
+    private static final int DEFAULT_DEDUP_CAPACITY = 100_000;
+
+    private static final SerializedString ARRAY_START = new SerializedString("[");
+    private static final SerializedString ARRAY_END = new SerializedString("]");
+    private static final SerializedString COMMA = new SerializedString(",");
+    private static final SerializedString EMPTY_OBJECT = new SerializedString("{}");
     
     // 核心组件
     private final ObjectMapper objectMapper;
+    // 源数据与 transformToBytes 输出使用的数据格式（默认为文本JSON，也可以是Smile、CBOR等二进制格式）
+    private final ObjectMapper dataFormatMapper;
     private final JsonPathNavigator pathNavigator;
     private final TransformConfig transformConfig;
-    private final GroovyShell groovyShell;
-    private final Map<String, Script> compiledExpressions;
     private final SpecialExpressionManager specialExpressionManager;
+    private final ExpressionEvaluator expressionEvaluator;
+    private final LookupTableRegistry lookupTableRegistry;
+    // 选择性解析读取器，未开启或无法裁剪时为null
+    private final SelectiveJsonReader selectiveReader;
+    // 基于结构索引的选择性读取器，只用于文本JSON字节输入，未开启时为null
+    private final ScanningSelectiveReader scanningReader;
+    // 文本JSON源是否解析为磁带索引（只读视图），开启时优先于选择性解析
+    private final boolean tapeParsing;
+    // Java对象源的读取器，开启选择性解析时同样只读取引用到的路径
+    private final ObjectTreeReader objectTreeReader;
+    // 预解析的finalJsonTemplate，为null时为无模板模式
+    private final JsonNode finalTemplate;
+    // 顶层 mappings 的编译结果，配置了判别字段时用于未匹配的记录
+    private final MappingPlan defaultPlan;
+    // 判别值 -> 映射规则的编译结果，未配置判别字段时为空
+    private final Map<String, MappingPlan> discriminatorPlans;
+    // 判别字段的简单路径，非简单路径时为null，通过json-path读取
+    private final SimplePath discriminatorPath;
+    // 聚合规则，未配置时为null
+    private final AggregationPlan aggregationPlan;
+    // finalJsonTemplate的预编码骨架（templateMappings与targetNodePath为空洞），无法使用时为null
+    private final TemplateSkeleton finalSkeleton;
+    // 映射前的过滤条件，未配置时为null
+    private final RecordPredicate recordPredicate;
+    // 去重集合与去重字段读取函数，未配置去重时为null
+    private final BoundedDedupSet dedupSet;
+    private final Function<JsonNode, JsonNode> dedupKeyReader;
+    // 异步接口使用的执行器
+    private final Executor executor;
 
     /**
      * 构造函数 - 用于项目启动时配置转换规则
@@ -45,18 +118,344 @@ public class JsonTransformService {
      * @param transformConfig 预配置的转换规则
      */
     public JsonTransformService(TransformConfig transformConfig) {
+        this(transformConfig, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 构造函数 - 指定异步接口使用的执行器（如虚拟线程执行器）
+     *
+     * @param transformConfig 预配置的转换规则
+     * @param executor        transformAsync 与 transformPublisher 执行转换的执行器
+     */
+    public JsonTransformService(TransformConfig transformConfig, Executor executor) {
+        this(transformConfig, executor, null);
+    }
+
+    /**
+     * 构造函数 - 指定源数据与字节输出的数据格式
+     * 模板、映射与targetNodePath的含义不变，配置中的模板仍为文本JSON；
+     * transform(byte[]) 按该格式解析源数据，transformToBytes 按该格式输出，transform(String) 始终按文本JSON解析
+     *
+     * @param transformConfig 预配置的转换规则
+     * @param executor        transformAsync 与 transformPublisher 执行转换的执行器
+     * @param dataFormat      数据格式工厂（如 SmileFactory、CBORFactory），为null时使用文本JSON
+     */
+    public JsonTransformService(TransformConfig transformConfig, Executor executor, JsonFactory dataFormat) {
+        this.executor = executor;
         this.objectMapper = new ObjectMapper();
+        this.dataFormatMapper = dataFormat == null ? objectMapper : new ObjectMapper(dataFormat);
         this.pathNavigator = new JsonPathNavigator(objectMapper);
         this.transformConfig = transformConfig;
-        this.groovyShell = new GroovyShell();
-        this.compiledExpressions = new ConcurrentHashMap<>();
         this.specialExpressionManager = new SpecialExpressionManager();
+        this.expressionEvaluator = new ExpressionEvaluator(objectMapper, pathNavigator, specialExpressionManager,
+                transformConfig.getScriptCacheDir(), transformConfig.getExpressionSandbox());
+        this.lookupTableRegistry = new LookupTableRegistry(transformConfig.getLookupTables());
         
         // 注册特殊表达式处理器
         registerSpecialExpressionProcessors();
+        // 检查迫使走慢路径或不会生效的配置
+        validateConfig();
         // 在初始化时就编译所有配置中的路径和表达式
         precompileAllPaths();
         precompileAllExpressions();
+        List<SimplePath> selectivePaths = collectSelectivePaths();
+        this.tapeParsing = isTapeParsingEnabled(dataFormat, selectivePaths);
+        this.selectiveReader = tapeParsing ? null : createSelectiveReader(selectivePaths);
+        this.scanningReader = selectiveReader == null ? null : createScanningReader(dataFormat, selectivePaths);
+        this.objectTreeReader = new ObjectTreeReader(objectMapper, selectivePaths);
+        this.finalTemplate = parseFinalTemplate();
+        this.defaultPlan = new MappingPlan(objectMapper, null, transformConfig.getMappings(), transformConfig.getTargetJson());
+        this.discriminatorPlans = createDiscriminatorPlans();
+        this.discriminatorPath = transformConfig.getDiscriminatorPath() == null
+                ? null : SimplePath.parse(transformConfig.getDiscriminatorPath());
+        this.aggregationPlan = createAggregationPlan();
+        this.finalSkeleton = createFinalSkeleton();
+        this.recordPredicate = createRecordPredicate();
+        if (Boolean.TRUE.equals(transformConfig.getAdaptive())) {
+            enableAdaptive();
+        }
+        this.dedupKeyReader = transformConfig.getDedupKeyPath() == null ? null : createPathReader(transformConfig.getDedupKeyPath());
+        this.dedupSet = dedupKeyReader == null ? null : new BoundedDedupSet(transformConfig.getDedupCapacity() != null
+                ? transformConfig.getDedupCapacity() : DEFAULT_DEDUP_CAPACITY);
+    }
+
+    /**
+     * 加载时检查配置，输出WARN与ERROR级别的问题（只分类和检查，不运行校准微基准）
+     */
+    private void validateConfig() {
+        ConfigAnalysis analysis = ConfigAnalyzer.analyze(transformConfig, null);
+        for (ConfigIssue issue : analysis.getIssues()) {
+            if (!ConfigIssue.INFO.equals(issue.getSeverity())) {
+                log.warn("配置检查 {} [{}] {}: {}", issue.getSeverity(), issue.getCode(), issue.getLocation(), issue.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 分析当前配置：各映射的执行层级、配置问题与估算的每条记录映射成本
+     * 成本按内置的合成记录校准，首次调用时在当前JVM上运行约1~2秒的微基准，之后复用
+     *
+     * @return 分析报告
+     */
+    public ConfigAnalysis analyze() {
+        return ConfigAnalyzer.analyze(transformConfig, CostCalibration.defaults());
+    }
+
+    /**
+     * 分析当前配置，路径读取的成本按样本记录校准（json-path读取的成本与记录大小成正比）
+     *
+     * @param sampleRecord 有代表性的源记录（对象）
+     * @throws IllegalArgumentException 样本不是非空对象
+     */
+    public ConfigAnalysis analyze(JsonNode sampleRecord) {
+        return ConfigAnalyzer.analyze(transformConfig, CostCalibration.measure(sampleRecord));
+    }
+
+    /**
+     * 编译映射前的过滤条件
+     */
+    private RecordPredicate createRecordPredicate() {
+        List<RecordFilter> filters = transformConfig.getFilters();
+        if (filters == null || filters.isEmpty()) {
+            return null;
+        }
+        try {
+            return new RecordPredicate(filters, this::createPathReader, Boolean.TRUE.equals(transformConfig.getAdaptive()));
+        } catch (Exception e) {
+            throw new RuntimeException("过滤条件编译失败", e);
+        }
+    }
+
+    /**
+     * 判断记录是否需要转换：先检查过滤条件，再按去重字段去重
+     * 被拒绝的记录只读取了过滤和去重字段，不执行任何映射
+     */
+    private boolean acceptRecord(JsonNode record) {
+        if (recordPredicate != null && !recordPredicate.test(record)) {
+            return false;
+        }
+        if (dedupSet != null) {
+            JsonNode key = dedupKeyReader.apply(record);
+            // 没有去重字段的记录无法判断重复，照常转换
+            return key == null || key.isNull() || key.isContainerNode() || dedupSet.add(key.asText());
+        }
+        return true;
+    }
+
+    /**
+     * 清空去重状态（去重跨越多次调用生效，例如重新处理同一批数据前调用）
+     */
+    public void resetDeduplication() {
+        if (dedupSet != null) {
+            dedupSet.clear();
+        }
+    }
+
+    /**
+     * 编译聚合规则（仅有模板模式）
+     */
+    private AggregationPlan createAggregationPlan() {
+        List<Aggregation> aggregations = transformConfig.getAggregations();
+        if (aggregations == null || aggregations.isEmpty()) {
+            return null;
+        }
+        if (finalTemplate == null) {
+            log.warn("聚合规则只在有模板模式下生效，忽略 {} 条聚合规则", aggregations.size());
+            return null;
+        }
+        try {
+            return new AggregationPlan(aggregations, this::createPathReader);
+        } catch (Exception e) {
+            throw new RuntimeException("聚合规则编译失败", e);
+        }
+    }
+
+    /**
+     * 编译finalJsonTemplate的骨架：空洞依次为各templateMappings的targetPath，最后一个为targetNodePath
+     * 配置了聚合时聚合结果写入的位置在运行时才确定，不使用骨架
+     */
+    private TemplateSkeleton createFinalSkeleton() {
+        if (finalTemplate == null || aggregationPlan != null) {
+            return null;
+        }
+        List<String> holePaths = new ArrayList<>();
+        if (transformConfig.getTemplateMappings() != null) {
+            for (FieldMapping mapping : transformConfig.getTemplateMappings()) {
+                holePaths.add(mapping.getTransformExpression() == null ? null : mapping.getTargetPath());
+            }
+        }
+        String targetNodePath = transformConfig.getTargetNodePath();
+        holePaths.add(targetNodePath == null || targetNodePath.trim().isEmpty() ? null : targetNodePath);
+        return TemplateSkeleton.compile(objectMapper, finalTemplate, holePaths);
+    }
+
+    /**
+     * 创建路径读取函数：简单路径直接导航，其余通过json-path读取
+     */
+    private Function<JsonNode, JsonNode> createPathReader(String path) {
+        SimplePath simplePath = SimplePath.parse(path);
+        if (simplePath != null) {
+            return simplePath::read;
+        }
+        pathNavigator.precompilePath(path);
+        return node -> getValueByPath(node, path);
+    }
+
+    /**
+     * 预解析finalJsonTemplate，解析失败时抛出异常
+     */
+    private JsonNode parseFinalTemplate() {
+        String finalJsonTemplate = transformConfig.getFinalJsonTemplate();
+        if (finalJsonTemplate == null || finalJsonTemplate.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(finalJsonTemplate);
+        } catch (Exception e) {
+            throw new RuntimeException("finalJsonTemplate解析失败", e);
+        }
+    }
+
+    /**
+     * 编译判别值对应的映射规则，未单独配置targetJson的规则使用顶层targetJson
+     */
+    private Map<String, MappingPlan> createDiscriminatorPlans() {
+        Map<String, MappingPlan> plans = new HashMap<>();
+        if (transformConfig.getDiscriminatorPath() == null || transformConfig.getDiscriminatorMappings() == null) {
+            return plans;
+        }
+        for (Map.Entry<String, MappingSet> entry : transformConfig.getDiscriminatorMappings().entrySet()) {
+            MappingSet mappingSet = entry.getValue();
+            String targetJson = mappingSet.getTargetJson() != null ? mappingSet.getTargetJson() : transformConfig.getTargetJson();
+            plans.put(entry.getKey(), new MappingPlan(objectMapper, entry.getKey(), mappingSet.getMappings(), targetJson));
+        }
+        log.info("已开启判别字段路由: {}，映射规则: {} 组", transformConfig.getDiscriminatorPath(), plans.size());
+        return plans;
+    }
+
+    /**
+     * 收集顶层和所有判别值下的字段映射
+     *
+     * @param includeElements 是否包含数组映射的元素映射（其路径相对于数组元素）
+     */
+    private List<FieldMapping> allMappings(boolean includeElements) {
+        List<FieldMapping> allMappings = new ArrayList<>();
+        collectMappings(transformConfig.getMappings(), includeElements, allMappings);
+        if (transformConfig.getDiscriminatorMappings() != null) {
+            for (MappingSet mappingSet : transformConfig.getDiscriminatorMappings().values()) {
+                collectMappings(mappingSet.getMappings(), includeElements, allMappings);
+            }
+        }
+        return allMappings;
+    }
+
+    private void collectMappings(List<FieldMapping> mappings, boolean includeElements, List<FieldMapping> result) {
+        if (mappings == null) {
+            return;
+        }
+        for (FieldMapping mapping : mappings) {
+            result.add(mapping);
+            if (includeElements && mapping.getElementMappings() != null) {
+                collectMappings(mapping.getElementMappings().getMappings(), true, result);
+            }
+        }
+    }
+
+    /**
+     * 判断是否使用磁带式解析：只支持文本JSON，与选择性解析同时开启时使用磁带式解析
+     */
+    private boolean isTapeParsingEnabled(JsonFactory dataFormat, List<SimplePath> selectivePaths) {
+        if (!Boolean.TRUE.equals(transformConfig.getTapeParsing())) {
+            return false;
+        }
+        if (dataFormat != null) {
+            log.warn("磁带式解析只支持文本JSON，数据格式为 {} 时忽略", dataFormat.getFormatName());
+            return false;
+        }
+        if (selectivePaths != null) {
+            log.info("同时开启了选择性解析与磁带式解析，使用磁带式解析");
+        }
+        log.info("已开启磁带式解析");
+        return true;
+    }
+
+    /**
+     * 创建基于结构索引的选择性读取器，只支持文本JSON
+     */
+    private ScanningSelectiveReader createScanningReader(JsonFactory dataFormat, List<SimplePath> paths) {
+        if (!Boolean.TRUE.equals(transformConfig.getStructuralScanning())) {
+            return null;
+        }
+        if (dataFormat != null) {
+            log.warn("结构扫描只支持文本JSON，数据格式为 {} 时忽略", dataFormat.getFormatName());
+            return null;
+        }
+        StructuralScanner scanner = StructuralScanner.getDefault();
+        log.info("已开启结构扫描，扫描器: {}", scanner.getName());
+        return new ScanningSelectiveReader(objectMapper, scanner, paths);
+    }
+
+    /**
+     * 创建选择性解析读取器
+     */
+    private SelectiveJsonReader createSelectiveReader(List<SimplePath> paths) {
+        if (paths == null) {
+            return null;
+        }
+        log.info("已开启选择性解析，引用路径: {} 个", paths.size());
+        return new SelectiveJsonReader(dataFormatMapper, paths);
+    }
+
+    /**
+     * 收集选择性解析需要保留的路径
+     * 包括所有sourcePath、表达式中的JSONPath引用、判别字段、过滤、去重与聚合字段，任一路径不是简单路径（通配符、过滤器等）时无法裁剪，退回完整解析
+     *
+     * @return 引用路径，未开启选择性解析或无法裁剪时返回null
+     */
+    private List<SimplePath> collectSelectivePaths() {
+        if (!Boolean.TRUE.equals(transformConfig.getSelectiveParsing())) {
+            return null;
+        }
+
+        Set<String> referencedPaths = new LinkedHashSet<>();
+        if (transformConfig.getDiscriminatorPath() != null) {
+            referencedPaths.add(transformConfig.getDiscriminatorPath());
+        }
+        for (FieldMapping mapping : allMappings(false)) {
+            if (mapping.getSourcePath() != null && !mapping.getSourcePath().trim().isEmpty()) {
+                referencedPaths.add(mapping.getSourcePath());
+            }
+            referencedPaths.addAll(ExpressionEvaluator.extractJsonPaths(mapping.getTransformExpression()));
+        }
+        if (transformConfig.getFilters() != null) {
+            for (RecordFilter filter : transformConfig.getFilters()) {
+                referencedPaths.add(filter.getPath());
+            }
+        }
+        if (transformConfig.getDedupKeyPath() != null) {
+            referencedPaths.add(transformConfig.getDedupKeyPath());
+        }
+        if (transformConfig.getAggregations() != null) {
+            for (Aggregation aggregation : transformConfig.getAggregations()) {
+                if (aggregation.getSourcePath() != null) {
+                    referencedPaths.add(aggregation.getSourcePath());
+                }
+                if (aggregation.getGroupBy() != null) {
+                    referencedPaths.add(aggregation.getGroupBy());
+                }
+            }
+        }
+
+        List<SimplePath> paths = new ArrayList<>();
+        for (String referencedPath : referencedPaths) {
+            SimplePath path = SimplePath.parse(referencedPath);
+            if (path == null) {
+                log.warn("路径无法用于选择性解析，使用完整解析: {}", referencedPath);
+                return null;
+            }
+            paths.add(path);
+        }
+        return paths;
     }
     
     /**
@@ -66,6 +465,8 @@ public class JsonTransformService {
         try {
             // 注册时间表达式处理器
             specialExpressionManager.registerProcessor(new TimeExpressionProcessor());
+            // 注册查找表表达式处理器
+            specialExpressionManager.registerProcessor(new LookupExpressionProcessor(lookupTableRegistry));
             log.info("已注册的处理器: {}", String.join(", ", specialExpressionManager.getRegisteredProcessors()));
         } catch (Exception e) {
             throw new RuntimeException("特殊表达式处理器注册失败", e);
@@ -78,12 +479,15 @@ public class JsonTransformService {
     private void precompileAllPaths() {
         try {
             compilePathsFromMappings(transformConfig.getTemplateMappings(), true);
-            compilePathsFromMappings(transformConfig.getMappings(), false);
+            compilePathsFromMappings(allMappings(true), false);
             
             // 编译目标数组路径
             if (transformConfig.getTargetNodePath() != null) {
                 pathNavigator.precompilePath(transformConfig.getTargetNodePath());
             }
+            if (transformConfig.getDiscriminatorPath() != null) {
+                pathNavigator.precompilePath(transformConfig.getDiscriminatorPath());
+            }
             
             log.info("所有配置路径预编译完成");
         } catch (Exception e) {
@@ -106,147 +510,777 @@ public class JsonTransformService {
             }
         }
     }
-    
-    /**
-     * 预编译所有配置中的Groovy表达式
-     */
-    private void precompileAllExpressions() {
-        try {
-            compileExpressionsFromMappings(transformConfig.getTemplateMappings());
-            compileExpressionsFromMappings(transformConfig.getMappings());
-            
-            int specialExpressionCount = countSpecialExpressions();
-            log.info("所有表达式预编译完成，Groovy表达式: {} 个，特殊表达式: {} 个", 
-                    compiledExpressions.size(), specialExpressionCount);
-        } catch (Exception e) {
-            throw new RuntimeException("表达式预编译失败", e);
+    
+    /**
+     * 预编译所有配置中的Groovy表达式
+     */
+    private void precompileAllExpressions() {
+        try {
+            compileExpressionsFromMappings(transformConfig.getTemplateMappings());
+            compileExpressionsFromMappings(allMappings(true));
+            
+            int specialExpressionCount = countSpecialExpressions();
+            log.info("所有表达式预编译完成，Groovy表达式: {} 个，特殊表达式: {} 个", 
+                    expressionEvaluator.getCompiledCount(), specialExpressionCount);
+            ScriptCompilationCache scriptCache = expressionEvaluator.getScriptCache();
+            if (scriptCache != null) {
+                log.info("脚本编译缓存命中: {} 个，新编译: {} 个", scriptCache.getHits(), scriptCache.getMisses());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("表达式预编译失败", e);
+        }
+    }
+    
+    /**
+     * 编译映射中的表达式
+     */
+    private void compileExpressionsFromMappings(List<FieldMapping> mappings) {
+        if (mappings == null) return;
+        
+        for (FieldMapping mapping : mappings) {
+            String expression = mapping.getTransformExpression();
+            if (expression != null && expression.startsWith(LookupExpressionProcessor.LOOKUP)) {
+                validateLookupExpression(expression);
+            } else if (expression != null && !specialExpressionManager.isSpecialExpression(expression)) {
+                // 所有表达式都进行预编译，包括包含JSONPath的表达式
+                expressionEvaluator.precompile(expression);
+            }
+        }
+    }
+
+    /**
+     * 获取各映射的缓存命中统计（仅包含开启memoize的映射）
+     * 判别值下的映射以 [判别值] 作为targetPath的前缀
+     *
+     * @return 缓存命中统计列表
+     */
+    public List<MemoizationStats> getMemoizationStats() {
+        List<MemoizationStats> stats = new ArrayList<>();
+        addMemoizationStats(defaultPlan, stats);
+        for (MappingPlan plan : discriminatorPlans.values()) {
+            addMemoizationStats(plan, stats);
+        }
+        return stats;
+    }
+
+    private void addMemoizationStats(MappingPlan plan, List<MemoizationStats> stats) {
+        String prefix = plan.getDiscriminatorValue() == null ? "" : "[" + plan.getDiscriminatorValue() + "]";
+        addMemoizationStats(plan, prefix, stats);
+    }
+
+    /**
+     * 数组元素映射以 数组映射的targetPath[*] 作为前缀
+     */
+    private void addMemoizationStats(MappingPlan plan, String prefix, List<MemoizationStats> stats) {
+        MemoCache[] memoCaches = plan.getMemoCaches();
+        for (int i = 0; i < memoCaches.length; i++) {
+            String targetPath = plan.getMappings().get(i).getTargetPath();
+            String label = mappingLabel(prefix, targetPath);
+            MemoCache cache = memoCaches[i];
+            if (cache != null) {
+                stats.add(new MemoizationStats(label, cache.getHits(), cache.getMisses(), cache.size(), cache.getMaxSize()));
+            }
+            MappingPlan elementPlan = plan.getElementPlan(i);
+            if (elementPlan != null) {
+                addMemoizationStats(elementPlan, (targetPath == null ? prefix + "$" : label) + "[*]", stats);
+            }
+        }
+    }
+
+    /**
+     * 映射标签，元素映射的路径接在数组路径之后，如 $.comments[*].body
+     */
+    private static String mappingLabel(String prefix, String targetPath) {
+        return prefix.endsWith("[*]") && targetPath != null && targetPath.startsWith("$")
+                ? prefix + targetPath.substring(1) : prefix + targetPath;
+    }
+
+    /**
+     * 为所有映射规则（含判别值与数组元素映射）创建自适应执行状态
+     */
+    private void enableAdaptive() {
+        int count = enableAdaptive(defaultPlan, "");
+        for (MappingPlan plan : discriminatorPlans.values()) {
+            count += enableAdaptive(plan, "[" + plan.getDiscriminatorValue() + "]");
+        }
+        log.info("已开启自适应执行，参与的映射: {}", count);
+    }
+
+    private int enableAdaptive(MappingPlan plan, String prefix) {
+        List<FieldMapping> mappings = plan.getMappings();
+        AdaptiveMapping[] adaptiveMappings = new AdaptiveMapping[mappings.size()];
+        int count = 0;
+        for (int i = 0; i < adaptiveMappings.length; i++) {
+            FieldMapping mapping = mappings.get(i);
+            String label = mappingLabel(prefix, mapping.getTargetPath());
+            MappingPlan elementPlan = plan.getElementPlan(i);
+            if (elementPlan != null) {
+                count += enableAdaptive(elementPlan, (mapping.getTargetPath() == null ? prefix + "$" : label) + "[*]");
+                continue;
+            }
+            String sourcePath = mapping.getSourcePath();
+            String expression = mapping.getTransformExpression();
+            boolean hasSourcePath = sourcePath != null && !sourcePath.trim().isEmpty();
+            if (mapping.getTargetPath() == null || (!hasSourcePath && (expression == null || expression.trim().isEmpty()))) {
+                continue;
+            }
+            adaptiveMappings[i] = new AdaptiveMapping(label, mapping,
+                    !hasSourcePath || plan.getSourcePathResolver().isResolvable(i),
+                    specialExpressionManager.isSpecialExpression(expression), !expressionEvaluator.hasRecordBudget());
+            count++;
+        }
+        plan.setAdaptiveMappings(adaptiveMappings);
+        return count;
+    }
+
+    /**
+     * 获取自适应执行时各映射的运行时统计（未开启 adaptive 时为空列表）
+     * 标签规则与 getMemoizationStats 相同
+     *
+     * @return 映射统计列表
+     */
+    public List<MappingProfile> getMappingProfiles() {
+        List<MappingProfile> profiles = new ArrayList<>();
+        addMappingProfiles(defaultPlan, profiles);
+        for (MappingPlan plan : discriminatorPlans.values()) {
+            addMappingProfiles(plan, profiles);
+        }
+        return profiles;
+    }
+
+    private void addMappingProfiles(MappingPlan plan, List<MappingProfile> profiles) {
+        for (int i = 0; i < plan.getMappings().size(); i++) {
+            AdaptiveMapping adaptive = plan.getAdaptiveMapping(i);
+            if (adaptive != null) {
+                profiles.add(adaptive.toProfile());
+            }
+            MappingPlan elementPlan = plan.getElementPlan(i);
+            if (elementPlan != null) {
+                addMappingProfiles(elementPlan, profiles);
+            }
+        }
+    }
+
+    /**
+     * 校验查找表表达式引用的表已定义（表本身在首次使用时才加载）
+     */
+    private void validateLookupExpression(String expression) {
+        String tableName = LookupExpressionProcessor.tableName(expression);
+        if (!lookupTableRegistry.isDefined(tableName)) {
+            throw new RuntimeException("查找表未定义: " + tableName + "，表达式: " + expression);
+        }
+    }
+
+    /**
+     * 重新加载查找表（例如字典文件更新后），新表构建完成后原子替换旧表
+     * 替换后清空引用该表的映射的结果缓存，否则缓存中仍是旧表的翻译结果
+     *
+     * @param tableName 查找表名称
+     */
+    public void reloadLookupTable(String tableName) {
+        lookupTableRegistry.reload(tableName);
+        defaultPlan.clearLookupMemoCaches(tableName);
+        for (MappingPlan plan : discriminatorPlans.values()) {
+            plan.clearLookupMemoCaches(tableName);
+        }
+    }
+
+    /**
+     * 统计特殊表达式数量
+     */
+    private int countSpecialExpressions() {
+        return countSpecialExpressionsFromMappings(transformConfig.getTemplateMappings()) +
+               countSpecialExpressionsFromMappings(allMappings(true));
+    }
+    
+    /**
+     * 统计映射中的特殊表达式数量
+     */
+    private int countSpecialExpressionsFromMappings(List<FieldMapping> mappings) {
+        if (mappings == null) return 0;
+        
+        int count = 0;
+        for (FieldMapping mapping : mappings) {
+            String expression = mapping.getTransformExpression();
+            if (expression != null && specialExpressionManager.isSpecialExpression(expression)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 转换JSON
+     */
+    public JsonNode transform(String sourceJson) throws JsonProcessingException {
+        // 1. 解析源JSON
+        JsonNode sourceData = parseSource(sourceJson);
+
+        // 2. 转换
+        return transformSource(sourceData);
+    }
+
+    /**
+     * 转换源数据字节（文本JSON为UTF-8，指定了数据格式时按该格式解析）
+     */
+    public JsonNode transform(byte[] sourceJson) throws JsonProcessingException {
+        return transformSource(parseSource(sourceJson));
+    }
+
+    /**
+     * 转换进程内已有的Java对象（Map、List、数组、record或JavaBean）
+     * 路径直接在对象上读取，不需要先序列化为JSON字符串再解析；String、byte[] 与 JsonNode 按对应的方式处理
+     */
+    public JsonNode transform(Object source) throws JsonProcessingException {
+        if (source instanceof String) {
+            return transform((String) source);
+        }
+        if (source instanceof byte[]) {
+            return transform((byte[]) source);
+        }
+        return transformSource(objectTreeReader.read(source));
+    }
+
+    /**
+     * 转换进程内已有的Java对象并直接构造目标类型的对象，规则同 transform(String, Class)
+     */
+    public <T> T transform(Object source, Class<T> targetType) throws JsonProcessingException {
+        if (source instanceof String) {
+            return transform((String) source, targetType);
+        }
+        if (source instanceof byte[]) {
+            return transform((byte[]) source, targetType);
+        }
+        return transformToObject(objectTreeReader.read(source), targetType);
+    }
+
+    /**
+     * 转换JSON并直接构造目标类型的对象（record或JavaBean），不生成输出JsonNode
+     * 属性按targetPath的第一段匹配，多级targetPath绑定到嵌套对象；属性值按属性的Java类型转换
+     * 配置了finalJsonTemplate时输出是整个文档，按输出结果转换
+     *
+     * @return 目标对象；记录被过滤、去重或未匹配任何映射规则时返回null
+     * @throws IllegalArgumentException 源数据是数组（请使用 transformToList）或映射规则包含explode数组映射
+     */
+    public <T> T transform(String sourceJson, Class<T> targetType) throws JsonProcessingException {
+        return transformToObject(parseSource(sourceJson), targetType);
+    }
+
+    /**
+     * 转换源数据字节并直接构造目标类型的对象，规则同 transform(String, Class)
+     */
+    public <T> T transform(byte[] sourceJson, Class<T> targetType) throws JsonProcessingException {
+        return transformToObject(parseSource(sourceJson), targetType);
+    }
+
+    /**
+     * 转换源记录数组（或单条记录），每条记录直接构造为目标类型的对象
+     * 被过滤、去重或未匹配任何映射规则的记录不出现在结果中
+     */
+    public <T> List<T> transformToList(String sourceJson, Class<T> targetType) throws JsonProcessingException {
+        return transformToObjects(parseSource(sourceJson), targetType);
+    }
+
+    /**
+     * 转换源数据字节中的记录数组（或单条记录），规则同 transformToList(String, Class)
+     */
+    public <T> List<T> transformToList(byte[] sourceJson, Class<T> targetType) throws JsonProcessingException {
+        return transformToObjects(parseSource(sourceJson), targetType);
+    }
+
+    /**
+     * 增量转换的起点：转换一条源记录并保存快照
+     * 增量转换面向同一实体的反复更新，只支持未配置finalJsonTemplate时的单条对象记录；
+     * 更新的是同一个实体，因此不做去重，过滤条件照常生效
+     *
+     * @throws IllegalArgumentException 配置了finalJsonTemplate或源数据不是对象
+     */
+    public TransformSnapshot snapshot(String sourceJson) throws JsonProcessingException {
+        return updateSnapshot(null, objectMapper.readTree(sourceJson));
+    }
+
+    /**
+     * 基于上一个快照转换同一实体的新版本
+     * 只重新计算读取集（sourcePath与表达式中的JSONPath）的值发生变化的映射，其余映射沿用快照中的结果；
+     * 返回的快照包含完整输出和相对上一个输出的 JSON Patch
+     */
+    public TransformSnapshot update(TransformSnapshot previous, String sourceJson) throws JsonProcessingException {
+        return updateSnapshot(previous, objectMapper.readTree(sourceJson));
+    }
+
+    /**
+     * 把源记录的 JSON Patch（RFC 6902）应用到上一个快照的源记录后增量转换，规则同 update
+     *
+     * @throws IllegalArgumentException 补丁无法应用到上一个快照的源记录
+     */
+    public TransformSnapshot updateWithPatch(TransformSnapshot previous, JsonNode sourcePatch) {
+        return updateSnapshot(previous, JsonPatch.apply(previous.getSource(), sourcePatch));
+    }
+
+    /**
+     * 转换源数据字节，结果按构造时指定的数据格式编码（默认文本JSON）
+     * 服务之间传输时使用Smile、CBOR等二进制格式可以省去文本解析和生成的开销
+     */
+    public byte[] transformToBytes(byte[] source) throws JsonProcessingException {
+        JsonNode sourceData = parseSource(source);
+        if (dataFormatMapper != objectMapper) {
+            return dataFormatMapper.writeValueAsBytes(transformSource(sourceData));
+        }
+        // 文本JSON：按预编码的模板骨架直接输出，不构建结果树
+        JsonFactory factory = objectMapper.getFactory();
+        try (ByteArrayBuilder output = new ByteArrayBuilder(factory._getBufferRecycler())) {
+            try (JsonGenerator generator = factory.createGenerator(output)) {
+                writeSource(sourceData, generator);
+            }
+            byte[] result = output.toByteArray();
+            output.release();
+            return result;
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw JsonMappingException.fromUnexpectedIOE(e);
+        }
+    }
+
+    /**
+     * 转换JSON并直接写出到输出流（文本JSON），不构建结果树
+     * targetJson与finalJsonTemplate预先编码为字节片段，输出时只序列化映射得到的值
+     */
+    public void transformTo(String sourceJson, OutputStream output) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            writeSource(parseSource(sourceJson), generator);
+        }
+    }
+
+    /**
+     * 转换JSON并写出到生成器，适合把多条结果连续写入同一个输出（如NDJSON）
+     * 文本JSON生成器按模板骨架输出，此时生成器的根值分隔符会被设为null；其他生成器按结果树输出
+     */
+    public void transformTo(String sourceJson, JsonGenerator generator) throws IOException {
+        writeSource(parseSource(sourceJson), generator);
+    }
+
+    /**
+     * 转换JSON字节并写出到生成器，字节按构造时指定的数据格式解析
+     */
+    public void transformTo(byte[] sourceJson, JsonGenerator generator) throws IOException {
+        writeSource(parseSource(sourceJson), generator);
+    }
+
+    /**
+     * 批量转换多条独立的JSON文档
+     * 模板、路径和表达式在构造时已编译，批内所有记录共享；单条记录失败不影响其他记录
+     *
+     * @param sources 源JSON字节列表
+     * @return 与输入顺序一致的逐条结果
+     */
+    public List<TransformResult> transformBatch(List<byte[]> sources) {
+        return transformBatch(sources, false);
+    }
+
+    /**
+     * 批量转换多条独立的JSON文档
+     *
+     * @param sources  源JSON字节列表
+     * @param parallel 是否按CPU核数拆分为多个分片，在构造时指定的执行器上并行转换
+     * @return 与输入顺序一致的逐条结果
+     */
+    public List<TransformResult> transformBatch(List<byte[]> sources, boolean parallel) {
+        TransformResult[] results = new TransformResult[sources.size()];
+        int chunkCount = parallel ? Math.min(Runtime.getRuntime().availableProcessors(), sources.size()) : 1;
+        if (chunkCount <= 1) {
+            transformChunk(sources, results, 0, sources.size());
+            return Arrays.asList(results);
+        }
+
+        int chunkSize = (sources.size() + chunkCount - 1) / chunkCount;
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int start = 0; start < sources.size(); start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, sources.size());
+            futures.add(CompletableFuture.runAsync(() -> transformChunk(sources, results, from, to), executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 转换批次中的一个分片
+     */
+    private void transformChunk(List<byte[]> sources, TransformResult[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            try {
+                results[i] = TransformResult.success(i, transform(sources.get(i)));
+            } catch (Exception e) {
+                results[i] = TransformResult.failure(i, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 只计算聚合、不做映射：对多条独立的JSON文档（对象或数组）累加聚合规则
+     * 并行时每个分片使用自己的累加器，最后合并部分结果
+     *
+     * @param sources  源JSON字节列表，解析失败的文档跳过
+     * @param parallel 是否按CPU核数拆分为多个分片并行计算
+     * @return 按聚合规则的targetPath组织的结果对象，未配置聚合时为空对象
+     */
+    public ObjectNode aggregate(List<byte[]> sources, boolean parallel) {
+        ObjectNode summary = objectMapper.createObjectNode();
+        if (aggregationPlan == null) {
+            return summary;
+        }
+        int chunkCount = parallel ? Math.min(Runtime.getRuntime().availableProcessors(), sources.size()) : 1;
+        int chunkSize = Math.max(1, (sources.size() + chunkCount - 1) / Math.max(1, chunkCount));
+        List<CompletableFuture<AggregationAccumulator>> futures = new ArrayList<>();
+        for (int start = 0; start < sources.size(); start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, sources.size());
+            if (chunkCount <= 1) {
+                futures.add(CompletableFuture.completedFuture(aggregateChunk(sources, from, to)));
+            } else {
+                futures.add(CompletableFuture.supplyAsync(() -> aggregateChunk(sources, from, to), executor));
+            }
+        }
+
+        AggregationAccumulator total = aggregationPlan.newAccumulator();
+        for (CompletableFuture<AggregationAccumulator> future : futures) {
+            total.merge(future.join());
+        }
+        for (Map.Entry<String, JsonNode> entry : total.getResults().entrySet()) {
+            setNodeByNestedPath(summary, entry.getKey(), entry.getValue());
+        }
+        return summary;
+    }
+
+    /**
+     * 累加批次中的一个分片
+     */
+    private AggregationAccumulator aggregateChunk(List<byte[]> sources, int from, int to) {
+        AggregationAccumulator accumulator = aggregationPlan.newAccumulator();
+        for (int i = from; i < to; i++) {
+            try {
+                JsonNode sourceData = parseSource(sources.get(i));
+                if (sourceData.isArray()) {
+                    for (JsonNode record : sourceData) {
+                        accumulateIfMatched(accumulator, record);
+                    }
+                } else {
+                    accumulateIfMatched(accumulator, sourceData);
+                }
+            } catch (JsonProcessingException e) {
+                log.warn("聚合跳过无法解析的文档: [{}], 错误: {}", i, e.getMessage());
+            }
+        }
+        return accumulator;
+    }
+
+    /**
+     * 只应用过滤条件：去重状态跨调用共享，不能在只计算聚合时消耗
+     */
+    private void accumulateIfMatched(AggregationAccumulator accumulator, JsonNode record) {
+        if (recordPredicate == null || recordPredicate.test(record)) {
+            accumulator.accumulate(record);
+        }
+    }
+
+    /**
+     * 转换已解析的源数据
+     */
+    private JsonNode transformSource(JsonNode sourceData) {
+        // 检查是否有finalJsonTemplate
+        if (finalTemplate != null) {
+            // 有模板的情况：基于模板进行转换
+            return transformWithTemplate(sourceData);
+        } else {
+            // 无模板的情况：直接按照mapping规则转换
+            return transformWithoutTemplate(sourceData);
+        }
+    }
+    
+    /**
+     * 把已解析的源数据的转换结果写出到生成器
+     * 文本JSON生成器按模板骨架输出：静态片段直接复制，记录逐条写出，不构建结果树；
+     * 模板无法编译为骨架（如配置了聚合、数组模板）或生成器不是文本JSON时按结果树输出，两者输出相同
+     */
+    private void writeSource(JsonNode sourceData, JsonGenerator generator) throws IOException {
+        if (!(generator instanceof JsonGeneratorImpl) || (finalTemplate != null && finalSkeleton == null)) {
+            generator.writeTree(transformSource(sourceData));
+            return;
+        }
+        TemplateSkeleton.prepare(generator);
+        if (finalTemplate == null) {
+            writeRecords(sourceData, generator);
+            return;
+        }
+        List<FieldMapping> templateMappings = transformConfig.getTemplateMappings() == null
+                ? Collections.emptyList() : transformConfig.getTemplateMappings();
+        Object[] values = new Object[templateMappings.size() + 1];
+        expressionEvaluator.startRecord();
+        for (int i = 0; i < templateMappings.size(); i++) {
+            values[i] = evaluateTemplateMapping(templateMappings.get(i));
+        }
+        // targetNodePath：数组源写出记录数组；对象源被过滤或未匹配映射规则时保留模板原值
+        if (sourceData.isArray()) {
+            values[values.length - 1] = (TemplateSkeleton.DynamicValue) g -> writeRecords(sourceData, g);
+        } else {
+            MappingPlan plan = acceptRecord(sourceData) ? selectPlan(sourceData) : null;
+            values[values.length - 1] = plan == null
+                    ? TargetPathWriter.UNSET : (TemplateSkeleton.DynamicValue) g -> writeRecord(sourceData, plan, g);
+        }
+        finalSkeleton.write(generator, values);
+    }
+
+    /**
+     * 计算一个模板字段的值，与 processTemplateMappings 相同
+     *
+     * @return 字段值，跳过或失败时为 TargetPathWriter.UNSET
+     */
+    private Object evaluateTemplateMapping(FieldMapping mapping) {
+        if (mapping.getTargetPath() == null || mapping.getTransformExpression() == null) {
+            return TargetPathWriter.UNSET;
+        }
+        try {
+            Object finalValue = evaluateExpression(mapping.getTransformExpression(), null);
+            String targetType = mapping.getTargetType();
+            if (targetType != null && !targetType.trim().isEmpty()) {
+                finalValue = convertToTargetType(finalValue, targetType);
+            }
+            return finalValue;
+        } catch (Exception e) {
+            log.warn("处理模板映射失败: {} -> {}, 错误: {}", mapping.getSourcePath(), mapping.getTargetPath(), e.getMessage());
+            return TargetPathWriter.UNSET;
+        }
+    }
+
+    /**
+     * 逐条写出记录的转换结果：数组源写出结果数组，对象源写出单个结果（被过滤或未匹配时为空对象）
+     */
+    private void writeRecords(JsonNode sourceData, JsonGenerator generator) throws IOException {
+        if (sourceData.isArray()) {
+            generator.writeRaw(ARRAY_START);
+            boolean first = true;
+            for (JsonNode sourceItem : sourceData) {
+                if (!acceptRecord(sourceItem)) {
+                    continue;
+                }
+                MappingPlan plan = selectPlan(sourceItem);
+                if (plan != null) {
+                    first = writeRows(sourceItem, plan, generator, first);
+                }
+            }
+            generator.writeRaw(ARRAY_END);
+            return;
+        }
+        MappingPlan plan = acceptRecord(sourceData) ? selectPlan(sourceData) : null;
+        if (plan == null) {
+            generator.writeRaw(EMPTY_OBJECT);
+        } else {
+            writeRecord(sourceData, plan, generator);
+        }
+    }
+
+    /**
+     * 写出单条对象源记录的转换结果（配置了explode数组映射时为输出行组成的数组）
+     */
+    private void writeRecord(JsonNode sourceObject, MappingPlan plan, JsonGenerator generator) throws IOException {
+        if (plan.getSkeleton() != null) {
+            plan.getSkeleton().write(generator, mapValues(sourceObject, plan, plan.getSourcePathResolver().resolve(sourceObject)));
+        } else if (plan.getExplodeIndex() < 0) {
+            generator.writeTree(transformSingleObject(sourceObject, plan, plan.getSourcePathResolver().resolve(sourceObject)));
+        } else {
+            ArrayNode rows = objectMapper.createArrayNode();
+            transformRows(sourceObject, plan, rows);
+            generator.writeTree(rows);
+        }
+    }
+
+    /**
+     * 写出一条源记录的输出行（数组元素），行之间以逗号分隔
+     *
+     * @param first 是否尚未写出任何行
+     * @return 写出后是否仍未写出任何行
+     */
+    private boolean writeRows(JsonNode sourceObject, MappingPlan plan, JsonGenerator generator, boolean first) throws IOException {
+        if (plan.getSkeleton() != null) {
+            if (!first) {
+                generator.writeRaw(COMMA);
+            }
+            plan.getSkeleton().write(generator, mapValues(sourceObject, plan, plan.getSourcePathResolver().resolve(sourceObject)));
+            return false;
+        }
+        ArrayNode rows = objectMapper.createArrayNode();
+        transformRows(sourceObject, plan, rows);
+        for (JsonNode row : rows) {
+            if (!first) {
+                generator.writeRaw(COMMA);
+            }
+            generator.writeTree(row);
+            first = false;
+        }
+        return first;
+    }
+
+    private TransformSnapshot updateSnapshot(TransformSnapshot previous, JsonNode source) {
+        if (finalTemplate != null || !source.isObject()) {
+            throw new IllegalArgumentException("增量转换只支持未配置finalJsonTemplate时的单条对象记录");
+        }
+        MappingPlan plan = recordPredicate == null || recordPredicate.test(source) ? selectPlan(source) : null;
+        JsonNode output;
+        MappingPlan snapshotPlan = null;
+        Object[] values = null;
+        int reevaluated = 0;
+        if (plan == null) {
+            output = objectMapper.createObjectNode();
+        } else if (plan.getExplodeIndex() >= 0) {
+            // explode每条记录输出多行，整体重新计算
+            ArrayNode rows = objectMapper.createArrayNode();
+            transformRows(source, plan, rows);
+            output = rows;
+            reevaluated = plan.getMappings().size();
+        } else {
+            JsonNode[] sourceValues = plan.getSourcePathResolver().resolve(source);
+            if (previous != null && previous.getPlan() == plan) {
+                values = previous.getValues().clone();
+                for (int i = 0; i < values.length; i++) {
+                    if (plan.isAffected(i, previous.getSource(), source)) {
+                        values[i] = mapValue(source, plan, sourceValues, i);
+                        reevaluated++;
+                    }
+                }
+            } else {
+                values = mapValues(source, plan, sourceValues);
+                reevaluated = values.length;
+            }
+            snapshotPlan = plan;
+            // 映射结果会被下一个快照复用，写入时复制
+            output = writeObject(plan, values.clone(), false);
+        }
+        ArrayNode patch = previous == null ? null : JsonPatch.diff(previous.getOutput(), output);
+        return new TransformSnapshot(source, output, patch, reevaluated, snapshotPlan, values);
+    }
+
+    private <T> T transformToObject(JsonNode sourceData, Class<T> targetType) throws JsonProcessingException {
+        if (finalTemplate != null) {
+            return objectMapper.treeToValue(transformWithTemplate(sourceData), targetType);
+        }
+        if (sourceData.isArray()) {
+            throw new IllegalArgumentException("源数据是数组，请使用 transformToList");
+        }
+        return acceptRecord(sourceData) ? bindRecord(sourceData, targetType) : null;
+    }
+
+    private <T> List<T> transformToObjects(JsonNode sourceData, Class<T> targetType) {
+        if (finalTemplate != null) {
+            return objectMapper.convertValue(transformWithTemplate(sourceData),
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, targetType));
         }
-    }
-    
-    /**
-     * 编译映射中的表达式
-     */
-    private void compileExpressionsFromMappings(List<FieldMapping> mappings) {
-        if (mappings == null) return;
-        
-        for (FieldMapping mapping : mappings) {
-            String expression = mapping.getTransformExpression();
-            if (expression != null && !specialExpressionManager.isSpecialExpression(expression)) {
-                // 所有表达式都进行预编译，包括包含JSONPath的表达式
-                precompileExpression(expression);
+        List<T> results = new ArrayList<>();
+        for (JsonNode sourceItem : sourceData.isArray() ? sourceData : Collections.singletonList(sourceData)) {
+            T result = acceptRecord(sourceItem) ? bindRecord(sourceItem, targetType) : null;
+            if (result != null) {
+                results.add(result);
             }
         }
+        return results;
     }
 
     /**
-     * 检查表达式是否包含JSONPath
+     * 计算一条记录的映射结果并直接绑定到目标类型
      */
-    private boolean containsJsonPath(String expression) {
-        if (expression == null) return false;
-        // 检查是否包含 $. 模式
-        return expression.contains("$.");
+    private <T> T bindRecord(JsonNode sourceObject, Class<T> targetType) {
+        MappingPlan plan = selectPlan(sourceObject);
+        if (plan == null) {
+            return null;
+        }
+        if (plan.getExplodeIndex() >= 0) {
+            throw new IllegalArgumentException("explode数组映射每条记录输出多行，不能直接绑定到对象");
+        }
+        Object[] values = mapValues(sourceObject, plan, plan.getSourcePathResolver().resolve(sourceObject));
+        return plan.getBinder(targetType, objectMapper).bind(values);
     }
-    
+
     /**
-     * 统计特殊表达式数量
+     * 异步转换JSON，转换在构造时指定的执行器上执行
+     *
+     * @param sourceJson 源JSON
+     * @return 转换结果，解析失败时以 CompletionException 结束
      */
-    private int countSpecialExpressions() {
-        return countSpecialExpressionsFromMappings(transformConfig.getTemplateMappings()) +
-               countSpecialExpressionsFromMappings(transformConfig.getMappings());
+    public CompletableFuture<JsonNode> transformAsync(String sourceJson) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return transform(sourceJson);
+            } catch (JsonProcessingException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
     }
-    
+
     /**
-     * 统计映射中的特殊表达式数量
+     * 流式转换记录：订阅源记录流，返回转换结果流
+     * 结果按源记录顺序发布，下游的请求量通过有界缓冲区反压到上游
+     *
+     * @param source 源JSON记录流
+     * @return 转换结果流
      */
-    private int countSpecialExpressionsFromMappings(List<FieldMapping> mappings) {
-        if (mappings == null) return 0;
-        
-        int count = 0;
-        for (FieldMapping mapping : mappings) {
-            String expression = mapping.getTransformExpression();
-            if (expression != null && specialExpressionManager.isSpecialExpression(expression)) {
-                count++;
-            }
-        }
-        return count;
+    public Flow.Publisher<JsonNode> transformPublisher(Flow.Publisher<String> source) {
+        TransformProcessor processor = new TransformProcessor(this, executor);
+        source.subscribe(processor);
+        return processor;
     }
-    
+
     /**
-     * 预编译单个Groovy表达式
+     * 解析源JSON，开启磁带式解析时返回结构索引上的只读视图，开启选择性解析时只物化引用到的字段
      */
-    private void precompileExpression(String expression) {
-        if (compiledExpressions.containsKey(expression)) {
-            return;
+    private JsonNode parseSource(String sourceJson) throws JsonProcessingException {
+        if (tapeParsing) {
+            return JsonTape.parse(sourceJson);
+        }
+        // 选择性解析读取器按配置的数据格式创建，二进制格式时文本输入直接完整解析
+        if (selectiveReader == null || dataFormatMapper != objectMapper) {
+            return objectMapper.readTree(sourceJson);
         }
-        
         try {
-            if (containsJsonPath(expression)) {
-                // 对于包含JSONPath的表达式，将JSONPath替换为简单占位符后预编译
-                // 类似于value的处理方式：预编译时用占位符，执行时替换
-                String placeholderExpression = replaceJsonPathWithSimplePlaceholder(expression);
-                Script script = groovyShell.parse(placeholderExpression);
-                compiledExpressions.put(expression, script);
-                log.info("预编译包含JSONPath的表达式: {} -> {}", expression, placeholderExpression);
-            } else {
-                // 普通表达式直接预编译
-                Script script = groovyShell.parse(expression);
-                compiledExpressions.put(expression, script);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("表达式预编译失败: " + expression, e);
+            return selectiveReader.read(sourceJson);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw JsonMappingException.fromUnexpectedIOE(e);
         }
     }
 
     /**
-     * 将JSONPath替换为简单占位符（类似value的处理方式）
-     */
-    private String replaceJsonPathWithSimplePlaceholder(String expression) {
-        // 将JSONPath替换为简单变量名，这样预编译时语法正确
-        // 执行时通过替换字符串来处理，类似于value的方式
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("\\$\\.[^\\s\"']+");
-        java.util.regex.Matcher matcher = pattern.matcher(expression);
-        
-        StringBuffer result = new StringBuffer();
-        int index = 0;
-        while (matcher.find()) {
-            // 将每个JSONPath替换为一个简单的变量名
-            matcher.appendReplacement(result, "jsonpath" + index);
-            index++;
-        }
-        matcher.appendTail(result);
-        
-        return result.toString();
-    }
-    
-    /**
-     * 转换JSON
+     * 解析源JSON字节，开启磁带式解析时返回结构索引上的只读视图，开启选择性解析时只物化引用到的字段（开启结构扫描时按结构索引定位）
      */
-    public JsonNode transform(String sourceJson) throws JsonProcessingException {
-        // 1. 解析源JSON
-        JsonNode sourceData = objectMapper.readTree(sourceJson);
-        
-        // 2. 检查是否有finalJsonTemplate
-        if (transformConfig.getFinalJsonTemplate() != null && !transformConfig.getFinalJsonTemplate().trim().isEmpty()) {
-            // 有模板的情况：基于模板进行转换
-            return transformWithTemplate(sourceData);
-        } else {
-            // 无模板的情况：直接按照mapping规则转换
-            return transformWithoutTemplate(sourceData);
+    private JsonNode parseSource(byte[] sourceJson) throws JsonProcessingException {
+        if (tapeParsing) {
+            return JsonTape.parse(sourceJson);
+        }
+        try {
+            if (scanningReader != null) {
+                return scanningReader.read(sourceJson);
+            }
+            if (selectiveReader == null) {
+                return dataFormatMapper.readTree(sourceJson);
+            }
+            return selectiveReader.read(sourceJson);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw JsonMappingException.fromUnexpectedIOE(e);
         }
     }
-    
+
     /**
      * 基于模板的转换
      */
-    private JsonNode transformWithTemplate(JsonNode sourceData) throws JsonProcessingException {
-        // 1. 解析目标模板
-        JsonNode template = objectMapper.readTree(transformConfig.getFinalJsonTemplate());
-        
-        // 2. 创建结果JSON
-        JsonNode result = template.deepCopy();
+    private JsonNode transformWithTemplate(JsonNode sourceData) {
+        // 1. 基于预解析的模板创建结果JSON
+        JsonNode result = finalTemplate.deepCopy();
 
-        // 3. 处理模板字段转换（只对对象模板进行）
+        // 2. 处理模板字段转换（只对对象模板进行）
         if (transformConfig.getTemplateMappings() != null && !transformConfig.getTemplateMappings().isEmpty()) {
+            expressionEvaluator.startRecord();
             if (result.isObject()) {
                 processTemplateMappings((ObjectNode) result, transformConfig);
             } else if (result.isArray()) {
@@ -255,7 +1289,7 @@ public class JsonTransformService {
             }
         }
 
-        // 4. 处理源数据到模板
+        // 3. 处理源数据到模板
         processSourceDataToTemplate(sourceData, result, transformConfig);
 
         return result;
@@ -267,11 +1301,10 @@ public class JsonTransformService {
     private JsonNode transformWithoutTemplate(JsonNode sourceData) {
         if (sourceData.isArray()) {
             // 源数据是数组：转换每个元素
-            List<ObjectNode> transformedObjects = transformArray(sourceData, transformConfig);
-            return objectMapper.valueToTree(transformedObjects);
+            return transformArray(sourceData, null);
         } else {
             // 源数据是对象：直接转换
-            ObjectNode transformed = transformSingleObject(sourceData, transformConfig);
+            JsonNode transformed = acceptRecord(sourceData) ? transformSingleRecord(sourceData) : null;
             return transformed != null ? transformed : objectMapper.createObjectNode();
         }
     }
@@ -280,32 +1313,127 @@ public class JsonTransformService {
      * 统一处理源数据到模板的逻辑
      */
     private void processSourceDataToTemplate(JsonNode sourceData, JsonNode result, TransformConfig request) {
+        AggregationAccumulator accumulator = aggregationPlan == null ? null : aggregationPlan.newAccumulator();
         if (sourceData.isArray()) {
-            // 源数据是数组
-            List<ObjectNode> transformedObjects = transformArray(sourceData, request);
+            // 源数据是数组：转换的同一次遍历中累加聚合
+            ArrayNode transformedObjects = transformArray(sourceData, accumulator);
             setValueToPath(result, transformedObjects, request.getTargetNodePath());
-        } else {
+        } else if (acceptRecord(sourceData)) {
             // 源数据是对象
-            ObjectNode transformed = transformSingleObject(sourceData, request);
+            if (accumulator != null) {
+                accumulator.accumulate(sourceData);
+            }
+            JsonNode transformed = transformSingleRecord(sourceData);
             if (transformed != null) {
                 setValueToPath(result, transformed, request.getTargetNodePath());
             }
         }
+
+        if (accumulator != null) {
+            for (Map.Entry<String, JsonNode> entry : accumulator.getResults().entrySet()) {
+                setValueToPath(result, entry.getValue(), entry.getKey());
+            }
+        }
     }
     
     /**
-     * 转换数组数据
+     * 转换数组数据，结果直接追加到输出数组中
+     *
+     * @param accumulator 聚合累加器，未配置聚合时为null
      */
-    private List<ObjectNode> transformArray(JsonNode sourceArray, TransformConfig request) {
-        List<ObjectNode> transformedObjects = new ArrayList<>();
+    private ArrayNode transformArray(JsonNode sourceArray, AggregationAccumulator accumulator) {
+        ArrayNode transformedObjects = objectMapper.createArrayNode();
         for (JsonNode sourceItem : sourceArray) {
-            ObjectNode transformed = transformSingleObject(sourceItem, request);
-            if (transformed != null) {
-                transformedObjects.add(transformed);
+            if (!acceptRecord(sourceItem)) {
+                continue;
+            }
+            if (accumulator != null) {
+                accumulator.accumulate(sourceItem);
+            }
+            MappingPlan plan = selectPlan(sourceItem);
+            if (plan != null) {
+                transformRows(sourceItem, plan, transformedObjects);
             }
         }
         return transformedObjects;
     }
+
+    /**
+     * 转换单条源记录
+     *
+     * @return 转换后的对象；配置了explode数组映射时为输出行组成的数组；未匹配任何映射规则时为null
+     */
+    private JsonNode transformSingleRecord(JsonNode sourceObject) {
+        MappingPlan plan = selectPlan(sourceObject);
+        if (plan == null) {
+            return null;
+        }
+        if (plan.getExplodeIndex() < 0) {
+            return transformSingleObject(sourceObject, plan, plan.getSourcePathResolver().resolve(sourceObject));
+        }
+        ArrayNode rows = objectMapper.createArrayNode();
+        transformRows(sourceObject, plan, rows);
+        return rows;
+    }
+
+    /**
+     * 按映射规则转换一条源记录，输出行追加到output
+     * 没有explode数组映射时输出一行；有时先转换其余字段作为公共部分，再为源数组的每个元素输出一行，
+     * 元素的转换结果合并到explode映射的targetPath（为空或$时合并到行的根对象）；源数组为空或不存在时不输出
+     */
+    private void transformRows(JsonNode sourceObject, MappingPlan plan, ArrayNode output) {
+        JsonNode[] sourceValues = plan.getSourcePathResolver().resolve(sourceObject);
+        ObjectNode base = transformSingleObject(sourceObject, plan, sourceValues);
+        int explodeIndex = plan.getExplodeIndex();
+        if (explodeIndex < 0) {
+            output.add(base);
+            return;
+        }
+
+        JsonNode elements = getSourceValue(sourceObject, plan, sourceValues, explodeIndex);
+        if (elements == null || !elements.isArray()) {
+            return;
+        }
+        MappingPlan elementPlan = plan.getElementPlan(explodeIndex);
+        String targetPath = plan.getMappings().get(explodeIndex).getTargetPath();
+        boolean mergeIntoRoot = targetPath == null || targetPath.trim().isEmpty() || "$".equals(targetPath.trim());
+        ArrayNode elementRows = objectMapper.createArrayNode();
+        for (JsonNode element : elements) {
+            elementRows.removeAll();
+            transformRows(element, elementPlan, elementRows);
+            for (JsonNode elementRow : elementRows) {
+                ObjectNode row = base.deepCopy();
+                if (mergeIntoRoot) {
+                    row.setAll((ObjectNode) elementRow);
+                } else {
+                    setNodeByNestedPath(row, targetPath, elementRow);
+                }
+                output.add(row);
+            }
+        }
+    }
+
+    /**
+     * nest数组映射：源数组的每个元素按元素映射规则转换，直接追加到新建的输出数组
+     * 源值不是数组时输出空数组
+     */
+    private ArrayNode transformNestedArray(JsonNode elements, MappingPlan elementPlan) {
+        ArrayNode nested = objectMapper.createArrayNode();
+        if (elements != null && elements.isArray()) {
+            for (JsonNode element : elements) {
+                transformRows(element, elementPlan, nested);
+            }
+        }
+        return nested;
+    }
+
+    /**
+     * 读取映射的源值：简单路径从槽位获取，非简单路径仍通过json-path读取
+     */
+    private JsonNode getSourceValue(JsonNode sourceObject, MappingPlan plan, JsonNode[] sourceValues, int index) {
+        return plan.getSourcePathResolver().isResolvable(index)
+                ? sourceValues[index] : getValueByPath(sourceObject, plan.getMappings().get(index).getSourcePath());
+    }
     
     /**
      * 统一设置值到路径（支持对象和数组模板）
@@ -333,7 +1461,7 @@ public class JsonTransformService {
     private void setValueToObjectPath(ObjectNode result, Object value, String targetPath) {
         JsonNode targetNode = pathNavigator.navigateToTarget(result, targetPath);
         String finalField = pathNavigator.getFinalFieldName(targetPath);
-        ((ObjectNode) targetNode).set(finalField, objectMapper.valueToTree(value));
+        ((ObjectNode) targetNode).set(finalField, toNode(value));
     }
     
     /**
@@ -346,7 +1474,14 @@ public class JsonTransformService {
         String wrappedPath = "result" + targetPath.substring(1);
         JsonNode targetNode = pathNavigator.navigateToTarget(rootNode, wrappedPath);
         String finalField = pathNavigator.getFinalFieldName(wrappedPath);
-        ((ObjectNode) targetNode).set(finalField, objectMapper.valueToTree(value));
+        ((ObjectNode) targetNode).set(finalField, toNode(value));
+    }
+
+    /**
+     * 转换结果是本次新建的节点，直接挂到输出上，不再复制
+     */
+    private JsonNode toNode(Object value) {
+        return value instanceof JsonNode ? (JsonNode) value : objectMapper.valueToTree(value);
     }
 
     /**
@@ -394,72 +1529,193 @@ public class JsonTransformService {
 
 
     /**
-     * 转换单个对象
+     * 选择记录使用的映射规则：按判别字段的值查找，未匹配时使用顶层 mappings
+     *
+     * @return 映射规则，未匹配且顶层 mappings 为空时返回null（跳过该记录）
+     */
+    private MappingPlan selectPlan(JsonNode sourceObject) {
+        // 每条记录转换前选择一次映射规则，从这里开始计算该记录的表达式预算
+        expressionEvaluator.startRecord();
+        if (discriminatorPlans.isEmpty()) {
+            return defaultPlan;
+        }
+        JsonNode value = discriminatorPath != null
+                ? discriminatorPath.read(sourceObject) : getValueByPath(sourceObject, transformConfig.getDiscriminatorPath());
+        MappingPlan plan = value == null || value.isNull() || value.isContainerNode() ? null : discriminatorPlans.get(value.asText());
+        if (plan != null) {
+            return plan;
+        }
+        return defaultPlan.getMappings().isEmpty() ? null : defaultPlan;
+    }
+
+    /**
+     * 按映射规则转换单个对象（不含explode数组映射）
+     *
+     * @param sourceValues 源路径前缀树取出的源值
+     */
+    private ObjectNode transformSingleObject(JsonNode sourceObject, MappingPlan plan, JsonNode[] sourceValues) {
+        return writeObject(plan, mapValues(sourceObject, plan, sourceValues), true);
+    }
+
+    /**
+     * 把映射结果写入目标对象
+     *
+     * @param targetValues 与映射下标对应的结果，写入时会被修改
+     * @param attachNested nest数组是否直接挂载（不复制）；结果需要复用时传false
      */
-    private ObjectNode transformSingleObject(JsonNode sourceObject, TransformConfig request) {
+    private ObjectNode writeObject(MappingPlan plan, Object[] targetValues, boolean attachNested) {
+        TargetPathWriter targetPathWriter = plan.getTargetPathWriter();
+        JsonNode targetTemplate = plan.getTargetTemplate();
+
         // 如果有targetJson，基于它创建目标对象；否则创建空对象
-        ObjectNode transformed;
-        if (request.getTargetJson() != null && !request.getTargetJson().trim().isEmpty()) {
-            try {
-                JsonNode targetTemplate = objectMapper.readTree(request.getTargetJson());
-                transformed = targetTemplate.deepCopy();
-            } catch (Exception e) {
-                log.warn("解析targetJson失败，使用空对象: {}", e.getMessage());
-                transformed = objectMapper.createObjectNode();
+        ObjectNode transformed = targetTemplate != null && targetTemplate.isObject()
+                ? (ObjectNode) targetTemplate.deepCopy() : objectMapper.createObjectNode();
+
+        List<FieldMapping> mappings = plan.getMappings();
+        for (int i = 0; i < targetValues.length; i++) {
+            Object value = targetValues[i];
+            if (value == TargetPathWriter.UNSET) {
+                continue;
+            }
+            boolean nested = plan.getElementPlan(i) != null;
+            if (targetPathWriter.isWritable(i)) {
+                // nest数组是本次新建的节点，直接挂载
+                if (nested && attachNested) {
+                    targetValues[i] = TargetPathWriter.detached((JsonNode) value);
+                }
+            } else if (nested) {
+                setNodeByNestedPath(transformed, mappings.get(i).getTargetPath(),
+                        attachNested ? (JsonNode) value : ((JsonNode) value).deepCopy());
+            } else {
+                // 非简单路径：根据targetPath创建嵌套结构并设置值
+                setValueByNestedPath(transformed, mappings.get(i).getTargetPath(), value);
             }
-        } else {
-            transformed = objectMapper.createObjectNode();
         }
 
-        for (FieldMapping mapping : request.getMappings()) {
-            try {
-                String sourcePath = mapping.getSourcePath();
-                String targetPath = mapping.getTargetPath();
-                String transformExpression = mapping.getTransformExpression();
+        // 按写入前缀树一次构建输出结构
+        targetPathWriter.write(transformed, targetValues);
 
-                if (targetPath == null) {
-                    continue;
-                }
+        return transformed;
+    }
 
-                // 从源对象获取值或直接生成值
-                Object finalValue = null;
+    /**
+     * 计算一条记录所有映射的结果（不含explode数组映射），不构建输出结构
+     *
+     * @param sourceValues 源路径前缀树取出的源值
+     * @return 与映射下标对应的结果，nest数组映射为新建的数组节点，跳过的映射为 TargetPathWriter.UNSET
+     */
+    private Object[] mapValues(JsonNode sourceObject, MappingPlan plan, JsonNode[] sourceValues) {
+        Object[] targetValues = plan.getTargetPathWriter().newValues();
+        for (int i = 0; i < targetValues.length; i++) {
+            targetValues[i] = mapValue(sourceObject, plan, sourceValues, i);
+        }
+        return targetValues;
+    }
 
-                if (sourcePath != null && !sourcePath.trim().isEmpty()) {
-                    // 有sourcePath：从源数据获取值
-                    JsonNode sourceValue = getValueByPath(sourceObject, sourcePath);
-                    // 注意：这里不跳过null值，因为null也是有效值
-                    finalValue = sourceValue;
-                }
+    /**
+     * 计算单个映射的结果
+     *
+     * @return 映射结果，跳过或失败时为 TargetPathWriter.UNSET
+     */
+    private Object mapValue(JsonNode sourceObject, MappingPlan plan, JsonNode[] sourceValues, int i) {
+        FieldMapping mapping = plan.getMappings().get(i);
+        try {
+            String sourcePath = mapping.getSourcePath();
+            String targetPath = mapping.getTargetPath();
+            String transformExpression = mapping.getTransformExpression();
 
-                // 应用转换表达式（必须的）
-                if (transformExpression != null && !transformExpression.trim().isEmpty()) {
-                    finalValue = evaluateExpression(transformExpression, finalValue, sourceObject);
-                } else {
-                    // 如果没有transformExpression，必须有sourcePath
-                    if (sourcePath == null || sourcePath.trim().isEmpty()) {
-                        log.warn("缺少transformExpression，跳过映射: {}", targetPath);
-                        continue;
-                    }
-                }
+            // 数组映射：nest在此生成输出数组，explode由 transformRows 处理
+            MappingPlan elementPlan = plan.getElementPlan(i);
+            if (elementPlan != null) {
+                return i != plan.getExplodeIndex()
+                        ? transformNestedArray(getSourceValue(sourceObject, plan, sourceValues, i), elementPlan)
+                        : TargetPathWriter.UNSET;
+            }
 
-                // 应用类型转换（如果有指定targetType）
-                if (mapping.getTargetType() != null && !mapping.getTargetType().trim().isEmpty()) {
-                    finalValue = convertToTargetType(finalValue, mapping.getTargetType());
+            if (targetPath == null) {
+                return TargetPathWriter.UNSET;
+            }
+
+            // 从源对象获取值或直接生成值
+            Object finalValue = null;
+            AdaptiveMapping adaptive = plan.getAdaptiveMapping(i);
+
+            if (sourcePath != null && !sourcePath.trim().isEmpty()) {
+                if (adaptive != null && !plan.getSourcePathResolver().isResolvable(i)) {
+                    // 非简单路径的根字段不存在时不经过json-path读取
+                    Object shortCircuited = adaptive.tryShortCircuit(sourceObject);
+                    if (shortCircuited != AdaptiveMapping.FALLBACK) {
+                        return shortCircuited;
+                    }
                 }
+                // 有sourcePath：从槽位获取值，非简单路径仍通过json-path读取
+                JsonNode sourceValue = getSourceValue(sourceObject, plan, sourceValues, i);
+                // 注意：这里不跳过null值，因为null也是有效值
+                finalValue = sourceValue;
+            }
 
-                // 根据targetPath创建嵌套结构并设置值
-                setValueByNestedPath(transformed, targetPath, finalValue);
+            // 如果没有transformExpression，必须有sourcePath
+            if ((transformExpression == null || transformExpression.trim().isEmpty())
+                    && (sourcePath == null || sourcePath.trim().isEmpty())) {
+                log.warn("缺少transformExpression，跳过映射: {}", targetPath);
+                return TargetPathWriter.UNSET;
+            }
 
-            } catch (Exception e) {
-                log.warn("处理映射失败: {} -> {}, 错误: {}",
-                        mapping.getSourcePath(), mapping.getTargetPath(), e.getMessage());
+            // 应用转换表达式与类型转换，开启memoize时相同输入值直接复用结果
+            MemoCache memoCache = plan.getMemoCaches()[i];
+            if (adaptive != null) {
+                return mapAdaptive(adaptive, mapping, memoCache, finalValue, sourceObject);
+            }
+            if (memoCache != null) {
+                return memoCache.get(finalValue, input -> applyTransform(mapping, input, sourceObject));
             }
+            return applyTransform(mapping, finalValue, sourceObject);
+
+        } catch (Exception e) {
+            log.warn("处理映射失败: {} -> {}, 错误: {}",
+                    mapping.getSourcePath(), mapping.getTargetPath(), e.getMessage());
+            return TargetPathWriter.UNSET;
         }
+    }
 
-        return transformed;
+    /**
+     * 自适应执行：提升后的映射由内置实现计算，否则执行通用实现并记录结果
+     */
+    private Object mapAdaptive(AdaptiveMapping adaptive, FieldMapping mapping, MemoCache memoCache,
+                               Object value, JsonNode sourceObject) {
+        Object result = adaptive.tryFast(value, sourceObject);
+        if (result != AdaptiveMapping.FALLBACK) {
+            return result;
+        }
+        long start = adaptive.sampleStart();
+        try {
+            result = memoCache != null
+                    ? memoCache.get(value, input -> applyTransform(mapping, input, sourceObject))
+                    : applyTransform(mapping, value, sourceObject);
+        } catch (RuntimeException e) {
+            adaptive.recordFailure();
+            throw e;
+        }
+        adaptive.record(value, sourceObject, result, start);
+        return result;
     }
-    
 
+    /**
+     * 对取到的值应用转换表达式与类型转换
+     */
+    private Object applyTransform(FieldMapping mapping, Object value, JsonNode sourceObject) {
+        Object finalValue = value;
+        String transformExpression = mapping.getTransformExpression();
+        if (transformExpression != null && !transformExpression.trim().isEmpty()) {
+            finalValue = evaluateExpression(transformExpression, finalValue, sourceObject);
+        }
+
+        // 应用类型转换（如果有指定targetType）
+        if (mapping.getTargetType() != null && !mapping.getTargetType().trim().isEmpty()) {
+            finalValue = convertToTargetType(finalValue, mapping.getTargetType());
+        }
+        return finalValue;
+    }
 
     /**
      * 从源对象获取值
@@ -481,48 +1737,6 @@ public class JsonTransformService {
         }
     }
 
-    /**
-     * 提取值并转换为合适的字符串形式（用于Groovy表达式）
-     */
-    private String extractValueAsString(Object value) {
-        if (value == null) {
-            return NULL_STRING;
-        }
-        
-        if (value instanceof JsonNode) {
-            return extractJsonNodeValue((JsonNode) value);
-        }
-        
-        if (value instanceof String) {
-            return "\"" + value + "\"";
-        }
-        
-        if (value instanceof Number || value instanceof Boolean) {
-            return value.toString();
-        }
-        
-        return value.toString();
-    }
-    
-    /**
-     * 提取JsonNode的值
-     */
-    private String extractJsonNodeValue(JsonNode node) {
-        if (node.isTextual()) {
-            return "\"" + node.asText() + "\"";
-        }
-        if (node.isNumber()) {
-            return node.numberValue().toString();
-        }
-        if (node.isBoolean()) {
-            return String.valueOf(node.asBoolean());
-        }
-        if (node.isNull()) {
-            return NULL_STRING;
-        }
-        return node.toString();
-    }
-
     /**
      * 执行Groovy表达式
      */
@@ -534,95 +1748,9 @@ public class JsonTransformService {
      * 执行Groovy表达式（支持JSONPath）
      */
     private Object evaluateExpression(String expression, Object value, JsonNode sourceData) {
-        try {
-            // 如果没有表达式，返回原值
-            if (expression == null || expression.trim().isEmpty()) {
-                return value;
-            }
-
-            // 检查是否是特殊表达式
-            Object specialResult = specialExpressionManager.process(expression, value);
-            if (specialResult != null) {
-                return specialResult;
-            }
-
-            // 处理表达式中的占位符
-            String finalExpression = processExpressionPlaceholders(expression, value, sourceData);
-
-            // 执行表达式
-            if (containsJsonPath(expression)) {
-                // 包含JSONPath的表达式：预编译主要用于语法验证，执行时仍用动态编译
-                // 这样保持简洁性，类似于value的处理方式
-                return groovyShell.evaluate(finalExpression);
-            } else {
-                // 普通表达式：优先使用预编译的脚本
-                Script script = compiledExpressions.get(expression);
-                if (script == null) {
-                    log.warn("表达式未预编译，动态编译: {}", expression);
-                    return groovyShell.evaluate(finalExpression);
-                } else {
-                    // 普通表达式可以直接使用预编译的脚本执行
-                    return script.run();
-                }
-            }
-
-        } catch (Exception e) {
-            log.warn("表达式执行失败: {}, 错误: {}", expression, e.getMessage());
-            return value;
-        }
-    }
-
-    /**
-     * 处理表达式中的占位符（value和JSONPath）
-     */
-    private String processExpressionPlaceholders(String expression, Object value, JsonNode sourceData) {
-        String finalExpression = expression;
-
-        // 1. 处理value占位符
-        if (value != null) {
-            String valueStr = extractValueAsString(value);
-            finalExpression = finalExpression.replace(VALUE_PLACEHOLDER, valueStr);
-        } else {
-            // 如果value是null，将"value"替换为"null"
-            finalExpression = finalExpression.replace(VALUE_PLACEHOLDER, NULL_STRING);
-        }
-
-        // 2. 处理JSONPath占位符（如果提供了源数据）
-        if (sourceData != null) {
-            finalExpression = processJsonPathPlaceholders(finalExpression, sourceData);
-        }
-
-        return finalExpression;
-    }
-
-    /**
-     * 处理表达式中的JSONPath占位符
-     */
-    private String processJsonPathPlaceholders(String expression, JsonNode sourceData) {
-        // 简单直接地处理JSONPath，类似于value的处理方式
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("\\$\\.[^\\s\"']+");
-        java.util.regex.Matcher matcher = pattern.matcher(expression);
-        
-        StringBuffer result = new StringBuffer();
-        while (matcher.find()) {
-            String jsonPath = matcher.group();
-            try {
-                // 从源数据中获取JSONPath对应的值
-                Object pathValue = pathNavigator.readValue(sourceData, jsonPath);
-                String pathValueStr = extractValueAsString(pathValue);
-                matcher.appendReplacement(result, pathValueStr);
-            } catch (Exception e) {
-                log.warn("JSONPath解析失败: {}, 错误: {}", jsonPath, e.getMessage());
-                // 如果解析失败，替换为null
-                matcher.appendReplacement(result, "null");
-            }
-        }
-        matcher.appendTail(result);
-        
-        return result.toString();
+        return expressionEvaluator.evaluate(expression, value, sourceData);
     }
 
-
     /**
      * 根据嵌套路径设置值（使用JsonPathNavigator）
      */
@@ -639,6 +1767,18 @@ public class JsonTransformService {
         }
     }
 
+    /**
+     * 根据嵌套路径挂载本次新建的节点（不复制）
+     */
+    private void setNodeByNestedPath(ObjectNode target, String targetPath, JsonNode node) {
+        try {
+            JsonNode targetNode = pathNavigator.navigateToTarget(target, targetPath);
+            ((ObjectNode) targetNode).set(pathNavigator.getFinalFieldName(targetPath), node);
+        } catch (Exception e) {
+            log.warn("设置嵌套值失败: {}, 错误: {}", targetPath, e.getMessage());
+        }
+    }
+
     /**
      * 类型转换：将源值转换为指定的目标类型
      */
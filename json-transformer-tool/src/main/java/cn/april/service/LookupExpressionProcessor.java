@@ -0,0 +1,82 @@
+package cn.april.service;
+
+import cn.april.service.lookup.LookupTable;
+import cn.april.service.lookup.LookupTableRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 查找表表达式处理器
+ * 支持 @lookup:表名 与 @lookup:表名:默认值 两种形式，以字段值为键查表
+ *
+ * @author April
+ */
+public class LookupExpressionProcessor implements SpecialExpressionProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(LookupExpressionProcessor.class);
+    public static final String LOOKUP = "@lookup:";
+
+    private final LookupTableRegistry registry;
+
+    public LookupExpressionProcessor(LookupTableRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public String getType() {
+        return "lookup";
+    }
+
+    @Override
+    public String getDescription() {
+        return "查找表表达式处理器，支持从本地CSV/JSON字典表翻译字段值";
+    }
+
+    @Override
+    public Object process(String expression, Object value) {
+        // 去掉 @lookup: 前缀，拆分表名与默认值
+        String command = expression.substring(LOOKUP.length());
+        int colonIndex = command.indexOf(':');
+        String tableName = tableName(expression);
+        String defaultValue = colonIndex == -1 ? null : command.substring(colonIndex + 1);
+
+        LookupTable table = registry.getTable(tableName);
+        if (table == null) {
+            log.warn("查找表未定义: {}", tableName);
+            return value;
+        }
+
+        String key = extractKey(value);
+        if (key == null) {
+            return defaultValue;
+        }
+        String result = table.get(key);
+        return result != null ? result : defaultValue;
+    }
+
+    /**
+     * 取出查找表表达式引用的表名
+     *
+     * @param expression 以 @lookup: 开头的表达式
+     */
+    static String tableName(String expression) {
+        String command = expression.substring(LOOKUP.length());
+        int colonIndex = command.indexOf(':');
+        return colonIndex == -1 ? command : command.substring(0, colonIndex);
+    }
+
+    /**
+     * 将输入值转换为查找键
+     */
+    private String extractKey(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof JsonNode) {
+            JsonNode node = (JsonNode) value;
+            return node.isNull() ? null : node.asText();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,310 @@
+package cn.april.service;
+
+import cn.april.model.FieldMapping;
+import cn.april.model.MappingSet;
+import cn.april.service.adaptive.AdaptiveMapping;
+import cn.april.service.bind.ObjectBinder;
+import cn.april.service.output.TemplateSkeleton;
+import cn.april.service.path.SimplePath;
+import cn.april.service.path.SourcePathResolver;
+import cn.april.service.path.TargetPathWriter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一组映射规则的编译结果：源路径前缀树、目标写入前缀树、目标模板和结果缓存
+ * 未配置判别字段时只有一个，配置后每个判别值对应一个，记录按判别值选择后直接使用；
+ * 数组映射的元素映射规则同样编译为子级 MappingPlan
+ *
+ * @author April
+ */
+class MappingPlan {
+
+    private static final Logger log = LoggerFactory.getLogger(MappingPlan.class);
+
+    private static final int DEFAULT_MEMO_CACHE_SIZE = 1024;
+
+    static final String ARRAY_MODE_NEST = "nest";
+    static final String ARRAY_MODE_EXPLODE = "explode";
+
+    // 判别值，默认映射规则为null
+    private final String discriminatorValue;
+    private final List<FieldMapping> mappings;
+    // 预解析的targetJson模板，为null时使用空对象
+    private final JsonNode targetTemplate;
+    // 映射sourcePath的前缀树解析器，每条记录一次遍历取出所有映射的源值
+    private final SourcePathResolver sourcePathResolver;
+    // 映射targetPath的写入前缀树，结果统一按模板顺序一次写入
+    private final TargetPathWriter targetPathWriter;
+    // 与 mappings 下标对应的结果缓存，未开启缓存的映射为null
+    private final MemoCache[] memoCaches;
+    // 与 mappings 下标对应的数组元素映射规则，不是数组映射时为null
+    private final MappingPlan[] elementPlans;
+    // explode数组映射的下标，没有时为-1
+    private final int explodeIndex;
+    // targetJson的预编码骨架，不能按骨架输出时为null
+    private final TemplateSkeleton skeleton;
+    // 与 mappings 下标对应的读取集（sourcePath与表达式中的JSONPath），无法确定时为null
+    private final SimplePath[][] readPaths;
+    // 与 mappings 下标对应的自适应执行状态，未开启自适应执行时为null
+    private AdaptiveMapping[] adaptiveMappings;
+    // 目标类型 -> 对象绑定器，首次绑定到该类型时编译
+    private final Map<Class<?>, ObjectBinder<?>> binders = new ConcurrentHashMap<>();
+
+    MappingPlan(ObjectMapper objectMapper, String discriminatorValue, List<FieldMapping> mappings, String targetJson) {
+        this.discriminatorValue = discriminatorValue;
+        this.mappings = mappings != null ? mappings : Collections.emptyList();
+        this.targetTemplate = parseTargetTemplate(objectMapper, targetJson);
+
+        List<String> sourcePaths = new ArrayList<>();
+        List<String> targetPaths = new ArrayList<>();
+        for (FieldMapping mapping : this.mappings) {
+            sourcePaths.add(mapping.getSourcePath());
+            targetPaths.add(mapping.getTargetPath());
+        }
+        this.sourcePathResolver = new SourcePathResolver(sourcePaths);
+        this.targetPathWriter = new TargetPathWriter(objectMapper, targetPaths, targetTemplate);
+        this.memoCaches = createMemoCaches();
+        this.readPaths = createReadPaths();
+        this.elementPlans = new MappingPlan[this.mappings.size()];
+        this.explodeIndex = createElementPlans(objectMapper);
+        this.skeleton = createSkeleton(objectMapper, targetPaths);
+    }
+
+    /**
+     * 编译数组映射的元素映射规则
+     *
+     * @return explode数组映射的下标，没有时为-1
+     */
+    private int createElementPlans(ObjectMapper objectMapper) {
+        int explode = -1;
+        for (int i = 0; i < mappings.size(); i++) {
+            FieldMapping mapping = mappings.get(i);
+            String arrayMode = mapping.getArrayMode();
+            if (arrayMode == null || arrayMode.trim().isEmpty()) {
+                continue;
+            }
+            MappingSet elementMappings = mapping.getElementMappings();
+            if (mapping.getSourcePath() == null || mapping.getSourcePath().trim().isEmpty() || elementMappings == null) {
+                throw new RuntimeException("数组映射缺少sourcePath或elementMappings: " + mapping.getTargetPath());
+            }
+            if (ARRAY_MODE_EXPLODE.equals(arrayMode)) {
+                // 多个explode会产生笛卡尔积，同一组映射只允许一个
+                if (explode != -1) {
+                    throw new RuntimeException("同一组映射只能有一个explode数组映射: " + mapping.getSourcePath());
+                }
+                explode = i;
+            } else if (!ARRAY_MODE_NEST.equals(arrayMode)) {
+                throw new RuntimeException("不支持的数组映射模式: " + arrayMode);
+            } else if (mapping.getTargetPath() == null) {
+                throw new RuntimeException("nest数组映射缺少targetPath: " + mapping.getSourcePath());
+            }
+            if (mapping.getTransformExpression() != null || mapping.getTargetType() != null) {
+                log.warn("数组映射忽略transformExpression和targetType: {}", mapping.getSourcePath());
+            }
+            elementPlans[i] = new MappingPlan(objectMapper, discriminatorValue,
+                    elementMappings.getMappings(), elementMappings.getTargetJson());
+        }
+        return explode;
+    }
+
+    /**
+     * 编译targetJson骨架，用于直接输出字节
+     * 有explode数组映射或存在写入器无法处理的targetPath（如以数组下标结尾）时不使用骨架
+     */
+    private TemplateSkeleton createSkeleton(ObjectMapper objectMapper, List<String> targetPaths) {
+        if (explodeIndex >= 0) {
+            return null;
+        }
+        for (int i = 0; i < targetPaths.size(); i++) {
+            if (targetPaths.get(i) != null && !targetPathWriter.isWritable(i)) {
+                return null;
+            }
+        }
+        return TemplateSkeleton.compile(objectMapper, targetTemplate, targetPaths);
+    }
+
+    /**
+     * 预解析targetJson模板，解析失败时使用空对象
+     */
+    private static JsonNode parseTargetTemplate(ObjectMapper objectMapper, String targetJson) {
+        if (targetJson == null || targetJson.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(targetJson);
+        } catch (Exception e) {
+            log.warn("解析targetJson失败，使用空对象: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 为开启memoize的映射创建结果缓存
+     * 表达式引用了其他源字段（$.）或依赖当前时间时，结果不只取决于value，不能缓存
+     */
+    private MemoCache[] createMemoCaches() {
+        MemoCache[] caches = new MemoCache[mappings.size()];
+        for (int i = 0; i < caches.length; i++) {
+            FieldMapping mapping = mappings.get(i);
+            if (!Boolean.TRUE.equals(mapping.getMemoize()) || mapping.getArrayMode() != null) {
+                continue;
+            }
+            String expression = mapping.getTransformExpression();
+            if (ExpressionEvaluator.containsJsonPath(expression) || (expression != null && expression.startsWith("@time:current"))) {
+                log.warn("表达式不是纯函数，忽略memoize配置: {} -> {}", mapping.getTargetPath(), expression);
+                continue;
+            }
+            Integer cacheSize = mapping.getMemoizeCacheSize();
+            caches[i] = new MemoCache(cacheSize != null && cacheSize > 0 ? cacheSize : DEFAULT_MEMO_CACHE_SIZE);
+        }
+        return caches;
+    }
+
+    /**
+     * 收集每个映射读取的源路径，用于增量转换时判断映射是否受源数据变化影响
+     * 特殊表达式（@time:、@lookup:）的结果不只取决于源数据，含非简单路径时无法精确比较，这两种情况读取集为null（总是重新计算）
+     */
+    private SimplePath[][] createReadPaths() {
+        SimplePath[][] result = new SimplePath[mappings.size()][];
+        for (int i = 0; i < result.length; i++) {
+            FieldMapping mapping = mappings.get(i);
+            String expression = mapping.getTransformExpression();
+            if (expression != null && expression.trim().startsWith("@")) {
+                continue;
+            }
+            List<String> paths = new ArrayList<>(ExpressionEvaluator.extractJsonPaths(expression));
+            if (mapping.getSourcePath() != null && !mapping.getSourcePath().trim().isEmpty()) {
+                paths.add(mapping.getSourcePath());
+            }
+            SimplePath[] parsed = new SimplePath[paths.size()];
+            for (int j = 0; j < parsed.length; j++) {
+                parsed[j] = SimplePath.parse(paths.get(j));
+                if (parsed[j] == null) {
+                    parsed = null;
+                    break;
+                }
+            }
+            result[i] = parsed;
+        }
+        return result;
+    }
+
+    /**
+     * 源记录变化后映射是否需要重新计算：读取集中任一路径的值发生变化，或读取集无法确定
+     */
+    boolean isAffected(int index, JsonNode previousSource, JsonNode source) {
+        SimplePath[] paths = readPaths[index];
+        if (paths == null) {
+            return true;
+        }
+        for (SimplePath path : paths) {
+            if (!Objects.equals(path.read(previousSource), path.read(source))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String getDiscriminatorValue() {
+        return discriminatorValue;
+    }
+
+    List<FieldMapping> getMappings() {
+        return mappings;
+    }
+
+    JsonNode getTargetTemplate() {
+        return targetTemplate;
+    }
+
+    SourcePathResolver getSourcePathResolver() {
+        return sourcePathResolver;
+    }
+
+    TargetPathWriter getTargetPathWriter() {
+        return targetPathWriter;
+    }
+
+    MemoCache[] getMemoCaches() {
+        return memoCaches;
+    }
+
+    /**
+     * 清空引用指定查找表的映射（含数组元素映射）的结果缓存，查找表重新加载后调用
+     */
+    void clearLookupMemoCaches(String tableName) {
+        for (int i = 0; i < memoCaches.length; i++) {
+            String expression = mappings.get(i).getTransformExpression();
+            if (memoCaches[i] != null && expression != null && expression.startsWith(LookupExpressionProcessor.LOOKUP)
+                    && tableName.equals(LookupExpressionProcessor.tableName(expression))) {
+                memoCaches[i].clear();
+            }
+            if (elementPlans[i] != null) {
+                elementPlans[i].clearLookupMemoCaches(tableName);
+            }
+        }
+    }
+
+    /**
+     * 开启自适应执行（服务初始化时调用一次，之后只读）
+     */
+    void setAdaptiveMappings(AdaptiveMapping[] adaptiveMappings) {
+        this.adaptiveMappings = adaptiveMappings;
+    }
+
+    /**
+     * 映射的自适应执行状态，未开启自适应执行或映射不参与时为null
+     */
+    AdaptiveMapping getAdaptiveMapping(int index) {
+        return adaptiveMappings == null ? null : adaptiveMappings[index];
+    }
+
+    /**
+     * 数组映射的元素映射规则，不是数组映射时为null
+     */
+    MappingPlan getElementPlan(int index) {
+        return elementPlans[index];
+    }
+
+    int getExplodeIndex() {
+        return explodeIndex;
+    }
+
+    /**
+     * targetJson的预编码骨架，不能按骨架输出时为null
+     */
+    TemplateSkeleton getSkeleton() {
+        return skeleton;
+    }
+
+    /**
+     * 获取绑定到目标类型的对象绑定器，首次使用时编译
+     */
+    @SuppressWarnings("unchecked")
+    <T> ObjectBinder<T> getBinder(Class<T> type, ObjectMapper objectMapper) {
+        ObjectBinder<?> binder = binders.get(type);
+        if (binder == null) {
+            List<String> targetPaths = new ArrayList<>();
+            for (FieldMapping mapping : mappings) {
+                targetPaths.add(mapping.getTargetPath());
+            }
+            // 并发首次绑定时可能重复编译，结果相同，保留先放入的
+            ObjectBinder<?> compiled = ObjectBinder.compile(type, objectMapper, targetPaths, targetTemplate);
+            binder = binders.putIfAbsent(type, compiled);
+            if (binder == null) {
+                binder = compiled;
+            }
+        }
+        return (ObjectBinder<T>) binder;
+    }
+}
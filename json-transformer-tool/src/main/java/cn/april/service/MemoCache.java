@@ -0,0 +1,84 @@
+package cn.april.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有界的字段映射结果缓存，以输入值为键
+ * 超出容量时淘汰任意一个已有条目，命中与未命中次数用于判断缓存是否有效
+ *
+ * @author April
+ */
+public class MemoCache {
+
+    // null 不能作为 ConcurrentHashMap 的键或值，用占位对象代替
+    private static final Object NULL = new Object();
+
+    private final int maxSize;
+    private final Map<Object, Object> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MemoCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * 获取缓存结果，未命中时计算并写入缓存
+     *
+     * @param input    输入值
+     * @param function 转换函数
+     * @return 转换结果
+     */
+    public Object get(Object input, Function<Object, Object> function) {
+        Object key = input == null ? NULL : input;
+        Object cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached == NULL ? null : cached;
+        }
+
+        misses.increment();
+        Object result = function.apply(input);
+        if (entries.size() >= maxSize) {
+            evictOne();
+        }
+        entries.put(key, result == null ? NULL : result);
+        return result;
+    }
+
+    private void evictOne() {
+        Iterator<Object> iterator = entries.keySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 清空缓存条目（输入值对应的结果发生变化时调用，例如查找表重新加载），命中统计保留
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
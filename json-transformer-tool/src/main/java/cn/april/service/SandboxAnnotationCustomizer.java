@@ -0,0 +1,81 @@
+package cn.april.service;
+
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ImportNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.CompilePhase;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 沙箱表达式不允许使用任何注解
+ * 局部AST变换（如 @ASTTest）在 SEMANTIC_ANALYSIS 阶段就会执行注解中的代码，早于 SecureASTCustomizer 的检查（CANONICALIZATION），
+ * 因此在 CONVERSION 阶段、AST变换收集注解之前拒绝；检查范围与AST变换收集注解的范围相同（类、方法、字段、参数、变量声明与导入），另外检查闭包参数与for循环变量
+ *
+ * @author April
+ */
+class SandboxAnnotationCustomizer extends CompilationCustomizer {
+
+    SandboxAnnotationCustomizer() {
+        super(CompilePhase.CONVERSION);
+    }
+
+    @Override
+    public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) {
+        ModuleNode module = source.getAST();
+        List<ImportNode> imports = new ArrayList<>(module.getImports());
+        imports.addAll(module.getStarImports());
+        imports.addAll(module.getStaticImports().values());
+        imports.addAll(module.getStaticStarImports().values());
+        for (ImportNode importNode : imports) {
+            reject(importNode);
+        }
+        if (module.getPackage() != null) {
+            reject(module.getPackage());
+        }
+        new ClassCodeVisitorSupport() {
+            @Override
+            protected SourceUnit getSourceUnit() {
+                return source;
+            }
+
+            @Override
+            public void visitAnnotations(AnnotatedNode node) {
+                reject(node);
+            }
+
+            @Override
+            public void visitClosureExpression(ClosureExpression closure) {
+                if (closure.getParameters() != null) {
+                    for (Parameter parameter : closure.getParameters()) {
+                        reject(parameter);
+                    }
+                }
+                super.visitClosureExpression(closure);
+            }
+
+            @Override
+            public void visitForLoop(ForStatement loop) {
+                reject(loop.getVariable());
+                super.visitForLoop(loop);
+            }
+        }.visitClass(classNode);
+    }
+
+    private static void reject(AnnotatedNode node) {
+        List<AnnotationNode> annotations = node.getAnnotations();
+        if (!annotations.isEmpty()) {
+            throw new SecurityException("沙箱表达式不允许使用注解: @" + annotations.get(0).getClassNode().getName());
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package cn.april.service;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.Variable;
+import org.codehaus.groovy.ast.expr.ArrayExpression;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
+import org.codehaus.groovy.ast.expr.CastExpression;
+import org.codehaus.groovy.ast.expr.ClassExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.DeclarationExpression;
+import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
+import org.codehaus.groovy.ast.expr.MethodPointerExpression;
+import org.codehaus.groovy.ast.expr.PropertyExpression;
+import org.codehaus.groovy.ast.expr.RangeExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.TupleExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.TryCatchStatement;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.SecureASTCustomizer;
+import org.codehaus.groovy.syntax.Types;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 沙箱表达式的编译期检查
+ * 按允许列表限制表达式中出现的类型：调用对象、类字面量、构造、类型转换、变量与闭包参数声明都只能是列表中的类型，
+ * 动态类型的值（value、JSONPath变量、def 变量）在编译期的类型是 Object（在允许列表中），对其调用再按方法名和属性名拦截反射、类加载与执行命令；
+ * 方法指针（.&、::）、动态方法名与属性名无法在编译期确定，一律拒绝；
+ * 范围（..）的迭代与按容量分配（new int[n]、new ArrayList(n)）发生在库方法或JVM内部，插入的超时检查拦截不到，一律拒绝
+ *
+ * @author April
+ */
+final class SandboxExpressionChecker implements SecureASTCustomizer.ExpressionChecker {
+
+    // 表达式可以使用的类型（调用对象、类字面量、构造、类型声明）
+    private static final List<String> ALLOWED_TYPES = List.of(
+            "java.lang.Object", "java.lang.String", "java.lang.CharSequence", "groovy.lang.GString",
+            "java.lang.Number", "java.lang.Integer", "java.lang.Long", "java.lang.Double", "java.lang.Float",
+            "java.lang.Short", "java.lang.Byte", "java.lang.Boolean", "java.lang.Character",
+            "int", "long", "double", "float", "short", "byte", "boolean", "char",
+            "java.math.BigDecimal", "java.math.BigInteger", "java.lang.Math", "java.lang.StringBuilder",
+            "java.util.Collection", "java.util.List", "java.util.ArrayList", "java.util.LinkedList",
+            "java.util.Map", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap",
+            "java.util.Set", "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+            "java.util.Date", "java.util.TimeZone", "java.util.Objects", "java.util.UUID",
+            "java.util.regex.Pattern", "java.util.regex.Matcher", "java.text.SimpleDateFormat",
+            "java.time.LocalDate", "java.time.LocalDateTime", "java.time.LocalTime", "java.time.Instant",
+            "java.time.Duration", "java.time.ZoneId", "java.time.ZoneOffset", "java.time.ZonedDateTime",
+            "java.time.OffsetDateTime", "java.time.format.DateTimeFormatter", "groovy.lang.Closure");
+    // 禁止调用的方法名：反射（含从 Class 对象取得其他类型的方法）、类加载、执行命令、元编程，以及绕过 * 运算长度检查的重复方法
+    private static final Set<String> DISALLOWED_METHODS = Set.of(
+            "execute", "exit", "halt", "forName", "getClassLoader", "loadClass", "defineClass", "newInstance",
+            "getMethod", "getMethods", "getDeclaredMethod", "getDeclaredMethods", "getConstructor", "getConstructors",
+            "getDeclaredConstructor", "getDeclaredConstructors", "getField", "getFields", "getDeclaredField",
+            "getDeclaredFields", "getSuperclass", "getGenericSuperclass", "getInterfaces", "getGenericInterfaces",
+            "getRawType", "getDeclaredClasses", "getClasses", "getEnclosingClass", "getEnclosingMethod",
+            "getEnclosingConstructor", "getDeclaringClass", "getNestHost", "getNestMembers", "getPermittedSubclasses",
+            "getRecordComponents", "getComponentType", "componentType", "arrayType", "getModule", "getProtectionDomain",
+            "getResource", "getResourceAsStream", "setAccessible", "invoke", "invokeMethod", "getProperty", "setProperty",
+            "getProperties", "getMetaClass", "setMetaClass", "asType", "evaluate", "parse", "sleep", "wait", "notify",
+            "notifyAll", "getClass", "multiply", "repeat", "respondsTo", "hasProperty", "getMetaPropertyValues");
+    // 禁止访问的属性名，下标访问 value['class'] 与 value.getAt('class') 同样拦截；
+    // 下标不是常量时无法确定属性名，只允许整数下标或静态类型为Map的对象（见 isAllowedKey）
+    private static final Set<String> DISALLOWED_PROPERTIES = Set.of(
+            "class", "metaClass", "classLoader", "properties", "superclass", "genericSuperclass", "interfaces",
+            "genericInterfaces", "rawType", "declaredClasses", "enclosingClass", "enclosingMethod", "declaringClass",
+            "nestHost", "componentType", "module", "declaredMethods", "declaredFields", "declaredConstructors",
+            "protectionDomain", "metaPropertyValues");
+
+    // 构造方法可以指定初始容量的类型，沙箱中只能用无参构造方法创建
+    private static final Set<String> SIZED_TYPES = Set.of(
+            "java.util.ArrayList", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.HashSet",
+            "java.util.LinkedHashSet", "java.lang.StringBuilder");
+
+    // 一次调用就可能分配大量内存的方法，由 DeadlineCheckCustomizer 改写为 ExpressionDeadline.invoke，执行前估算结果的大小
+    static final Set<String> SIZED_METHODS = Set.of(
+            "padLeft", "padRight", "center", "plus", "leftShift", "append", "concat", "addAll",
+            "power", "pow", "shiftLeft", "format", "sprintf", "printf");
+    // 以上方法中可以省略调用对象的（脚本自身的方法）；其余方法省略调用对象时可能由闭包的 delegate 执行，无法改写
+    private static final Set<String> IMPLICIT_SIZED_METHODS = Set.of("sprintf", "printf");
+
+    private static final Set<Integer> COMPOUND_ASSIGNMENTS = Set.of(
+            Types.MULTIPLY_EQUAL, Types.PLUS_EQUAL, Types.LEFT_SHIFT_EQUAL, Types.POWER_EQUAL);
+
+    private static final String GRAB_TRANSFORMATION = "groovy.grape.GrabAnnotationTransformation";
+
+    // 下标不是常量时允许的对象类型与下标类型；列表和数组的字符串下标会取出每个元素的同名属性（list['class']），因此只允许整数下标
+    private static final Set<String> INDEXED_TYPES = Set.of(
+            "java.util.Map", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap");
+    private static final Set<String> INTEGER_KEY_TYPES = Set.of(
+            "int", "long", "short", "byte", "java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte");
+
+    private final Set<String> allowedTypes;
+
+    /**
+     * @param allowedImports 沙箱配置中允许 import 的类，同样可以作为调用对象和构造
+     */
+    private SandboxExpressionChecker(List<String> allowedImports) {
+        this.allowedTypes = new HashSet<>(ALLOWED_TYPES);
+        this.allowedTypes.addAll(allowedImports);
+    }
+
+    /**
+     * 为编译配置添加沙箱检查
+     */
+    static void configure(CompilerConfiguration compilerConfiguration, List<String> allowedImports) {
+        SandboxExpressionChecker checker = new SandboxExpressionChecker(allowedImports);
+        SecureASTCustomizer secure = new SecureASTCustomizer();
+        secure.setMethodDefinitionAllowed(false);
+        secure.setPackageAllowed(false);
+        // 捕获异常会吞掉超时
+        secure.setDisallowedStatements(List.of(TryCatchStatement.class));
+        // 开启间接导入检查后，表达式中引用的每个类（含调用对象的类型）都必须在导入允许列表中，
+        // 每个方法调用还按 类名.方法名 检查静态导入，因此允许列表中类型的静态成员都要放行
+        List<String> allowedTypes = new ArrayList<>(checker.allowedTypes);
+        List<String> allowedStaticMembers = new ArrayList<>();
+        for (String type : allowedTypes) {
+            allowedStaticMembers.add(type + ".*");
+        }
+        secure.setAllowedImports(allowedTypes);
+        secure.setAllowedStarImports(Collections.emptyList());
+        secure.setAllowedStaticImports(Collections.emptyList());
+        secure.setAllowedStaticStarImports(allowedStaticMembers);
+        // 未 import 的类通过默认导入的包或全限定名引用时同样检查
+        secure.setIndirectImportCheckEnabled(true);
+        secure.setAllowedReceivers(allowedTypes);
+        secure.addExpressionCheckers(checker);
+        // @Grab 是全局AST变换，不经过注解检查也会在 CONVERSION 阶段解析和下载依赖
+        compilerConfiguration.setDisabledGlobalASTTransformations(Set.of(GRAB_TRANSFORMATION));
+        compilerConfiguration.addCompilationCustomizers(new SandboxAnnotationCustomizer(), secure, new DeadlineCheckCustomizer());
+    }
+
+    @Override
+    public boolean isAuthorized(Expression expression) {
+        if (expression instanceof MethodPointerExpression || expression instanceof RangeExpression) {
+            return false;
+        }
+        if (expression instanceof MethodCallExpression) {
+            MethodCallExpression call = (MethodCallExpression) expression;
+            String method = call.getMethodAsString();
+            if (method == null || DISALLOWED_METHODS.contains(method)) {
+                return false;
+            }
+            if (SIZED_METHODS.contains(method)
+                    && (call.isSpreadSafe() || call.isImplicitThis() && !IMPLICIT_SIZED_METHODS.contains(method))) {
+                return false;
+            }
+            if (("getAt".equals(method) || "putAt".equals(method)) && call.getArguments() instanceof TupleExpression) {
+                List<Expression> arguments = ((TupleExpression) call.getArguments()).getExpressions();
+                return arguments.isEmpty() || isAllowedKey(call.getObjectExpression(), arguments.get(0));
+            }
+            return true;
+        }
+        if (expression instanceof StaticMethodCallExpression) {
+            StaticMethodCallExpression call = (StaticMethodCallExpression) expression;
+            return isAllowed(call.getOwnerType()) && !DISALLOWED_METHODS.contains(call.getMethod());
+        }
+        if (expression instanceof PropertyExpression) {
+            String property = ((PropertyExpression) expression).getPropertyAsString();
+            return property != null && !DISALLOWED_PROPERTIES.contains(property);
+        }
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            if (binary.getOperation().getType() == Types.LEFT_SQUARE_BRACKET) {
+                return isAllowedKey(binary.getLeftExpression(), binary.getRightExpression());
+            }
+            if (binary instanceof DeclarationExpression) {
+                return isAllowedDeclaration(((DeclarationExpression) binary).getLeftExpression());
+            }
+            // *=、+=、<<=、**= 改写为对变量的赋值（见 DeadlineCheckCustomizer），左侧只能是变量
+            return !COMPOUND_ASSIGNMENTS.contains(binary.getOperation().getType())
+                    || binary.getLeftExpression() instanceof VariableExpression;
+        }
+        if (expression instanceof ConstructorCallExpression) {
+            ConstructorCallExpression call = (ConstructorCallExpression) expression;
+            if (SIZED_TYPES.contains(call.getType().getName()) && call.getArguments() instanceof TupleExpression
+                    && !((TupleExpression) call.getArguments()).getExpressions().isEmpty()) {
+                return false;
+            }
+            return isAllowed(call.getType());
+        }
+        if (expression instanceof ClassExpression || expression instanceof CastExpression) {
+            return isAllowed(expression.getType());
+        }
+        if (expression instanceof ArrayExpression) {
+            ArrayExpression array = (ArrayExpression) expression;
+            return array.getSizeExpression() == null && isAllowed(array.getElementType());
+        }
+        if (expression instanceof ClosureExpression) {
+            Parameter[] parameters = ((ClosureExpression) expression).getParameters();
+            if (parameters != null) {
+                for (Parameter parameter : parameters) {
+                    if (!isAllowed(parameter.getOriginType())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 变量声明的类型（def 为 Object）；多重赋值 def (a, b) = ... 逐个检查
+     */
+    private boolean isAllowedDeclaration(Expression left) {
+        if (left instanceof VariableExpression) {
+            return isAllowed(((VariableExpression) left).getOriginType());
+        }
+        if (left instanceof TupleExpression) {
+            for (Expression element : ((TupleExpression) left).getExpressions()) {
+                if (!isAllowedDeclaration(element)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 下标访问是否允许：常量下标不能是禁止访问的属性名；
+     * 计算出的下标（如 "cla" + "ss"）可能是任意属性名，只允许静态类型为整数的下标，或静态类型为Map的对象
+     */
+    private static boolean isAllowedKey(Expression receiver, Expression key) {
+        if (key instanceof ConstantExpression) {
+            return !DISALLOWED_PROPERTIES.contains(((ConstantExpression) key).getValue());
+        }
+        if (INTEGER_KEY_TYPES.contains(staticType(key).getName())) {
+            return true;
+        }
+        return INDEXED_TYPES.contains(staticType(receiver).getName());
+    }
+
+    /**
+     * 表达式在编译期的类型，变量取声明时的类型（def 变量为 Object）
+     */
+    private static ClassNode staticType(Expression expression) {
+        if (expression instanceof VariableExpression) {
+            Variable variable = ((VariableExpression) expression).getAccessedVariable();
+            if (variable != null) {
+                return variable.getOriginType();
+            }
+        }
+        return expression.getType();
+    }
+
+    private boolean isAllowed(ClassNode type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return allowedTypes.contains(type.getName());
+    }
+}
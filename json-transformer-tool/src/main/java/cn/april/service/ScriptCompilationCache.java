@@ -0,0 +1,186 @@
+package cn.april.service;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import groovy.lang.Script;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Groovy脚本编译结果的磁盘缓存
+ * 以表达式文本、Groovy版本和编译配置的哈希为键，保存编译生成的全部类字节码（脚本类及其闭包类），
+ * 后续启动直接加载字节码，跳过解析与编译
+ *
+ * @author April
+ */
+public class ScriptCompilationCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ScriptCompilationCache.class);
+
+    private static final String FILE_SUFFIX = ".classes";
+    private static final String CLASS_NAME_PREFIX = "TransformScript_";
+
+    private final Path directory;
+    private final GroovyClassLoader classLoader;
+    private final CompilerConfiguration compilerConfiguration;
+    private final String configurationFingerprint;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    // 缓存键 -> 已定义的脚本类；不同表达式替换JSONPath后可能得到相同的脚本文本（如 $.a + 1 与 $.b + 1），同名类只能定义一次
+    private final Map<String, Class<? extends Script>> definedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory                缓存目录，不存在时自动创建
+     * @param classLoader              定义脚本类的类加载器
+     * @param compilerConfiguration    编译配置
+     * @param configurationFingerprint 编译配置的标识，配置不同的编译结果互不复用
+     */
+    public ScriptCompilationCache(Path directory, GroovyClassLoader classLoader,
+                                  CompilerConfiguration compilerConfiguration, String configurationFingerprint) {
+        this.directory = directory;
+        this.classLoader = classLoader;
+        this.compilerConfiguration = compilerConfiguration;
+        this.configurationFingerprint = configurationFingerprint;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("脚本缓存目录创建失败: " + directory, e);
+        }
+    }
+
+    /**
+     * 获取脚本类：已定义过相同脚本时直接返回，缓存命中时加载字节码，否则编译并写入缓存
+     *
+     * @param scriptText 脚本文本
+     * @return 脚本类
+     */
+    public Class<? extends Script> load(String scriptText) {
+        String key = hash(scriptText + '\n' + GroovySystem.getVersion() + '\n' + configurationFingerprint);
+        return definedClasses.computeIfAbsent(key, k -> define(scriptText, k));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<? extends Script> define(String scriptText, String key) {
+        Path file = directory.resolve(key + FILE_SUFFIX);
+
+        List<GroovyClass> classes = null;
+        if (Files.exists(file)) {
+            try {
+                classes = readClasses(file);
+                hits.incrementAndGet();
+            } catch (IOException e) {
+                log.warn("脚本缓存读取失败，重新编译: {}, 错误: {}", file, e.getMessage());
+            }
+        }
+        if (classes == null) {
+            classes = compile(scriptText, CLASS_NAME_PREFIX + key.substring(0, 16));
+            misses.incrementAndGet();
+            writeClasses(file, classes);
+        }
+
+        // 第一个类是脚本类，其余为脚本中的闭包等内部类
+        Class<?> scriptClass = null;
+        for (GroovyClass groovyClass : classes) {
+            Class<?> definedClass = classLoader.defineClass(groovyClass.getName(), groovyClass.getBytes());
+            if (scriptClass == null) {
+                scriptClass = definedClass;
+            }
+        }
+        return (Class<? extends Script>) scriptClass;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private List<GroovyClass> compile(String scriptText, String className) {
+        CompilationUnit unit = new CompilationUnit(compilerConfiguration, null, classLoader);
+        unit.addSource(className + ".groovy", scriptText);
+        unit.compile(Phases.CLASS_GENERATION);
+
+        List<GroovyClass> classes = new ArrayList<>();
+        for (GroovyClass groovyClass : unit.getClasses()) {
+            if (groovyClass.getName().equals(className)) {
+                classes.add(0, groovyClass);
+            } else {
+                classes.add(groovyClass);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * 文件格式：[类数量][类名][字节码长度][字节码]...
+     */
+    private List<GroovyClass> readClasses(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            int count = input.readInt();
+            List<GroovyClass> classes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = input.readUTF();
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                classes.add(new GroovyClass(name, bytes));
+            }
+            return classes;
+        }
+    }
+
+    /**
+     * 先写临时文件再原子移动，避免并发启动的实例读到写了一半的缓存
+     */
+    private void writeClasses(Path file, List<GroovyClass> classes) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(buffer)) {
+                output.writeInt(classes.size());
+                for (GroovyClass groovyClass : classes) {
+                    output.writeUTF(groovyClass.getName());
+                    output.writeInt(groovyClass.getBytes().length);
+                    output.write(groovyClass.getBytes());
+                }
+            }
+            Path tempFile = Files.createTempFile(directory, "script", ".tmp");
+            Files.write(tempFile, buffer.toByteArray());
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("脚本缓存写入失败: {}, 错误: {}", file, e.getMessage());
+        }
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+}
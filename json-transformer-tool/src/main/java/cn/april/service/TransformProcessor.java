@@ -0,0 +1,62 @@
+package cn.april.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * 记录流转换处理器
+ * 订阅源JSON记录流，在指定的执行器上逐条转换后发布结果
+ * 每次只向上游请求一条记录，下游缓冲区满时 submit 会阻塞，从而把背压传递给上游
+ *
+ * @author April
+ */
+public class TransformProcessor extends SubmissionPublisher<JsonNode> implements Flow.Processor<String, JsonNode> {
+
+    private final JsonTransformService transformService;
+    private final Executor executor;
+    private Flow.Subscription subscription;
+    // 上游信号按顺序串行执行，保证完成信号在最后一条记录发布之后处理
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    public TransformProcessor(JsonTransformService transformService, Executor executor) {
+        super(executor, Flow.defaultBufferSize());
+        this.transformService = transformService;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(String item) {
+        tail = tail.thenRunAsync(() -> {
+            if (isClosed()) {
+                return;
+            }
+            try {
+                submit(transformService.transform(item));
+                subscription.request(1);
+            } catch (Exception e) {
+                subscription.cancel();
+                closeExceptionally(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        tail = tail.thenRun(() -> closeExceptionally(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        tail = tail.thenRun(this::close);
+    }
+}
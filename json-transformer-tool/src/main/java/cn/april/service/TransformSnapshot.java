@@ -0,0 +1,68 @@
+package cn.april.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * 增量转换的快照：一条源记录、它的转换结果以及每个映射的计算结果
+ * 同一实体的下一个版本通过 JsonTransformService.update 基于快照转换，只重新计算读取集发生变化的映射
+ * 快照不可变，可以在线程之间传递；输出节点与补丁由调用方只读使用
+ *
+ * @author April
+ */
+public final class TransformSnapshot {
+
+    private final JsonNode source;
+    private final JsonNode output;
+    private final ArrayNode patch;
+    private final int reevaluatedMappings;
+    // 计算时使用的映射规则与结果，不能增量计算时为null
+    private final MappingPlan plan;
+    private final Object[] values;
+
+    TransformSnapshot(JsonNode source, JsonNode output, ArrayNode patch, int reevaluatedMappings,
+                      MappingPlan plan, Object[] values) {
+        this.source = source;
+        this.output = output;
+        this.patch = patch;
+        this.reevaluatedMappings = reevaluatedMappings;
+        this.plan = plan;
+        this.values = values;
+    }
+
+    /**
+     * 源记录
+     */
+    public JsonNode getSource() {
+        return source;
+    }
+
+    /**
+     * 转换结果
+     */
+    public JsonNode getOutput() {
+        return output;
+    }
+
+    /**
+     * 相对上一个快照输出的 JSON Patch（RFC 6902），首个快照为null
+     */
+    public ArrayNode getPatch() {
+        return patch;
+    }
+
+    /**
+     * 本次重新计算的映射数量
+     */
+    public int getReevaluatedMappings() {
+        return reevaluatedMappings;
+    }
+
+    MappingPlan getPlan() {
+        return plan;
+    }
+
+    Object[] getValues() {
+        return values;
+    }
+}
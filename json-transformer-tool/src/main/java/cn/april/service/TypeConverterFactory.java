@@ -1,5 +1,6 @@
 package cn.april.service;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -24,8 +25,23 @@ public class TypeConverterFactory {
 
     // 转换器注册表 - 使用Map提升查找性能
     private static final Map<String, TypeConverter> CONVERTER_MAP = new ConcurrentHashMap<>();
+
+    // Java类型 -> 类型名，用于直接绑定到对象时按字段类型选择转换器
+    private static final Map<Class<?>, String> JAVA_TYPE_MAP = new HashMap<>();
     
     static {
+        JAVA_TYPE_MAP.put(String.class, "string");
+        JAVA_TYPE_MAP.put(Integer.class, "int");
+        JAVA_TYPE_MAP.put(int.class, "int");
+        JAVA_TYPE_MAP.put(Long.class, "long");
+        JAVA_TYPE_MAP.put(long.class, "long");
+        JAVA_TYPE_MAP.put(Double.class, "double");
+        JAVA_TYPE_MAP.put(double.class, "double");
+        JAVA_TYPE_MAP.put(Float.class, "float");
+        JAVA_TYPE_MAP.put(float.class, "float");
+        JAVA_TYPE_MAP.put(Boolean.class, "boolean");
+        JAVA_TYPE_MAP.put(boolean.class, "boolean");
+
         // 注册所有内置转换器
         registerConverter(new StringTypeConverter());
         registerConverter(new IntegerTypeConverter());
@@ -85,6 +101,16 @@ public class TypeConverterFactory {
         return CONVERTER_MAP.get(normalizedType);
     }
     
+    /**
+     * 按Java类型获取类型转换器（基本类型与其包装类型使用同一个转换器）
+     *
+     * @return 不是内置支持的类型时返回null
+     */
+    public static TypeConverter getConverter(Class<?> javaType) {
+        String typeName = JAVA_TYPE_MAP.get(javaType);
+        return typeName == null ? null : CONVERTER_MAP.get(typeName);
+    }
+    
     /**
      * 执行类型转换
      */
@@ -0,0 +1,490 @@
+package cn.april.service.adaptive;
+
+import cn.april.model.ExecutionTier;
+import cn.april.model.FieldMapping;
+import cn.april.model.MappingProfile;
+import cn.april.service.TypeConverter;
+import cn.april.service.TypeConverterFactory;
+import cn.april.service.path.SimplePath;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个字段映射的自适应执行状态
+ * 每次执行记录输入值类型、缺失与null次数、失败次数，并抽样记录耗时；
+ * 前 PROFILE_WINDOW 次执行为采样窗口，窗口内同时用候选的快速实现计算一遍并与通用实现的结果比较，窗口结束后决定：
+ * <ul>
+ *     <li>快速实现：Groovy表达式由 NativeExpression 执行，targetType 使用预先选定的转换器，只接受窗口内出现过的输入类型</li>
+ *     <li>缺失短路：源路径几乎总是缺失（不低于 MISSING_THRESHOLD）且缺失时结果始终相同的映射直接返回该结果，
+ *     非简单路径在根字段不存在时连json-path读取也跳过；只用于没有表达式或表达式有内置实现的映射</li>
+ * </ul>
+ * 快速实现遇到窗口内没见过的输入类型或超出内置实现范围的值时退回通用实现（去优化）并重新采样，
+ * 去优化超过 MAX_DEOPTIMIZATIONS 次后固定使用通用实现
+ *
+ * @author April
+ */
+public final class AdaptiveMapping {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveMapping.class);
+
+    /**
+     * 快速实现无法处理本次输入，需要执行通用实现
+     */
+    public static final Object FALLBACK = new Object();
+
+    static final int PROFILE_WINDOW = 1024;
+    static final double MISSING_THRESHOLD = 0.9;
+    static final int MAX_DEOPTIMIZATIONS = 8;
+    // 每多少次执行记录一次耗时（2的幂）
+    private static final int COST_SAMPLE_MASK = 63;
+
+    private static final int PROFILING = 0;
+    private static final int OPTIMIZED = 1;
+    private static final int GENERIC = 2;
+
+    // 输入值类型位
+    private static final int MISSING = 1;
+    private static final int NULL = 1 << 1;
+    private static final int STRING = 1 << 2;
+    private static final int INTEGER = 1 << 3;
+    private static final int FLOAT = 1 << 4;
+    private static final int BOOLEAN = 1 << 5;
+    private static final int OBJECT = 1 << 6;
+    private static final int ARRAY = 1 << 7;
+    private static final int OTHER = 1 << 8;
+    private static final String[] KIND_NAMES = {"missing", "null", "string", "integer", "float", "boolean", "object", "array", "other"};
+
+    private final String label;
+    private final ExecutionTier configuredTier;
+    private final ExecutionTier promotedTier;
+    // 有Groovy表达式（非特殊表达式）
+    private final boolean groovy;
+    // Groovy表达式的内置实现，不能识别或不允许时为null
+    private final NativeExpression nativeExpression;
+    // targetType 对应的转换器与转换结果类型，没有targetType时为null
+    private final boolean converting;
+    private final TypeConverter converter;
+    private final Class<?> convertedType;
+    // 结果只取决于value（没有表达式，或表达式有内置实现且不引用其他源字段）；
+    // 其他Groovy表达式可能读取时间、随机数等外部状态，缺失时的结果不能固定
+    private final boolean valuePure;
+    // 有sourcePath（没有sourcePath的映射不统计缺失）
+    private final boolean hasSourcePath;
+    // 非简单sourcePath的根字段，源对象没有该字段时源值必然缺失；简单路径或无法确定时为null
+    private final String guardField;
+    // 可以提供快速实现（还需要采样窗口内验证）
+    private final boolean fastCandidate;
+
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder missing = new LongAdder();
+    private final LongAdder nulls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private volatile int observedKinds;
+    private volatile int deoptimizations;
+
+    private volatile int state = PROFILING;
+    // 决定后的执行方式，在写入 state 之前设置
+    private boolean fastPath;
+    private int guardKinds;
+    private boolean shortCircuit;
+    private Object missingResult;
+
+    // 采样窗口，只在持有锁时读写
+    private int windowCalls;
+    private int windowMissing;
+    private int windowKinds;
+    private boolean windowVerified;
+    private boolean windowMissingSeen;
+    private boolean windowMissingConstant;
+    private Object windowMissingResult;
+
+    /**
+     * @param label            映射标签（与缓存统计相同）
+     * @param mapping          字段映射
+     * @param simpleSourcePath sourcePath 为空或是简单路径
+     * @param special          表达式是特殊表达式（@time:、@lookup:）
+     * @param nativeAllowed    是否允许用内置实现代替Groovy（配置了记录执行预算时不允许，预算用完时Groovy表达式按失败处理）
+     */
+    public AdaptiveMapping(String label, FieldMapping mapping, boolean simpleSourcePath, boolean special, boolean nativeAllowed) {
+        this.label = label;
+        String expression = mapping.getTransformExpression();
+        boolean hasExpression = expression != null && !expression.trim().isEmpty();
+        String targetType = mapping.getTargetType();
+        this.groovy = hasExpression && !special;
+        this.nativeExpression = groovy && nativeAllowed ? NativeExpression.compile(expression) : null;
+        this.converting = targetType != null && !targetType.trim().isEmpty();
+        this.converter = converting ? TypeConverterFactory.getConverter(targetType) : null;
+        this.convertedType = converting ? convertedType(targetType.toLowerCase().trim()) : null;
+        this.valuePure = !hasExpression || (nativeExpression != null && !nativeExpression.readsSource());
+        this.hasSourcePath = mapping.getSourcePath() != null && !mapping.getSourcePath().trim().isEmpty();
+        this.guardField = simpleSourcePath ? null : rootField(mapping.getSourcePath());
+        this.fastCandidate = (!hasExpression || nativeExpression != null) && (!converting || converter != null);
+
+        ExecutionTier tier = simpleSourcePath ? ExecutionTier.FAST_PATH : ExecutionTier.JSON_PATH;
+        ExecutionTier promoted = converting || groovy ? max(tier, ExecutionTier.NATIVE) : tier;
+        if (hasExpression) {
+            tier = special ? max(tier, ExecutionTier.SPECIAL) : ExecutionTier.GROOVY;
+        } else if (converting) {
+            tier = max(tier, ExecutionTier.NATIVE);
+        }
+        this.configuredTier = tier;
+        this.promotedTier = fastCandidate ? promoted : tier;
+        resetWindow();
+    }
+
+    /**
+     * 非简单路径（如 $.items[*].name）在源对象没有根字段时才能确定缺失
+     */
+    private static String rootField(String sourcePath) {
+        if (sourcePath == null || !sourcePath.trim().startsWith("$.")) {
+            return null;
+        }
+        String text = sourcePath.trim();
+        int end = 2;
+        while (end < text.length() && text.charAt(end) != '.' && text.charAt(end) != '[') {
+            end++;
+        }
+        SimplePath root = SimplePath.parse(text.substring(0, end));
+        return root != null && root.getSegments().size() == 1 && root.getSegments().get(0) instanceof String
+                ? (String) root.getSegments().get(0) : null;
+    }
+
+    private static Class<?> convertedType(String targetType) {
+        switch (targetType) {
+            case "string":
+            case "str":
+                return String.class;
+            case "int":
+            case "integer":
+                return Integer.class;
+            case "long":
+                return Long.class;
+            case "double":
+                return Double.class;
+            case "float":
+                return Float.class;
+            case "boolean":
+            case "bool":
+                return Boolean.class;
+            default:
+                return null;
+        }
+    }
+
+    private static ExecutionTier max(ExecutionTier a, ExecutionTier b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    /**
+     * 在读取非简单路径之前调用：缺失短路生效且源对象没有根字段时直接返回缓存的结果
+     *
+     * @return 映射结果，需要读取源值时返回 FALLBACK
+     */
+    public Object tryShortCircuit(JsonNode source) {
+        if (state != OPTIMIZED || !shortCircuit || guardField == null || !isGuardMissing(source)) {
+            return FALLBACK;
+        }
+        invocations.increment();
+        missing.increment();
+        return copy(missingResult);
+    }
+
+    /**
+     * 记录一次执行并尝试快速实现
+     *
+     * @param value  源值，缺失时为null
+     * @param source 源对象
+     * @return 映射结果，需要执行通用实现时返回 FALLBACK（之后调用 record）
+     */
+    public Object tryFast(Object value, JsonNode source) {
+        invocations.increment();
+        int kind = kindOf(value);
+        if (kind == MISSING) {
+            if (hasSourcePath) {
+                missing.increment();
+            }
+        } else if (kind == NULL) {
+            nulls.increment();
+        }
+        if ((observedKinds & kind) == 0) {
+            observeKind(kind);
+        }
+        if (state != OPTIMIZED) {
+            return FALLBACK;
+        }
+        if (shortCircuit && guardField == null && kind == MISSING) {
+            return copy(missingResult);
+        }
+        if (!fastPath) {
+            return FALLBACK;
+        }
+        if ((guardKinds & kind) == 0) {
+            deoptimize("输入类型 " + kindNames(kind));
+            return FALLBACK;
+        }
+        long start = sampleStart();
+        Object result = runFast(value, source);
+        if (result == FALLBACK) {
+            deoptimize("超出内置实现范围的值");
+            return FALLBACK;
+        }
+        if (start != 0) {
+            recordCost(start);
+        }
+        return result;
+    }
+
+    /**
+     * 通用实现开始前调用，抽中时返回当前时间，否则返回0
+     */
+    public long sampleStart() {
+        return (ThreadLocalRandom.current().nextInt() & COST_SAMPLE_MASK) == 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 记录通用实现的结果，采样窗口内用于验证快速实现并在窗口结束时决定执行方式
+     *
+     * @param start sampleStart 的返回值
+     */
+    public void record(Object value, JsonNode source, Object result, long start) {
+        if (start != 0) {
+            recordCost(start);
+        }
+        boolean failed = isFailure(value, result);
+        if (failed) {
+            failures.increment();
+        }
+        if (state == PROFILING) {
+            profile(value, source, result, failed);
+        }
+    }
+
+    /**
+     * 记录执行时抛出的异常
+     */
+    public void recordFailure() {
+        failures.increment();
+        if (state == PROFILING) {
+            synchronized (this) {
+                windowVerified = false;
+            }
+        }
+    }
+
+    private void recordCost(long start) {
+        sampledNanos.add(System.nanoTime() - start);
+        samples.increment();
+    }
+
+    /**
+     * Groovy表达式执行失败时返回原值（JsonNode），类型转换失败时保持转换前的值
+     */
+    private boolean isFailure(Object value, Object result) {
+        if (groovy && value != null && result instanceof JsonNode) {
+            return true;
+        }
+        return convertedType != null && result != null && !convertedType.isInstance(result);
+    }
+
+    private synchronized void profile(Object value, JsonNode source, Object result, boolean failed) {
+        if (state != PROFILING) {
+            return;
+        }
+        windowCalls++;
+        windowKinds |= kindOf(value);
+        if (failed) {
+            windowVerified = false;
+        }
+        boolean absent = guardField != null ? isGuardMissing(source) : value == null;
+        if (absent) {
+            windowMissing++;
+            if (!windowMissingSeen) {
+                windowMissingSeen = true;
+                windowMissingResult = result;
+            } else if (!Objects.equals(windowMissingResult, result)) {
+                windowMissingConstant = false;
+            }
+        }
+        if (windowVerified) {
+            // 与通用实现的结果逐一比较，任何一次不同都不使用快速实现
+            Object fast = runFast(value, source);
+            if (fast == FALLBACK || !Objects.equals(fast, result)) {
+                windowVerified = false;
+            }
+        }
+        if (windowCalls >= PROFILE_WINDOW) {
+            decide();
+        }
+    }
+
+    private void decide() {
+        fastPath = windowVerified;
+        guardKinds = windowKinds;
+        shortCircuit = valuePure && windowMissingSeen && windowMissingConstant && isCacheable(windowMissingResult)
+                && windowMissing >= MISSING_THRESHOLD * windowCalls;
+        missingResult = windowMissingResult;
+        if (fastPath || shortCircuit) {
+            log.info("自适应执行: {} 提升为 {}{}，输入类型 {}", label, fastPath ? promotedTier : configuredTier,
+                    shortCircuit ? "（缺失短路）" : "", kindNames(guardKinds));
+            state = OPTIMIZED;
+        } else {
+            state = GENERIC;
+        }
+        resetWindow();
+    }
+
+    private synchronized void deoptimize(String reason) {
+        if (state != OPTIMIZED) {
+            return;
+        }
+        deoptimizations++;
+        if (deoptimizations > MAX_DEOPTIMIZATIONS) {
+            log.warn("自适应执行: {} 去优化次数超过 {}，固定使用通用实现", label, MAX_DEOPTIMIZATIONS);
+            state = GENERIC;
+        } else {
+            log.info("自适应执行: {} 去优化（{}），重新采样", label, reason);
+            resetWindow();
+            state = PROFILING;
+        }
+    }
+
+    private void resetWindow() {
+        windowCalls = 0;
+        windowMissing = 0;
+        windowKinds = 0;
+        windowVerified = fastCandidate;
+        windowMissingSeen = false;
+        windowMissingConstant = true;
+        windowMissingResult = null;
+    }
+
+    private synchronized void observeKind(int kind) {
+        observedKinds |= kind;
+    }
+
+    /**
+     * 快速实现：内置表达式与预先选定的转换器，结果与通用实现的 evaluateExpression + convertToTargetType 相同
+     * 转换失败时通用实现会输出日志并保持原值，这里返回 FALLBACK 交给通用实现
+     */
+    private Object runFast(Object value, JsonNode source) {
+        Object result = value;
+        if (nativeExpression != null) {
+            result = nativeExpression.evaluate(value, source);
+            if (result == NativeExpression.UNSUPPORTED) {
+                return FALLBACK;
+            }
+        }
+        if (!converting || result == null) {
+            return result;
+        }
+        if (result instanceof JsonNode) {
+            JsonNode node = (JsonNode) result;
+            if (node.isNull()) {
+                return null;
+            }
+            if (node.isTextual()) {
+                // 字符串到字符串是最常见的组合，不经过转换器
+                if (convertedType == String.class) {
+                    return node.textValue();
+                }
+                result = node.textValue();
+            } else if (node.isNumber()) {
+                result = node.numberValue();
+            } else if (node.isBoolean()) {
+                result = node.booleanValue();
+            } else {
+                result = node.asText();
+            }
+        }
+        try {
+            return converter.convert(result);
+        } catch (Exception e) {
+            return FALLBACK;
+        }
+    }
+
+    private boolean isGuardMissing(JsonNode source) {
+        return source != null && source.isObject() && source.get(guardField) == null;
+    }
+
+    private static boolean isCacheable(Object result) {
+        return result == null || result instanceof JsonNode || result instanceof String
+                || result instanceof Number || result instanceof Boolean;
+    }
+
+    /**
+     * 缓存的结果会写入多条输出记录，容器节点每次复制
+     */
+    private static Object copy(Object cached) {
+        return cached instanceof JsonNode && ((JsonNode) cached).isContainerNode() ? ((JsonNode) cached).deepCopy() : cached;
+    }
+
+    private static int kindOf(Object value) {
+        if (value == null) {
+            return MISSING;
+        }
+        if (!(value instanceof JsonNode)) {
+            return OTHER;
+        }
+        JsonNode node = (JsonNode) value;
+        if (node.isTextual()) {
+            return STRING;
+        }
+        if (node.isIntegralNumber()) {
+            return INTEGER;
+        }
+        if (node.isNumber()) {
+            return FLOAT;
+        }
+        if (node.isBoolean()) {
+            return BOOLEAN;
+        }
+        if (node.isNull() || node.isMissingNode()) {
+            return NULL;
+        }
+        if (node.isObject()) {
+            return OBJECT;
+        }
+        return node.isArray() ? ARRAY : OTHER;
+    }
+
+    private static List<String> kindNames(int kinds) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < KIND_NAMES.length; i++) {
+            if ((kinds & (1 << i)) != 0) {
+                names.add(KIND_NAMES[i]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 当前的统计与执行方式
+     */
+    public MappingProfile toProfile() {
+        long total = invocations.sum();
+        long sampleCount = samples.sum();
+        int currentState = state;
+        boolean optimized = currentState == OPTIMIZED;
+        String status = currentState == PROFILING ? MappingProfile.PROFILING
+                : optimized ? MappingProfile.OPTIMIZED : MappingProfile.GENERIC;
+        return new MappingProfile(label, total,
+                rate(missing.sum(), total), rate(nulls.sum(), total), rate(failures.sum(), total),
+                kindNames(observedKinds), sampleCount == 0 ? null : (double) sampledNanos.sum() / sampleCount,
+                configuredTier, optimized && fastPath ? promotedTier : configuredTier,
+                status, optimized && shortCircuit, deoptimizations);
+    }
+
+    private static double rate(long count, long total) {
+        return total == 0 ? 0 : (double) count / total;
+    }
+}
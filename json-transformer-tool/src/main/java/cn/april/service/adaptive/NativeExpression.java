@@ -0,0 +1,519 @@
+package cn.april.service.adaptive;
+
+import cn.april.service.ExpressionEvaluator;
+import cn.april.service.path.SimplePath;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+/**
+ * 常见Groovy表达式的内置实现，执行时不创建脚本实例
+ * 只识别一个很小的子集：value、简单JSONPath、字符串/整数/布尔/null字面量、
+ * 无参的 trim/toUpperCase/toLowerCase/toString/length 调用（支持 ?.）、
+ * 字符串拼接与整数加法、与null比较及以此为条件的三元表达式；其余表达式 compile 返回null
+ * 运行时遇到子集之外的值（对象、数组、其他数值类型、对null调用方法等）返回 UNSUPPORTED，由调用方交给Groovy执行
+ *
+ * @author April
+ */
+public final class NativeExpression {
+
+    /**
+     * 当前值不在内置实现的范围内，需要按Groovy执行
+     */
+    public static final Object UNSUPPORTED = new Object();
+
+    private static final Set<String> METHODS = Set.of("trim", "toUpperCase", "toLowerCase", "toString", "length");
+
+    private final String expression;
+    private final Node root;
+    private final boolean readsSource;
+
+    private NativeExpression(String expression, Node root, boolean readsSource) {
+        this.expression = expression;
+        this.root = root;
+        this.readsSource = readsSource;
+    }
+
+    /**
+     * 识别表达式
+     *
+     * @return 内置实现，表达式不在支持的子集内时返回null
+     */
+    public static NativeExpression compile(String expression) {
+        if (expression == null || expression.trim().isEmpty() || expression.trim().startsWith("@")) {
+            return null;
+        }
+        try {
+            Parser parser = new Parser(tokenize(expression));
+            Node root = parser.expression();
+            if (!parser.atEnd()) {
+                return null;
+            }
+            return new NativeExpression(expression, root, parser.readsSource);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 执行表达式
+     *
+     * @param value  sourcePath对应的值（JsonNode或null）
+     * @param source 源对象，用于读取表达式中的JSONPath
+     * @return 与Groovy相同的结果，超出内置实现范围时返回 UNSUPPORTED
+     */
+    public Object evaluate(Object value, JsonNode source) {
+        return root.evaluate(value, source);
+    }
+
+    /**
+     * 表达式是否读取了value之外的源字段
+     */
+    public boolean readsSource() {
+        return readsSource;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * 与 ExpressionEvaluator 传入Groovy的值一致：文本、数值、布尔直接取值，对象和数组不支持
+     */
+    private static Object toGroovyValue(Object value) {
+        if (!(value instanceof JsonNode)) {
+            return value;
+        }
+        JsonNode node = (JsonNode) value;
+        if (node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+        if (node.isTextual()) {
+            return node.textValue();
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        return UNSUPPORTED;
+    }
+
+    // ---------------------------------------------------------------- 词法与语法分析
+
+    private enum TokenType { IDENT, PATH, STRING, NUMBER, EQ, NE, QUESTION, COLON, PLUS, DOT, SAFE_DOT, LPAREN, RPAREN }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+
+        Token(TokenType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+    }
+
+    private static List<Token> tokenize(String expression) {
+        List<Token> tokens = new ArrayList<>();
+        Matcher pathMatcher = ExpressionEvaluator.JSON_PATH_PATTERN.matcher(expression);
+        int i = 0;
+        int length = expression.length();
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '$') {
+                // 与预编译时替换JSONPath使用同一个模式，保证识别出的路径与Groovy绑定的路径相同
+                if (!pathMatcher.find(i) || pathMatcher.start() != i) {
+                    throw new IllegalArgumentException();
+                }
+                tokens.add(new Token(TokenType.PATH, pathMatcher.group()));
+                i = pathMatcher.end();
+            } else if (c == '\'' || c == '"') {
+                int end = expression.indexOf(c, i + 1);
+                if (end == -1) {
+                    throw new IllegalArgumentException();
+                }
+                String text = expression.substring(i + 1, end);
+                // 转义、GString插值与字面量中的JSONPath（预编译时会被替换）都交给Groovy
+                if (text.indexOf('\\') >= 0 || text.indexOf('$') >= 0) {
+                    throw new IllegalArgumentException();
+                }
+                tokens.add(new Token(TokenType.STRING, text));
+                i = end + 1;
+            } else if (c >= '0' && c <= '9') {
+                int start = i;
+                while (i < length && expression.charAt(i) >= '0' && expression.charAt(i) <= '9') {
+                    i++;
+                }
+                // 前导0是八进制，小数和类型后缀（L、G等）不支持
+                if ((expression.charAt(start) == '0' && i - start > 1)
+                        || (i < length && Character.isLetterOrDigit(expression.charAt(i))) || (i < length && expression.charAt(i) == '.')) {
+                    throw new IllegalArgumentException();
+                }
+                tokens.add(new Token(TokenType.NUMBER, expression.substring(start, i)));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(expression.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.IDENT, expression.substring(start, i)));
+            } else if (expression.startsWith("==", i)) {
+                tokens.add(new Token(TokenType.EQ, "=="));
+                i += 2;
+            } else if (expression.startsWith("!=", i)) {
+                tokens.add(new Token(TokenType.NE, "!="));
+                i += 2;
+            } else if (expression.startsWith("?.", i)) {
+                tokens.add(new Token(TokenType.SAFE_DOT, "?."));
+                i += 2;
+            } else if (expression.startsWith("?:", i) || expression.startsWith("===", i)) {
+                throw new IllegalArgumentException();
+            } else {
+                TokenType type;
+                switch (c) {
+                    case '?':
+                        type = TokenType.QUESTION;
+                        break;
+                    case ':':
+                        type = TokenType.COLON;
+                        break;
+                    case '+':
+                        type = TokenType.PLUS;
+                        break;
+                    case '.':
+                        type = TokenType.DOT;
+                        break;
+                    case '(':
+                        type = TokenType.LPAREN;
+                        break;
+                    case ')':
+                        type = TokenType.RPAREN;
+                        break;
+                    default:
+                        throw new IllegalArgumentException();
+                }
+                // ++、+=、== 之外的 = 等都不支持
+                if (i + 1 < length && (expression.charAt(i + 1) == '=' || (c == '+' && expression.charAt(i + 1) == '+'))) {
+                    throw new IllegalArgumentException();
+                }
+                tokens.add(new Token(type, String.valueOf(c)));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * expression := sum [ (== | !=) null [ ? expression : expression ] ]
+     * sum        := postfix { + postfix }
+     * postfix    := primary { (. | ?.) 方法名 ( ) }
+     * primary    := value | JSONPath | 字符串 | 整数 | true | false | null | ( expression )
+     */
+    private static final class Parser {
+
+        private final List<Token> tokens;
+        private int position;
+        boolean readsSource;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean atEnd() {
+            return position == tokens.size();
+        }
+
+        private Token peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private boolean accept(TokenType type) {
+            Token token = peek();
+            if (token != null && token.type == type) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private Token expect(TokenType type) {
+            Token token = peek();
+            if (token == null || token.type != type) {
+                throw new IllegalArgumentException();
+            }
+            position++;
+            return token;
+        }
+
+        Node expression() {
+            Node operand = sum();
+            Token token = peek();
+            if (token == null || (token.type != TokenType.EQ && token.type != TokenType.NE)) {
+                // Groovy真值判断作为三元条件不支持
+                if (token != null && token.type == TokenType.QUESTION) {
+                    throw new IllegalArgumentException();
+                }
+                return operand;
+            }
+            position++;
+            Token nullToken = expect(TokenType.IDENT);
+            if (!"null".equals(nullToken.text)) {
+                throw new IllegalArgumentException();
+            }
+            Node condition = new NullCheck(operand, token.type == TokenType.EQ);
+            if (!accept(TokenType.QUESTION)) {
+                return condition;
+            }
+            Node whenTrue = expression();
+            expect(TokenType.COLON);
+            Node whenFalse = expression();
+            return new Conditional(condition, whenTrue, whenFalse);
+        }
+
+        private Node sum() {
+            Node left = postfix();
+            while (accept(TokenType.PLUS)) {
+                left = new Plus(left, postfix());
+            }
+            return left;
+        }
+
+        private Node postfix() {
+            Node node = primary();
+            while (true) {
+                boolean safe;
+                if (accept(TokenType.DOT)) {
+                    safe = false;
+                } else if (accept(TokenType.SAFE_DOT)) {
+                    safe = true;
+                } else {
+                    return node;
+                }
+                String method = expect(TokenType.IDENT).text;
+                if (!METHODS.contains(method)) {
+                    throw new IllegalArgumentException();
+                }
+                expect(TokenType.LPAREN);
+                expect(TokenType.RPAREN);
+                node = new MethodCall(node, method, safe);
+            }
+        }
+
+        private Node primary() {
+            Token token = peek();
+            if (token == null) {
+                throw new IllegalArgumentException();
+            }
+            position++;
+            switch (token.type) {
+                case IDENT:
+                    switch (token.text) {
+                        case "value":
+                            return new ValueRef();
+                        case "null":
+                            return new Literal(null);
+                        case "true":
+                            return new Literal(Boolean.TRUE);
+                        case "false":
+                            return new Literal(Boolean.FALSE);
+                        default:
+                            throw new IllegalArgumentException();
+                    }
+                case PATH: {
+                    SimplePath path = SimplePath.parse(token.text);
+                    if (path == null) {
+                        throw new IllegalArgumentException();
+                    }
+                    readsSource = true;
+                    return new PathRef(path);
+                }
+                case STRING:
+                    return new Literal(token.text);
+                case NUMBER:
+                    return new Literal(integerLiteral(token.text));
+                case LPAREN: {
+                    Node inner = expression();
+                    expect(TokenType.RPAREN);
+                    return inner;
+                }
+                default:
+                    throw new IllegalArgumentException();
+            }
+        }
+
+        /**
+         * Groovy整数字面量：int范围内为Integer，超出时为Long，再超出为BigInteger（不支持）
+         */
+        private static Object integerLiteral(String text) {
+            long parsed;
+            try {
+                parsed = Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException();
+            }
+            return parsed <= Integer.MAX_VALUE ? (Object) (int) parsed : (Object) parsed;
+        }
+    }
+
+    // ---------------------------------------------------------------- 语法树
+
+    private abstract static class Node {
+        abstract Object evaluate(Object value, JsonNode source);
+    }
+
+    private static final class ValueRef extends Node {
+        @Override
+        Object evaluate(Object value, JsonNode source) {
+            return toGroovyValue(value);
+        }
+    }
+
+    private static final class PathRef extends Node {
+        private final SimplePath path;
+
+        PathRef(SimplePath path) {
+            this.path = path;
+        }
+
+        @Override
+        Object evaluate(Object value, JsonNode source) {
+            return source == null ? null : toGroovyValue(path.read(source));
+        }
+    }
+
+    private static final class Literal extends Node {
+        private final Object constant;
+
+        Literal(Object constant) {
+            this.constant = constant;
+        }
+
+        @Override
+        Object evaluate(Object value, JsonNode source) {
+            return constant;
+        }
+    }
+
+    private static final class NullCheck extends Node {
+        private final Node operand;
+        private final boolean isNull;
+
+        NullCheck(Node operand, boolean isNull) {
+            this.operand = operand;
+            this.isNull = isNull;
+        }
+
+        @Override
+        Object evaluate(Object value, JsonNode source) {
+            Object result = operand.evaluate(value, source);
+            if (result == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            return (result == null) == isNull;
+        }
+    }
+
+    private static final class Conditional extends Node {
+        private final Node condition;
+        private final Node whenTrue;
+        private final Node whenFalse;
+
+        Conditional(Node condition, Node whenTrue, Node whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        Object evaluate(Object value, JsonNode source) {
+            Object test = condition.evaluate(value, source);
+            if (test == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            return (Boolean) test ? whenTrue.evaluate(value, source) : whenFalse.evaluate(value, source);
+        }
+    }
+
+    private static final class MethodCall extends Node {
+        private final Node target;
+        private final String method;
+        private final boolean safe;
+
+        MethodCall(Node target, String method, boolean safe) {
+            this.target = target;
+            this.method = method;
+            this.safe = safe;
+        }
+
+        @Override
+        Object evaluate(Object value, JsonNode source) {
+            Object receiver = target.evaluate(value, source);
+            if (receiver == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            if (receiver == null) {
+                // 对null调用方法在Groovy中失败，由Groovy按失败处理
+                return safe ? null : UNSUPPORTED;
+            }
+            if ("toString".equals(method)) {
+                return receiver instanceof String || receiver instanceof Number || receiver instanceof Boolean
+                        ? receiver.toString() : UNSUPPORTED;
+            }
+            if (!(receiver instanceof String)) {
+                return UNSUPPORTED;
+            }
+            String text = (String) receiver;
+            switch (method) {
+                case "trim":
+                    return text.trim();
+                case "toUpperCase":
+                    return text.toUpperCase();
+                case "toLowerCase":
+                    return text.toLowerCase();
+                default:
+                    return text.length();
+            }
+        }
+    }
+
+    /**
+     * String + 任意支持的值为拼接，Integer/Long 相加按Groovy的整数运算（溢出回绕）
+     */
+    private static final class Plus extends Node {
+        private final Node left;
+        private final Node right;
+
+        Plus(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(Object value, JsonNode source) {
+            Object a = left.evaluate(value, source);
+            if (a == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            Object b = right.evaluate(value, source);
+            if (b == UNSUPPORTED) {
+                return UNSUPPORTED;
+            }
+            if (a instanceof String) {
+                return b == null || b instanceof String || b instanceof Integer || b instanceof Long || b instanceof Boolean
+                        ? (String) a + b : UNSUPPORTED;
+            }
+            if (a instanceof Integer && b instanceof Integer) {
+                return (Integer) a + (Integer) b;
+            }
+            if ((a instanceof Integer || a instanceof Long) && (b instanceof Integer || b instanceof Long)) {
+                return ((Number) a).longValue() + ((Number) b).longValue();
+            }
+            return UNSUPPORTED;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package cn.april.service.aggregate;
+
+import java.util.Locale;
+
+/**
+ * 聚合函数
+ *
+ * @author April
+ */
+enum AggregateFunction {
+
+    COUNT, SUM, MIN, MAX, AVG;
+
+    /**
+     * 合并两个部分结果（sum/avg 为累加值）
+     */
+    double combine(double current, double value) {
+        switch (this) {
+            case MIN:
+                return Math.min(current, value);
+            case MAX:
+                return Math.max(current, value);
+            default:
+                return current + value;
+        }
+    }
+
+    boolean needsValue() {
+        return this != COUNT;
+    }
+
+    static AggregateFunction of(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("聚合函数未配置");
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的聚合函数: " + name);
+        }
+    }
+}
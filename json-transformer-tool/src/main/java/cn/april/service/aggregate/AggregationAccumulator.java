@@ -0,0 +1,184 @@
+package cn.april.service.aggregate;
+
+import cn.april.service.aggregate.AggregationPlan.CompiledAggregation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 聚合累加器：逐条累加源记录，部分结果可以合并（流式处理时按分区累加，并行处理时按分片累加后合并）
+ * 非线程安全，每个线程使用自己的累加器
+ *
+ * @author April
+ */
+public class AggregationAccumulator {
+
+    // 不分组的聚合使用的分组值
+    private static final String GLOBAL_GROUP = "";
+
+    private final AggregationPlan plan;
+    private final List<CompiledAggregation> aggregations;
+    // 与聚合规则下标对应的分组统计表；分组的数值都是整数时，该分组的sum/min/max按精确的整数统计输出（sum超出long范围时为大整数）
+    private final GroupTable[] tables;
+
+    AggregationAccumulator(AggregationPlan plan) {
+        this.plan = plan;
+        this.aggregations = plan.getAggregations();
+        this.tables = new GroupTable[aggregations.size()];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new GroupTable();
+        }
+    }
+
+    /**
+     * 累加一条源记录；分组值为null或不存在的记录不计入该分组聚合，非数值不计入数值统计
+     */
+    public void accumulate(JsonNode record) {
+        for (int i = 0; i < tables.length; i++) {
+            CompiledAggregation aggregation = aggregations.get(i);
+            String key = GLOBAL_GROUP;
+            if (aggregation.groupReader != null) {
+                JsonNode groupValue = aggregation.groupReader.apply(record);
+                if (groupValue == null || groupValue.isNull() || groupValue.isContainerNode()) {
+                    continue;
+                }
+                key = groupValue.asText();
+            }
+            GroupTable table = tables[i];
+            int group = table.group(key);
+            table.addCount(group, 1);
+
+            if (aggregation.valueReader != null) {
+                JsonNode value = aggregation.valueReader.apply(record);
+                double number;
+                if (value == null || value.isNull()) {
+                    continue;
+                } else if (value.isNumber()) {
+                    number = value.doubleValue();
+                } else if (value.isTextual()) {
+                    try {
+                        number = Double.parseDouble(value.asText().trim());
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                } else {
+                    continue;
+                }
+                if (table.exact(group) && (number != Math.rint(number) || !addExact(table, group, aggregation.function, value))) {
+                    table.markInexact(group);
+                }
+                table.addValue(group, aggregation.function, number, 1);
+            }
+        }
+    }
+
+    /**
+     * 累加整数值的精确统计：long 范围内的整数不装箱，超出范围的按 BigDecimal
+     *
+     * @return 数值无法精确表示为整数（如 Infinity）时返回false，之后该分组改为按 double 输出
+     */
+    private static boolean addExact(GroupTable table, int group, AggregateFunction function, JsonNode value) {
+        if (value.isNumber()) {
+            if (value.canConvertToLong() && (value.isIntegralNumber() || Math.abs(value.doubleValue()) < 0x1p63)) {
+                table.addExact(group, function, value.longValue());
+            } else if (Double.isInfinite(value.doubleValue()) && !value.isBigDecimal() && !value.isBigInteger()) {
+                return false;
+            } else {
+                table.addExact(group, function, value.decimalValue());
+            }
+            return true;
+        }
+        String text = value.asText().trim();
+        try {
+            table.addExact(group, function, Long.parseLong(text));
+        } catch (NumberFormatException e) {
+            try {
+                table.addExact(group, function, new BigDecimal(text));
+            } catch (NumberFormatException notDecimal) {
+                // Double.parseDouble 接受而 BigDecimal 不接受的写法（Infinity、十六进制浮点数等）
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 合并另一个累加器的部分结果（必须来自同一个聚合规则）
+     */
+    public void merge(AggregationAccumulator other) {
+        if (other.plan != plan) {
+            throw new IllegalArgumentException("只能合并同一聚合规则创建的累加器");
+        }
+        for (int i = 0; i < tables.length; i++) {
+            GroupTable source = other.tables[i];
+            GroupTable target = tables[i];
+            for (int group = 0; group < source.size(); group++) {
+                int targetGroup = target.group(source.key(group));
+                target.addCount(targetGroup, source.count(group));
+                if (source.valueCount(group) > 0) {
+                    if (!source.exact(group)) {
+                        target.markInexact(targetGroup);
+                    } else if (target.exact(targetGroup)) {
+                        if (source.exactOverflow(group) != null) {
+                            target.addExact(targetGroup, aggregations.get(i).function, source.exactOverflow(group));
+                        } else {
+                            target.addExact(targetGroup, aggregations.get(i).function, source.exactValue(group));
+                        }
+                    }
+                    target.addValue(targetGroup, aggregations.get(i).function, source.value(group), source.valueCount(group));
+                }
+            }
+        }
+    }
+
+    /**
+     * 聚合结果：targetPath -> 结果值（分组聚合为 分组值 -> 统计值 的对象，按分组首次出现的顺序）
+     */
+    public Map<String, JsonNode> getResults() {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (int i = 0; i < tables.length; i++) {
+            CompiledAggregation aggregation = aggregations.get(i);
+            GroupTable table = tables[i];
+            if (aggregation.groupReader == null) {
+                results.put(aggregation.targetPath, table.size() == 0
+                        ? emptyResult(aggregation.function) : result(aggregation.function, table, 0));
+            } else {
+                ObjectNode groups = JsonNodeFactory.instance.objectNode();
+                for (int group = 0; group < table.size(); group++) {
+                    groups.set(table.key(group), result(aggregation.function, table, group));
+                }
+                results.put(aggregation.targetPath, groups);
+            }
+        }
+        return results;
+    }
+
+    private static JsonNode emptyResult(AggregateFunction function) {
+        return function == AggregateFunction.COUNT || function == AggregateFunction.SUM
+                ? JsonNodeFactory.instance.numberNode(0L) : JsonNodeFactory.instance.nullNode();
+    }
+
+    private static JsonNode result(AggregateFunction function, GroupTable table, int group) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        if (function == AggregateFunction.COUNT) {
+            return factory.numberNode(table.count(group));
+        }
+        if (table.valueCount(group) == 0) {
+            return emptyResult(function);
+        }
+        double value = table.value(group);
+        if (function == AggregateFunction.AVG) {
+            return factory.numberNode(value / table.valueCount(group));
+        }
+        if (!table.exact(group)) {
+            return factory.numberNode(value);
+        }
+        BigDecimal overflow = table.exactOverflow(group);
+        return overflow != null ? factory.numberNode(overflow.toBigInteger()) : factory.numberNode(table.exactValue(group));
+    }
+}
@@ -0,0 +1,64 @@
+package cn.april.service.aggregate;
+
+import cn.april.model.Aggregation;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 编译后的聚合规则，不可变，可被多个线程共享；每个线程或分片通过 newAccumulator 创建自己的累加器
+ *
+ * @author April
+ */
+public class AggregationPlan {
+
+    private final List<CompiledAggregation> aggregations = new ArrayList<>();
+
+    /**
+     * @param aggregations 聚合规则
+     * @param pathReader   路径 -> 读取函数（在源记录上读取该路径，不存在时返回null）
+     */
+    public AggregationPlan(List<Aggregation> aggregations, Function<String, Function<JsonNode, JsonNode>> pathReader) {
+        for (Aggregation aggregation : aggregations) {
+            if (aggregation.getTargetPath() == null || aggregation.getTargetPath().trim().isEmpty()) {
+                throw new IllegalArgumentException("聚合规则缺少targetPath");
+            }
+            AggregateFunction function = AggregateFunction.of(aggregation.getFunction());
+            if (function.needsValue() && (aggregation.getSourcePath() == null || aggregation.getSourcePath().trim().isEmpty())) {
+                throw new IllegalArgumentException("聚合函数 " + aggregation.getFunction() + " 缺少sourcePath: " + aggregation.getTargetPath());
+            }
+            this.aggregations.add(new CompiledAggregation(aggregation.getTargetPath(), function,
+                    function.needsValue() ? pathReader.apply(aggregation.getSourcePath()) : null,
+                    aggregation.getGroupBy() == null ? null : pathReader.apply(aggregation.getGroupBy())));
+        }
+    }
+
+    public AggregationAccumulator newAccumulator() {
+        return new AggregationAccumulator(this);
+    }
+
+    List<CompiledAggregation> getAggregations() {
+        return Collections.unmodifiableList(aggregations);
+    }
+
+    static final class CompiledAggregation {
+
+        final String targetPath;
+        final AggregateFunction function;
+        // 数值读取函数，count为null
+        final Function<JsonNode, JsonNode> valueReader;
+        // 分组值读取函数，不分组时为null
+        final Function<JsonNode, JsonNode> groupReader;
+
+        CompiledAggregation(String targetPath, AggregateFunction function,
+                            Function<JsonNode, JsonNode> valueReader, Function<JsonNode, JsonNode> groupReader) {
+            this.targetPath = targetPath;
+            this.function = function;
+            this.valueReader = valueReader;
+            this.groupReader = groupReader;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package cn.april.service.aggregate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * 分组统计表
+ * 分组值按插入顺序保存在紧凑的原始类型数组中，索引是开放寻址（线性探测）的 int 数组，
+ * 每个分组只占用几个数组槽位，没有装箱的计数器和 Map.Entry
+ *
+ * @author April
+ */
+final class GroupTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // 开放寻址索引：槽位中保存分组下标+1，0表示空槽
+    private int[] index = new int[INITIAL_CAPACITY * 2];
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    // 分组的记录数
+    private long[] counts = new long[INITIAL_CAPACITY];
+    // 分组中有数值的记录数
+    private long[] valueCounts = new long[INITIAL_CAPACITY];
+    // 分组的数值统计（sum/avg 为累加值，min/max 为当前极值）
+    private double[] values = new double[INITIAL_CAPACITY];
+    // 分组中出现过非整数（或无法精确表示的）数值，之后该分组只维护 values，按 double 输出
+    private boolean[] inexact = new boolean[INITIAL_CAPACITY];
+    // 数值都是整数时的精确统计（与 values 含义相同），由调用方在分组的数值都是整数时维护
+    private long[] exactValues = new long[INITIAL_CAPACITY];
+    // 精确统计超出 long 范围后改用 BigDecimal，未超出时为null
+    private BigDecimal[] exactOverflows = new BigDecimal[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * 查找分组下标，不存在时创建
+     */
+    int group(String key) {
+        int hash = spread(key.hashCode());
+        int mask = index.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot];
+            if (entry == 0) {
+                return insert(key, hash, slot);
+            }
+            int group = entry - 1;
+            if (hashes[group] == hash && keys[group].equals(key)) {
+                return group;
+            }
+        }
+    }
+
+    private int insert(String key, int hash, int slot) {
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            valueCounts = Arrays.copyOf(valueCounts, capacity);
+            values = Arrays.copyOf(values, capacity);
+            inexact = Arrays.copyOf(inexact, capacity);
+            exactValues = Arrays.copyOf(exactValues, capacity);
+            exactOverflows = Arrays.copyOf(exactOverflows, capacity);
+        }
+        int group = size++;
+        keys[group] = key;
+        hashes[group] = hash;
+        index[slot] = group + 1;
+        // 负载因子保持在0.5以下
+        if (size * 2 > index.length) {
+            rehash();
+        }
+        return group;
+    }
+
+    private void rehash() {
+        int[] newIndex = new int[index.length * 2];
+        int mask = newIndex.length - 1;
+        for (int group = 0; group < size; group++) {
+            int slot = hashes[group] & mask;
+            while (newIndex[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newIndex[slot] = group + 1;
+        }
+        index = newIndex;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    String key(int group) {
+        return keys[group];
+    }
+
+    long count(int group) {
+        return counts[group];
+    }
+
+    long valueCount(int group) {
+        return valueCounts[group];
+    }
+
+    double value(int group) {
+        return values[group];
+    }
+
+    /**
+     * 分组的数值是否都是整数，是则 exactValue / exactOverflow 有效
+     */
+    boolean exact(int group) {
+        return !inexact[group];
+    }
+
+    /**
+     * 标记分组出现了非整数数值，之后不再维护该分组的精确统计
+     */
+    void markInexact(int group) {
+        inexact[group] = true;
+    }
+
+    long exactValue(int group) {
+        return exactValues[group];
+    }
+
+    /**
+     * 超出 long 范围的精确统计，未超出时为null
+     */
+    BigDecimal exactOverflow(int group) {
+        return exactOverflows[group];
+    }
+
+    void addCount(int group, long count) {
+        counts[group] += count;
+    }
+
+    /**
+     * 合并一个数值：sum/avg 累加，min/max 取极值
+     */
+    void addValue(int group, AggregateFunction function, double value, long valueCount) {
+        if (valueCounts[group] == 0) {
+            values[group] = value;
+        } else {
+            values[group] = function.combine(values[group], value);
+        }
+        valueCounts[group] += valueCount;
+    }
+
+    /**
+     * 合并一个整数值的精确统计：sum/avg 用 Math.addExact 累加，溢出后改用 BigDecimal；min/max 取极值
+     * 必须在同一数值的 addValue 之前调用（按 valueCount 判断是否为分组的第一个数值）
+     */
+    void addExact(int group, AggregateFunction function, long value) {
+        if (valueCounts[group] == 0) {
+            exactValues[group] = value;
+            return;
+        }
+        if (exactOverflows[group] != null) {
+            addExact(group, function, BigDecimal.valueOf(value));
+            return;
+        }
+        long current = exactValues[group];
+        switch (function) {
+            case MIN:
+                exactValues[group] = Math.min(current, value);
+                break;
+            case MAX:
+                exactValues[group] = Math.max(current, value);
+                break;
+            default:
+                try {
+                    exactValues[group] = Math.addExact(current, value);
+                } catch (ArithmeticException e) {
+                    exactOverflows[group] = BigDecimal.valueOf(current).add(BigDecimal.valueOf(value));
+                }
+                break;
+        }
+    }
+
+    /**
+     * 合并一个超出 long 范围（或已溢出）的整数值的精确统计，调用顺序同 addExact(int, AggregateFunction, long)
+     */
+    void addExact(int group, AggregateFunction function, BigDecimal value) {
+        if (valueCounts[group] == 0) {
+            exactOverflows[group] = value;
+            return;
+        }
+        BigDecimal current = exactOverflows[group] != null ? exactOverflows[group] : BigDecimal.valueOf(exactValues[group]);
+        switch (function) {
+            case MIN:
+                exactOverflows[group] = current.min(value);
+                break;
+            case MAX:
+                exactOverflows[group] = current.max(value);
+                break;
+            default:
+                exactOverflows[group] = current.add(value);
+                break;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package cn.april.service.analysis;
+
+import cn.april.model.Aggregation;
+import cn.april.model.ConfigAnalysis;
+import cn.april.model.ConfigIssue;
+import cn.april.model.ExecutionTier;
+import cn.april.model.FieldMapping;
+import cn.april.model.MappingAnalysis;
+import cn.april.model.MappingSet;
+import cn.april.model.RecordFilter;
+import cn.april.model.TransformConfig;
+import cn.april.service.ExpressionEvaluator;
+import cn.april.service.LookupExpressionProcessor;
+import cn.april.service.TimeExpressionProcessor;
+import cn.april.service.TypeConverterFactory;
+import cn.april.service.adaptive.NativeExpression;
+import cn.april.service.path.SimplePath;
+import cn.april.service.path.TargetPathWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 转换配置分析器
+ * 按运行时的执行方式把每个映射归入执行层级（ExecutionTier），找出迫使走慢路径或不会生效的配置，
+ * 并用 CostCalibration 测得的单次成本估算每条记录的映射成本（不含解析与输出）
+ * 开启自适应执行时，NativeExpression 能识别的表达式与 AdaptiveMapping 提升后的层级一致，归入 NATIVE
+ * 分析只读取配置，不编译Groovy表达式；表达式与路径的编译错误仍在构造 JsonTransformService 时报告
+ *
+ * @author April
+ */
+public final class ConfigAnalyzer {
+
+    // 顶层 mappings 在 estimatedNanosPerRecord 中的键
+    public static final String DEFAULT_PLAN = "default";
+
+    private static final String TEMPLATE_PREFIX = "template:";
+    private static final String JSON_PATH_PREFIX = "$.";
+
+    private final TransformConfig config;
+    // 为null时只分类和检查，不估算成本
+    private final CostCalibration calibration;
+    // 开启了自适应执行且没有记录执行预算，表达式可以由 NativeExpression 执行
+    private final boolean nativeAllowed;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConfigAnalysis analysis = new ConfigAnalysis();
+
+    private ConfigAnalyzer(TransformConfig config, CostCalibration calibration) {
+        this.config = config;
+        this.calibration = calibration;
+        Long recordBudgetMillis = config.getExpressionSandbox() == null ? null : config.getExpressionSandbox().getRecordBudgetMillis();
+        this.nativeAllowed = Boolean.TRUE.equals(config.getAdaptive()) && (recordBudgetMillis == null || recordBudgetMillis <= 0);
+    }
+
+    /**
+     * 分析配置
+     *
+     * @param config      转换配置
+     * @param calibration 成本校准结果，为null时只分类和检查，不估算成本
+     * @return 分析报告
+     */
+    public static ConfigAnalysis analyze(TransformConfig config, CostCalibration calibration) {
+        return new ConfigAnalyzer(config, calibration).run();
+    }
+
+    private ConfigAnalysis run() {
+        for (ExecutionTier tier : ExecutionTier.values()) {
+            analysis.getTierCounts().put(tier, 0);
+        }
+        double recordOverhead = analyzeRecordPaths();
+        Map<String, MappingSet> discriminatorMappings = config.getDiscriminatorPath() == null
+                ? null : config.getDiscriminatorMappings();
+
+        double defaultCost = analyzeMappings(config.getMappings(), "");
+        if (config.getMappings() != null && !config.getMappings().isEmpty() || discriminatorMappings == null) {
+            putEstimate(DEFAULT_PLAN, recordOverhead + defaultCost);
+        }
+        if (discriminatorMappings != null) {
+            for (Map.Entry<String, MappingSet> entry : discriminatorMappings.entrySet()) {
+                List<FieldMapping> mappings = entry.getValue() == null ? null : entry.getValue().getMappings();
+                putEstimate(entry.getKey(), recordOverhead + analyzeMappings(mappings, "[" + entry.getKey() + "]"));
+            }
+        } else if (config.getDiscriminatorMappings() != null && !config.getDiscriminatorMappings().isEmpty()) {
+            addIssue(ConfigIssue.ERROR, "DISCRIMINATOR_PATH_MISSING", "discriminatorMappings",
+                    "配置了discriminatorMappings但没有discriminatorPath，这些映射规则不会生效");
+        }
+
+        double templateCost = analyzeTemplateMappings();
+        if (calibration != null) {
+            if (config.getTemplateMappings() != null && !config.getTemplateMappings().isEmpty()) {
+                analysis.setEstimatedTemplateNanos(CostCalibration.round(templateCost));
+            }
+            analysis.setCalibration(calibration.toMap());
+        }
+        checkSelectiveParsing();
+        checkStructuralScanning();
+        return analysis;
+    }
+
+    /**
+     * 检查每条记录在映射之外读取的路径：判别字段、过滤条件、去重字段与聚合字段
+     *
+     * @return 这些读取的估算成本
+     */
+    private double analyzeRecordPaths() {
+        double cost = 0;
+        if (config.getDiscriminatorPath() != null) {
+            cost += checkPath("discriminatorPath", config.getDiscriminatorPath());
+        }
+        if (config.getFilters() != null) {
+            for (int i = 0; i < config.getFilters().size(); i++) {
+                cost += checkPath("filters[" + i + "].path", config.getFilters().get(i).getPath());
+            }
+        }
+        if (config.getDedupKeyPath() != null) {
+            cost += checkPath("dedupKeyPath", config.getDedupKeyPath());
+        }
+        if (config.getAggregations() != null && !config.getAggregations().isEmpty()) {
+            if (config.getFinalJsonTemplate() == null || config.getFinalJsonTemplate().trim().isEmpty()) {
+                addIssue(ConfigIssue.ERROR, "AGGREGATION_WITHOUT_TEMPLATE", "aggregations",
+                        "聚合规则只在有模板模式（finalJsonTemplate）下生效，当前配置会忽略这些规则");
+                return cost;
+            }
+            for (int i = 0; i < config.getAggregations().size(); i++) {
+                Aggregation aggregation = config.getAggregations().get(i);
+                if (aggregation.getSourcePath() != null) {
+                    cost += checkPath("aggregations[" + i + "].sourcePath", aggregation.getSourcePath());
+                }
+                if (aggregation.getGroupBy() != null) {
+                    cost += checkPath("aggregations[" + i + "].groupBy", aggregation.getGroupBy());
+                }
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * 分析一组映射
+     *
+     * @param prefix 映射标签前缀（与缓存统计的标签规则相同）
+     * @return 这组映射估算的每条记录成本
+     */
+    private double analyzeMappings(List<FieldMapping> mappings, String prefix) {
+        if (mappings == null) {
+            return 0;
+        }
+        List<String> targetPaths = new ArrayList<>();
+        for (FieldMapping mapping : mappings) {
+            targetPaths.add(mapping.getTargetPath());
+        }
+        TargetPathWriter writer = new TargetPathWriter(objectMapper, targetPaths, null);
+        double cost = 0;
+        for (int i = 0; i < mappings.size(); i++) {
+            cost += analyzeMapping(mappings.get(i), label(prefix, mappings.get(i).getTargetPath()), prefix, writer.isWritable(i));
+        }
+        return cost;
+    }
+
+    private double analyzeMapping(FieldMapping mapping, String label, String prefix, boolean writable) {
+        String sourcePath = blankToNull(mapping.getSourcePath());
+        String expression = blankToNull(mapping.getTransformExpression());
+        ExecutionTier tier = ExecutionTier.FAST_PATH;
+        double cost = 0;
+        if (sourcePath != null) {
+            cost += checkPath(label, sourcePath);
+            if (SimplePath.parse(sourcePath) == null) {
+                tier = ExecutionTier.JSON_PATH;
+            }
+        }
+
+        String arrayMode = blankToNull(mapping.getArrayMode());
+        if (arrayMode != null) {
+            return cost + analyzeArrayMapping(mapping, label, prefix, arrayMode, max(tier, ExecutionTier.NATIVE), cost);
+        }
+
+        if (mapping.getTargetPath() == null) {
+            addIssue(ConfigIssue.ERROR, "MISSING_TARGET_PATH", label, "映射缺少targetPath，不会输出任何值");
+            addMapping(mapping, label, tier, null);
+            return cost;
+        }
+        if (sourcePath == null && expression == null) {
+            addIssue(ConfigIssue.ERROR, "MISSING_SOURCE", label, "映射既没有sourcePath也没有transformExpression，会被跳过");
+            addMapping(mapping, label, tier, null);
+            return cost;
+        }
+        if (!writable) {
+            addIssue(ConfigIssue.WARN, "NON_SIMPLE_TARGET_PATH", label,
+                    "targetPath不是只含字段名的简单路径（或以数组下标结尾），逐条通过json-path写入，且不能按模板骨架直接输出");
+        }
+
+        String targetType = blankToNull(mapping.getTargetType());
+        boolean converterFound = targetType != null && TypeConverterFactory.getConverter(targetType) != null;
+        if (expression != null) {
+            if (isSpecialExpression(expression)) {
+                tier = max(tier, ExecutionTier.SPECIAL);
+                cost += calibration == null ? 0 : calibration.getSpecialExpression();
+            } else if (nativeAllowed && (targetType == null || converterFound) && NativeExpression.compile(expression) != null) {
+                tier = max(tier, ExecutionTier.NATIVE);
+                cost += calibration == null ? 0 : calibration.getNativeExpression();
+                cost += analyzeExpressionPaths(label, sourcePath, expression);
+            } else {
+                tier = ExecutionTier.GROOVY;
+                cost += calibration == null ? 0 : calibration.getGroovyExpression();
+                cost += analyzeExpressionPaths(label, sourcePath, expression);
+            }
+            checkMemoize(mapping, label, sourcePath, expression, tier);
+        } else if (Boolean.TRUE.equals(mapping.getMemoize())) {
+            addIssue(ConfigIssue.INFO, "MEMOIZE_WITHOUT_EXPRESSION", label, "映射没有表达式，memoize不会减少任何计算");
+        }
+
+        if (targetType != null) {
+            if (!converterFound) {
+                addIssue(ConfigIssue.WARN, "UNKNOWN_TARGET_TYPE", label, "没有类型转换器: " + targetType + "，结果保持原值");
+            } else {
+                tier = max(tier, ExecutionTier.NATIVE);
+                cost += calibration == null ? 0 : calibration.getTypeConversion();
+            }
+        }
+        addMapping(mapping, label, tier, cost);
+        return cost;
+    }
+
+    /**
+     * 分析数组映射：源数组的读取加上元素映射（按每个元素一次估算）
+     *
+     * @return 元素映射的估算成本
+     */
+    private double analyzeArrayMapping(FieldMapping mapping, String label, String prefix, String arrayMode,
+                                       ExecutionTier tier, double sourceCost) {
+        if (!"nest".equals(arrayMode) && !"explode".equals(arrayMode)) {
+            addIssue(ConfigIssue.ERROR, "INVALID_ARRAY_MODE", label, "不支持的数组映射模式: " + arrayMode + "（只能是nest或explode）");
+        }
+        if (mapping.getTransformExpression() != null || mapping.getTargetType() != null) {
+            addIssue(ConfigIssue.WARN, "ARRAY_MAPPING_EXPRESSION_IGNORED", label, "数组映射忽略transformExpression和targetType");
+        }
+        if (blankToNull(mapping.getSourcePath()) == null || mapping.getElementMappings() == null) {
+            addIssue(ConfigIssue.ERROR, "INVALID_ARRAY_MAPPING", label, "数组映射缺少sourcePath或elementMappings");
+            addMapping(mapping, label, tier, null);
+            return 0;
+        }
+        String elementPrefix = (mapping.getTargetPath() == null ? prefix + "$" : label) + "[*]";
+        double elementCost = analyzeMappings(mapping.getElementMappings().getMappings(), elementPrefix);
+        addMapping(mapping, label, tier, sourceCost + elementCost);
+        return elementCost;
+    }
+
+    /**
+     * 检查Groovy表达式中引用的JSONPath
+     *
+     * @return 读取这些路径的估算成本
+     */
+    private double analyzeExpressionPaths(String label, String sourcePath, String expression) {
+        List<String> jsonPaths = ExpressionEvaluator.extractJsonPaths(expression);
+        if (jsonPaths.isEmpty()) {
+            return 0;
+        }
+        double cost = 0;
+        for (String jsonPath : jsonPaths) {
+            cost += checkPath(label, jsonPath);
+        }
+        Set<String> distinct = new LinkedHashSet<>(jsonPaths);
+        if (sourcePath == null && distinct.size() == 1) {
+            addIssue(ConfigIssue.INFO, "JSONPATH_IN_EXPRESSION", label,
+                    "表达式只引用了一个源字段 " + distinct.iterator().next()
+                            + "，改为sourcePath并在表达式中使用value可以由前缀树取值，且可以开启memoize");
+        } else {
+            addIssue(ConfigIssue.INFO, "JSONPATH_IN_EXPRESSION", label,
+                    "表达式引用了 " + jsonPaths.size() + " 个JSONPath，每次执行逐个读取并传入Binding，结果不能memoize");
+        }
+        return cost;
+    }
+
+    /**
+     * 检查memoize配置：非纯函数表达式的memoize会被忽略；只依赖value的Groovy表达式可以考虑开启
+     */
+    private void checkMemoize(FieldMapping mapping, String label, String sourcePath, String expression, ExecutionTier tier) {
+        boolean pure = !ExpressionEvaluator.containsJsonPath(expression) && !expression.startsWith(TimeExpressionProcessor.TIME + "current");
+        if (Boolean.TRUE.equals(mapping.getMemoize())) {
+            if (!pure) {
+                addIssue(ConfigIssue.WARN, "MEMOIZE_IGNORED", label, "表达式不是纯函数（引用了其他源字段或当前时间），memoize配置会被忽略");
+            }
+        } else if (pure && tier == ExecutionTier.GROOVY && sourcePath != null) {
+            addIssue(ConfigIssue.INFO, "MEMOIZE_CANDIDATE", label,
+                    "表达式只依赖value，源字段取值重复较多时开启memoize可以跳过Groovy执行");
+        }
+    }
+
+    /**
+     * 分析模板映射：每个文档执行一次，没有源记录
+     *
+     * @return 每个文档的估算成本
+     */
+    private double analyzeTemplateMappings() {
+        List<FieldMapping> templateMappings = config.getTemplateMappings();
+        if (templateMappings == null) {
+            return 0;
+        }
+        if (config.getFinalJsonTemplate() == null || config.getFinalJsonTemplate().trim().isEmpty()) {
+            addIssue(ConfigIssue.WARN, "TEMPLATE_MAPPINGS_IGNORED", "templateMappings", "没有finalJsonTemplate，模板映射不会生效");
+        }
+        double cost = 0;
+        for (FieldMapping mapping : templateMappings) {
+            String label = TEMPLATE_PREFIX + mapping.getTargetPath();
+            String expression = blankToNull(mapping.getTransformExpression());
+            if (mapping.getTargetPath() == null || expression == null) {
+                addIssue(ConfigIssue.ERROR, "MISSING_EXPRESSION", label, "模板映射需要targetPath和transformExpression，否则会被跳过");
+                addMapping(mapping, label, ExecutionTier.FAST_PATH, null);
+                continue;
+            }
+            if (blankToNull(mapping.getSourcePath()) != null) {
+                addIssue(ConfigIssue.WARN, "TEMPLATE_SOURCE_PATH_IGNORED", label, "模板映射没有源记录，sourcePath会被忽略");
+            }
+            if (ExpressionEvaluator.containsJsonPath(expression)) {
+                addIssue(ConfigIssue.WARN, "TEMPLATE_JSONPATH", label, "模板映射没有源记录，表达式中的JSONPath总是null");
+            }
+            ExecutionTier tier = isSpecialExpression(expression) ? ExecutionTier.SPECIAL : ExecutionTier.GROOVY;
+            double mappingCost = 0;
+            if (calibration != null) {
+                mappingCost = tier == ExecutionTier.SPECIAL ? calibration.getSpecialExpression() : calibration.getGroovyExpression();
+                if (blankToNull(mapping.getTargetType()) != null) {
+                    mappingCost += calibration.getTypeConversion();
+                }
+            }
+            addMapping(mapping, label, tier, mappingCost);
+            cost += mappingCost;
+        }
+        return cost;
+    }
+
+    /**
+     * 结构扫描只作用于选择性解析，未开启选择性解析或已开启磁带式解析时不会生效
+     */
+    private void checkStructuralScanning() {
+        if (!Boolean.TRUE.equals(config.getStructuralScanning())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(config.getTapeParsing())) {
+            addIssue(ConfigIssue.WARN, "STRUCTURAL_SCANNING_IGNORED", "structuralScanning", "已开启磁带式解析，结构扫描不会生效");
+        } else if (!Boolean.TRUE.equals(config.getSelectiveParsing())) {
+            addIssue(ConfigIssue.WARN, "STRUCTURAL_SCANNING_IGNORED", "structuralScanning", "结构扫描只用于选择性解析，需要同时开启selectiveParsing");
+        }
+    }
+
+    /**
+     * 开启了选择性解析但引用了非简单路径时，运行时会退回完整解析
+     */
+    private void checkSelectiveParsing() {
+        if (!Boolean.TRUE.equals(config.getSelectiveParsing())) {
+            return;
+        }
+        Set<String> referencedPaths = new LinkedHashSet<>();
+        if (config.getDiscriminatorPath() != null) {
+            referencedPaths.add(config.getDiscriminatorPath());
+        }
+        collectReferencedPaths(config.getMappings(), referencedPaths);
+        if (config.getDiscriminatorMappings() != null) {
+            for (MappingSet mappingSet : config.getDiscriminatorMappings().values()) {
+                collectReferencedPaths(mappingSet == null ? null : mappingSet.getMappings(), referencedPaths);
+            }
+        }
+        if (config.getFilters() != null) {
+            for (RecordFilter filter : config.getFilters()) {
+                referencedPaths.add(filter.getPath());
+            }
+        }
+        if (config.getDedupKeyPath() != null) {
+            referencedPaths.add(config.getDedupKeyPath());
+        }
+        if (config.getAggregations() != null) {
+            for (Aggregation aggregation : config.getAggregations()) {
+                if (aggregation.getSourcePath() != null) {
+                    referencedPaths.add(aggregation.getSourcePath());
+                }
+                if (aggregation.getGroupBy() != null) {
+                    referencedPaths.add(aggregation.getGroupBy());
+                }
+            }
+        }
+        for (String path : referencedPaths) {
+            if (SimplePath.parse(path) == null) {
+                addIssue(ConfigIssue.WARN, "SELECTIVE_PARSING_DISABLED", "selectiveParsing",
+                        "引用了非简单路径 " + path + "，选择性解析退回完整解析");
+                return;
+            }
+        }
+    }
+
+    private static void collectReferencedPaths(List<FieldMapping> mappings, Set<String> referencedPaths) {
+        if (mappings == null) {
+            return;
+        }
+        for (FieldMapping mapping : mappings) {
+            if (blankToNull(mapping.getSourcePath()) != null) {
+                referencedPaths.add(mapping.getSourcePath());
+            }
+            referencedPaths.addAll(ExpressionEvaluator.extractJsonPaths(mapping.getTransformExpression()));
+        }
+    }
+
+    /**
+     * 检查一条读取路径：非简单路径每次读取都会把整条记录重新序列化后交给json-path
+     *
+     * @return 读取一次的估算成本
+     */
+    private double checkPath(String location, String path) {
+        if (path == null || path.trim().isEmpty()) {
+            addIssue(ConfigIssue.ERROR, "INVALID_PATH", location, "路径为空");
+            return 0;
+        }
+        if (SimplePath.parse(path) != null) {
+            return calibration == null ? 0 : calibration.getFastPathRead();
+        }
+        try {
+            JsonPath.compile(path.startsWith(JSON_PATH_PREFIX) ? path.substring(JSON_PATH_PREFIX.length()) : path);
+        } catch (RuntimeException e) {
+            addIssue(ConfigIssue.ERROR, "INVALID_PATH", location, "路径无法编译: " + path + "，" + e.getMessage());
+            return 0;
+        }
+        boolean deepScan = path.contains("..");
+        if (deepScan) {
+            addIssue(ConfigIssue.WARN, "DEEP_SCAN", location,
+                    "深度扫描路径 " + path + " 需要遍历整条记录，每次读取都会把记录重新序列化后交给json-path");
+        } else {
+            addIssue(ConfigIssue.WARN, "NON_SIMPLE_PATH", location,
+                    "路径 " + path + " 不是简单路径（含通配符、过滤器、切片或函数等），不能由前缀树取值，每次读取都会把记录重新序列化后交给json-path");
+        }
+        if (calibration == null) {
+            return 0;
+        }
+        return deepScan ? calibration.getDeepScanRead() : calibration.getJsonPathRead();
+    }
+
+    private static boolean isSpecialExpression(String expression) {
+        return expression.startsWith(TimeExpressionProcessor.TIME) || expression.startsWith(LookupExpressionProcessor.LOOKUP);
+    }
+
+    private void addMapping(FieldMapping mapping, String label, ExecutionTier tier, Double cost) {
+        analysis.getMappings().add(new MappingAnalysis(label, mapping.getSourcePath(), mapping.getTransformExpression(), tier,
+                calibration == null || cost == null ? null : CostCalibration.round(cost)));
+        analysis.getTierCounts().merge(tier, 1, Integer::sum);
+    }
+
+    private void addIssue(String severity, String code, String location, String message) {
+        analysis.getIssues().add(new ConfigIssue(severity, code, location, message));
+    }
+
+    private void putEstimate(String plan, double nanos) {
+        if (calibration != null) {
+            analysis.getEstimatedNanosPerRecord().put(plan, CostCalibration.round(nanos));
+        }
+    }
+
+    /**
+     * 映射标签，规则与 JsonTransformService.getMemoizationStats 相同
+     */
+    private static String label(String prefix, String targetPath) {
+        return prefix.endsWith("[*]") && targetPath != null && targetPath.startsWith("$")
+                ? prefix + targetPath.substring(1) : prefix + targetPath;
+    }
+
+    private static ExecutionTier max(ExecutionTier a, ExecutionTier b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+}
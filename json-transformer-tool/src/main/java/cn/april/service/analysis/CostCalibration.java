@@ -0,0 +1,308 @@
+package cn.april.service.analysis;
+
+import cn.april.service.ExpressionEvaluator;
+import cn.april.service.JsonPathNavigator;
+import cn.april.service.SpecialExpressionManager;
+import cn.april.service.TimeExpressionProcessor;
+import cn.april.service.TypeConverterFactory;
+import cn.april.service.adaptive.NativeExpression;
+import cn.april.service.path.SimplePath;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 成本校准：在当前JVM上用微基准测出每种执行环节的单次成本，供 ConfigAnalyzer 估算每条记录的映射成本
+ * json-path读取时会把整条记录重新序列化，成本与记录大小成正比，因此可以用真实的样本记录校准；
+ * 默认使用约1KB的合成记录，结果在首次使用时测量一次后复用
+ *
+ * @author April
+ */
+public final class CostCalibration {
+
+    // 每项操作至少预热的次数（达到JIT编译阈值）与预热时间上限
+    private static final long WARMUP_OPERATIONS = 20_000;
+    private static final long WARMUP_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    // 测量轮数与每轮每项操作的测量时间
+    private static final int MEASURE_ROUNDS = 5;
+    private static final long MEASURE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    // 每读取一次时钟执行的操作次数
+    private static final int BATCH = 16;
+
+    private static final String CALIBRATION_EXPRESSION = "value == null ? null : value.toString().trim().toUpperCase()";
+    private static final String CALIBRATION_TIME_EXPRESSION = "@time:yyyy-MM-dd HH:mm:ss";
+
+    // 可以直接写在路径中的字段名
+    private static final Pattern PLAIN_FIELD = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private static volatile CostCalibration defaults;
+    // 防止测量结果被JIT消除
+    private static volatile int sink;
+
+    private final int sampleBytes;
+    private final double fastPathRead;
+    private final double jsonPathRead;
+    private final double deepScanRead;
+    private final double typeConversion;
+    private final double specialExpression;
+    private final double groovyExpression;
+    private final double nativeExpression;
+
+    private CostCalibration(int sampleBytes, double fastPathRead, double jsonPathRead, double deepScanRead,
+                            double typeConversion, double specialExpression, double groovyExpression,
+                            double nativeExpression) {
+        this.sampleBytes = sampleBytes;
+        this.fastPathRead = fastPathRead;
+        this.jsonPathRead = jsonPathRead;
+        this.deepScanRead = deepScanRead;
+        this.typeConversion = typeConversion;
+        this.specialExpression = specialExpression;
+        this.groovyExpression = groovyExpression;
+        this.nativeExpression = nativeExpression;
+    }
+
+    /**
+     * 基于合成记录的校准结果，首次调用时测量（约1~2秒）
+     */
+    public static CostCalibration defaults() {
+        CostCalibration calibration = defaults;
+        if (calibration == null) {
+            synchronized (CostCalibration.class) {
+                calibration = defaults;
+                if (calibration == null) {
+                    calibration = measure(syntheticRecord());
+                    defaults = calibration;
+                }
+            }
+        }
+        return calibration;
+    }
+
+    /**
+     * 用样本记录校准，路径读取的成本按样本的大小和结构测量
+     *
+     * @param sample 样本源记录（对象）
+     * @throws IllegalArgumentException 样本不是非空对象
+     */
+    public static CostCalibration measure(JsonNode sample) {
+        if (sample == null || !sample.isObject() || sample.isEmpty()) {
+            throw new IllegalArgumentException("校准样本必须是非空的JSON对象");
+        }
+        String leafPath = firstLeafPath(sample);
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonPathNavigator pathNavigator = new JsonPathNavigator(objectMapper);
+        SpecialExpressionManager specialExpressionManager = new SpecialExpressionManager();
+        specialExpressionManager.registerProcessor(new TimeExpressionProcessor());
+        ExpressionEvaluator evaluator = new ExpressionEvaluator(objectMapper, pathNavigator, specialExpressionManager, null);
+        evaluator.precompile(CALIBRATION_EXPRESSION);
+        NativeExpression nativeExpression = NativeExpression.compile(CALIBRATION_EXPRESSION);
+
+        SimplePath simplePath = SimplePath.parse(leafPath);
+        String deepScanPath = "$.." + leafPath.substring(leafPath.lastIndexOf('.') + 1);
+        pathNavigator.precompilePath(leafPath);
+        pathNavigator.precompilePath(deepScanPath);
+        JsonNode textValue = TextNode.valueOf(" calibration ");
+        Long timestamp = 1_700_000_000_000L;
+
+        double[] nanos = nanosPerOp(List.of(
+                () -> simplePath.read(sample),
+                () -> pathNavigator.readValue(sample, leafPath),
+                () -> pathNavigator.readValue(sample, deepScanPath),
+                () -> TypeConverterFactory.convert("12345", "long"),
+                () -> specialExpressionManager.process(CALIBRATION_TIME_EXPRESSION, timestamp),
+                () -> evaluator.evaluate(CALIBRATION_EXPRESSION, textValue, sample),
+                () -> nativeExpression.evaluate(textValue, sample)));
+        return new CostCalibration(sample.toString().getBytes(StandardCharsets.UTF_8).length,
+                nanos[0], nanos[1], nanos[2], nanos[3], nanos[4], nanos[5], nanos[6]);
+    }
+
+    /**
+     * 逐个预热后分多轮交替测量，每项操作取各轮平均耗时的最小值
+     * 后台JIT编译与GC会让单轮结果偏大，交替测量使每项操作都有机会在编译完成后被测到
+     *
+     * @return 与操作顺序对应的每次纳秒数
+     */
+    private static double[] nanosPerOp(List<Supplier<Object>> operations) {
+        for (Supplier<Object> operation : operations) {
+            run(operation, WARMUP_OPERATIONS, WARMUP_MAX_NANOS);
+        }
+        double[] nanos = new double[operations.size()];
+        Arrays.fill(nanos, Double.MAX_VALUE);
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            for (int i = 0; i < nanos.length; i++) {
+                long start = System.nanoTime();
+                long count = run(operations.get(i), 0, MEASURE_NANOS);
+                nanos[i] = Math.min(nanos[i], (double) (System.nanoTime() - start) / count);
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * 按批执行操作：minOperations 大于0时执行到该次数（最长 durationNanos），否则执行 durationNanos
+     *
+     * @return 执行次数
+     */
+    private static long run(Supplier<Object> operation, long minOperations, long durationNanos) {
+        long deadline = System.nanoTime() + durationNanos;
+        long operations = 0;
+        int hash = 0;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                Object result = operation.get();
+                hash += result == null ? 0 : result.hashCode();
+            }
+            operations += BATCH;
+        } while (minOperations > 0 ? operations < minOperations && System.nanoTime() - deadline < 0
+                : System.nanoTime() - deadline < 0);
+        sink = hash;
+        return operations;
+    }
+
+    /**
+     * 样本中第一个标量字段的路径（优先选择嵌套字段，与常见的映射路径深度接近）
+     */
+    private static String firstLeafPath(JsonNode sample) {
+        StringBuilder path = new StringBuilder("$");
+        JsonNode current = sample;
+        for (int depth = 0; depth < 3 && current.isObject(); depth++) {
+            Map.Entry<String, JsonNode> chosen = null;
+            for (Iterator<Map.Entry<String, JsonNode>> fields = current.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!PLAIN_FIELD.matcher(field.getKey()).matches()) {
+                    continue;
+                }
+                if (field.getValue().isObject() && !field.getValue().isEmpty()) {
+                    chosen = field;
+                    break;
+                }
+                if (chosen == null && field.getValue().isValueNode()) {
+                    chosen = field;
+                }
+            }
+            if (chosen == null) {
+                break;
+            }
+            path.append('.').append(chosen.getKey());
+            current = chosen.getValue();
+        }
+        if (path.length() == 1) {
+            throw new IllegalArgumentException("校准样本中没有可用于路径读取的字段");
+        }
+        return path.toString();
+    }
+
+    /**
+     * 约1KB的合成记录：嵌套对象、对象数组与一段较长的文本
+     */
+    private static ObjectNode syntheticRecord() {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        ObjectNode record = factory.objectNode();
+        record.put("id", 1234567890L);
+        record.put("type", "post");
+        record.put("created_at", 1_700_000_000L);
+        ObjectNode user = record.putObject("user");
+        user.put("id", 42);
+        user.put("name", "calibration");
+        ObjectNode profile = user.putObject("profile");
+        profile.put("city", "Hangzhou");
+        profile.put("level", 7);
+        profile.put("verified", true);
+        ArrayNode items = record.putArray("items");
+        for (int i = 0; i < 5; i++) {
+            items.addObject().put("id", i).put("name", "item-" + i).put("price", 9.9 * i);
+        }
+        record.putArray("tags").add("a").add("b").add("c");
+        record.put("content", "x".repeat(600));
+        return record;
+    }
+
+    /**
+     * 校准记录序列化后的字节数（UTF-8）
+     */
+    public int getSampleBytes() {
+        return sampleBytes;
+    }
+
+    /**
+     * 简单路径读取（前缀树取值与表达式中简单JSONPath的读取）
+     */
+    public double getFastPathRead() {
+        return fastPathRead;
+    }
+
+    /**
+     * 非简单路径通过json-path读取
+     */
+    public double getJsonPathRead() {
+        return jsonPathRead;
+    }
+
+    /**
+     * 深度扫描（..）路径通过json-path读取
+     */
+    public double getDeepScanRead() {
+        return deepScanRead;
+    }
+
+    /**
+     * targetType类型转换
+     */
+    public double getTypeConversion() {
+        return typeConversion;
+    }
+
+    /**
+     * 特殊表达式
+     */
+    public double getSpecialExpression() {
+        return specialExpression;
+    }
+
+    /**
+     * 简单的Groovy表达式（不含JSONPath引用的读取）
+     */
+    public double getGroovyExpression() {
+        return groovyExpression;
+    }
+
+    /**
+     * 与 groovyExpression 相同的表达式由 NativeExpression 执行（开启自适应执行后的快速实现）
+     */
+    public double getNativeExpression() {
+        return nativeExpression;
+    }
+
+    /**
+     * 以操作名为键的成本表（纳秒/次），sampleBytes 为校准记录的大小
+     */
+    public Map<String, Double> toMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        map.put("sampleBytes", (double) sampleBytes);
+        map.put("fastPathRead", round(fastPathRead));
+        map.put("jsonPathRead", round(jsonPathRead));
+        map.put("deepScanRead", round(deepScanRead));
+        map.put("typeConversion", round(typeConversion));
+        map.put("specialExpression", round(specialExpression));
+        map.put("groovyExpression", round(groovyExpression));
+        map.put("nativeExpression", round(nativeExpression));
+        return map;
+    }
+
+    static double round(double nanos) {
+        return Math.round(nanos * 10) / 10.0;
+    }
+}
@@ -0,0 +1,403 @@
+package cn.april.service.bind;
+
+import cn.april.service.TypeConverter;
+import cn.april.service.TypeConverterFactory;
+import cn.april.service.path.SimplePath;
+import cn.april.service.path.TargetPathWriter;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对象绑定器：把一组映射的结果直接构造为Java对象（record或JavaBean），不生成输出JsonNode
+ * 编译时按targetPath找到对应的属性，构造器、setter与字段写入解析为 MethodHandle；
+ * 属性值按属性的Java类型选择 TypeConverter 转换，内置转换器不支持的类型（集合、嵌套对象、BigDecimal等）交给 ObjectMapper
+ * 多级targetPath（如 $.author.name）绑定到嵌套的record或JavaBean属性
+ *
+ * @author April
+ */
+public final class ObjectBinder<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(ObjectBinder.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+    private final boolean record;
+    // record为规范构造器（参数展开为Object[]），JavaBean为无参构造器
+    private final MethodHandle constructor;
+    // record构造器参数的初始值（基本类型为0/false，其余为null）
+    private final Object[] defaultArguments;
+    private final BoundProperty[] properties;
+    // 绑定到本对象及其嵌套对象的所有槽位
+    private final int[] descendantSlots;
+
+    /**
+     * 编译绑定器
+     *
+     * @param type         目标类型（record或带无参构造器的JavaBean）
+     * @param objectMapper 内置转换器不支持的类型使用它转换
+     * @param targetPaths  与映射下标对应的targetPath，可以为null
+     * @param template     targetJson模板，模板中有值而映射未写入的属性使用模板值，可以为null
+     */
+    public static <T> ObjectBinder<T> compile(Class<T> type, ObjectMapper objectMapper,
+                                              List<String> targetPaths, JsonNode template) {
+        List<Target> targets = new ArrayList<>();
+        for (int i = 0; i < targetPaths.size(); i++) {
+            String targetPath = targetPaths.get(i);
+            if (targetPath == null) {
+                continue;
+            }
+            SimplePath path = SimplePath.parse(targetPath);
+            if (path == null || path.getSegments().isEmpty() || path.getSegments().stream().anyMatch(s -> !(s instanceof String))) {
+                log.warn("targetPath无法绑定到对象属性，忽略: {} -> {}", targetPath, type.getName());
+                continue;
+            }
+            List<String> segments = new ArrayList<>();
+            path.getSegments().forEach(segment -> segments.add((String) segment));
+            targets.add(new Target(i, segments));
+        }
+        return new ObjectBinder<>(type, objectMapper, targets, template);
+    }
+
+    private ObjectBinder(Class<T> type, ObjectMapper objectMapper, List<Target> targets, JsonNode template) {
+        this.type = type;
+        this.objectMapper = objectMapper;
+        this.record = type.isRecord();
+
+        Map<String, PropertyAccess> accessors = new LinkedHashMap<>();
+        if (record) {
+            RecordComponent[] components = type.getRecordComponents();
+            Class<?>[] parameterTypes = new Class<?>[components.length];
+            this.defaultArguments = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                parameterTypes[i] = components[i].getType();
+                if (parameterTypes[i].isPrimitive()) {
+                    defaultArguments[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+                }
+                accessors.put(components[i].getName(), new PropertyAccess(components[i].getType(),
+                        components[i].getGenericType(), null, i));
+            }
+            this.constructor = unreflectConstructor(type, parameterTypes)
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } else {
+            this.defaultArguments = null;
+            this.constructor = unreflectConstructor(type).asType(MethodType.methodType(Object.class));
+            collectBeanProperties(type, accessors);
+        }
+
+        // 按属性名分组：路径在此结束的为本属性的槽位，更深的路径交给嵌套绑定器
+        Map<String, List<Target>> grouped = new LinkedHashMap<>();
+        for (Target target : targets) {
+            grouped.computeIfAbsent(target.segments.get(0), key -> new ArrayList<>()).add(target);
+        }
+        if (template != null && template.isObject()) {
+            Iterator<String> names = template.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (accessors.containsKey(name)) {
+                    grouped.putIfAbsent(name, new ArrayList<>());
+                }
+            }
+        }
+
+        List<BoundProperty> bound = new ArrayList<>();
+        List<Integer> allSlots = new ArrayList<>();
+        for (Map.Entry<String, List<Target>> entry : grouped.entrySet()) {
+            String name = entry.getKey();
+            PropertyAccess access = accessors.get(name);
+            if (access == null) {
+                log.warn("目标类型没有属性 {}，忽略该映射: {}", name, type.getName());
+                continue;
+            }
+            List<Integer> slots = new ArrayList<>();
+            List<Target> children = new ArrayList<>();
+            for (Target target : entry.getValue()) {
+                allSlots.add(target.slot);
+                if (target.segments.size() == 1) {
+                    slots.add(target.slot);
+                } else {
+                    children.add(new Target(target.slot, target.segments.subList(1, target.segments.size())));
+                }
+            }
+            JsonNode defaultValue = template == null ? null : template.get(name);
+            ObjectBinder<?> child = null;
+            if (!children.isEmpty()) {
+                if (isBindable(access.rawType)) {
+                    child = new ObjectBinder<>(access.rawType, objectMapper, children, defaultValue);
+                } else {
+                    log.warn("属性 {}.{} 不是record或JavaBean，忽略其子路径映射", type.getName(), name);
+                }
+            }
+            bound.add(new BoundProperty(name, access, objectMapper.constructType(access.genericType),
+                    slots.stream().mapToInt(Integer::intValue).toArray(), child, defaultValue));
+        }
+        this.properties = bound.toArray(new BoundProperty[0]);
+        this.descendantSlots = allSlots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 用映射结果构造对象
+     *
+     * @param values 与映射下标对应的结果，TargetPathWriter.UNSET 表示该映射没有结果
+     */
+    @SuppressWarnings("unchecked")
+    public T bind(Object[] values) {
+        try {
+            if (record) {
+                Object[] arguments = defaultArguments.clone();
+                for (BoundProperty property : properties) {
+                    Object value = resolve(property, values);
+                    // 基本类型组件没有值时保留默认值，避免拆箱null
+                    if (value != TargetPathWriter.UNSET && (value != null || !property.access.rawType.isPrimitive())) {
+                        arguments[property.access.index] = value;
+                    }
+                }
+                return (T) constructor.invokeExact(arguments);
+            }
+            Object bean = constructor.invokeExact();
+            for (BoundProperty property : properties) {
+                Object value = resolve(property, values);
+                if (value == TargetPathWriter.UNSET || (value == null && property.access.rawType.isPrimitive())) {
+                    continue;
+                }
+                property.access.setter.invokeExact(bean, value);
+            }
+            return (T) bean;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("创建对象失败: " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 计算属性值
+     *
+     * @return 属性值，映射与模板都没有值时返回 TargetPathWriter.UNSET
+     */
+    private Object resolve(BoundProperty property, Object[] values) {
+        if (property.child != null && (property.child.hasValue(values)
+                || (property.defaultValue != null && property.defaultValue.isObject()))) {
+            return property.child.bind(values);
+        }
+        Object value = TargetPathWriter.UNSET;
+        // 同一属性有多个映射时，以最后一个有结果的为准
+        for (int i = property.slots.length - 1; i >= 0; i--) {
+            if (values[property.slots[i]] != TargetPathWriter.UNSET) {
+                value = values[property.slots[i]];
+                break;
+            }
+        }
+        if (value == TargetPathWriter.UNSET) {
+            if (property.defaultValue == null) {
+                return TargetPathWriter.UNSET;
+            }
+            value = property.defaultValue;
+        }
+        try {
+            return convert(property, value);
+        } catch (Exception e) {
+            log.warn("属性值转换失败，跳过: {}.{}, 错误: {}", type.getSimpleName(), property.name, e.getMessage());
+            return TargetPathWriter.UNSET;
+        }
+    }
+
+    private Object convert(BoundProperty property, Object value) throws Exception {
+        if (value == null || (value instanceof JsonNode && ((JsonNode) value).isNull()
+                && !JsonNode.class.isAssignableFrom(property.access.rawType))) {
+            return null;
+        }
+        if (property.access.boxedType.isInstance(value)) {
+            return value;
+        }
+        if (property.converter != null) {
+            return property.converter.convert(scalarValue(value));
+        }
+        return objectMapper.convertValue(value, property.javaType);
+    }
+
+    private boolean hasValue(Object[] values) {
+        for (int slot : descendantSlots) {
+            if (values[slot] != TargetPathWriter.UNSET) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 提取JsonNode中的标量值，交给内置转换器
+     */
+    private static Object scalarValue(Object value) {
+        if (!(value instanceof JsonNode)) {
+            return value;
+        }
+        JsonNode node = (JsonNode) value;
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        return node.asText();
+    }
+
+    /**
+     * 收集JavaBean的可写属性：公开的setter优先，没有setter的非final字段直接写入
+     */
+    private static void collectBeanProperties(Class<?> type, Map<String, PropertyAccess> accessors) {
+        MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+                    || name.length() <= 3 || !name.startsWith("set")) {
+                continue;
+            }
+            try {
+                MethodHandle setter = unreflect(method);
+                accessors.putIfAbsent(decapitalize(name.substring(3)), new PropertyAccess(method.getParameterTypes()[0],
+                        method.getGenericParameterTypes()[0], setter.asType(setterType), -1));
+            } catch (IllegalAccessException e) {
+                log.warn("无法访问setter，忽略: {}.{}", type.getName(), name);
+            }
+        }
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || accessors.containsKey(field.getName())) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    MethodHandle setter = LOOKUP.unreflectSetter(field);
+                    accessors.put(field.getName(), new PropertyAccess(field.getType(), field.getGenericType(),
+                            setter.asType(setterType), -1));
+                } catch (RuntimeException | IllegalAccessException e) {
+                    log.warn("无法访问字段，忽略: {}.{}", current.getName(), field.getName());
+                }
+            }
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        try {
+            method.setAccessible(true);
+        } catch (RuntimeException e) {
+            // 模块未开放时只能访问公开成员
+        }
+        return LOOKUP.unreflect(method);
+    }
+
+    private static MethodHandle unreflectConstructor(Class<?> type, Class<?>... parameterTypes) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("无法绑定的目标类型（需要record或带无参构造器的JavaBean）: " + type.getName());
+        } catch (RuntimeException | IllegalAccessException e) {
+            throw new IllegalArgumentException("无法访问目标类型的构造器: " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 嵌套路径只能绑定到record或带无参构造器的自定义类型
+     */
+    private static boolean isBindable(Class<?> type) {
+        if (type.isRecord()) {
+            return true;
+        }
+        if (type.isPrimitive() || type.isArray() || type.isInterface() || type.isEnum()
+                || Modifier.isAbstract(type.getModifiers()) || type.getName().startsWith("java.")) {
+            return false;
+        }
+        return Arrays.stream(type.getDeclaredConstructors()).anyMatch(c -> c.getParameterCount() == 0);
+    }
+
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * 一条待绑定的映射：槽位下标与剩余的路径段
+     */
+    private static final class Target {
+
+        private final int slot;
+        private final List<String> segments;
+
+        private Target(int slot, List<String> segments) {
+            this.slot = slot;
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * 属性的写入方式：JavaBean为setter或字段写入（bean, value），record为构造器参数下标
+     */
+    private static final class PropertyAccess {
+
+        private final Class<?> rawType;
+        private final Class<?> boxedType;
+        private final Type genericType;
+        private final MethodHandle setter;
+        private final int index;
+
+        private PropertyAccess(Class<?> rawType, Type genericType, MethodHandle setter, int index) {
+            this.rawType = rawType;
+            this.boxedType = MethodType.methodType(rawType).wrap().returnType();
+            this.genericType = genericType;
+            this.setter = setter;
+            this.index = index;
+        }
+    }
+
+    private static final class BoundProperty {
+
+        private final String name;
+        private final PropertyAccess access;
+        private final JavaType javaType;
+        // 按属性Java类型解析的内置转换器，不支持的类型为null
+        private final TypeConverter converter;
+        private final int[] slots;
+        private final ObjectBinder<?> child;
+        // targetJson模板中的值，映射没有结果时使用
+        private final JsonNode defaultValue;
+
+        private BoundProperty(String name, PropertyAccess access, JavaType javaType, int[] slots,
+                              ObjectBinder<?> child, JsonNode defaultValue) {
+            this.name = name;
+            this.access = access;
+            this.javaType = javaType;
+            this.converter = TypeConverterFactory.getConverter(access.rawType);
+            this.slots = slots;
+            this.child = child;
+            this.defaultValue = defaultValue;
+        }
+    }
+}
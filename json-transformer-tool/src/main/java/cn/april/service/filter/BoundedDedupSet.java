@@ -0,0 +1,146 @@
+package cn.april.service.filter;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界去重集合：只记住最近 capacity 个键，超过后按插入顺序淘汰最早的键
+ * 键只保存64位指纹（不保存字符串本身），索引为线性探测的 long 数组，淘汰顺序由环形缓冲区记录，
+ * 每个键约占 24~40 字节；不同键指纹相同的概率约为 capacity / 2^64，可以忽略
+ * 使用 ReentrantLock 而不是 synchronized，在虚拟线程中调用时不会固定载体线程
+ *
+ * @author April
+ */
+public class BoundedDedupSet {
+
+    // 空槽标记，指纹为0的键改用1
+    private static final long EMPTY = 0L;
+
+    private final int capacity;
+    private final long[] table;
+    private final int mask;
+    // 按插入顺序记录指纹，写满后覆盖最早的位置
+    private final long[] insertionOrder;
+    private int next;
+    private int size;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param capacity 记住的最大键数量
+     */
+    public BoundedDedupSet(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("去重容量必须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.insertionOrder = new long[capacity];
+        // 索引大小取不小于 2*capacity 的2的幂，负载因子不超过0.5
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new long[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    /**
+     * 记录一个键
+     *
+     * @return 键是首次出现（或已被淘汰）时返回true，最近出现过时返回false
+     */
+    public boolean add(String key) {
+        long fingerprint = fingerprint(key);
+        lock.lock();
+        try {
+            int slot = slot(fingerprint);
+            while (table[slot] != EMPTY) {
+                if (table[slot] == fingerprint) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == capacity) {
+                // 淘汰最早的键后重新定位插入槽位（删除可能移动了后续元素）
+                remove(insertionOrder[next]);
+                slot = slot(fingerprint);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+            } else {
+                size++;
+            }
+            table[slot] = fingerprint;
+            insertionOrder[next] = fingerprint;
+            next = (next + 1) % capacity;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前记住的键数量
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空所有键
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            Arrays.fill(table, EMPTY);
+            next = 0;
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除指纹，并把同一探测链上的后续元素向前移动（不使用墓碑标记）
+     */
+    private void remove(long fingerprint) {
+        int slot = slot(fingerprint);
+        while (table[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        table[hole] = EMPTY;
+        for (int current = (hole + 1) & mask; table[current] != EMPTY; current = (current + 1) & mask) {
+            int home = slot(table[current]);
+            // 元素的初始槽位不在 (hole, current] 区间内时，可以移动到空位
+            boolean between = hole <= current ? (home > hole && home <= current) : (home > hole || home <= current);
+            if (!between) {
+                table[hole] = table[current];
+                table[current] = EMPTY;
+                hole = current;
+            }
+        }
+    }
+
+    private int slot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    /**
+     * 64位指纹：FNV-1a 后再做一次 murmur3 finalizer 混合
+     */
+    private static long fingerprint(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+}
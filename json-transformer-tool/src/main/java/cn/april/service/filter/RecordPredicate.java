@@ -0,0 +1,250 @@
+package cn.april.service.filter;
+
+import cn.april.model.RecordFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 编译后的记录过滤条件，所有条件都满足时记录才参与转换
+ * 比较值在编译时转换好，判断时只做一次字段读取和比较，不经过Groovy
+ * 自适应排序时抽样记录每个条件的耗时与拒绝率，按 耗时/拒绝率 从小到大重新排列条件，
+ * 最可能拒绝且成本低的条件先判断（条件没有副作用，顺序不影响结果）
+ *
+ * @author April
+ */
+public class RecordPredicate {
+
+    // 自适应排序时每多少条记录抽样一次（2的幂）
+    private static final int SAMPLE_MASK = 63;
+    // 每抽样多少条记录重新排序一次
+    private static final int REORDER_INTERVAL = 256;
+
+    private final boolean adaptive;
+    private final AtomicLong sampledRecords = new AtomicLong();
+    // 当前的判断顺序，重新排序时整体替换
+    private volatile Condition[] conditions;
+
+    /**
+     * @param filters    过滤条件
+     * @param pathReader 路径 -> 读取函数（在源记录上读取该路径，不存在时返回null）
+     */
+    public RecordPredicate(List<RecordFilter> filters, Function<String, Function<JsonNode, JsonNode>> pathReader) {
+        this(filters, pathReader, false);
+    }
+
+    /**
+     * @param filters    过滤条件
+     * @param pathReader 路径 -> 读取函数（在源记录上读取该路径，不存在时返回null）
+     * @param adaptive   是否按运行时统计重新排列条件
+     */
+    public RecordPredicate(List<RecordFilter> filters, Function<String, Function<JsonNode, JsonNode>> pathReader,
+                           boolean adaptive) {
+        Condition[] compiled = new Condition[filters.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            RecordFilter filter = filters.get(i);
+            if (filter.getPath() == null || filter.getPath().trim().isEmpty()) {
+                throw new IllegalArgumentException("过滤条件缺少path");
+            }
+            compiled[i] = new Condition(Operator.of(filter.getOperator()), pathReader.apply(filter.getPath()), filter.getValue());
+        }
+        this.conditions = compiled;
+        this.adaptive = adaptive && compiled.length > 1;
+    }
+
+    /**
+     * 判断记录是否满足所有条件
+     */
+    public boolean test(JsonNode record) {
+        Condition[] current = conditions;
+        if (adaptive && (ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) == 0) {
+            return testSampled(current, record);
+        }
+        for (Condition condition : current) {
+            if (!condition.test(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 抽样的记录判断所有条件并记录每个条件的耗时与结果
+     */
+    private boolean testSampled(Condition[] current, JsonNode record) {
+        boolean accepted = true;
+        for (Condition condition : current) {
+            long start = System.nanoTime();
+            boolean passed = condition.test(record);
+            condition.record(System.nanoTime() - start, passed);
+            accepted &= passed;
+        }
+        if (sampledRecords.incrementAndGet() % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+        return accepted;
+    }
+
+    /**
+     * 按 平均耗时/拒绝率 从小到大排序，排序前先取快照，避免统计在排序过程中变化
+     */
+    private synchronized void reorder() {
+        Condition[] current = conditions;
+        double[] ranks = new double[current.length];
+        Integer[] order = new Integer[current.length];
+        for (int i = 0; i < current.length; i++) {
+            ranks[i] = current[i].rank();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> ranks[i]));
+        Condition[] sorted = new Condition[current.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = current[order[i]];
+        }
+        conditions = sorted;
+    }
+
+    private enum Operator {
+        EQ, NE, IN, NOTIN, EXISTS, NOTEXISTS, GT, GTE, LT, LTE;
+
+        static Operator of(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("过滤条件缺少operator");
+            }
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的过滤比较方式: " + name);
+            }
+        }
+    }
+
+    private static final class Condition {
+
+        // 拒绝率的下限，从不拒绝的条件排在最后
+        private static final double MIN_REJECTION_RATE = 1e-3;
+
+        private final Operator operator;
+        private final Function<JsonNode, JsonNode> reader;
+        // eq/ne 的比较文本
+        private final String text;
+        // in/notIn 的比较文本集合
+        private final Set<String> texts;
+        // gt/gte/lt/lte 的比较数值
+        private final BigDecimal number;
+        // 抽样统计
+        private final LongAdder sampledNanos = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+
+        Condition(Operator operator, Function<JsonNode, JsonNode> reader, Object value) {
+            this.operator = operator;
+            this.reader = reader;
+            this.text = value == null ? null : String.valueOf(value);
+            this.texts = new HashSet<>();
+            BigDecimal parsedNumber = null;
+            switch (operator) {
+                case IN:
+                case NOTIN:
+                    if (!(value instanceof Collection)) {
+                        throw new IllegalArgumentException("in/notIn 的value必须是数组");
+                    }
+                    for (Object item : (Collection<?>) value) {
+                        texts.add(String.valueOf(item));
+                    }
+                    break;
+                case GT:
+                case GTE:
+                case LT:
+                case LTE:
+                    try {
+                        parsedNumber = new BigDecimal(String.valueOf(value));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("数值比较的value不是数字: " + value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            this.number = parsedNumber;
+        }
+
+        void record(long nanos, boolean passed) {
+            sampledNanos.add(nanos);
+            samples.increment();
+            if (!passed) {
+                rejections.increment();
+            }
+        }
+
+        /**
+         * 排序依据：拒绝一条记录的期望成本
+         */
+        double rank() {
+            long count = samples.sum();
+            if (count == 0) {
+                return Double.MAX_VALUE;
+            }
+            double rejectionRate = Math.max((double) rejections.sum() / count, MIN_REJECTION_RATE);
+            return (double) sampledNanos.sum() / count / rejectionRate;
+        }
+
+        boolean test(JsonNode record) {
+            JsonNode node = reader.apply(record);
+            boolean present = node != null && !node.isNull() && !node.isMissingNode();
+            switch (operator) {
+                case EXISTS:
+                    return present;
+                case NOTEXISTS:
+                    return !present;
+                case EQ:
+                    return present ? text != null && !node.isContainerNode() && text.equals(node.asText()) : text == null;
+                case NE:
+                    return present ? text == null || node.isContainerNode() || !text.equals(node.asText()) : text != null;
+                case IN:
+                    return present && !node.isContainerNode() && texts.contains(node.asText());
+                case NOTIN:
+                    return !present || node.isContainerNode() || !texts.contains(node.asText());
+                default:
+                    return present && compareNumber(node);
+            }
+        }
+
+        private boolean compareNumber(JsonNode node) {
+            BigDecimal actual;
+            if (node.isNumber()) {
+                actual = node.decimalValue();
+            } else if (node.isTextual()) {
+                try {
+                    actual = new BigDecimal(node.asText().trim());
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            int comparison = actual.compareTo(number);
+            switch (operator) {
+                case GT:
+                    return comparison > 0;
+                case GTE:
+                    return comparison >= 0;
+                case LT:
+                    return comparison < 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+    }
+}
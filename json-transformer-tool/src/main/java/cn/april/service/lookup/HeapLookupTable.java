@@ -0,0 +1,28 @@
+package cn.april.service.lookup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 堆内查找表，用于条目较少的小表
+ *
+ * @author April
+ */
+public class HeapLookupTable implements LookupTable {
+
+    private final Map<String, String> entries = new HashMap<>();
+
+    void put(String key, String value) {
+        entries.put(key, value);
+    }
+
+    @Override
+    public String get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,22 @@
+package cn.april.service.lookup;
+
+/**
+ * 只读查找表
+ *
+ * @author April
+ */
+public interface LookupTable {
+
+    /**
+     * 按键查找值
+     *
+     * @param key 查找键
+     * @return 对应的值，不存在时返回null
+     */
+    String get(String key);
+
+    /**
+     * 获取条目数量
+     */
+    int size();
+}
@@ -0,0 +1,198 @@
+package cn.april.service.lookup;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 查找表加载器
+ * 支持两种本地文件格式：
+ * - CSV：每行 key,value（# 开头的行为注释）；键与值可以用双引号括起，引号中可以包含逗号和换行，"" 表示一个双引号；
+ *   未加引号的键到第一个逗号为止，未加引号的值到行尾为止
+ * - JSON：顶层对象 {"key": "value", ...}，非字符串的值保存其JSON文本
+ * 文件大小超过阈值时构建堆外表，否则构建堆内表
+ *
+ * @author April
+ */
+public class LookupTableLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(LookupTableLoader.class);
+
+    // 超过该文件大小（8MB）的查找表存放在堆外
+    public static final long OFF_HEAP_THRESHOLD_BYTES = 8L * 1024 * 1024;
+
+    private static final String[] NO_ENTRY = new String[0];
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 从文件加载查找表
+     *
+     * @param location 文件路径
+     * @return 加载完成的查找表
+     */
+    public LookupTable load(String location) throws IOException {
+        Path path = Paths.get(location);
+        long fileSize = Files.size(path);
+        long startTime = System.currentTimeMillis();
+
+        LookupTable table;
+        if (fileSize > OFF_HEAP_THRESHOLD_BYTES) {
+            OffHeapLookupTable.Builder builder = new OffHeapLookupTable.Builder();
+            readEntries(path, builder::put);
+            table = builder.build();
+        } else {
+            HeapLookupTable heapTable = new HeapLookupTable();
+            readEntries(path, heapTable::put);
+            table = heapTable;
+        }
+
+        log.info("查找表加载完成: {}, 条目: {}, 存储: {}, 耗时: {}ms", location, table.size(),
+                table instanceof OffHeapLookupTable ? "off-heap" : "heap", System.currentTimeMillis() - startTime);
+        return table;
+    }
+
+    private void readEntries(Path path, EntryConsumer consumer) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(".json")) {
+            readJsonEntries(path, consumer);
+        } else {
+            readCsvEntries(path, consumer);
+        }
+    }
+
+    /**
+     * 逐行读取CSV条目，引号没有闭合时读入后续行
+     */
+    private void readCsvEntries(Path path, EntryConsumer consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int recordLine = lineNumber;
+                String record = line;
+                String[] entry;
+                while ((entry = parseCsvEntry(record, path, recordLine)) == null) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        throw new IOException("CSV查找表第 " + recordLine + " 行的引号没有闭合: " + path);
+                    }
+                    lineNumber++;
+                    record = record + "\n" + next;
+                }
+                if (entry.length == 2) {
+                    consumer.accept(entry[0], entry[1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 解析一条CSV记录
+     *
+     * @return {键, 值}；没有逗号的行返回空数组；引号字段没有闭合（记录延续到下一行）时返回null
+     */
+    private static String[] parseCsvEntry(String record, Path path, int lineNumber) throws IOException {
+        StringBuilder key = new StringBuilder();
+        int keyEnd = readCsvField(record, skipBlanks(record, 0), key, path, lineNumber);
+        if (keyEnd < 0) {
+            return null;
+        }
+        if (keyEnd == record.length()) {
+            return NO_ENTRY;
+        }
+        int valueStart = skipBlanks(record, keyEnd + 1);
+        if (valueStart == record.length() || record.charAt(valueStart) != '"') {
+            // 未加引号的值取到行尾，可以包含逗号
+            return new String[]{key.toString(), record.substring(valueStart).trim()};
+        }
+        StringBuilder value = new StringBuilder();
+        int valueEnd = readCsvField(record, valueStart, value, path, lineNumber);
+        if (valueEnd < 0) {
+            return null;
+        }
+        if (valueEnd != record.length()) {
+            throw new IOException("CSV查找表第 " + lineNumber + " 行在带引号的值之后还有内容: " + path);
+        }
+        return new String[]{key.toString(), value.toString()};
+    }
+
+    /**
+     * 读取一个字段（带引号时去掉引号并还原 ""）
+     *
+     * @return 字段之后的逗号位置，或记录末尾；引号没有闭合时返回-1
+     */
+    private static int readCsvField(String record, int start, StringBuilder field, Path path, int lineNumber) throws IOException {
+        int length = record.length();
+        if (start == length || record.charAt(start) != '"') {
+            int comma = record.indexOf(',', start);
+            int end = comma < 0 ? length : comma;
+            field.append(record.substring(start, end).trim());
+            return end;
+        }
+        int position = start + 1;
+        while (true) {
+            int quote = record.indexOf('"', position);
+            if (quote < 0) {
+                return -1;
+            }
+            field.append(record, position, quote);
+            if (quote + 1 < length && record.charAt(quote + 1) == '"') {
+                field.append('"');
+                position = quote + 2;
+                continue;
+            }
+            int end = skipBlanks(record, quote + 1);
+            if (end < length && record.charAt(end) != ',') {
+                throw new IOException("CSV查找表第 " + lineNumber + " 行的引号字段之后不是逗号: " + path);
+            }
+            return end;
+        }
+    }
+
+    private static int skipBlanks(String record, int position) {
+        while (position < record.length() && record.charAt(position) <= ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * 流式读取JSON对象条目，避免为大表构建完整的JsonNode
+     */
+    private void readJsonEntries(Path path, EntryConsumer consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(path.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("JSON查找表必须是顶层对象: " + path);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if (valueToken == JsonToken.START_OBJECT || valueToken == JsonToken.START_ARRAY) {
+                    consumer.accept(key, parser.readValueAsTree().toString());
+                } else if (valueToken == JsonToken.VALUE_NULL) {
+                    consumer.accept(key, null);
+                } else {
+                    consumer.accept(key, parser.getText());
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(String key, String value);
+    }
+}
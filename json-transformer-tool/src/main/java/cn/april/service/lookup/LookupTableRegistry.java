@@ -0,0 +1,113 @@
+package cn.april.service.lookup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 查找表注册中心
+ * 表在首次使用时才加载；重新加载时先完整构建新表，再原子替换旧表，查询方不会看到加载中的状态
+ *
+ * @author April
+ */
+public class LookupTableRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(LookupTableRegistry.class);
+
+    private final Map<String, TableHolder> holders;
+    private final LookupTableLoader loader = new LookupTableLoader();
+
+    /**
+     * @param tableLocations 表名 -> 文件路径
+     */
+    public LookupTableRegistry(Map<String, String> tableLocations) {
+        Map<String, TableHolder> map = new HashMap<>();
+        if (tableLocations != null) {
+            tableLocations.forEach((name, location) -> map.put(name, new TableHolder(location)));
+        }
+        this.holders = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 判断表是否已定义
+     */
+    public boolean isDefined(String tableName) {
+        return holders.containsKey(tableName);
+    }
+
+    /**
+     * 获取查找表（首次访问时加载）
+     *
+     * @param tableName 表名
+     * @return 查找表，未定义时返回null
+     */
+    public LookupTable getTable(String tableName) {
+        TableHolder holder = holders.get(tableName);
+        return holder == null ? null : holder.get();
+    }
+
+    /**
+     * 重新加载查找表，加载失败时保留旧表
+     *
+     * @param tableName 表名
+     */
+    public void reload(String tableName) {
+        TableHolder holder = holders.get(tableName);
+        if (holder == null) {
+            throw new IllegalArgumentException("查找表未定义: " + tableName);
+        }
+        holder.reload();
+        log.info("查找表已重新加载: {}", tableName);
+    }
+
+    /**
+     * 单个查找表的持有者，使用锁而非synchronized，避免阻塞虚拟线程的载体线程
+     */
+    private class TableHolder {
+
+        private final String location;
+        private final ReentrantLock loadLock = new ReentrantLock();
+        private volatile LookupTable table;
+
+        TableHolder(String location) {
+            this.location = location;
+        }
+
+        LookupTable get() {
+            LookupTable current = table;
+            if (current != null) {
+                return current;
+            }
+            loadLock.lock();
+            try {
+                if (table == null) {
+                    table = load();
+                }
+                return table;
+            } finally {
+                loadLock.unlock();
+            }
+        }
+
+        void reload() {
+            loadLock.lock();
+            try {
+                table = load();
+            } finally {
+                loadLock.unlock();
+            }
+        }
+
+        private LookupTable load() {
+            try {
+                return loader.load(location);
+            } catch (Exception e) {
+                throw new RuntimeException("查找表加载失败: " + location, e);
+            }
+        }
+    }
+}
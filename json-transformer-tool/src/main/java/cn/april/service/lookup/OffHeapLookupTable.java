@@ -0,0 +1,192 @@
+package cn.april.service.lookup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 堆外查找表，用于百万级条目的大表
+ * 键值以UTF-8字节存放在直接内存中，索引为开放寻址哈希表（每个槽位8字节：哈希 + 条目偏移）
+ * 条目布局：[键长度:int][值长度:int][键字节][值字节]，值为null时值长度为-1（与空字符串区分，和堆内表一样返回null）
+ *
+ * @author April
+ */
+public class OffHeapLookupTable implements LookupTable {
+
+    private static final int ENTRY_HEADER_BYTES = 8;
+    private static final int SLOT_BYTES = 8;
+    private static final int NULL_VALUE_LENGTH = -1;
+
+    private final ByteBuffer data;
+    private final ByteBuffer index;
+    private final int mask;
+    private final int size;
+
+    private OffHeapLookupTable(ByteBuffer data, ByteBuffer index, int mask, int size) {
+        this.data = data;
+        this.index = index;
+        this.mask = mask;
+        this.size = size;
+    }
+
+    @Override
+    public String get(String key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int entryOffset = findEntry(data, index, mask, keyBytes, hash(keyBytes));
+        if (entryOffset < 0) {
+            return null;
+        }
+        int keyLength = data.getInt(entryOffset);
+        int valueLength = data.getInt(entryOffset + 4);
+        if (valueLength == NULL_VALUE_LENGTH) {
+            return null;
+        }
+        byte[] valueBytes = new byte[valueLength];
+        data.get(entryOffset + ENTRY_HEADER_BYTES + keyLength, valueBytes);
+        return new String(valueBytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 在索引中查找键对应的条目偏移，不存在时返回-1
+     */
+    private static int findEntry(ByteBuffer data, ByteBuffer index, int mask, byte[] keyBytes, int hash) {
+        int slot = hash & mask;
+        while (true) {
+            int slotPosition = slot * SLOT_BYTES;
+            int storedOffset = index.getInt(slotPosition + 4);
+            if (storedOffset == 0) {
+                return -1;
+            }
+            int entryOffset = storedOffset - 1;
+            if (index.getInt(slotPosition) == hash && keyEquals(data, entryOffset, keyBytes)) {
+                return entryOffset;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean keyEquals(ByteBuffer data, int entryOffset, byte[] keyBytes) {
+        if (data.getInt(entryOffset) != keyBytes.length) {
+            return false;
+        }
+        int keyStart = entryOffset + ENTRY_HEADER_BYTES;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (data.get(keyStart + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a 哈希，再做一次扰动使低位分布更均匀
+     */
+    private static int hash(byte[] bytes) {
+        int h = 0x811c9dc5;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 堆外查找表构建器
+     */
+    static class Builder {
+
+        private ByteBuffer data = ByteBuffer.allocateDirect(1 << 20);
+        private int[] hashes = new int[1024];
+        private int[] offsets = new int[1024];
+        private int count;
+
+        void put(String key, String value) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] valueBytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            int valueLength = value == null ? NULL_VALUE_LENGTH : valueBytes.length;
+            ensureDataCapacity(ENTRY_HEADER_BYTES + keyBytes.length + valueBytes.length);
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            hashes[count] = hash(keyBytes);
+            offsets[count] = data.position();
+            count++;
+            data.putInt(keyBytes.length).putInt(valueLength).put(keyBytes).put(valueBytes);
+        }
+
+        private void ensureDataCapacity(int required) {
+            if (data.remaining() >= required) {
+                return;
+            }
+            long newCapacity = Math.max((long) data.capacity() * 2, (long) data.position() + required);
+            if (newCapacity > Integer.MAX_VALUE) {
+                throw new IllegalStateException("查找表数据超过2GB上限");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) newCapacity);
+            data.flip();
+            grown.put(data);
+            data = grown;
+        }
+
+        OffHeapLookupTable build() {
+            int capacity = Integer.highestOneBit(Math.max(count * 2, 16) - 1) << 1;
+            int mask = capacity - 1;
+            ByteBuffer index = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[data.getInt(offsets[i])];
+                data.get(offsets[i] + ENTRY_HEADER_BYTES, key);
+                int existing = findEntry(data, index, mask, key, hashes[i]);
+                int slot = existing < 0 ? freeSlot(index, mask, hashes[i]) : slotOf(index, mask, existing, hashes[i]);
+                if (existing < 0) {
+                    size++;
+                }
+                // 重复键以后出现的条目为准
+                index.putInt(slot * SLOT_BYTES, hashes[i]);
+                index.putInt(slot * SLOT_BYTES + 4, offsets[i] + 1);
+            }
+            hashes = null;
+            offsets = null;
+            return new OffHeapLookupTable(trimmedData(), index, mask, size);
+        }
+
+        /**
+         * 扩容按倍数增长，加载完成后复制到刚好容纳全部条目的缓冲区，释放多余的直接内存
+         */
+        private ByteBuffer trimmedData() {
+            if (data.position() == data.capacity()) {
+                return data;
+            }
+            ByteBuffer trimmed = ByteBuffer.allocateDirect(Math.max(data.position(), 1));
+            data.flip();
+            trimmed.put(data);
+            data = null;
+            return trimmed;
+        }
+
+        private static int freeSlot(ByteBuffer index, int mask, int hash) {
+            int slot = hash & mask;
+            while (index.getInt(slot * SLOT_BYTES + 4) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int slotOf(ByteBuffer index, int mask, int entryOffset, int hash) {
+            int slot = hash & mask;
+            while (index.getInt(slot * SLOT_BYTES + 4) != entryOffset + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
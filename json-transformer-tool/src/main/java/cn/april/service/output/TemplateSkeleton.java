@@ -0,0 +1,383 @@
+package cn.april.service.output;
+
+import cn.april.service.path.SimplePath;
+import cn.april.service.path.TargetPathWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.node.ValueNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模板骨架写入器
+ * 把模板（targetJson或finalJsonTemplate）预先编码为UTF-8字节片段，映射写入的位置留作空洞；
+ * 输出时静态片段直接复制到生成器缓冲区，只有空洞中的动态值经过生成器序列化，输出开销与动态字节数成正比
+ * 字段顺序与 TargetPathWriter 一致：模板字段按模板顺序，模板中没有的字段按路径顺序追加在后；
+ * 空洞没有值时保留模板中的原值（模板中没有时不输出该字段）
+ * 只能用于文本JSON生成器，且生成器必须处于根上下文、根值分隔符为null（由 prepare 设置）
+ *
+ * @author April
+ */
+public final class TemplateSkeleton {
+
+    private static final SerializedString OBJECT_START = new SerializedString("{");
+    private static final SerializedString OBJECT_END = new SerializedString("}");
+    private static final SerializedString ARRAY_START = new SerializedString("[");
+    private static final SerializedString ARRAY_END = new SerializedString("]");
+    private static final SerializedString COMMA = new SerializedString(",");
+
+    private final ObjectWriter valueWriter;
+    private final ObjectShape root;
+
+    private TemplateSkeleton(ObjectWriter valueWriter, ObjectShape root) {
+        this.valueWriter = valueWriter;
+        this.root = root;
+    }
+
+    /**
+     * 编译模板骨架
+     *
+     * @param objectMapper 用于编码模板片段和动态值
+     * @param template     对象模板，为null时输出从空对象开始
+     * @param holePaths    与值下标对应的空洞路径，可以为null（该下标不输出）
+     * @return 骨架；模板不是对象、路径以数组下标结尾或经过模板中不存在的数组元素、同一路径既有值又有子路径时
+     * 返回null（调用方退回按树输出）
+     */
+    public static TemplateSkeleton compile(ObjectMapper objectMapper, JsonNode template, List<String> holePaths) {
+        if (template != null && !template.isObject()) {
+            return null;
+        }
+        HoleNode holes = new HoleNode();
+        for (int i = 0; i < holePaths.size(); i++) {
+            String holePath = holePaths.get(i);
+            if (holePath == null) {
+                continue;
+            }
+            SimplePath path = SimplePath.parse(holePath);
+            if (path == null || path.getSegments().isEmpty()
+                    || !(path.getSegments().get(path.getSegments().size() - 1) instanceof String)) {
+                return null;
+            }
+            HoleNode current = holes;
+            for (Object segment : path.getSegments()) {
+                current = current.children.computeIfAbsent(segment, key -> new HoleNode());
+            }
+            current.slots = Arrays.copyOf(current.slots, current.slots.length + 1);
+            current.slots[current.slots.length - 1] = i;
+        }
+        try {
+            ObjectShape root = compileObject(objectMapper, template, holes);
+            if (root == null) {
+                return null;
+            }
+            return new TemplateSkeleton(objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE), root);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 准备生成器：根值之间不插入分隔符，骨架中的动态值才能作为根值直接写在静态片段之间
+     */
+    public static void prepare(JsonGenerator generator) {
+        generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * 按骨架输出一个对象
+     *
+     * @param values 与空洞下标对应的值，TargetPathWriter.UNSET 表示没有值；DynamicValue 由自身写出
+     */
+    public void write(JsonGenerator generator, Object[] values) throws IOException {
+        writeObject(generator, root, values);
+    }
+
+    private void writeObject(JsonGenerator generator, ObjectShape shape, Object[] values) throws IOException {
+        generator.writeRaw(OBJECT_START);
+        boolean first = true;
+        for (Member member : shape.members) {
+            if (member.hole == null) {
+                generator.writeRaw(first ? member.staticBytes : member.staticBytesWithComma);
+                first = false;
+                continue;
+            }
+            HoleNode hole = member.hole;
+            Object value = TargetPathWriter.UNSET;
+            boolean present;
+            if (member.object != null || member.array != null) {
+                present = hasDescendantValue(hole, values);
+            } else {
+                value = lastValue(hole, values);
+                present = value != TargetPathWriter.UNSET;
+            }
+            if (!present) {
+                // 没有值：保留模板原值
+                if (member.staticBytes != null) {
+                    generator.writeRaw(first ? member.staticBytes : member.staticBytesWithComma);
+                    first = false;
+                }
+                continue;
+            }
+            generator.writeRaw(first ? member.name : member.nameWithComma);
+            first = false;
+            if (member.object != null) {
+                writeObject(generator, member.object, values);
+            } else if (member.array != null) {
+                writeArray(generator, member.array, values);
+            } else {
+                writeValue(generator, value);
+            }
+        }
+        generator.writeRaw(OBJECT_END);
+    }
+
+    private void writeArray(JsonGenerator generator, ArrayShape shape, Object[] values) throws IOException {
+        generator.writeRaw(ARRAY_START);
+        for (int i = 0; i < shape.elements.length; i++) {
+            if (i > 0) {
+                generator.writeRaw(COMMA);
+            }
+            HoleNode hole = shape.holes[i];
+            if (hole != null && hasDescendantValue(hole, values)) {
+                writeObject(generator, shape.elements[i], values);
+            } else {
+                generator.writeRaw(shape.staticElements[i]);
+            }
+        }
+        generator.writeRaw(ARRAY_END);
+    }
+
+    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+        // 常见的标量直接写出，避免每个值创建一次序列化上下文
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof ValueNode && !(value instanceof POJONode)) {
+            ((ValueNode) value).serialize(generator, null);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof DynamicValue) {
+            ((DynamicValue) value).writeTo(generator);
+        } else if (value instanceof JsonNode) {
+            generator.writeTree((JsonNode) value);
+        } else {
+            valueWriter.writeValue(generator, value);
+        }
+    }
+
+    private static Object lastValue(HoleNode hole, Object[] values) {
+        // 同一路径有多个值时，以最后一个为准
+        for (int i = hole.slots.length - 1; i >= 0; i--) {
+            if (values[hole.slots[i]] != TargetPathWriter.UNSET) {
+                return values[hole.slots[i]];
+            }
+        }
+        return TargetPathWriter.UNSET;
+    }
+
+    private static boolean hasDescendantValue(HoleNode hole, Object[] values) {
+        if (lastValue(hole, values) != TargetPathWriter.UNSET) {
+            return true;
+        }
+        for (HoleNode child : hole.children.values()) {
+            if (hasDescendantValue(child, values)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 编译一层对象：模板字段按模板顺序，其中没有空洞的相邻字段合并为一个静态片段
+     */
+    private static ObjectShape compileObject(ObjectMapper objectMapper, JsonNode template, HoleNode holes) throws IOException {
+        List<Member> members = new ArrayList<>();
+        StringBuilder pending = new StringBuilder();
+        if (template != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = template.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String encoded = objectMapper.writeValueAsString(field.getKey()) + ":" + objectMapper.writeValueAsString(field.getValue());
+                HoleNode hole = holes.children.get(field.getKey());
+                if (hole == null) {
+                    pending.append(pending.length() == 0 ? "" : ",").append(encoded);
+                    continue;
+                }
+                flushStatic(pending, members);
+                Member member = compileMember(objectMapper, field.getKey(), field.getValue(), hole);
+                if (member == null) {
+                    return null;
+                }
+                member.setStatic(encoded);
+                members.add(member);
+            }
+        }
+        flushStatic(pending, members);
+        for (Map.Entry<Object, HoleNode> entry : holes.children.entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                // 对象上的数组下标
+                return null;
+            }
+            String name = (String) entry.getKey();
+            if (template == null || !template.has(name)) {
+                Member member = compileMember(objectMapper, name, null, entry.getValue());
+                if (member == null) {
+                    return null;
+                }
+                members.add(member);
+            }
+        }
+        return new ObjectShape(members);
+    }
+
+    private static Member compileMember(ObjectMapper objectMapper, String name, JsonNode templateValue, HoleNode hole) throws IOException {
+        Member member = new Member(objectMapper.writeValueAsString(name) + ":", hole);
+        if (hole.children.isEmpty()) {
+            return member;
+        }
+        // 同一路径既写入值又写入子字段时，结果取决于运行时的值，不使用骨架
+        if (hole.slots.length > 0) {
+            return null;
+        }
+        if (templateValue != null && templateValue.isArray()) {
+            member.array = compileArray(objectMapper, templateValue, hole);
+            return member.array == null ? null : member;
+        }
+        if (templateValue != null && !templateValue.isObject() && !templateValue.isNull()) {
+            return null;
+        }
+        member.object = compileObject(objectMapper, templateValue != null && templateValue.isObject() ? templateValue : null, hole);
+        return member.object == null ? null : member;
+    }
+
+    /**
+     * 编译模板中的数组：路径经过的元素必须是模板中已有的对象，其余元素为静态片段
+     */
+    private static ArrayShape compileArray(ObjectMapper objectMapper, JsonNode template, HoleNode holes) throws IOException {
+        ArrayShape shape = new ArrayShape(template.size());
+        for (Map.Entry<Object, HoleNode> entry : holes.children.entrySet()) {
+            if (!(entry.getKey() instanceof Integer) || (Integer) entry.getKey() >= template.size()
+                    || !template.get((Integer) entry.getKey()).isObject() || entry.getValue().slots.length > 0) {
+                return null;
+            }
+        }
+        for (int i = 0; i < template.size(); i++) {
+            shape.staticElements[i] = Member.encoded(objectMapper.writeValueAsString(template.get(i)));
+            HoleNode hole = holes.children.get(i);
+            if (hole != null) {
+                shape.holes[i] = hole;
+                shape.elements[i] = compileObject(objectMapper, template.get(i), hole);
+                if (shape.elements[i] == null) {
+                    return null;
+                }
+            }
+        }
+        return shape;
+    }
+
+    private static void flushStatic(StringBuilder pending, List<Member> members) {
+        if (pending.length() > 0) {
+            Member member = new Member(null, null);
+            member.setStatic(pending.toString());
+            members.add(member);
+            pending.setLength(0);
+        }
+    }
+
+    /**
+     * 自行写出的动态值（如逐条写出的记录数组）
+     */
+    @FunctionalInterface
+    public interface DynamicValue {
+
+        void writeTo(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * 空洞路径前缀树，键为字段名或数组下标
+     */
+    private static final class HoleNode {
+
+        private final Map<Object, HoleNode> children = new LinkedHashMap<>();
+        private int[] slots = new int[0];
+    }
+
+    private static final class ObjectShape {
+
+        private final Member[] members;
+
+        private ObjectShape(List<Member> members) {
+            this.members = members.toArray(new Member[0]);
+        }
+    }
+
+    /**
+     * 模板数组：每个元素为静态片段，路径经过的元素另有对象骨架
+     */
+    private static final class ArrayShape {
+
+        private final SerializableString[] staticElements;
+        private final HoleNode[] holes;
+        private final ObjectShape[] elements;
+
+        private ArrayShape(int size) {
+            this.staticElements = new SerializableString[size];
+            this.holes = new HoleNode[size];
+            this.elements = new ObjectShape[size];
+        }
+    }
+
+    /**
+     * 对象成员：静态片段（hole为null），或带空洞的字段
+     */
+    private static final class Member {
+
+        // 预编码的 "name": 及带前导逗号的版本
+        private final SerializableString name;
+        private final SerializableString nameWithComma;
+        private final HoleNode hole;
+        // 静态片段，或空洞没有值时输出的模板原值（"name":value），没有时为null
+        private SerializableString staticBytes;
+        private SerializableString staticBytesWithComma;
+        // 路径继续向下时的子对象或模板数组
+        private ObjectShape object;
+        private ArrayShape array;
+
+        private Member(String name, HoleNode hole) {
+            this.name = name == null ? null : encoded(name);
+            this.nameWithComma = name == null ? null : encoded("," + name);
+            this.hole = hole;
+        }
+
+        private void setStatic(String json) {
+            this.staticBytes = encoded(json);
+            this.staticBytesWithComma = encoded("," + json);
+        }
+
+        /**
+         * 编译时即完成UTF-8编码，输出时只做字节复制
+         */
+        private static SerializableString encoded(String json) {
+            SerializedString encoded = new SerializedString(json);
+            encoded.asUnquotedUTF8();
+            return encoded;
+        }
+    }
+}
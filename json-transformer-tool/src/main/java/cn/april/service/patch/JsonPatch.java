@@ -0,0 +1,235 @@
+package cn.april.service.patch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON Patch（RFC 6902）的生成与应用
+ * 生成时对象按字段递归比较；数组长度相同时按下标递归比较，长度不同时整体替换，不计算最小编辑序列
+ *
+ * @author April
+ */
+public final class JsonPatch {
+
+    private JsonPatch() {
+    }
+
+    /**
+     * 生成把 from 变为 to 的补丁
+     *
+     * @return 补丁操作数组，两者相同时为空数组
+     */
+    public static ArrayNode diff(JsonNode from, JsonNode to) {
+        ArrayNode operations = JsonNodeFactory.instance.arrayNode();
+        diff("", from, to, operations);
+        return operations;
+    }
+
+    private static void diff(String pointer, JsonNode from, JsonNode to, ArrayNode operations) {
+        if (from.equals(to)) {
+            return;
+        }
+        if (from.isObject() && to.isObject()) {
+            Iterator<String> names = from.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!to.has(name)) {
+                    operations.addObject().put("op", "remove").put("path", pointer + "/" + escape(name));
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = to.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String childPointer = pointer + "/" + escape(field.getKey());
+                JsonNode previous = from.get(field.getKey());
+                if (previous == null) {
+                    operations.addObject().put("op", "add").put("path", childPointer).set("value", field.getValue().deepCopy());
+                } else {
+                    diff(childPointer, previous, field.getValue(), operations);
+                }
+            }
+            return;
+        }
+        if (from.isArray() && to.isArray() && from.size() == to.size()) {
+            for (int i = 0; i < from.size(); i++) {
+                diff(pointer + "/" + i, from.get(i), to.get(i), operations);
+            }
+            return;
+        }
+        operations.addObject().put("op", "replace").put("path", pointer).set("value", to.deepCopy());
+    }
+
+    /**
+     * 把补丁应用到文档副本上（原文档不变）
+     *
+     * @throws IllegalArgumentException 补丁格式错误、路径不存在或 test 操作不满足
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("JSON Patch必须是操作数组");
+        }
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            String op = operation.path("op").asText();
+            List<String> path = parsePointer(required(operation, "path"));
+            switch (op) {
+                case "add":
+                    result = add(result, path, requiredValue(operation).deepCopy());
+                    break;
+                case "remove":
+                    result = remove(result, path);
+                    break;
+                case "replace":
+                    result = replace(result, path, requiredValue(operation).deepCopy());
+                    break;
+                case "move": {
+                    List<String> from = parsePointer(required(operation, "from"));
+                    JsonNode value = get(result, from);
+                    result = add(remove(result, from), path, value);
+                    break;
+                }
+                case "copy":
+                    result = add(result, path, get(result, parsePointer(required(operation, "from"))).deepCopy());
+                    break;
+                case "test":
+                    if (!get(result, path).equals(requiredValue(operation))) {
+                        throw new IllegalArgumentException("JSON Patch test失败: " + operation.get("path").asText());
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的JSON Patch操作: " + op);
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode add(JsonNode document, List<String> path, JsonNode value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject()) {
+            ((ObjectNode) parent).set(last, value);
+        } else if (parent.isArray()) {
+            ArrayNode array = (ArrayNode) parent;
+            if ("-".equals(last)) {
+                array.add(value);
+            } else {
+                int index = index(last, array.size());
+                array.insert(index, value);
+            }
+        } else {
+            throw new IllegalArgumentException("JSON Patch路径的父节点不是容器: " + pointer(path));
+        }
+        return document;
+    }
+
+    private static JsonNode replace(JsonNode document, List<String> path, JsonNode value) {
+        get(document, path);
+        if (path.isEmpty()) {
+            return value;
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject()) {
+            // 原位替换，保持字段顺序
+            ((ObjectNode) parent).set(last, value);
+        } else {
+            ((ArrayNode) parent).set(index(last, parent.size() - 1), value);
+        }
+        return document;
+    }
+
+    private static JsonNode remove(JsonNode document, List<String> path) {
+        if (path.isEmpty()) {
+            return JsonNodeFactory.instance.nullNode();
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject() && parent.has(last)) {
+            ((ObjectNode) parent).remove(last);
+        } else if (parent.isArray()) {
+            ((ArrayNode) parent).remove(index(last, parent.size() - 1));
+        } else {
+            throw new IllegalArgumentException("JSON Patch路径不存在: " + pointer(path));
+        }
+        return document;
+    }
+
+    private static JsonNode get(JsonNode document, List<String> path) {
+        JsonNode current = document;
+        for (String token : path) {
+            JsonNode next = current.isArray() ? current.get(index(token, current.size() - 1)) : current.get(token);
+            if (next == null) {
+                throw new IllegalArgumentException("JSON Patch路径不存在: " + pointer(path));
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static int index(String token, int maxIndex) {
+        try {
+            int index = Integer.parseInt(token);
+            if (index >= 0 && index <= maxIndex) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // 按下标越界处理
+        }
+        throw new IllegalArgumentException("JSON Patch数组下标无效: " + token);
+    }
+
+    private static String required(JsonNode operation, String field) {
+        JsonNode value = operation.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new IllegalArgumentException("JSON Patch操作缺少" + field + ": " + operation);
+        }
+        return value.asText();
+    }
+
+    private static JsonNode requiredValue(JsonNode operation) {
+        JsonNode value = operation.get("value");
+        if (value == null) {
+            throw new IllegalArgumentException("JSON Patch操作缺少value: " + operation);
+        }
+        return value;
+    }
+
+    /**
+     * 解析JSON Pointer（RFC 6901），空字符串表示整个文档
+     */
+    private static List<String> parsePointer(String pointer) {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("JSON Pointer必须以/开头: " + pointer);
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static String pointer(List<String> path) {
+        StringBuilder pointer = new StringBuilder();
+        for (String token : path) {
+            pointer.append('/').append(escape(token));
+        }
+        return pointer.toString();
+    }
+
+    private static String escape(String token) {
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,341 @@
+package cn.april.service.path;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Java对象读取器
+ * 直接遍历进程内已有的 Map、List、数组、record 和 JavaBean，构造转换使用的源文档，不经过JSON字符串的序列化与解析
+ * 指定路径集合时与 SelectiveJsonReader 相同，只物化引用到的路径，其余属性不读取；
+ * 属性读取方法（record访问器、getter、公开字段）按类型解析为 MethodHandle 并缓存
+ *
+ * @author April
+ */
+public class ObjectTreeReader {
+
+    private static final Logger log = LoggerFactory.getLogger(ObjectTreeReader.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // 属性不存在的标记（与null区分）
+    private static final Object MISSING = new Object();
+
+    // 对象嵌套深度上限，防止循环引用导致栈溢出
+    private static final int MAX_DEPTH = 512;
+
+    // 类型 -> 属性读取方法，按类缓存
+    private static final ClassValue<Map<String, MethodHandle>> PROPERTIES = new ClassValue<Map<String, MethodHandle>>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return resolveProperties(type);
+        }
+    };
+
+    private final ObjectMapper objectMapper;
+    // 需要保留的路径，为null时读取完整对象
+    private final PathTrie trie;
+
+    /**
+     * @param objectMapper 用于转换无法识别的叶子值（日期、UUID等）
+     * @param paths        需要保留的路径，为null时读取完整对象
+     */
+    public ObjectTreeReader(ObjectMapper objectMapper, Collection<SimplePath> paths) {
+        this.objectMapper = objectMapper;
+        if (paths == null) {
+            this.trie = null;
+        } else {
+            this.trie = new PathTrie();
+            for (SimplePath path : paths) {
+                trie.add(path);
+            }
+        }
+    }
+
+    /**
+     * 读取Java对象，得到源文档
+     * 源对象为数组或集合且路径不以下标开头时，对每个元素应用相同的路径集合
+     */
+    public JsonNode read(Object source) {
+        if (trie == null) {
+            return readFully(source, 0);
+        }
+        PathTrie.Node root = trie.getRoot();
+        if (isArrayLike(source) && root.getIndexChildren().isEmpty() && !root.isTerminal()) {
+            ArrayNode array = JsonNodeFactory.instance.arrayNode();
+            for (Iterator<?> elements = elements(source); elements.hasNext(); ) {
+                array.add(readNode(elements.next(), root, 1));
+            }
+            return array;
+        }
+        return readNode(source, root, 0);
+    }
+
+    private JsonNode readNode(Object value, PathTrie.Node node, int depth) {
+        if (node.isTerminal()) {
+            return readFully(value, depth);
+        }
+        checkDepth(depth);
+        if (!node.getFieldChildren().isEmpty() && isObjectLike(value)) {
+            ObjectNode object = JsonNodeFactory.instance.objectNode();
+            for (Map.Entry<String, PathTrie.Node> child : node.getFieldChildren().entrySet()) {
+                Object property = property(value, child.getKey());
+                if (property != MISSING) {
+                    object.set(child.getKey(), readNode(property, child.getValue(), depth + 1));
+                }
+            }
+            return object;
+        }
+        if (!node.getIndexChildren().isEmpty() && isArrayLike(value)) {
+            return readElements(value, node.getIndexChildren(), depth);
+        }
+        // 结构不匹配：该路径读取不到值，保留空容器
+        if (isObjectLike(value)) {
+            return JsonNodeFactory.instance.objectNode();
+        }
+        if (isArrayLike(value)) {
+            return JsonNodeFactory.instance.arrayNode();
+        }
+        return readFully(value, depth);
+    }
+
+    private ArrayNode readElements(Object value, NavigableMap<Integer, PathTrie.Node> children, int depth) {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        int maxIndex = children.lastKey();
+        int index = 0;
+        for (Iterator<?> elements = elements(value); elements.hasNext() && index <= maxIndex; index++) {
+            Object element = elements.next();
+            PathTrie.Node child = children.get(index);
+            if (child != null) {
+                array.add(readNode(element, child, depth + 1));
+            } else {
+                // 未引用的元素只保留占位，保证被引用元素的下标不变
+                array.addNull();
+            }
+        }
+        return array;
+    }
+
+    /**
+     * 完整读取一个值
+     */
+    private JsonNode readFully(Object value, int depth) {
+        checkDepth(depth);
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        if (value == null) {
+            return factory.nullNode();
+        }
+        if (value instanceof JsonNode) {
+            return (JsonNode) value;
+        }
+        if (value instanceof String) {
+            return factory.textNode((String) value);
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return factory.numberNode(((Number) value).intValue());
+        }
+        if (value instanceof Long) {
+            return factory.numberNode((Long) value);
+        }
+        if (value instanceof Double) {
+            return factory.numberNode((Double) value);
+        }
+        if (value instanceof Float) {
+            return factory.numberNode((Float) value);
+        }
+        if (value instanceof BigDecimal) {
+            return factory.numberNode((BigDecimal) value);
+        }
+        if (value instanceof BigInteger) {
+            return factory.numberNode((BigInteger) value);
+        }
+        if (value instanceof Boolean) {
+            return factory.booleanNode((Boolean) value);
+        }
+        if (value instanceof Character || value instanceof Enum) {
+            return factory.textNode(value.toString());
+        }
+        if (value instanceof Map) {
+            ObjectNode object = factory.objectNode();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                object.set(String.valueOf(entry.getKey()), readFully(entry.getValue(), depth + 1));
+            }
+            return object;
+        }
+        if (isArrayLike(value)) {
+            ArrayNode array = factory.arrayNode();
+            for (Iterator<?> elements = elements(value); elements.hasNext(); ) {
+                array.add(readFully(elements.next(), depth + 1));
+            }
+            return array;
+        }
+        if (isBean(value)) {
+            ObjectNode object = factory.objectNode();
+            for (Map.Entry<String, MethodHandle> property : PROPERTIES.get(value.getClass()).entrySet()) {
+                object.set(property.getKey(), readFully(invoke(property.getValue(), value), depth + 1));
+            }
+            return object;
+        }
+        // 日期、UUID等其他JDK类型按Jackson的默认方式转换
+        return objectMapper.valueToTree(value);
+    }
+
+    /**
+     * 读取Map的键或对象的属性，不存在时返回 MISSING
+     */
+    private static Object property(Object value, String name) {
+        if (value instanceof JsonNode) {
+            JsonNode child = ((JsonNode) value).get(name);
+            return child == null ? MISSING : child;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Object child = map.get(name);
+            return child != null || map.containsKey(name) ? child : MISSING;
+        }
+        MethodHandle getter = PROPERTIES.get(value.getClass()).get(name);
+        return getter == null ? MISSING : invoke(getter, value);
+    }
+
+    private static Object invoke(MethodHandle getter, Object target) {
+        try {
+            return getter.invokeExact(target);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("读取属性失败: " + target.getClass().getName(), e);
+        }
+    }
+
+    private static boolean isObjectLike(Object value) {
+        return value instanceof Map || (value instanceof JsonNode && ((JsonNode) value).isObject()) || isBean(value);
+    }
+
+    private static boolean isArrayLike(Object value) {
+        return value instanceof Collection || (value instanceof JsonNode && ((JsonNode) value).isArray())
+                || (value != null && value.getClass().isArray());
+    }
+
+    /**
+     * 是否按属性读取：record，或 java.* 以外的普通类
+     */
+    private static boolean isBean(Object value) {
+        if (value == null || value instanceof JsonNode || value instanceof Map || isArrayLike(value)) {
+            return false;
+        }
+        Class<?> type = value.getClass();
+        return type.isRecord() || !(type.isEnum() || type.getName().startsWith("java."));
+    }
+
+    private static Iterator<?> elements(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).iterator();
+        }
+        if (value instanceof JsonNode) {
+            return ((JsonNode) value).elements();
+        }
+        int length = Array.getLength(value);
+        return new Iterator<Object>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public Object next() {
+                return Array.get(value, index++);
+            }
+        };
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("源对象嵌套过深，可能存在循环引用");
+        }
+    }
+
+    /**
+     * 解析类型的可读属性：record为组件访问器；其他类型为公开getter（getX/isX），没有getter的公开字段直接读取
+     */
+    private static Map<String, MethodHandle> resolveProperties(Class<?> type) {
+        MethodType getterType = MethodType.methodType(Object.class, Object.class);
+        Map<String, MethodHandle> properties = new LinkedHashMap<>();
+        try {
+            if (type.isRecord()) {
+                for (RecordComponent component : type.getRecordComponents()) {
+                    properties.put(component.getName(), unreflect(component.getAccessor()).asType(getterType));
+                }
+                return properties;
+            }
+            for (Method method : type.getMethods()) {
+                String name = propertyName(method);
+                if (name != null) {
+                    properties.putIfAbsent(name, unreflect(method).asType(getterType));
+                }
+            }
+            for (Field field : type.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !properties.containsKey(field.getName())) {
+                    properties.put(field.getName(), LOOKUP.unreflectGetter(field).asType(getterType));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            log.warn("无法访问类型的属性: {}, 错误: {}", type.getName(), e.getMessage());
+        }
+        return properties;
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        try {
+            method.setAccessible(true);
+        } catch (RuntimeException e) {
+            // 模块未开放时只能访问公开成员
+        }
+        return LOOKUP.unreflect(method);
+    }
+
+    /**
+     * getter对应的属性名，不是getter时返回null
+     */
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+                || method.getReturnType() == void.class || method.getDeclaringClass() == Object.class) {
+            return null;
+        }
+        String name = method.getName();
+        String property;
+        if (name.startsWith("get") && name.length() > 3) {
+            property = name.substring(3);
+        } else if (name.startsWith("is") && name.length() > 2
+                && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+            property = name.substring(2);
+        } else {
+            return null;
+        }
+        if (property.length() > 1 && Character.isUpperCase(property.charAt(0)) && Character.isUpperCase(property.charAt(1))) {
+            return property;
+        }
+        return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+    }
+}
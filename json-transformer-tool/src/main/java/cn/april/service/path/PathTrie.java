@@ -0,0 +1,93 @@
+package cn.april.service.path;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 路径前缀树：共享父路径的多个简单路径合并为一棵树，遍历时每个父节点只访问一次
+ *
+ * @author April
+ */
+public class PathTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * 加入一条路径
+     *
+     * @return 路径终点对应的节点
+     */
+    public Node add(SimplePath path) {
+        Node current = root;
+        for (Object segment : path.getSegments()) {
+            current = current.child(segment);
+        }
+        current.terminal = true;
+        return current;
+    }
+
+    /**
+     * 加入一条路径，并把槽位号记录在路径终点上
+     *
+     * @return 路径终点对应的节点
+     */
+    public Node add(SimplePath path, int slot) {
+        Node node = add(path);
+        node.slots = Arrays.copyOf(node.slots, node.slots.length + 1);
+        node.slots[node.slots.length - 1] = slot;
+        return node;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * 前缀树节点
+     */
+    public static class Node {
+
+        private final Map<String, Node> fieldChildren = new LinkedHashMap<>();
+        private final NavigableMap<Integer, Node> indexChildren = new TreeMap<>();
+        private boolean terminal;
+        private int[] slots = new int[0];
+
+        private Node child(Object segment) {
+            if (segment instanceof Integer) {
+                return indexChildren.computeIfAbsent((Integer) segment, key -> new Node());
+            }
+            return fieldChildren.computeIfAbsent((String) segment, key -> new Node());
+        }
+
+        /**
+         * 字段子节点（保持加入顺序）
+         */
+        public Map<String, Node> getFieldChildren() {
+            return fieldChildren;
+        }
+
+        /**
+         * 数组下标子节点（按下标升序）
+         */
+        public NavigableMap<Integer, Node> getIndexChildren() {
+            return indexChildren;
+        }
+
+        /**
+         * 是否有路径在此节点结束（需要该节点的完整值）
+         */
+        public boolean isTerminal() {
+            return terminal;
+        }
+
+        /**
+         * 在此节点结束的路径对应的槽位号
+         */
+        public int[] getSlots() {
+            return slots;
+        }
+    }
+}
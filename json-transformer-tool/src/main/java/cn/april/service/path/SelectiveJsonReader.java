@@ -0,0 +1,135 @@
+package cn.april.service.path;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * 选择性JSON读取器
+ * 使用JsonParser流式扫描源JSON，只物化映射引用到的路径，其余子树通过 skipChildren() 跳过，
+ * 得到的精简文档对引用路径的读取结果与完整解析一致
+ * 源JSON为数组时，对每个元素应用相同的路径集合
+ *
+ * @author April
+ */
+public class SelectiveJsonReader {
+
+    private final ObjectMapper objectMapper;
+    private final PathTrie trie;
+
+    /**
+     * @param objectMapper 用于创建解析器和读取叶子值
+     * @param paths        需要保留的路径
+     */
+    public SelectiveJsonReader(ObjectMapper objectMapper, Collection<SimplePath> paths) {
+        this.objectMapper = objectMapper;
+        this.trie = new PathTrie();
+        for (SimplePath path : paths) {
+            trie.add(path);
+        }
+    }
+
+    /**
+     * 读取源JSON，只保留引用到的路径
+     */
+    public JsonNode read(String json) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * 读取源JSON字节，只保留引用到的路径
+     */
+    public JsonNode read(byte[] json) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return read(parser);
+        }
+    }
+
+    private JsonNode read(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return objectMapper.missingNode();
+        }
+        PathTrie.Node root = trie.getRoot();
+        if (token == JsonToken.START_ARRAY && root.getIndexChildren().isEmpty() && !root.isTerminal()) {
+            // 数组源：每个元素按对象路径裁剪
+            ArrayNode array = JsonNodeFactory.instance.arrayNode();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                array.add(readNode(parser, root));
+            }
+            return array;
+        }
+        return readNode(parser, root);
+    }
+
+    /**
+     * 读取当前令牌对应的值，parser 位于值的第一个令牌
+     */
+    private JsonNode readNode(JsonParser parser, PathTrie.Node node) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (node.isTerminal()) {
+            return objectMapper.readTree(parser);
+        }
+        if (token == JsonToken.START_OBJECT && !node.getFieldChildren().isEmpty()) {
+            return readObject(parser, node.getFieldChildren());
+        }
+        if (token == JsonToken.START_ARRAY && !node.getIndexChildren().isEmpty()) {
+            return readArray(parser, node.getIndexChildren());
+        }
+        // 结构不匹配：该路径读取不到值，跳过整个子树
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return token == JsonToken.START_OBJECT
+                    ? JsonNodeFactory.instance.objectNode() : JsonNodeFactory.instance.arrayNode();
+        }
+        return objectMapper.readTree(parser);
+    }
+
+    private ObjectNode readObject(JsonParser parser, Map<String, PathTrie.Node> children) throws IOException {
+        ObjectNode object = JsonNodeFactory.instance.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            PathTrie.Node child = children.get(fieldName);
+            if (child != null) {
+                object.set(fieldName, readNode(parser, child));
+            } else if (valueToken.isStructStart()) {
+                parser.skipChildren();
+            }
+        }
+        return object;
+    }
+
+    private ArrayNode readArray(JsonParser parser, NavigableMap<Integer, PathTrie.Node> children) throws IOException {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        int maxIndex = children.lastKey();
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            PathTrie.Node child = children.get(index);
+            if (child != null) {
+                array.add(readNode(parser, child));
+            } else {
+                if (parser.currentToken().isStructStart()) {
+                    parser.skipChildren();
+                }
+                // 未引用的元素只保留占位，保证被引用元素的下标不变
+                if (index < maxIndex) {
+                    array.addNull();
+                }
+            }
+            index++;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,154 @@
+package cn.april.service.path;
+
+import cn.april.service.tape.JsonTape;
+import cn.april.service.tape.TapeNode;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 简单路径：只由字段名和数组下标组成的确定路径，如 $.extras.tieba_name、$.payload[0].data
+ * 通配符、深度扫描、过滤器、切片等仍交给json-path处理，parse 返回null
+ *
+ * @author April
+ */
+public final class SimplePath {
+
+    private final String path;
+    private final List<Object> segments;
+
+    private SimplePath(String path, List<Object> segments) {
+        this.path = path;
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * 解析路径
+     *
+     * @param path JSONPath（$. 前缀可选）
+     * @return 简单路径，不是简单路径时返回null
+     */
+    public static SimplePath parse(String path) {
+        if (path == null) {
+            return null;
+        }
+        String text = path.trim();
+        if (text.equals("$")) {
+            return new SimplePath(path, new ArrayList<>());
+        }
+        if (text.startsWith("$.")) {
+            text = text.substring(2);
+        } else if (text.startsWith("$[")) {
+            text = text.substring(1);
+        }
+        if (text.isEmpty()) {
+            return null;
+        }
+
+        List<Object> segments = new ArrayList<>();
+        int i = 0;
+        int length = text.length();
+        boolean expectField = !text.startsWith("[");
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == '[') {
+                int end = text.indexOf(']', i);
+                if (end == -1) {
+                    return null;
+                }
+                String inner = text.substring(i + 1, end);
+                Object segment = parseBracket(inner);
+                if (segment == null) {
+                    return null;
+                }
+                segments.add(segment);
+                i = end + 1;
+                expectField = false;
+            } else if (c == '.') {
+                if (expectField) {
+                    // 连续的点（深度扫描）或以点结尾
+                    return null;
+                }
+                expectField = true;
+                i++;
+            } else {
+                int start = i;
+                while (i < length && isFieldChar(text.charAt(i))) {
+                    i++;
+                }
+                if (start == i || !expectField) {
+                    return null;
+                }
+                segments.add(text.substring(start, i));
+                expectField = false;
+            }
+        }
+        return expectField ? null : new SimplePath(path, segments);
+    }
+
+    private static Object parseBracket(String inner) {
+        if (inner.length() >= 2 && (inner.startsWith("'") && inner.endsWith("'")
+                || inner.startsWith("\"") && inner.endsWith("\""))) {
+            String name = inner.substring(1, inner.length() - 1);
+            return name.indexOf('\'') == -1 && name.indexOf('"') == -1 ? name : null;
+        }
+        if (inner.isEmpty() || inner.length() > 9) {
+            return null;
+        }
+        for (int i = 0; i < inner.length(); i++) {
+            if (!Character.isDigit(inner.charAt(i))) {
+                return null;
+            }
+        }
+        return Integer.parseInt(inner);
+    }
+
+    private static boolean isFieldChar(char c) {
+        switch (c) {
+            case '.': case '[': case ']': case '*': case '?': case '(': case ')':
+            case '@': case '\'': case '"': case ',': case ':': case '$':
+                return false;
+            default:
+                return !Character.isWhitespace(c);
+        }
+    }
+
+    /**
+     * 路径段：String 表示字段名，Integer 表示数组下标
+     */
+    public List<Object> getSegments() {
+        return segments;
+    }
+
+    /**
+     * 在节点上按路径段直接导航，磁带视图在磁带索引上导航，只物化最终的值
+     *
+     * @return 路径指向的节点，路径不存在时返回null
+     */
+    public JsonNode read(JsonNode node) {
+        if (node instanceof TapeNode) {
+            JsonTape tape = ((TapeNode) node).getTape();
+            int slot = tape.find(((TapeNode) node).getIndex(), segments);
+            return slot < 0 ? null : tape.node(slot);
+        }
+        JsonNode current = node;
+        for (Object segment : segments) {
+            current = segment instanceof Integer ? current.get((Integer) segment) : current.get((String) segment);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
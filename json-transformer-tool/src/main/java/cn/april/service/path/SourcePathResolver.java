@@ -0,0 +1,106 @@
+package cn.april.service.path;
+
+import cn.april.service.tape.JsonTape;
+import cn.april.service.tape.TapeNode;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 源路径解析器
+ * 把一个配置中所有简单的sourcePath编译为前缀树，每条记录只遍历一次源节点即可把所有映射的值填入槽位数组，
+ * 共享的父节点只访问一次；非简单路径不进入前缀树，仍由json-path逐条读取
+ *
+ * @author April
+ */
+public class SourcePathResolver {
+
+    private final PathTrie trie = new PathTrie();
+    private final boolean[] resolvable;
+
+    /**
+     * @param sourcePaths 与映射下标对应的sourcePath，可以为null
+     */
+    public SourcePathResolver(List<String> sourcePaths) {
+        this.resolvable = new boolean[sourcePaths.size()];
+        for (int i = 0; i < sourcePaths.size(); i++) {
+            SimplePath path = SimplePath.parse(sourcePaths.get(i));
+            if (path != null) {
+                trie.add(path, i);
+                resolvable[i] = true;
+            }
+        }
+    }
+
+    /**
+     * 该槽位的值是否由前缀树解析
+     */
+    public boolean isResolvable(int slot) {
+        return resolvable[slot];
+    }
+
+    /**
+     * 一次遍历解析所有槽位的值
+     * 与json-path读取保持一致：路径不存在或值为JSON null时槽位为null
+     *
+     * @param source 源节点
+     * @return 与映射下标对应的值数组
+     */
+    public JsonNode[] resolve(JsonNode source) {
+        JsonNode[] values = new JsonNode[resolvable.length];
+        if (source instanceof TapeNode) {
+            visitTape(trie.getRoot(), ((TapeNode) source).getTape(), ((TapeNode) source).getIndex(), values);
+        } else if (source != null) {
+            visit(trie.getRoot(), source, values);
+        }
+        return values;
+    }
+
+    private void visit(PathTrie.Node node, JsonNode current, JsonNode[] values) {
+        if (node.getSlots().length > 0 && !current.isNull()) {
+            for (int slot : node.getSlots()) {
+                values[slot] = current;
+            }
+        }
+        if (current.isObject()) {
+            for (Map.Entry<String, PathTrie.Node> entry : node.getFieldChildren().entrySet()) {
+                JsonNode child = current.get(entry.getKey());
+                if (child != null) {
+                    visit(entry.getValue(), child, values);
+                }
+            }
+        } else if (current.isArray()) {
+            for (Map.Entry<Integer, PathTrie.Node> entry : node.getIndexChildren().entrySet()) {
+                JsonNode child = current.get(entry.getKey());
+                if (child != null) {
+                    visit(entry.getValue(), child, values);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在磁带索引上遍历，只为最终落入槽位的值创建节点
+     */
+    private void visitTape(PathTrie.Node node, JsonTape tape, int current, JsonNode[] values) {
+        if (node.getSlots().length > 0 && !tape.isNull(current)) {
+            JsonNode value = tape.node(current);
+            for (int slot : node.getSlots()) {
+                values[slot] = value;
+            }
+        }
+        for (Map.Entry<String, PathTrie.Node> entry : node.getFieldChildren().entrySet()) {
+            int child = tape.field(current, entry.getKey());
+            if (child >= 0) {
+                visitTape(entry.getValue(), tape, child, values);
+            }
+        }
+        for (Map.Entry<Integer, PathTrie.Node> entry : node.getIndexChildren().entrySet()) {
+            int child = tape.element(current, entry.getKey());
+            if (child >= 0) {
+                visitTape(entry.getValue(), tape, child, values);
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package cn.april.service.path;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 目标路径写入器
+ * 把一个配置中所有简单的targetPath编译为写入前缀树，映射的结果先暂存在槽位数组中，
+ * 再按一次有序遍历写入输出对象，每个父节点只查找或创建一次
+ * 子节点顺序在编译时确定：targetJson模板中已有的字段按模板顺序在前，其余按映射顺序在后，
+ * 因此输出字段顺序固定，流式生成器也可以按同样的顺序直接输出
+ *
+ * @author April
+ */
+public class TargetPathWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TargetPathWriter.class);
+
+    /**
+     * 槽位未写入的标记（与null区分，null是需要写入的有效值）
+     */
+    public static final Object UNSET = new Object();
+
+    private final ObjectMapper objectMapper;
+    private final WriteNode root = new WriteNode();
+    private final boolean[] writable;
+
+    /**
+     * @param objectMapper 用于把结果值转换为JsonNode
+     * @param targetPaths  与映射下标对应的targetPath，可以为null
+     * @param template     targetJson模板，用于确定字段顺序，可以为null
+     */
+    public TargetPathWriter(ObjectMapper objectMapper, List<String> targetPaths, JsonNode template) {
+        this.objectMapper = objectMapper;
+        this.writable = new boolean[targetPaths.size()];
+        for (int i = 0; i < targetPaths.size(); i++) {
+            SimplePath path = SimplePath.parse(targetPaths.get(i));
+            // 以数组下标结尾或指向根节点的路径不进入前缀树
+            if (path == null || path.getSegments().isEmpty()
+                    || !(path.getSegments().get(path.getSegments().size() - 1) instanceof String)) {
+                continue;
+            }
+            WriteNode current = root;
+            for (Object segment : path.getSegments()) {
+                current = current.child(segment);
+                current.descendantSlots = append(current.descendantSlots, i);
+            }
+            current.slots = append(current.slots, i);
+            writable[i] = true;
+        }
+        root.orderBy(template);
+    }
+
+    /**
+     * 包装转换过程中新建的节点，写入时直接挂到输出对象上，不再复制
+     * 来自源对象的节点可能被多个目标共享，仍按普通值复制写入
+     */
+    public static Object detached(JsonNode node) {
+        return new DetachedNode(node);
+    }
+
+    /**
+     * 该槽位的结果是否由写入器统一写入
+     */
+    public boolean isWritable(int slot) {
+        return writable[slot];
+    }
+
+    /**
+     * 创建一组初始为未写入状态的槽位
+     */
+    public Object[] newValues() {
+        Object[] values = new Object[writable.length];
+        Arrays.fill(values, UNSET);
+        return values;
+    }
+
+    /**
+     * 把槽位中的结果一次性写入目标对象
+     *
+     * @param target 目标对象（通常是targetJson模板的副本）
+     * @param values 与映射下标对应的结果，UNSET 表示跳过
+     */
+    public void write(ObjectNode target, Object[] values) {
+        writeChildren(root, target, values);
+    }
+
+    private void writeChildren(WriteNode node, ObjectNode current, Object[] values) {
+        for (Map.Entry<String, WriteNode> entry : node.fieldChildren.entrySet()) {
+            WriteNode child = entry.getValue();
+            if (!child.hasDescendantValue(values)) {
+                continue;
+            }
+            String fieldName = entry.getKey();
+
+            // 同一目标路径有多个映射时，以最后一个写入的为准
+            Object value = child.lastValue(values);
+            if (value != UNSET) {
+                current.set(fieldName, value instanceof DetachedNode
+                        ? ((DetachedNode) value).node : objectMapper.valueToTree(value));
+            }
+
+            if (!child.fieldChildren.isEmpty()) {
+                JsonNode existing = current.get(fieldName);
+                if (existing == null || existing.isNull()) {
+                    existing = current.putObject(fieldName);
+                }
+                if (existing.isObject()) {
+                    writeChildren(child, (ObjectNode) existing, values);
+                } else {
+                    log.warn("目标字段不是对象，无法写入子字段: {}", fieldName);
+                }
+            }
+            if (!child.indexChildren.isEmpty()) {
+                JsonNode existing = current.get(fieldName);
+                if (existing == null || existing.isNull()) {
+                    existing = current.putArray(fieldName);
+                }
+                if (existing.isArray()) {
+                    writeElements(child, (ArrayNode) existing, values);
+                } else {
+                    log.warn("目标字段不是数组，无法写入元素: {}", fieldName);
+                }
+            }
+        }
+    }
+
+    private void writeElements(WriteNode node, ArrayNode array, Object[] values) {
+        for (Map.Entry<Integer, WriteNode> entry : node.indexChildren.entrySet()) {
+            WriteNode child = entry.getValue();
+            if (!child.hasDescendantValue(values)) {
+                continue;
+            }
+            // 确保数组有足够的元素
+            while (array.size() <= entry.getKey()) {
+                array.addObject();
+            }
+            JsonNode element = array.get(entry.getKey());
+            if (element.isObject()) {
+                writeChildren(child, (ObjectNode) element, values);
+            } else {
+                log.warn("目标数组元素不是对象，无法写入子字段: [{}]", entry.getKey());
+            }
+        }
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static final class DetachedNode {
+
+        private final JsonNode node;
+
+        private DetachedNode(JsonNode node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * 写入前缀树节点
+     */
+    private static class WriteNode {
+
+        private Map<String, WriteNode> fieldChildren = new LinkedHashMap<>();
+        private final Map<Integer, WriteNode> indexChildren = new LinkedHashMap<>();
+        // 在此节点结束的路径的槽位
+        private int[] slots = new int[0];
+        // 经过此节点的所有路径的槽位
+        private int[] descendantSlots = new int[0];
+
+        private WriteNode child(Object segment) {
+            if (segment instanceof Integer) {
+                return indexChildren.computeIfAbsent((Integer) segment, key -> new WriteNode());
+            }
+            return fieldChildren.computeIfAbsent((String) segment, key -> new WriteNode());
+        }
+
+        private boolean hasDescendantValue(Object[] values) {
+            for (int slot : descendantSlots) {
+                if (values[slot] != UNSET) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Object lastValue(Object[] values) {
+            for (int i = slots.length - 1; i >= 0; i--) {
+                if (values[slots[i]] != UNSET) {
+                    return values[slots[i]];
+                }
+            }
+            return UNSET;
+        }
+
+        /**
+         * 按模板字段顺序重排子节点：模板中已有的字段在前，其余保持映射顺序
+         */
+        private void orderBy(JsonNode template) {
+            if (template != null && template.isObject()) {
+                Map<String, WriteNode> ordered = new LinkedHashMap<>();
+                Iterator<String> names = template.fieldNames();
+                while (names.hasNext()) {
+                    String name = names.next();
+                    WriteNode child = fieldChildren.get(name);
+                    if (child != null) {
+                        ordered.put(name, child);
+                    }
+                }
+                List<String> remaining = new ArrayList<>(fieldChildren.keySet());
+                remaining.removeAll(ordered.keySet());
+                for (String name : remaining) {
+                    ordered.put(name, fieldChildren.get(name));
+                }
+                fieldChildren = ordered;
+            }
+            for (Map.Entry<String, WriteNode> entry : fieldChildren.entrySet()) {
+                entry.getValue().orderBy(template == null ? null : template.get(entry.getKey()));
+            }
+            for (Map.Entry<Integer, WriteNode> entry : indexChildren.entrySet()) {
+                entry.getValue().orderBy(template == null ? null : template.get(entry.getKey()));
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package cn.april.service.scan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * NDJSON记录读取器
+ * 按块读取字节，用结构扫描器查找换行，直接返回每条记录的UTF-8字节，不解码为字符串；空白行跳过
+ *
+ * @author April
+ */
+public class NdjsonReader implements Closeable {
+
+    private final InputStream input;
+    private final StructuralScanner scanner;
+    private byte[] buffer;
+    // 未消费数据的起止位置
+    private int start;
+    private int end;
+    // 已扫描过、确认没有换行的位置
+    private int scanned;
+    private boolean eof;
+    private long lineNumber;
+
+    /**
+     * @param bufferSize 初始缓冲区大小，记录超过缓冲区时自动扩容
+     */
+    public NdjsonReader(InputStream input, StructuralScanner scanner, int bufferSize) {
+        this.input = input;
+        this.scanner = scanner;
+        this.buffer = new byte[Math.max(bufferSize, StructuralScanner.BLOCK)];
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 记录的字节（不含换行），输入结束时返回null
+     */
+    public byte[] next() throws IOException {
+        while (true) {
+            int newline = scanner.nextLine(buffer, scanned, end);
+            if (newline >= 0) {
+                lineNumber++;
+                byte[] record = isBlank(start, newline) ? null : Arrays.copyOfRange(buffer, start, newline);
+                start = newline + 1;
+                scanned = start;
+                if (record != null) {
+                    return record;
+                }
+                continue;
+            }
+            scanned = end;
+            if (eof) {
+                if (start == end) {
+                    return null;
+                }
+                // 最后一行没有换行
+                lineNumber++;
+                byte[] record = isBlank(start, end) ? null : Arrays.copyOfRange(buffer, start, end);
+                start = end;
+                return record;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * 最近返回的记录所在的行号（从1开始）
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * 把未消费的数据移到缓冲区开头，必要时扩容，再读入更多数据
+     */
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            scanned -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = input.read(buffer, end, buffer.length - end);
+        if (read < 0) {
+            eof = true;
+        } else {
+            end += read;
+        }
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (b != ' ' && b != '\r' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
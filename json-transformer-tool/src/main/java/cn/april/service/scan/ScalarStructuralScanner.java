@@ -0,0 +1,52 @@
+package cn.april.service.scan;
+
+/**
+ * 标量结构扫描器：逐字节查表分类
+ *
+ * @author April
+ */
+final class ScalarStructuralScanner extends StructuralScanner {
+
+    private static final byte[] CLASSES = new byte[256];
+
+    static {
+        CLASSES['"'] = 1 << QUOTE;
+        CLASSES['\\'] = 1 << BACKSLASH;
+        for (char c : "{}[],:".toCharArray()) {
+            CLASSES[c] = 1 << STRUCTURAL;
+        }
+        CLASSES['\n'] = 1 << NEWLINE;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    void classify(byte[] block, int offset, long[] masks) {
+        long quote = 0;
+        long backslash = 0;
+        long structural = 0;
+        long newline = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            int type = CLASSES[block[offset + i] & 0xFF];
+            if (type != 0) {
+                long bit = 1L << i;
+                if (type == 1 << QUOTE) {
+                    quote |= bit;
+                } else if (type == 1 << BACKSLASH) {
+                    backslash |= bit;
+                } else if (type == 1 << STRUCTURAL) {
+                    structural |= bit;
+                } else {
+                    newline |= bit;
+                }
+            }
+        }
+        masks[QUOTE] = quote;
+        masks[BACKSLASH] = backslash;
+        masks[STRUCTURAL] = structural;
+        masks[NEWLINE] = newline;
+    }
+}
@@ -0,0 +1,296 @@
+package cn.april.service.scan;
+
+import cn.april.service.path.PathTrie;
+import cn.april.service.path.SimplePath;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 基于结构索引的选择性读取器
+ * 与 SelectiveJsonReader 得到相同的精简文档，但先用结构扫描器建立索引，按索引定位引用到的字段，
+ * 只有引用到的值交给Jackson解析；未引用的值（包括很长的字符串）按索引整体跳过，不做词法分析，
+ * 因此跳过部分中的语法错误不会被发现
+ *
+ * @author April
+ */
+public class ScanningSelectiveReader {
+
+    private final ObjectMapper objectMapper;
+    private final StructuralScanner scanner;
+    private final Node root;
+
+    /**
+     * @param objectMapper 用于读取引用到的值
+     * @param scanner      结构扫描器
+     * @param paths        需要保留的路径
+     */
+    public ScanningSelectiveReader(ObjectMapper objectMapper, StructuralScanner scanner, Collection<SimplePath> paths) {
+        this.objectMapper = objectMapper;
+        this.scanner = scanner;
+        PathTrie trie = new PathTrie();
+        for (SimplePath path : paths) {
+            trie.add(path);
+        }
+        this.root = new Node(trie.getRoot());
+    }
+
+    /**
+     * 读取UTF-8编码的源JSON，只保留引用到的路径
+     */
+    public JsonNode read(byte[] json) throws IOException {
+        StructuralIndex index = scanner.index(json, 0, json.length);
+        int start = index.skipWhitespace(0);
+        if (index.size() == 0 || index.position(0) != start) {
+            // 根值是标量或空内容
+            return objectMapper.readTree(json);
+        }
+        int end = trimEnd(json, start, json.length);
+        if (json[start] == '[' && root.indexes.isEmpty() && !root.terminal) {
+            // 数组源：每个元素按对象路径裁剪
+            return readElements(json, index, 0, root);
+        }
+        return readNode(json, index, 0, start, end, root);
+    }
+
+    /**
+     * 读取 [start, end) 中的值
+     *
+     * @param entry 值的第一个索引条目（标量值为其后的分隔符）
+     */
+    private JsonNode readNode(byte[] json, StructuralIndex index, int entry, int start, int end, Node node) throws IOException {
+        byte first = json[start];
+        if (node.terminal) {
+            return parse(json, start, end);
+        }
+        if (first == '{') {
+            return node.names.length > 0 ? readObject(json, index, entry, node) : JsonNodeFactory.instance.objectNode();
+        }
+        if (first == '[') {
+            // 结构不匹配：该路径读取不到值，只保留空容器
+            return node.indexes.isEmpty() ? JsonNodeFactory.instance.arrayNode() : readArray(json, index, entry, node);
+        }
+        return parse(json, start, end);
+    }
+
+    private ObjectNode readObject(byte[] json, StructuralIndex index, int open, Node node) throws IOException {
+        ObjectNode object = JsonNodeFactory.instance.objectNode();
+        int entry = open + 1;
+        if (entry < index.size() && index.charAt(entry) == '}') {
+            return object;
+        }
+        while (true) {
+            if (entry + 1 >= index.size() || index.charAt(entry) != '"' || index.charAt(entry + 1) != ':') {
+                throw error("缺少字段名或冒号", entry < index.size() ? index.position(entry) : json.length);
+            }
+            int colon = index.position(entry + 1);
+            int end = index.valueEnd(entry + 2);
+            int child = node.child(json, index.position(entry) + 1, closingQuote(json, colon));
+            if (child >= 0) {
+                int start = index.skipWhitespace(colon + 1);
+                object.set(node.fieldNames[child], readNode(json, index, entry + 2, start,
+                        trimEnd(json, start, index.position(end)), node.fields[child]));
+            }
+            if (index.charAt(end) == '}') {
+                return object;
+            }
+            entry = end + 1;
+        }
+    }
+
+    private ArrayNode readArray(byte[] json, StructuralIndex index, int open, Node node) throws IOException {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        int maxIndex = node.indexes.lastKey();
+        int delimiter = index.position(open);
+        int entry = open + 1;
+        int start = index.skipWhitespace(delimiter + 1);
+        if (start < json.length && json[start] == ']') {
+            return array;
+        }
+        for (int position = 0; position <= maxIndex; position++) {
+            int end = index.valueEnd(entry);
+            Node child = node.indexes.get(position);
+            if (child != null) {
+                array.add(readNode(json, index, entry, start, trimEnd(json, start, index.position(end)), child));
+            } else if (position < maxIndex) {
+                // 未引用的元素只保留占位，保证被引用元素的下标不变
+                array.addNull();
+            }
+            if (index.charAt(end) == ']') {
+                break;
+            }
+            entry = end + 1;
+            start = index.skipWhitespace(index.position(end) + 1);
+        }
+        return array;
+    }
+
+    /**
+     * 根数组：每个元素按同一组路径读取
+     */
+    private ArrayNode readElements(byte[] json, StructuralIndex index, int open, Node node) throws IOException {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        int entry = open + 1;
+        int start = index.skipWhitespace(index.position(open) + 1);
+        if (start < json.length && json[start] == ']') {
+            return array;
+        }
+        while (true) {
+            int end = index.valueEnd(entry);
+            array.add(readNode(json, index, entry, start, trimEnd(json, start, index.position(end)), node));
+            if (index.charAt(end) == ']') {
+                return array;
+            }
+            entry = end + 1;
+            start = index.skipWhitespace(index.position(end) + 1);
+        }
+    }
+
+    /**
+     * 解析一个值：不含转义的字符串与字面量直接创建节点，其余交给Jackson
+     */
+    private JsonNode parse(byte[] json, int start, int end) throws IOException {
+        if (start >= end) {
+            throw error("缺少值", start);
+        }
+        int length = end - start;
+        if (json[start] == '"' && length >= 2 && json[end - 1] == '"' && indexOf(json, start + 1, end - 1, (byte) '\\') < 0) {
+            return TextNode.valueOf(new String(json, start + 1, length - 2, StandardCharsets.UTF_8));
+        }
+        if (matches(json, start, end, "true")) {
+            return BooleanNode.TRUE;
+        }
+        if (matches(json, start, end, "false")) {
+            return BooleanNode.FALSE;
+        }
+        if (matches(json, start, end, "null")) {
+            return NullNode.getInstance();
+        }
+        return objectMapper.readTree(json, start, length);
+    }
+
+    /**
+     * 冒号之前的结束引号位置
+     */
+    private static int closingQuote(byte[] json, int colon) throws JsonParseException {
+        int pos = colon - 1;
+        while (pos >= 0 && json[pos] != '"') {
+            pos--;
+        }
+        if (pos < 0) {
+            throw error("字段名没有结束", colon);
+        }
+        return pos;
+    }
+
+    private static int trimEnd(byte[] json, int start, int end) {
+        while (end > start) {
+            byte b = json[end - 1];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                break;
+            }
+            end--;
+        }
+        return end;
+    }
+
+    private static int indexOf(byte[] json, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (json[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] json, int start, int end, String literal) {
+        if (end - start != literal.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (json[start + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JsonParseException error(String message, int pos) {
+        return new JsonParseException(null, message + "（字节偏移 " + pos + "）");
+    }
+
+    /**
+     * 编译后的路径前缀树节点：字段名预先编码为UTF-8字节，按字节比较
+     */
+    private final class Node {
+
+        private final boolean terminal;
+        private final String[] fieldNames;
+        private final byte[][] names;
+        private final Node[] fields;
+        private final NavigableMap<Integer, Node> indexes = new TreeMap<>();
+
+        Node(PathTrie.Node source) {
+            this.terminal = source.isTerminal();
+            Map<String, PathTrie.Node> children = source.getFieldChildren();
+            this.fieldNames = children.keySet().toArray(new String[0]);
+            this.names = new byte[fieldNames.length][];
+            this.fields = new Node[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                names[i] = fieldNames[i].getBytes(StandardCharsets.UTF_8);
+                fields[i] = new Node(children.get(fieldNames[i]));
+            }
+            for (Map.Entry<Integer, PathTrie.Node> entry : source.getIndexChildren().entrySet()) {
+                indexes.put(entry.getKey(), new Node(entry.getValue()));
+            }
+        }
+
+        /**
+         * 按字段名（原始字节 [start, end)）查找子节点
+         *
+         * @return 子节点下标，未引用时返回-1
+         */
+        int child(byte[] json, int start, int end) throws IOException {
+            if (indexOf(json, start, end, (byte) '\\') >= 0) {
+                // 含转义的字段名解码后比较
+                String name = objectMapper.readTree(json, start - 1, end - start + 2).asText();
+                for (int i = 0; i < fieldNames.length; i++) {
+                    if (fieldNames[i].equals(name)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int length = end - start;
+            for (int i = 0; i < names.length; i++) {
+                byte[] name = names[i];
+                if (name.length == length && equals(json, start, name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean equals(byte[] json, int start, byte[] name) {
+            for (int i = 0; i < name.length; i++) {
+                if (json[start + i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
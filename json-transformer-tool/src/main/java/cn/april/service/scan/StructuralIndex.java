@@ -0,0 +1,115 @@
+package cn.april.service.scan;
+
+import com.fasterxml.jackson.core.JsonParseException;
+
+/**
+ * 结构索引：字符串外的结构字符与字符串起始引号在原始字节中的位置
+ * 标量值（数字、true/false/null）不在索引中，它们位于两个结构字符之间；
+ * 按索引跳过一个值只需要遍历其中的结构字符，字符串内容不再逐字节扫描
+ *
+ * @author April
+ */
+public final class StructuralIndex {
+
+    private final byte[] json;
+    private final int[] positions;
+    private final int size;
+
+    StructuralIndex(byte[] json, int[] positions, int size) {
+        this.json = json;
+        this.positions = positions;
+        this.size = size;
+    }
+
+    /**
+     * 索引条目数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第 entry 个条目在原始字节中的位置
+     */
+    public int position(int entry) {
+        return positions[entry];
+    }
+
+    /**
+     * 第 entry 个条目的字符
+     */
+    public byte charAt(int entry) {
+        return json[positions[entry]];
+    }
+
+    /**
+     * 从值的第一个条目开始（标量值为其后的分隔符），找到结束该值的同层 , } ] 条目
+     *
+     * @throws JsonParseException 值没有结束
+     */
+    public int valueEnd(int entry) throws JsonParseException {
+        int depth = 0;
+        for (int i = entry; i < size; i++) {
+            switch (json[positions[i]]) {
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        return i;
+                    }
+                    depth--;
+                    break;
+                case ',':
+                    if (depth == 0) {
+                        return i;
+                    }
+                    break;
+                default:
+                    // 引号与冒号不改变层级
+            }
+        }
+        throw new JsonParseException(null, "JSON不完整，值没有结束（字节偏移 " + (entry < size ? positions[entry] : json.length) + "）");
+    }
+
+    /**
+     * 根值为数组时的元素个数
+     *
+     * @return 根值不是数组时返回-1
+     */
+    public int rootArrayLength() throws JsonParseException {
+        if (size == 0 || json[positions[0]] != '[' || skipWhitespace(0) != positions[0]) {
+            return -1;
+        }
+        int first = skipWhitespace(positions[0] + 1);
+        if (first < json.length && json[first] == ']') {
+            return 0;
+        }
+        int count = 0;
+        int entry = 1;
+        while (true) {
+            int end = valueEnd(entry);
+            count++;
+            if (json[positions[end]] == ']') {
+                return count;
+            }
+            entry = end + 1;
+        }
+    }
+
+    /**
+     * 跳过空白后的第一个字节位置
+     */
+    int skipWhitespace(int pos) {
+        while (pos < json.length) {
+            byte b = json[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,198 @@
+package cn.april.service.scan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * 结构扫描器（参考simdjson的第一阶段）
+ * 每次把64字节分类为引号、反斜杠、结构字符（{}[],:）和换行的位图，再用位运算排除被转义的引号、
+ * 计算字符串内外，得到字符串外的结构字符与字符串起始引号的位置；字符串内容不逐字节处理
+ * 分类有两种实现：启用 jdk.incubator.vector 模块（--add-modules jdk.incubator.vector）时按向量比较，否则为标量查表
+ * 扫描器无状态，可以在线程之间共享
+ *
+ * @author April
+ */
+public abstract class StructuralScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(StructuralScanner.class);
+
+    /**
+     * 每块的字节数
+     */
+    static final int BLOCK = 64;
+
+    static final int QUOTE = 0;
+    static final int BACKSLASH = 1;
+    static final int STRUCTURAL = 2;
+    static final int NEWLINE = 3;
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_SCANNER = "cn.april.service.scan.VectorStructuralScanner";
+
+    /**
+     * 当前JVM可用的最快实现
+     */
+    public static StructuralScanner getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    /**
+     * 标量实现
+     */
+    public static StructuralScanner scalar() {
+        return Holder.SCALAR;
+    }
+
+    /**
+     * 向量实现
+     *
+     * @return 未启用 jdk.incubator.vector 模块时返回null
+     */
+    public static StructuralScanner vector() {
+        return Holder.VECTOR;
+    }
+
+    /**
+     * 实现名称，如 scalar、vector-256
+     */
+    public abstract String getName();
+
+    /**
+     * 把 block[offset, offset+64) 分类为位图，第i位对应第i个字节
+     *
+     * @param masks 按 QUOTE、BACKSLASH、STRUCTURAL、NEWLINE 的顺序写入
+     */
+    abstract void classify(byte[] block, int offset, long[] masks);
+
+    /**
+     * 建立结构索引：字符串外的结构字符与每个字符串的起始引号，按位置升序
+     * 只识别结构，不校验JSON语法
+     */
+    public StructuralIndex index(byte[] json, int from, int to) {
+        int[] positions = new int[Math.max(16, (to - from) >> 3)];
+        int count = 0;
+        long[] masks = new long[4];
+        BlockState state = new BlockState();
+        byte[] padded = null;
+        for (int block = from; block < to; block += BLOCK) {
+            if (block + BLOCK <= to) {
+                classify(json, block, masks);
+            } else {
+                padded = pad(json, block, to, padded);
+                classify(padded, 0, masks);
+            }
+            state.next(masks[QUOTE], masks[BACKSLASH]);
+            long bits = (masks[STRUCTURAL] & ~state.inString) | (state.quotes & state.inString);
+            if (count + Long.bitCount(bits) > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, count + BLOCK));
+            }
+            while (bits != 0) {
+                positions[count++] = block + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return new StructuralIndex(json, positions, count);
+    }
+
+    /**
+     * 查找下一个换行符（NDJSON的记录边界）
+     * 合法的JSON文本中换行只能以转义形式出现在字符串里，因此不需要区分字符串内外
+     *
+     * @return 换行符的位置，[from, to) 中没有换行时返回-1
+     */
+    public int nextLine(byte[] json, int from, int to) {
+        long[] masks = new long[4];
+        byte[] padded = null;
+        for (int block = from; block < to; block += BLOCK) {
+            if (block + BLOCK <= to) {
+                classify(json, block, masks);
+            } else {
+                padded = pad(json, block, to, padded);
+                classify(padded, 0, masks);
+            }
+            if (masks[NEWLINE] != 0) {
+                return block + Long.numberOfTrailingZeros(masks[NEWLINE]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 把不足一块的结尾复制到以空格填充的64字节块中
+     */
+    private static byte[] pad(byte[] json, int from, int to, byte[] padded) {
+        byte[] block = padded != null ? padded : new byte[BLOCK];
+        System.arraycopy(json, from, block, 0, to - from);
+        Arrays.fill(block, to - from, BLOCK, (byte) ' ');
+        return block;
+    }
+
+    /**
+     * 跨块传递的转义与字符串状态
+     */
+    private static final class BlockState {
+
+        // 下一块的第一个字节是否被转义
+        private long escapeCarry;
+        // 上一块结束时是否在字符串内（全1或全0）
+        private long stringCarry;
+        // 本块未被转义的引号
+        long quotes;
+        // 本块在字符串内的字节：含起始引号，不含结束引号
+        long inString;
+
+        void next(long quote, long backslash) {
+            long escaped = escapeCarry;
+            escapeCarry = 0;
+            // 反斜杠通常很少，逐个处理：未被转义的反斜杠转义其后的一个字节
+            long bits = backslash;
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if ((escaped & (1L << bit)) == 0) {
+                    if (bit == BLOCK - 1) {
+                        escapeCarry = 1;
+                    } else {
+                        escaped |= 1L << (bit + 1);
+                    }
+                }
+            }
+            quotes = quote & ~escaped;
+            // 前缀异或：每个引号翻转其后所有字节的字符串内外状态
+            long mask = quotes;
+            mask ^= mask << 1;
+            mask ^= mask << 2;
+            mask ^= mask << 4;
+            mask ^= mask << 8;
+            mask ^= mask << 16;
+            mask ^= mask << 32;
+            inString = mask ^ stringCarry;
+            stringCarry = inString >> 63;
+        }
+    }
+
+    private static final class Holder {
+
+        private static final StructuralScanner SCALAR = new ScalarStructuralScanner();
+        private static final StructuralScanner VECTOR = loadVector();
+        private static final StructuralScanner DEFAULT = VECTOR != null ? VECTOR : SCALAR;
+
+        /**
+         * 只有模块已启用时才加载向量实现，避免在未启用时触发类加载错误
+         */
+        private static StructuralScanner loadVector() {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+                log.debug("未启用 {} 模块，结构扫描使用标量实现", VECTOR_MODULE);
+                return null;
+            }
+            try {
+                return (StructuralScanner) Class.forName(VECTOR_SCANNER).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("向量结构扫描器加载失败，使用标量实现: {}", e.toString());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package cn.april.service.scan;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 向量结构扫描器：每次比较32字节，比较结果转为位图
+ * 依赖孵化模块 jdk.incubator.vector，只能在模块已启用时由 StructuralScanner 反射加载
+ *
+ * @author April
+ */
+final class VectorStructuralScanner extends StructuralScanner {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_256;
+    private static final int LANES = 32;
+    // 每个字节在所在8字节组中的位权重（1, 2, 4 ... 128）
+    private static final ByteVector WEIGHTS;
+    private static final ByteVector ZERO = ByteVector.zero(SPECIES);
+    // 8个互不重叠的位相加即为按位或，乘以该常数后最高字节是8个字节之和
+    private static final long SUM_BYTES = 0x0101010101010101L;
+
+    static {
+        byte[] weights = new byte[LANES];
+        for (int i = 0; i < LANES; i++) {
+            weights[i] = (byte) (1 << (i & 7));
+        }
+        WEIGHTS = ByteVector.fromArray(SPECIES, weights, 0);
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    void classify(byte[] block, int offset, long[] masks) {
+        long quote = 0;
+        long backslash = 0;
+        long structural = 0;
+        long newline = 0;
+        for (int i = 0; i < BLOCK; i += LANES) {
+            ByteVector bytes = ByteVector.fromArray(SPECIES, block, offset + i);
+            quote |= bits(bytes.eq((byte) '"')) << i;
+            backslash |= bits(bytes.eq((byte) '\\')) << i;
+            // [ ] 与 { } 只差 0x20 这一位
+            ByteVector folded = bytes.or((byte) 0x20);
+            VectorMask<Byte> brackets = folded.eq((byte) '{').or(folded.eq((byte) '}'));
+            structural |= bits(brackets.or(bytes.eq((byte) ',')).or(bytes.eq((byte) ':'))) << i;
+            newline |= bits(bytes.eq((byte) '\n')) << i;
+        }
+        masks[QUOTE] = quote;
+        masks[BACKSLASH] = backslash;
+        masks[STRUCTURAL] = structural;
+        masks[NEWLINE] = newline;
+    }
+
+    /**
+     * 把32个通道的比较结果转为32位位图
+     * JDK 17 中 VectorMask.toLong 没有对应的CPU指令实现，这里用位权重、乘法与通道提取代替；没有命中时直接返回0
+     */
+    private static long bits(VectorMask<Byte> mask) {
+        if (!mask.anyTrue()) {
+            return 0;
+        }
+        LongVector sums = ZERO.blend(WEIGHTS, mask).reinterpretAsLongs()
+                .mul(SUM_BYTES).lanewise(VectorOperators.LSHR, 56);
+        return sums.lane(0) | sums.lane(1) << 8 | sums.lane(2) << 16 | sums.lane(3) << 24;
+    }
+}
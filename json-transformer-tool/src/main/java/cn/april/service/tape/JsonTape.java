@@ -0,0 +1,552 @@
+package cn.april.service.tape;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 磁带式JSON结构索引（参考simdjson的tape）
+ * 一次扫描UTF-8字节，把每个值记录为 long[] 中连续的槽位，字符串和数字只记录在原始字节中的位置，读取时才解码：
+ * <ul>
+ *     <li>对象/数组：3个槽位，[类型|结束后的下一个槽位] [成员数] [起始字节偏移&lt;&lt;32|结束字节偏移]，成员紧随其后</li>
+ *     <li>字符串/数字：2个槽位，[类型|标记|起始字节偏移] [字节长度]，字符串不含引号，标记表示含转义（数字为含小数或指数）</li>
+ *     <li>true/false/null：1个槽位</li>
+ * </ul>
+ * 对象的成员依次为键（字符串）与值；同名键按第一次出现读取。索引不可变，可以在线程之间共享
+ *
+ * @author April
+ */
+public final class JsonTape {
+
+    static final int OBJECT = 1;
+    static final int ARRAY = 2;
+    static final int STRING = 3;
+    static final int NUMBER = 4;
+    static final int TRUE = 5;
+    static final int FALSE = 6;
+    static final int NULL = 7;
+
+    private static final int TYPE_SHIFT = 56;
+    // 字符串含转义 / 数字含小数或指数
+    private static final long FLAG = 1L << 55;
+    private static final long PAYLOAD_MASK = FLAG - 1;
+    private static final int MAX_DEPTH = 1000;
+    // 字符串中需要停下处理的字节：引号、反斜杠与控制字符
+    private static final boolean[] STRING_STOP = new boolean[256];
+
+    static {
+        for (int b = 0; b < 0x20; b++) {
+            STRING_STOP[b] = true;
+        }
+        STRING_STOP['"'] = true;
+        STRING_STOP['\\'] = true;
+    }
+
+    private final byte[] buffer;
+    private long[] tape;
+    private int size;
+
+    private JsonTape(byte[] buffer) {
+        this.buffer = buffer;
+        // 常见记录每16字节约一个槽位，不够时再扩容
+        this.tape = new long[Math.max(16, buffer.length >> 4)];
+    }
+
+    /**
+     * 为UTF-8编码的JSON建立结构索引
+     *
+     * @return 根节点：对象与数组为只读视图，标量为对应的值节点，空内容为 MissingNode
+     * @throws JsonParseException JSON格式错误
+     */
+    public static JsonNode parse(byte[] json) throws JsonParseException {
+        JsonTape tape = new JsonTape(json);
+        int pos = tape.skipWhitespace(0);
+        if (pos == json.length) {
+            return MissingNode.getInstance();
+        }
+        pos = tape.parseValue(pos, 0);
+        if (tape.skipWhitespace(pos) != json.length) {
+            throw tape.error("根值之后存在多余内容", pos);
+        }
+        return tape.node(0);
+    }
+
+    /**
+     * 为JSON字符串建立结构索引
+     */
+    public static JsonNode parse(String json) throws JsonParseException {
+        return parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---------------------------------------------------------------- 构建
+
+    private int parseValue(int pos, int depth) throws JsonParseException {
+        switch (buffer[pos]) {
+            case '{':
+                return parseObject(pos, depth + 1);
+            case '[':
+                return parseArray(pos, depth + 1);
+            case '"':
+                return parseString(pos);
+            case 't':
+                return parseLiteral(pos, "true", TRUE);
+            case 'f':
+                return parseLiteral(pos, "false", FALSE);
+            case 'n':
+                return parseLiteral(pos, "null", NULL);
+            default:
+                return parseNumber(pos);
+        }
+    }
+
+    private int parseObject(int pos, int depth) throws JsonParseException {
+        checkDepth(depth, pos);
+        int start = openContainer(pos);
+        int count = 0;
+        pos = skipWhitespace(pos + 1);
+        if (pos < buffer.length && buffer[pos] == '}') {
+            return closeContainer(start, OBJECT, count, pos);
+        }
+        while (true) {
+            if (pos >= buffer.length || buffer[pos] != '"') {
+                throw error("缺少字段名", pos);
+            }
+            pos = skipWhitespace(parseString(pos));
+            if (pos >= buffer.length || buffer[pos] != ':') {
+                throw error("字段名之后缺少冒号", pos);
+            }
+            pos = skipWhitespace(pos + 1);
+            if (pos >= buffer.length) {
+                throw error("缺少字段值", pos);
+            }
+            pos = skipWhitespace(parseValue(pos, depth));
+            count++;
+            if (pos < buffer.length && buffer[pos] == ',') {
+                pos = skipWhitespace(pos + 1);
+            } else if (pos < buffer.length && buffer[pos] == '}') {
+                return closeContainer(start, OBJECT, count, pos);
+            } else {
+                throw error("对象成员之后缺少逗号或右花括号", pos);
+            }
+        }
+    }
+
+    private int parseArray(int pos, int depth) throws JsonParseException {
+        checkDepth(depth, pos);
+        int start = openContainer(pos);
+        int count = 0;
+        pos = skipWhitespace(pos + 1);
+        if (pos < buffer.length && buffer[pos] == ']') {
+            return closeContainer(start, ARRAY, count, pos);
+        }
+        while (true) {
+            if (pos >= buffer.length) {
+                throw error("缺少数组元素", pos);
+            }
+            pos = skipWhitespace(parseValue(pos, depth));
+            count++;
+            if (pos < buffer.length && buffer[pos] == ',') {
+                pos = skipWhitespace(pos + 1);
+            } else if (pos < buffer.length && buffer[pos] == ']') {
+                return closeContainer(start, ARRAY, count, pos);
+            } else {
+                throw error("数组元素之后缺少逗号或右方括号", pos);
+            }
+        }
+    }
+
+    private int openContainer(int pos) {
+        int start = size;
+        ensureCapacity(3);
+        size += 3;
+        tape[start + 2] = (long) pos << 32;
+        return start;
+    }
+
+    private int closeContainer(int start, int type, int count, int endPos) {
+        tape[start] = ((long) type << TYPE_SHIFT) | size;
+        tape[start + 1] = count;
+        tape[start + 2] |= endPos + 1;
+        return endPos + 1;
+    }
+
+    /**
+     * 扫描字符串到结束引号，只记录位置与是否含转义
+     */
+    private int parseString(int pos) throws JsonParseException {
+        int start = pos + 1;
+        boolean escaped = false;
+        int i = start;
+        while (true) {
+            while (i < buffer.length && !STRING_STOP[buffer[i] & 0xFF]) {
+                i++;
+            }
+            if (i >= buffer.length) {
+                throw error("字符串没有结束", pos);
+            }
+            byte b = buffer[i];
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\') {
+                escaped = true;
+                i = checkEscape(i);
+            } else {
+                throw error("字符串中含未转义的控制字符", i);
+            }
+        }
+        append(((long) STRING << TYPE_SHIFT) | (escaped ? FLAG : 0) | start, i - start);
+        return i + 1;
+    }
+
+    /**
+     * 校验反斜杠开始的转义序列，解码时不再校验
+     *
+     * @return 转义序列之后的位置
+     */
+    private int checkEscape(int pos) throws JsonParseException {
+        if (pos + 1 >= buffer.length) {
+            throw error("字符串没有结束", pos);
+        }
+        switch (buffer[pos + 1]) {
+            case '"': case '\\': case '/': case 'b': case 'f': case 'n': case 'r': case 't':
+                return pos + 2;
+            case 'u':
+                for (int i = pos + 2; i < pos + 6; i++) {
+                    if (i >= buffer.length || Character.digit(buffer[i], 16) < 0) {
+                        throw error("无效的\\u转义", pos);
+                    }
+                }
+                return pos + 6;
+            default:
+                throw error("无效的转义字符", pos);
+        }
+    }
+
+    /**
+     * 按JSON数字语法扫描：-?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+     */
+    private int parseNumber(int pos) throws JsonParseException {
+        int i = pos;
+        if (i < buffer.length && buffer[i] == '-') {
+            i++;
+        }
+        if (i >= buffer.length || !isDigit(buffer[i])) {
+            throw error("无法识别的值", pos);
+        }
+        if (buffer[i] == '0') {
+            i++;
+        } else {
+            i = skipDigits(i);
+        }
+        boolean fractional = false;
+        if (i < buffer.length && buffer[i] == '.') {
+            fractional = true;
+            int digits = ++i;
+            i = skipDigits(i);
+            if (i == digits) {
+                throw error("小数点之后缺少数字", i);
+            }
+        }
+        if (i < buffer.length && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            fractional = true;
+            i++;
+            if (i < buffer.length && (buffer[i] == '+' || buffer[i] == '-')) {
+                i++;
+            }
+            int digits = i;
+            i = skipDigits(i);
+            if (i == digits) {
+                throw error("指数之后缺少数字", i);
+            }
+        }
+        append(((long) NUMBER << TYPE_SHIFT) | (fractional ? FLAG : 0) | pos, i - pos);
+        return i;
+    }
+
+    private int parseLiteral(int pos, String literal, int type) throws JsonParseException {
+        if (pos + literal.length() > buffer.length) {
+            throw error("无法识别的值", pos);
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buffer[pos + i] != literal.charAt(i)) {
+                throw error("无法识别的值", pos);
+            }
+        }
+        ensureCapacity(1);
+        tape[size++] = (long) type << TYPE_SHIFT;
+        return pos + literal.length();
+    }
+
+    private int skipDigits(int i) {
+        while (i < buffer.length && isDigit(buffer[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private int skipWhitespace(int pos) {
+        while (pos < buffer.length) {
+            byte b = buffer[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private void append(long first, long second) {
+        ensureCapacity(2);
+        tape[size++] = first;
+        tape[size++] = second;
+    }
+
+    private void ensureCapacity(int slots) {
+        if (size + slots > tape.length) {
+            tape = Arrays.copyOf(tape, Math.max(tape.length * 2, size + slots));
+        }
+    }
+
+    private void checkDepth(int depth, int pos) throws JsonParseException {
+        if (depth > MAX_DEPTH) {
+            throw error("嵌套层数超过 " + MAX_DEPTH, pos);
+        }
+    }
+
+    private JsonParseException error(String message, int pos) {
+        return new JsonParseException(null, message + "（字节偏移 " + pos + "）");
+    }
+
+    // ---------------------------------------------------------------- 读取
+
+    int type(int index) {
+        return (int) (tape[index] >>> TYPE_SHIFT);
+    }
+
+    /**
+     * 值之后的下一个槽位
+     */
+    int next(int index) {
+        switch (type(index)) {
+            case OBJECT:
+            case ARRAY:
+                return (int) (tape[index] & PAYLOAD_MASK);
+            case STRING:
+            case NUMBER:
+                return index + 2;
+            default:
+                return index + 1;
+        }
+    }
+
+    /**
+     * 对象或数组的成员数
+     */
+    int count(int index) {
+        return (int) tape[index + 1];
+    }
+
+    /**
+     * 对象或数组的第一个成员所在槽位
+     */
+    static int firstMember(int index) {
+        return index + 3;
+    }
+
+    /**
+     * 对象中字段值所在的槽位
+     *
+     * @return 不是对象或字段不存在时返回-1
+     */
+    public int field(int index, String name) {
+        if (type(index) != OBJECT) {
+            return -1;
+        }
+        int slot = firstMember(index);
+        for (int i = count(index); i > 0; i--) {
+            int value = slot + 2;
+            if (keyEquals(slot, name)) {
+                return value;
+            }
+            slot = next(value);
+        }
+        return -1;
+    }
+
+    /**
+     * 数组中元素所在的槽位
+     *
+     * @return 不是数组或下标越界时返回-1
+     */
+    public int element(int index, int position) {
+        if (type(index) != ARRAY || position < 0 || position >= count(index)) {
+            return -1;
+        }
+        int slot = firstMember(index);
+        for (int i = 0; i < position; i++) {
+            slot = next(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * 按路径段（String为字段名，Integer为数组下标）从指定槽位导航
+     *
+     * @return 路径指向的槽位，路径不存在时返回-1
+     */
+    public int find(int index, List<Object> segments) {
+        int slot = index;
+        for (int i = 0; i < segments.size() && slot >= 0; i++) {
+            Object segment = segments.get(i);
+            slot = segment instanceof Integer ? element(slot, (Integer) segment) : field(slot, (String) segment);
+        }
+        return slot;
+    }
+
+    /**
+     * 槽位的值是否为JSON null
+     */
+    public boolean isNull(int index) {
+        return type(index) == NULL;
+    }
+
+    /**
+     * 物化槽位的值：对象与数组返回只读视图（成员在访问时才解码），标量解码为值节点
+     */
+    public JsonNode node(int index) {
+        switch (type(index)) {
+            case OBJECT:
+                return new TapeObjectNode(this, index);
+            case ARRAY:
+                return new TapeArrayNode(this, index);
+            case STRING:
+                return TextNode.valueOf(string(index));
+            case NUMBER:
+                return number(index);
+            case TRUE:
+                return BooleanNode.TRUE;
+            case FALSE:
+                return BooleanNode.FALSE;
+            default:
+                return NullNode.getInstance();
+        }
+    }
+
+    /**
+     * 对象或数组在原始字节中的JSON文本
+     */
+    public String rawJson(int index) {
+        long range = tape[index + 2];
+        int start = (int) (range >>> 32);
+        return new String(buffer, start, (int) range - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解码字符串（含对象的键）
+     */
+    String string(int index) {
+        int start = (int) (tape[index] & PAYLOAD_MASK);
+        String raw = new String(buffer, start, (int) tape[index + 1], StandardCharsets.UTF_8);
+        return (tape[index] & FLAG) == 0 ? raw : unescape(raw);
+    }
+
+    /**
+     * 键是否等于给定的名称：不含转义时逐字节比较ASCII，其余情况解码后比较
+     */
+    boolean keyEquals(int index, String name) {
+        int length = (int) tape[index + 1];
+        if ((tape[index] & FLAG) == 0 && length == name.length()) {
+            int start = (int) (tape[index] & PAYLOAD_MASK);
+            for (int i = 0; i < length; i++) {
+                int b = buffer[start + i];
+                char c = name.charAt(i);
+                if (b < 0 || c >= 0x80) {
+                    return string(index).equals(name);
+                }
+                if (b != c) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        // 含转义或非ASCII字符时字节长度与字符数不一定相同
+        return ((tape[index] & FLAG) != 0 || length > name.length()) && string(index).equals(name);
+    }
+
+    /**
+     * 与Jackson的默认类型一致：整数按大小为 int/long/BigInteger，含小数或指数为 double
+     */
+    private JsonNode number(int index) {
+        int start = (int) (tape[index] & PAYLOAD_MASK);
+        int length = (int) tape[index + 1];
+        if ((tape[index] & FLAG) != 0) {
+            return DoubleNode.valueOf(Double.parseDouble(new String(buffer, start, length, StandardCharsets.ISO_8859_1)));
+        }
+        boolean negative = buffer[start] == '-';
+        int digits = negative ? length - 1 : length;
+        if (digits <= 18) {
+            long value = 0;
+            for (int i = negative ? start + 1 : start; i < start + length; i++) {
+                value = value * 10 + (buffer[i] - '0');
+            }
+            value = negative ? -value : value;
+            return value == (int) value ? IntNode.valueOf((int) value) : LongNode.valueOf(value);
+        }
+        BigInteger value = new BigInteger(new String(buffer, start, length, StandardCharsets.ISO_8859_1));
+        return value.bitLength() < 64 ? LongNode.valueOf(value.longValue()) : BigIntegerNode.valueOf(value);
+    }
+
+    private static String unescape(String raw) {
+        StringBuilder result = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            char escape = raw.charAt(++i);
+            switch (escape) {
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'u':
+                    result.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    // \" \\ \/
+                    result.append(escape);
+            }
+        }
+        return result.toString();
+    }
+}
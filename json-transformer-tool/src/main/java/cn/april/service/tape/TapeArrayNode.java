@@ -0,0 +1,35 @@
+package cn.april.service.tape;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * 磁带索引上的只读数组节点
+ * 元素在首次访问时才解码并缓存，读取方式与普通 ArrayNode 相同；任何修改操作抛出 UnsupportedOperationException，
+ * 需要修改时先 deepCopy
+ *
+ * @author April
+ */
+public final class TapeArrayNode extends ArrayNode implements TapeNode {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient JsonTape tape;
+    private final int index;
+
+    TapeArrayNode(JsonTape tape, int index) {
+        super(JsonNodeFactory.instance, new TapeElementList(tape, index));
+        this.tape = tape;
+        this.index = index;
+    }
+
+    @Override
+    public JsonTape getTape() {
+        return tape;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,54 @@
+package cn.april.service.tape;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * TapeArrayNode 的元素表：首次访问时记录所有元素的槽位，元素按需解码并缓存
+ *
+ * @author April
+ */
+final class TapeElementList extends AbstractList<JsonNode> implements RandomAccess {
+
+    private final JsonTape tape;
+    private final int index;
+    private final int size;
+    // 元素槽位与已解码的元素，首次访问时创建
+    private int[] slots;
+    private JsonNode[] elements;
+
+    TapeElementList(JsonTape tape, int index) {
+        this.tape = tape;
+        this.index = index;
+        this.size = tape.count(index);
+    }
+
+    @Override
+    public JsonNode get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("下标越界: " + position + "，数组长度: " + size);
+        }
+        if (slots == null) {
+            slots = new int[size];
+            elements = new JsonNode[size];
+            int slot = JsonTape.firstMember(index);
+            for (int i = 0; i < size; i++) {
+                slots[i] = slot;
+                slot = tape.next(slot);
+            }
+        }
+        JsonNode element = elements[position];
+        if (element == null) {
+            element = tape.node(slots[position]);
+            elements[position] = element;
+        }
+        return element;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
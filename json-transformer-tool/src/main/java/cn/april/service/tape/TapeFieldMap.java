@@ -0,0 +1,103 @@
+package cn.april.service.tape;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * TapeObjectNode 的字段表：按需解码字段值，已解码的值按字段序号缓存
+ *
+ * @author April
+ */
+final class TapeFieldMap extends AbstractMap<String, JsonNode> {
+
+    private final JsonTape tape;
+    private final int index;
+    private final int size;
+    // 按字段序号缓存的值，首次访问时创建
+    private JsonNode[] values;
+
+    TapeFieldMap(JsonTape tape, int index) {
+        this.tape = tape;
+        this.index = index;
+        this.size = tape.count(index);
+    }
+
+    @Override
+    public JsonNode get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int slot = JsonTape.firstMember(index);
+        for (int i = 0; i < size; i++) {
+            int valueSlot = slot + 2;
+            if (tape.keyEquals(slot, (String) key)) {
+                return value(i, valueSlot);
+            }
+            slot = tape.next(valueSlot);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && tape.field(index, (String) key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, JsonNode>> entrySet() {
+        return new AbstractSet<Entry<String, JsonNode>>() {
+            @Override
+            public Iterator<Entry<String, JsonNode>> iterator() {
+                return new Iterator<Entry<String, JsonNode>>() {
+                    private int ordinal;
+                    private int slot = JsonTape.firstMember(index);
+
+                    @Override
+                    public boolean hasNext() {
+                        return ordinal < size;
+                    }
+
+                    @Override
+                    public Entry<String, JsonNode> next() {
+                        if (ordinal >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        int valueSlot = slot + 2;
+                        Map.Entry<String, JsonNode> entry = new SimpleImmutableEntry<>(tape.string(slot), value(ordinal, valueSlot));
+                        ordinal++;
+                        slot = tape.next(valueSlot);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private JsonNode value(int ordinal, int slot) {
+        if (values == null) {
+            values = new JsonNode[size];
+        }
+        JsonNode value = values[ordinal];
+        if (value == null) {
+            value = tape.node(slot);
+            values[ordinal] = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,27 @@
+package cn.april.service.tape;
+
+/**
+ * 磁带索引上的只读对象/数组视图
+ * 路径读取器识别该接口后直接在磁带上导航，不为中间层级创建视图
+ *
+ * @author April
+ */
+public interface TapeNode {
+
+    /**
+     * 所属的磁带索引
+     */
+    JsonTape getTape();
+
+    /**
+     * 视图对应的槽位
+     */
+    int getIndex();
+
+    /**
+     * 原始字节中的JSON文本（不重新序列化）
+     */
+    default String rawJson() {
+        return getTape().rawJson(getIndex());
+    }
+}
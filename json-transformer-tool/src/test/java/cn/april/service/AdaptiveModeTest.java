@@ -0,0 +1,81 @@
+package cn.april.service;
+
+import cn.april.model.ExecutionTier;
+import cn.april.model.FieldMapping;
+import cn.april.model.MappingProfile;
+import cn.april.model.TransformConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 自适应执行：内置实现与Groovy对同一输入输出相同的结果，包括提升之后遇到的新类型的值
+ *
+ * @author April
+ */
+class AdaptiveModeTest {
+
+    private static final List<String> EXPRESSIONS = List.of(
+            "value", "value?.trim()", "value.toUpperCase()", "value?.toLowerCase()", "value.length()",
+            "value?.toString()", "value + '-' + $.b", "value + 1", "value == null ? 'none' : value",
+            "value != null ? value.trim() : $.b", "'x'", "42", "true", "null");
+
+    // 提升之后出现的值：数值、布尔、对象、数组、null与缺失
+    private static final List<String> LATE_VALUES = List.of(
+            "\" Mixed Case \"", "\"\"", "0", "5", "9223372036854775807", "-3", "1.5", "true", "null",
+            "{\"x\":1}", "[1,2]", "\"中文\"", "\"\\u00e9\\n\"");
+
+    private static final List<String> B_VALUES = List.of("\"b\"", "7", "null", "");
+
+    @Test
+    void nativeResultsMatchGroovy() throws Exception {
+        JsonTransformService groovy = new JsonTransformService(config(false));
+        JsonTransformService adaptive = new JsonTransformService(config(true));
+        // 采样窗口内只出现字符串，全部映射提升为内置实现
+        for (int i = 0; i < 1100; i++) {
+            assertSameResult(groovy, adaptive, record("\" s" + (i % 10) + " \"", B_VALUES.get(i % 2)));
+        }
+        for (MappingProfile profile : adaptive.getMappingProfiles()) {
+            assertEquals("OPTIMIZED", profile.getState(), profile.toString());
+        }
+        assertEquals(ExecutionTier.NATIVE, adaptive.getMappingProfiles().get(1).getTier());
+
+        // 提升之后出现其他类型的值：内置实现不支持的值交给Groovy，结果不变
+        for (int i = 0; i < 400; i++) {
+            assertSameResult(groovy, adaptive,
+                    record(i % 7 == 0 ? null : LATE_VALUES.get(i % LATE_VALUES.size()), B_VALUES.get(i % B_VALUES.size())));
+        }
+    }
+
+    private static void assertSameResult(JsonTransformService groovy, JsonTransformService adaptive, String record) throws Exception {
+        JsonNode expected = groovy.transform(record);
+        assertEquals(expected, adaptive.transform(record), record);
+    }
+
+    private static String record(String a, String b) {
+        List<String> fields = new ArrayList<>();
+        if (a != null) {
+            fields.add("\"a\":" + a);
+        }
+        if (!b.isEmpty()) {
+            fields.add("\"b\":" + b);
+        }
+        return "{" + String.join(",", fields) + "}";
+    }
+
+    private static TransformConfig config(boolean adaptive) {
+        List<FieldMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < EXPRESSIONS.size(); i++) {
+            mappings.add(new FieldMapping("$.a", "$.r" + i, EXPRESSIONS.get(i), null));
+        }
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(mappings);
+        config.setAdaptive(adaptive);
+        return config;
+    }
+}
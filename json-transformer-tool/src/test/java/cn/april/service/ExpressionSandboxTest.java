@@ -0,0 +1,162 @@
+package cn.april.service;
+
+import cn.april.model.ExpressionSandbox;
+import cn.april.model.FieldMapping;
+import cn.april.model.TransformConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 表达式沙箱：编译期拒绝的写法与执行期的限制
+ *
+ * @author April
+ */
+class ExpressionSandboxTest {
+
+    private static final String SOURCE = "{\"a\":\"Hello world\",\"n\":3}";
+    // 首次执行包含Groovy运行时的初始化，只验证结果的用例放宽执行时间上限
+    private static final long GENEROUS_TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rejectsAnnotationsBeforeAstTransformsRun() {
+        Path marker = tempDir.resolve("pwned");
+        String path = marker.toString().replace("\\", "/");
+        assertRejected("@groovy.transform.ASTTest(value={ new File(\"" + path + "\").text = \"x\" }) def y = 1; value");
+        assertRejected("@groovy.transform.ASTTest(value={ new File(\"" + path + "\").text = \"x\" }) class A {}; value");
+        assertRejected("@Grab('org.example:none:1.0') import java.util.List; value");
+        assertRejected("@groovy.transform.Field def z = 1; value");
+        assertRejected("{ @Deprecated x -> x }(1); value");
+        assertFalse(Files.exists(marker));
+    }
+
+    @Test
+    void rejectsComputedSubscriptsThatCouldNameAProperty() throws Exception {
+        assertRejected("def k = 'cla' + 'ss'; value[k]");
+        assertRejected("def k = 'cla' + 'ss'; value.getAt(k)");
+        assertRejected("def k = 'metaClass'; value.putAt(k, null); value");
+        assertRejected("def k = 'class'; [1, 2][k]");
+        assertRejected("def m = [a: 1]; def k = 'a'; m[k]");
+        assertRejected("value.hasProperty('bytes').type");
+        assertEquals("e", transform("int i = 1; value[i]").get("a").asText());
+        assertEquals(1, transform("Map m = [a: 1]; def k = 'a'; m[k]").get("a").asInt());
+        assertEquals(2, transform("List l = [1, 2]; long i = 1; l[i]").get("a").asInt());
+    }
+
+    @Test
+    void acceptsPlainExpressions() throws Exception {
+        assertEquals("HELLO WORLD", transform("value.toUpperCase()").get("a").asText());
+        assertEquals(6, transform("def sum = 0; for (int i = 0; i < 4; i++) { sum += i }; sum").get("a").asInt());
+        assertEquals("[h, w]", transform("value.split(' ').collect { it[0].toLowerCase() }.toString()").get("a").asText());
+    }
+
+    @Test
+    void failsFastOnOversizedAllocations() {
+        List<String> expressions = List.of(
+                "value.padLeft(400000000)",
+                "value.padRight(400000000)",
+                "value.center(400000000)",
+                "value * 400000000",
+                "def s = value; 40.times { s = s + s }; s",
+                "def s = value; 40.times { s += s }; s",
+                "def s = value; 40.times { s = s.plus(s) }; s",
+                "def l = [1]; 40.times { l = l + l }; l.size()",
+                "def b = new StringBuilder(); 40.times { b << value << b }; b.length()",
+                "(2G ** 400000000).bitLength()",
+                "(1G << 400000000).bitLength()",
+                "String.format('%400000000s', value)",
+                "sprintf('%.400000000f', 1.5)");
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (String expression : expressions) {
+                // 执行失败的表达式保留原值
+                assertEquals("Hello world", transform(expression).get("a").asText(), expression);
+            }
+        });
+    }
+
+    @Test
+    void rejectsSizedCallsThatBypassTheCheck() {
+        assertRejected("value.with { padLeft(400000000) }");
+        assertRejected("[value]*.padLeft(400000000)");
+        assertRejected("def m = [a: value]; m.a += m.a; m");
+        assertRejected("new StringBuilder(400000000)");
+    }
+
+    @Test
+    void acceptsSizedCallsWithinTheLimit() throws Exception {
+        assertEquals("    Hello world", transform("value.padLeft(15)").get("a").asText());
+        assertEquals("**Hello world**", transform("value.center(15, '*')").get("a").asText());
+        assertEquals("00003|1.50|%", transform("String.format('%05d|%.2f|%%', 3, 1.5)").get("a").asText());
+        assertEquals(44, transform("def s = value; 2.times { s = s + s }; s.length()").get("a").asInt());
+        assertEquals(8, transform("2 ** 3").get("a").asInt());
+    }
+
+    @Test
+    void checksTheDeadlineOnTheFirstCheck() {
+        ExpressionDeadline.set(System.nanoTime() - 1);
+        try {
+            assertThrows(RuntimeException.class, ExpressionDeadline::check);
+        } finally {
+            ExpressionDeadline.set(0);
+        }
+    }
+
+    @Test
+    void stopsExpressionsThatRunPastTheTimeout() throws Exception {
+        ExpressionSandbox sandbox = new ExpressionSandbox();
+        sandbox.setTimeoutMillis(200L);
+        JsonTransformService service = service("while (true) {}; 'done'", sandbox);
+        long start = System.nanoTime();
+        assertEquals("Hello world", service.transform(SOURCE).get("a").asText());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 5_000);
+    }
+
+    @Test
+    void skipsRemainingExpressionsOnceTheRecordBudgetIsSpent() throws Exception {
+        ExpressionSandbox sandbox = new ExpressionSandbox();
+        sandbox.setTimeoutMillis(200L);
+        sandbox.setRecordBudgetMillis(100L);
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(List.of(
+                new FieldMapping("$.a", "$.a", "while (true) {}; 'done'", null),
+                // 插入了超时检查的表达式每次执行前都检查记录预算
+                new FieldMapping("$.a", "$.b", "value.collect { it.toUpperCase() }.join()", null)));
+        config.setExpressionSandbox(sandbox);
+        JsonNode result = new JsonTransformService(config).transform(SOURCE);
+        assertEquals("Hello world", result.get("a").asText());
+        assertFalse(result.has("b") && "HELLO WORLD".equals(result.get("b").asText()));
+    }
+
+    static JsonNode transform(String expression) throws Exception {
+        ExpressionSandbox sandbox = new ExpressionSandbox();
+        sandbox.setTimeoutMillis(GENEROUS_TIMEOUT_MILLIS);
+        return service(expression, sandbox).transform(SOURCE);
+    }
+
+    static JsonTransformService service(String expression, ExpressionSandbox sandbox) {
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(List.of(new FieldMapping("$.a", "$.a", expression, null)));
+        config.setExpressionSandbox(sandbox);
+        return new JsonTransformService(config);
+    }
+
+    static void assertRejected(String expression) {
+        assertThrows(RuntimeException.class, () -> service(expression, new ExpressionSandbox()), expression);
+    }
+}
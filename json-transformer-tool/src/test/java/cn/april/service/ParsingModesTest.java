@@ -0,0 +1,131 @@
+package cn.april.service;
+
+import cn.april.model.FieldMapping;
+import cn.april.model.TransformConfig;
+import cn.april.service.scan.NdjsonReader;
+import cn.april.service.scan.StructuralIndex;
+import cn.april.service.scan.StructuralScanner;
+import cn.april.service.tape.JsonTape;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 不同的源数据解析方式输出相同的转换结果
+ *
+ * @author April
+ */
+class ParsingModesTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final List<String> RECORDS = List.of(
+            "{\"id\":1,\"title\":\"plain\",\"num\":12,\"user\":{\"name\":\"a\",\"tags\":[\"x\",\"y\"]},\"items\":[{\"k\":1},{\"k\":2}]}",
+            "{\"id\":-2,\"title\":\"esc \\\"q\\\" \\\\ \\n \\u00e9 \\ud83d\\ude00 中文\",\"num\":1.5e3,\"user\":null,\"items\":[]}",
+            "{\"skip\":\"" + "long , ] } { \\\" text ".repeat(20) + "\",\"id\":9223372036854775808,\"num\":-0.25,"
+                    + "\"user\":{\"tags\":[],\"name\":\"\"},\"items\":[{\"k\":true},{\"k\":null,\"extra\":[1,[2,{\"z\":3}]]}],\"title\":\"last\"}",
+            "{ \"id\" : 3 , \"title\" : \"spaces\" ,\n \"num\" : 0 }");
+
+    @Test
+    void tapeMatchesFullParse() throws Exception {
+        assertSameOutput(config -> config.setTapeParsing(true));
+        for (String record : RECORDS) {
+            assertEquals(MAPPER.readTree(record), MAPPER.readTree(JsonTape.parse(record).toString()), record);
+        }
+    }
+
+    @Test
+    void selectiveParsingMatchesFullParse() throws Exception {
+        assertSameOutput(config -> config.setSelectiveParsing(true));
+        assertSameOutput(config -> {
+            config.setSelectiveParsing(true);
+            config.setStructuralScanning(true);
+        });
+        // 两者同时开启时使用磁带
+        assertSameOutput(config -> {
+            config.setSelectiveParsing(true);
+            config.setTapeParsing(true);
+        });
+    }
+
+    @Test
+    void scannersAgreeOnTheStructuralIndex() {
+        List<StructuralScanner> scanners = new ArrayList<>(List.of(StructuralScanner.scalar(), StructuralScanner.getDefault()));
+        if (StructuralScanner.vector() != null) {
+            scanners.add(StructuralScanner.vector());
+        }
+        for (String record : RECORDS) {
+            byte[] json = record.getBytes(StandardCharsets.UTF_8);
+            int[] expected = positions(StructuralScanner.scalar().index(json, 0, json.length));
+            for (StructuralScanner scanner : scanners) {
+                assertArrayEquals(expected, positions(scanner.index(json, 0, json.length)), scanner.getName() + ": " + record);
+            }
+        }
+    }
+
+    @Test
+    void ndjsonReaderSplitsRecordsAtNewlines() throws Exception {
+        String ndjson = String.join("\n", RECORDS).replace("\n \"num\"", " \"num\"") + "\n\n  \n" + RECORDS.get(0);
+        // 缓冲区小于单条记录，覆盖扩容与跨缓冲区的换行
+        NdjsonReader reader = new NdjsonReader(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                StructuralScanner.getDefault(), 64);
+        List<JsonNode> records = new ArrayList<>();
+        byte[] line;
+        while ((line = reader.next()) != null) {
+            records.add(MAPPER.readTree(line));
+        }
+        assertEquals(RECORDS.size() + 1, records.size());
+        for (int i = 0; i < RECORDS.size(); i++) {
+            assertEquals(MAPPER.readTree(RECORDS.get(i)), records.get(i));
+        }
+        assertEquals(RECORDS.size() + 3, reader.getLineNumber());
+    }
+
+    private static int[] positions(StructuralIndex index) {
+        int[] positions = new int[index.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = index.position(i);
+        }
+        return positions;
+    }
+
+    /**
+     * 按给定的解析方式转换每条记录（字符串与字节输入），与完整解析的结果比较
+     */
+    static void assertSameOutput(Consumer<TransformConfig> parsing) throws Exception {
+        JsonTransformService full = new JsonTransformService(config());
+        TransformConfig config = config();
+        parsing.accept(config);
+        JsonTransformService service = new JsonTransformService(config);
+        for (String record : RECORDS) {
+            JsonNode expected = full.transform(record);
+            assertEquals(expected, service.transform(record), record);
+            assertEquals(expected, MAPPER.readTree(service.transformToBytes(record.getBytes(StandardCharsets.UTF_8))), record);
+        }
+    }
+
+    private static TransformConfig config() {
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{}");
+        config.setMappings(List.of(
+                new FieldMapping("$.id", "$.id", null, null),
+                new FieldMapping("$.title", "$.title", null, null),
+                new FieldMapping("$.num", "$.num", null, null),
+                new FieldMapping("$.user.name", "$.user_name", null, null),
+                new FieldMapping("$.user.tags", "$.tags", null, null),
+                new FieldMapping("$.items[1].k", "$.second", null, null),
+                new FieldMapping("$.items[*].k", "$.all", null, null),
+                new FieldMapping("$.user", "$.user_json", "value == null ? null : value.toString()", null),
+                new FieldMapping("$.title", "$.summary", "value + '|' + $.id", null)));
+        return config;
+    }
+}
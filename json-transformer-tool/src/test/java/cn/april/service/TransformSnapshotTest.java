@@ -0,0 +1,46 @@
+package cn.april.service;
+
+import cn.april.model.FieldMapping;
+import cn.april.model.TransformConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 增量转换：只重新计算读取集变化的映射，输出相对上一个快照的 JSON Patch
+ *
+ * @author April
+ */
+class TransformSnapshotTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void emitsPatchForChangedMappingsOnly() throws Exception {
+        TransformConfig config = new TransformConfig();
+        config.setTargetJson("{\"title\":\"\",\"extras\":{\"replies\":0,\"label\":\"\"}}");
+        config.setMappings(List.of(
+                new FieldMapping("$.title", "$.title", null, null),
+                new FieldMapping("$.total_replay_num", "$.extras.replies", null, "int"),
+                new FieldMapping("$.tieba_name", "$.extras.label", "value + '吧'", null)));
+        JsonTransformService service = new JsonTransformService(config);
+
+        TransformSnapshot first = service.snapshot("{\"title\":\"t\",\"total_replay_num\":1,\"tieba_name\":\"a\"}");
+        assertNull(first.getPatch());
+        assertEquals(MAPPER.readTree("{\"title\":\"t\",\"extras\":{\"replies\":1,\"label\":\"a吧\"}}"), first.getOutput());
+
+        TransformSnapshot second = service.update(first, "{\"title\":\"t\",\"total_replay_num\":2,\"tieba_name\":\"a\"}");
+        assertEquals(1, second.getReevaluatedMappings());
+        assertEquals(MAPPER.readTree("[{\"op\":\"replace\",\"path\":\"/extras/replies\",\"value\":2}]"), second.getPatch());
+
+        JsonNode sourcePatch = MAPPER.readTree("[{\"op\":\"replace\",\"path\":\"/tieba_name\",\"value\":\"b\"}]");
+        TransformSnapshot third = service.updateWithPatch(second, sourcePatch);
+        assertEquals(MAPPER.readTree("[{\"op\":\"replace\",\"path\":\"/extras/label\",\"value\":\"b吧\"}]"), third.getPatch());
+        assertEquals(service.transform("{\"title\":\"t\",\"total_replay_num\":2,\"tieba_name\":\"b\"}"), third.getOutput());
+    }
+}
@@ -0,0 +1,61 @@
+package cn.april.service.aggregate;
+
+import cn.april.model.Aggregation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 聚合结果的数值类型：按分组判断是否都是整数
+ *
+ * @author April
+ */
+class AggregationAccumulatorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void rendersEachGroupFromItsOwnExactness() throws Exception {
+        AggregationAccumulator accumulator = plan("sum").newAccumulator();
+        accumulate(accumulator, "{\"g\":\"a\",\"v\":4.0}", "{\"g\":\"b\",\"v\":2.5}", "{\"g\":\"c\",\"v\":0}");
+        assertEquals("{\"a\":4,\"b\":2.5,\"c\":0}", result(accumulator));
+    }
+
+    @Test
+    void keepsExactnessPerGroupWhenMerging() throws Exception {
+        AggregationPlan plan = plan("max");
+        AggregationAccumulator left = plan.newAccumulator();
+        AggregationAccumulator right = plan.newAccumulator();
+        accumulate(left, "{\"g\":\"a\",\"v\":1.5}", "{\"g\":\"b\",\"v\":\"7\"}");
+        accumulate(right, "{\"g\":\"b\",\"v\":3}", "{\"g\":\"c\",\"v\":2}", "{\"g\":\"c\",\"v\":2.25}");
+        left.merge(right);
+        assertEquals("{\"a\":1.5,\"b\":7,\"c\":2.25}", result(left));
+    }
+
+    @Test
+    void sumsBeyondTheLongRangeAsBigIntegers() throws Exception {
+        AggregationAccumulator accumulator = plan("sum").newAccumulator();
+        accumulate(accumulator, "{\"g\":\"a\",\"v\":9223372036854775807}", "{\"g\":\"a\",\"v\":1}", "{\"g\":\"b\",\"v\":0.5}");
+        assertEquals("{\"a\":9223372036854775808,\"b\":0.5}", result(accumulator));
+    }
+
+    private static AggregationPlan plan(String function) {
+        return new AggregationPlan(List.of(new Aggregation("$.result", function, "$.v", "$.g")),
+                path -> record -> record.get(path.substring(2)));
+    }
+
+    private static void accumulate(AggregationAccumulator accumulator, String... records) throws Exception {
+        for (String record : records) {
+            accumulator.accumulate(MAPPER.readTree(record));
+        }
+    }
+
+    private static String result(AggregationAccumulator accumulator) {
+        JsonNode result = accumulator.getResults().get("$.result");
+        return result.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package cn.april.service.lookup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV查找表的解析：引号字段、转义、跨行字段与格式错误
+ *
+ * @author April
+ */
+class LookupTableLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesQuotedFields() throws Exception {
+        LookupTable table = load(String.join("\n",
+                "# comment",
+                "\"Smith, J\",42",
+                "plain , value, with commas ",
+                "\"say \"\"hi\"\"\",\"a, \"\"b\"\"\"",
+                "\"multi\",\"line one",
+                "line two\"",
+                "no comma here",
+                "after,\"quoted\"  "));
+        assertEquals("42", table.get("Smith, J"));
+        assertEquals("value, with commas", table.get("plain"));
+        assertEquals("a, \"b\"", table.get("say \"hi\""));
+        assertEquals("line one\nline two", table.get("multi"));
+        assertEquals("quoted", table.get("after"));
+        assertNull(table.get("no comma here"));
+        assertEquals(5, table.size());
+    }
+
+    @Test
+    void rejectsMalformedQuotesWithTheLineNumber() {
+        IOException unclosed = assertThrows(IOException.class, () -> load("a,1\n\"b,2\nc,3"));
+        assertTrue(unclosed.getMessage().contains("第 2 行"), unclosed.getMessage());
+        IOException trailing = assertThrows(IOException.class, () -> load("a,1\n# x\n\"b\"x,2"));
+        assertTrue(trailing.getMessage().contains("第 3 行"), trailing.getMessage());
+        IOException afterValue = assertThrows(IOException.class, () -> load("a,\"1\",2"));
+        assertTrue(afterValue.getMessage().contains("第 1 行"), afterValue.getMessage());
+    }
+
+    private LookupTable load(String content) throws IOException {
+        Path file = tempDir.resolve("table.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return new LookupTableLoader().load(file.toString());
+    }
+}
@@ -0,0 +1,48 @@
+package cn.april.service.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 堆外查找表的null处理与堆内表一致
+ *
+ * @author April
+ */
+class OffHeapLookupTableTest {
+
+    @Test
+    void handlesNullsLikeTheHeapTable() {
+        OffHeapLookupTable.Builder builder = new OffHeapLookupTable.Builder();
+        HeapLookupTable heap = new HeapLookupTable();
+        String[][] entries = {{"nullValue", null}, {"empty", ""}, {"key", "值"}};
+        for (String[] entry : entries) {
+            builder.put(entry[0], entry[1]);
+            heap.put(entry[0], entry[1]);
+        }
+        OffHeapLookupTable offHeap = builder.build();
+
+        assertEquals(3, offHeap.size());
+        for (String key : new String[]{"nullValue", "empty", "key", "missing", null}) {
+            assertEquals(heap.get(key), offHeap.get(key), String.valueOf(key));
+        }
+        assertNull(offHeap.get("nullValue"));
+        assertEquals("", offHeap.get("empty"));
+        assertEquals("值", offHeap.get("key"));
+    }
+
+    @Test
+    void findsEveryKeyAfterGrowing() {
+        OffHeapLookupTable.Builder builder = new OffHeapLookupTable.Builder();
+        for (int i = 0; i < 5000; i++) {
+            builder.put("k" + i, i % 7 == 0 ? null : "v" + i);
+        }
+        OffHeapLookupTable table = builder.build();
+        assertEquals(5000, table.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i % 7 == 0 ? null : "v" + i, table.get("k" + i));
+        }
+        assertNull(table.get("k5000"));
+    }
+}
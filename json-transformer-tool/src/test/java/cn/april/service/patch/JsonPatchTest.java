@@ -0,0 +1,61 @@
+package cn.april.service.patch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * JSON Patch（RFC 6902）的生成与应用
+ *
+ * @author April
+ */
+class JsonPatchTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void diffsObjectsFieldByField() throws Exception {
+        JsonNode from = json("{\"a\":1,\"gone\":true,\"n\":{\"x\":\"old\",\"y\":[1,2]},\"list\":[1]}");
+        JsonNode to = json("{\"a\":1,\"n\":{\"x\":\"new\",\"y\":[1,3]},\"list\":[1,2],\"added\":null}");
+        assertEquals(json("["
+                + "{\"op\":\"remove\",\"path\":\"/gone\"},"
+                + "{\"op\":\"replace\",\"path\":\"/n/x\",\"value\":\"new\"},"
+                + "{\"op\":\"replace\",\"path\":\"/n/y/1\",\"value\":3},"
+                + "{\"op\":\"replace\",\"path\":\"/list\",\"value\":[1,2]},"
+                + "{\"op\":\"add\",\"path\":\"/added\",\"value\":null}]"), JsonPatch.diff(from, to));
+        assertEquals(to, JsonPatch.apply(from, JsonPatch.diff(from, to)));
+        assertEquals(0, JsonPatch.diff(to, to.deepCopy()).size());
+    }
+
+    @Test
+    void escapesPointerTokens() throws Exception {
+        JsonNode from = json("{\"a/b\":1,\"m~n\":1}");
+        JsonNode to = json("{\"a/b\":2,\"m~n\":3}");
+        assertEquals(json("[{\"op\":\"replace\",\"path\":\"/a~1b\",\"value\":2},{\"op\":\"replace\",\"path\":\"/m~0n\",\"value\":3}]"),
+                JsonPatch.diff(from, to));
+        assertEquals(to, JsonPatch.apply(from, JsonPatch.diff(from, to)));
+    }
+
+    @Test
+    void appliesPatchesToACopy() throws Exception {
+        JsonNode document = json("{\"a\":{\"b\":[1,2]}}");
+        JsonNode patched = JsonPatch.apply(document, json("["
+                + "{\"op\":\"add\",\"path\":\"/a/b/-\",\"value\":3},"
+                + "{\"op\":\"test\",\"path\":\"/a/b/0\",\"value\":1},"
+                + "{\"op\":\"move\",\"from\":\"/a/b\",\"path\":\"/c\"},"
+                + "{\"op\":\"copy\",\"from\":\"/c\",\"path\":\"/a/d\"}]"));
+        assertEquals(json("{\"a\":{\"d\":[1,2,3]},\"c\":[1,2,3]}"), patched);
+        assertEquals(json("{\"a\":{\"b\":[1,2]}}"), document);
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonPatch.apply(document, json("[{\"op\":\"test\",\"path\":\"/a/b/0\",\"value\":2}]")));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonPatch.apply(document, json("[{\"op\":\"remove\",\"path\":\"/missing\"}]")));
+    }
+
+    private static JsonNode json(String text) throws Exception {
+        return MAPPER.readTree(text);
+    }
+}